@@ -0,0 +1,273 @@
+package com.configcat;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Generates the synthetic config JSONs and the user population used by the benchmarks.
+ */
+final class BenchmarkData {
+    static final String CONFIG_SALT = "benchmark-salt";
+    static final String MATRIX_FILE = "matrix/testmatrix.csv";
+    static final int RULES_PER_FLAG = 4;
+
+    // UserComparator ids as they appear in the config JSON.
+    private static final int CONTAINS_ANY_OF = 2;
+    private static final int SEMVER_LESS = 6;
+    private static final int SEMVER_GREATER_EQUALS = 9;
+    private static final int SENSITIVE_IS_ONE_OF = 16;
+    private static final int DATE_BEFORE = 18;
+    private static final int DATE_AFTER = 19;
+    private static final int HASHED_EQUALS = 20;
+    private static final int HASHED_STARTS_WITH = 22;
+    private static final int HASHED_ENDS_WITH = 24;
+    private static final int HASHED_ARRAY_CONTAINS = 26;
+    private static final int TEXT_EQUALS = 28;
+    private static final int TEXT_ARRAY_CONTAINS = 34;
+
+    private BenchmarkData() { /* prevent from instantiation*/ }
+
+    /**
+     * The comparator families a synthetic config can be built from.
+     */
+    enum Family {
+        TEXT, HASHED, SEMVER, NUMBER, DATE, ARRAY, SEGMENT, PREREQUISITE, PERCENTAGE, MIXED
+    }
+
+    /**
+     * The config sizes used by the deserialization and cache round-trip benchmarks.
+     */
+    enum Size {
+        SMALL(10), MEDIUM(100), LARGE(1000), XLARGE(5000);
+
+        final int flagCount;
+
+        Size(int flagCount) {
+            this.flagCount = flagCount;
+        }
+    }
+
+    static String flagKey(int index) {
+        return "flag" + index;
+    }
+
+    static String generateConfig(Family family, int flagCount) {
+        JsonObject preferences = new JsonObject();
+        preferences.addProperty("u", "https://cdn-global.configcat.com");
+        preferences.addProperty("r", 0);
+        preferences.addProperty("s", CONFIG_SALT);
+
+        JsonObject settings = new JsonObject();
+        for (int i = 0; i < flagCount; i++) {
+            Family flagFamily = family == Family.MIXED ? Family.values()[i % (Family.values().length - 1)] : family;
+            settings.add(flagKey(i), setting(flagFamily, i));
+        }
+
+        JsonObject config = new JsonObject();
+        config.add("p", preferences);
+        config.add("f", settings);
+        if (family == Family.SEGMENT || family == Family.MIXED) {
+            config.add("s", segments());
+        }
+        return config.toString();
+    }
+
+    static List<User> loadUsers() throws IOException {
+        List<User> users = new ArrayList<>();
+        try (InputStream stream = BenchmarkData.class.getClassLoader().getResourceAsStream(MATRIX_FILE)) {
+            if (stream == null) {
+                throw new IOException("Missing benchmark resource: " + MATRIX_FILE);
+            }
+            BufferedReader reader = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8));
+            String[] header = reader.readLine().split(";");
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] row = line.split(";", -1);
+                if (row[0].isEmpty() || row[0].equals("##null##")) {
+                    continue;
+                }
+                int index = users.size();
+                Map<String, Object> custom = new HashMap<>();
+                if (!row[3].isEmpty() && !row[3].equals("##null##")) {
+                    custom.put(header[3], row[3]);
+                }
+                custom.put("AppVersion", "1." + (index % 10) + ".0");
+                custom.put("Age", index % 80);
+                custom.put("SignupDate", new Date(1_600_000_000_000L + index * 86_400_000L));
+                custom.put("Roles", new String[]{"role" + (index % RULES_PER_FLAG), "reader"});
+                users.add(User.newBuilder()
+                        .email(row[1].equals("##null##") ? null : row[1])
+                        .country(row[2].equals("##null##") ? null : row[2])
+                        .custom(custom)
+                        .build(row[0]));
+            }
+        }
+        return users;
+    }
+
+    private static JsonObject setting(Family family, int index) {
+        String key = flagKey(index);
+        JsonObject setting = new JsonObject();
+        setting.addProperty("t", 1);
+        setting.addProperty("a", "Identifier");
+        setting.add("v", stringValue("default" + index));
+        setting.addProperty("i", "v-" + index);
+
+        if (family == Family.PERCENTAGE) {
+            setting.add("p", percentageOptions(index));
+            return setting;
+        }
+
+        JsonArray rules = new JsonArray();
+        for (int rule = 0; rule < RULES_PER_FLAG; rule++) {
+            JsonObject condition = condition(family, key, index, rule);
+            if (condition == null) {
+                continue;
+            }
+            JsonArray conditions = new JsonArray();
+            conditions.add(condition);
+
+            JsonObject servedValue = new JsonObject();
+            servedValue.add("v", stringValue("rule" + rule));
+            servedValue.addProperty("i", "v-" + index + "-" + rule);
+
+            JsonObject targetingRule = new JsonObject();
+            targetingRule.add("c", conditions);
+            targetingRule.add("s", servedValue);
+            rules.add(targetingRule);
+        }
+        setting.add("r", rules);
+        return setting;
+    }
+
+    private static JsonObject condition(Family family, String key, int index, int rule) {
+        switch (family) {
+            case TEXT:
+                // IS ONE OF, CONTAINS ANY OF, EQUALS, STARTS WITH ANY OF
+                return userCondition("Email", new int[]{0, 2, 28, 30}[rule], "user" + rule + "@example.com");
+            case HASHED:
+                switch (rule) {
+                    case 0:
+                        return userCondition("Email", SENSITIVE_IS_ONE_OF, hashed("user0@example.com", key));
+                    case 1:
+                        return userCondition("Email", HASHED_EQUALS, hashed("user1@example.com", key));
+                    case 2:
+                        return userCondition("Email", HASHED_STARTS_WITH, hashedSlice("user2", key));
+                    default:
+                        return userCondition("Email", HASHED_ENDS_WITH, hashedSlice("@configcat.com", key));
+                }
+            case SEMVER:
+                // IS ONE OF, <, >, >=
+                return userCondition("AppVersion", new int[]{4, 6, 8, 9}[rule], "1." + (rule * 3) + ".0");
+            case NUMBER:
+                // =, <, >, >=
+                return numberCondition("Age", new int[]{10, 12, 14, 15}[rule], 18 + rule * 10);
+            case DATE:
+                return numberCondition("SignupDate", rule % 2 == 0 ? DATE_BEFORE : DATE_AFTER, 1_600_000_000 + rule * 5_000_000);
+            case ARRAY:
+                return userCondition("Roles", rule % 2 == 0 ? TEXT_ARRAY_CONTAINS : HASHED_ARRAY_CONTAINS,
+                        rule % 2 == 0 ? "role" + rule : hashed("role" + rule, key));
+            case SEGMENT:
+                JsonObject segmentCondition = new JsonObject();
+                segmentCondition.addProperty("s", rule);
+                segmentCondition.addProperty("c", 0);
+                JsonObject segment = new JsonObject();
+                segment.add("s", segmentCondition);
+                return segment;
+            case PREREQUISITE:
+                // Every tenth flag is a plain prerequisite for the nine flags after it.
+                if (index % 10 == 0) {
+                    return null;
+                }
+                JsonObject prerequisiteCondition = new JsonObject();
+                prerequisiteCondition.addProperty("f", flagKey(index - index % 10));
+                prerequisiteCondition.addProperty("c", rule % 2);
+                prerequisiteCondition.add("v", stringValue("rule" + rule));
+                JsonObject prerequisite = new JsonObject();
+                prerequisite.add("p", prerequisiteCondition);
+                return prerequisite;
+            default:
+                throw new IllegalArgumentException("Unsupported family: " + family);
+        }
+    }
+
+    private static JsonObject userCondition(String attribute, int comparator, String value) {
+        JsonObject userCondition = new JsonObject();
+        userCondition.addProperty("a", attribute);
+        userCondition.addProperty("c", comparator);
+        if (comparator == TEXT_EQUALS || comparator == HASHED_EQUALS
+                || (comparator >= SEMVER_LESS && comparator <= SEMVER_GREATER_EQUALS)) {
+            userCondition.addProperty("s", value);
+        } else {
+            JsonArray values = new JsonArray();
+            values.add(value);
+            values.add(value + "-other");
+            userCondition.add("l", values);
+        }
+        JsonObject condition = new JsonObject();
+        condition.add("u", userCondition);
+        return condition;
+    }
+
+    private static JsonObject numberCondition(String attribute, int comparator, double value) {
+        JsonObject userCondition = new JsonObject();
+        userCondition.addProperty("a", attribute);
+        userCondition.addProperty("c", comparator);
+        userCondition.addProperty("d", value);
+        JsonObject condition = new JsonObject();
+        condition.add("u", userCondition);
+        return condition;
+    }
+
+    private static JsonArray segments() {
+        JsonArray segments = new JsonArray();
+        for (int i = 0; i < RULES_PER_FLAG; i++) {
+            JsonArray conditions = new JsonArray();
+            conditions.add(userCondition("Email", CONTAINS_ANY_OF, "user" + i).get("u"));
+            JsonObject segment = new JsonObject();
+            segment.addProperty("n", "segment" + i);
+            segment.add("r", conditions);
+            segments.add(segment);
+        }
+        return segments;
+    }
+
+    private static JsonArray percentageOptions(int index) {
+        JsonArray options = new JsonArray();
+        int[] percentages = {10, 20, 30, 40};
+        for (int i = 0; i < percentages.length; i++) {
+            JsonObject option = new JsonObject();
+            option.addProperty("p", percentages[i]);
+            option.add("v", stringValue("option" + i));
+            option.addProperty("i", "v-" + index + "-p" + i);
+            options.add(option);
+        }
+        return options;
+    }
+
+    private static JsonObject stringValue(String value) {
+        JsonObject settingValue = new JsonObject();
+        settingValue.addProperty("s", value);
+        return settingValue;
+    }
+
+    private static String hashed(String value, String contextSalt) {
+        return RolloutEvaluator.getSaltedUserValue(value, CONFIG_SALT, contextSalt);
+    }
+
+    private static String hashedSlice(String value, String contextSalt) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        return bytes.length + "_" + RolloutEvaluator.getSaltedUserValueSlice(bytes, CONFIG_SALT, contextSalt);
+    }
+}
@@ -0,0 +1,81 @@
+package com.configcat;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link ConfigCatClient#getValue} and {@link ConfigCatClient#getAllValues} served from a warm cache.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class ClientBenchmark {
+    private static final String SDK_KEY = "configcat-sdk-1/benchmark-sdk-key-0000/benchmark-config-00000";
+
+    @Param({"SMALL", "MEDIUM", "LARGE"})
+    public String size;
+
+    private ConfigCatClient client;
+    private String[] keys;
+    private User[] users;
+
+    @Setup
+    public void setUp() throws IOException {
+        String json = BenchmarkData.generateConfig(BenchmarkData.Family.MIXED, BenchmarkData.Size.valueOf(size).flagCount);
+        String cached = new Entry(Utils.deserializeConfig(json), "\"etag\"", json, System.currentTimeMillis()).serialize();
+        client = ConfigCatClient.get(SDK_KEY, options -> {
+            options.pollingMode(PollingModes.lazyLoad(24 * 60 * 60));
+            options.cache(new WarmCache(cached));
+            options.logLevel(LogLevel.WARNING);
+        });
+        keys = new String[BenchmarkData.Size.valueOf(size).flagCount];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = BenchmarkData.flagKey(i);
+        }
+        users = BenchmarkData.loadUsers().toArray(new User[0]);
+        // Populate the in-memory entry before measuring.
+        client.getValue(String.class, keys[0], "");
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        client.close();
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int counter;
+    }
+
+    @Benchmark
+    public String getValue(Cursor cursor) {
+        int index = cursor.counter++;
+        return client.getValue(String.class, keys[index % keys.length], users[index % users.length], "");
+    }
+
+    @Benchmark
+    public Map<String, Object> getAllValues(Cursor cursor) {
+        return client.getAllValues(users[cursor.counter++ % users.length]);
+    }
+
+    private static class WarmCache extends ConfigCache {
+        private final String value;
+
+        WarmCache(String value) {
+            this.value = value;
+        }
+
+        @Override
+        protected String read(String key) {
+            return value;
+        }
+
+        @Override
+        protected void write(String key, String value) {
+            // the benchmark never fetches, nothing to write
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.configcat;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the first deserialization of a config in a fresh JVM, as it happens on application cold start.
+ * Every fork binds the config exactly once, so the measured time includes class loading and the set-up of the
+ * Gson adapters, either the registered type adapters or the reflective ones.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Fork(20)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+public class ColdDeserializationBenchmark {
+    @Param({"TYPE_ADAPTERS", "REFLECTION"})
+    public String binding;
+
+    private String json;
+
+    @Setup
+    public void setUp() {
+        json = BenchmarkData.generateConfig(BenchmarkData.Family.MIXED, BenchmarkData.Size.MEDIUM.flagCount);
+    }
+
+    @Benchmark
+    public Config firstDeserialization() {
+        Gson gson = "REFLECTION".equals(binding)
+                ? new GsonBuilder().disableHtmlEscaping().create()
+                : JsonAdapters.registerConfigModel(new GsonBuilder().disableHtmlEscaping()).create();
+        return gson.fromJson(json, Config.class);
+    }
+}
@@ -0,0 +1,43 @@
+package com.configcat;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link Utils#deserializeConfig} on synthetic configs of growing size, and the binding of the config model
+ * by the registered type adapters compared to Gson's reflective binding.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class DeserializationBenchmark {
+    private static final Gson REFLECTIVE_GSON = new GsonBuilder().disableHtmlEscaping().create();
+
+    @Param({"SMALL", "MEDIUM", "LARGE", "XLARGE"})
+    public String size;
+
+    private String json;
+
+    @Setup
+    public void setUp() {
+        json = BenchmarkData.generateConfig(BenchmarkData.Family.MIXED, BenchmarkData.Size.valueOf(size).flagCount);
+    }
+
+    @Benchmark
+    public Config deserializeConfig() {
+        return Utils.deserializeConfig(json);
+    }
+
+    @Benchmark
+    public Config bindWithTypeAdapters() {
+        return Utils.gson.fromJson(json, Config.class);
+    }
+
+    @Benchmark
+    public Config bindWithReflection() {
+        return REFLECTIVE_GSON.fromJson(json, Config.class);
+    }
+}
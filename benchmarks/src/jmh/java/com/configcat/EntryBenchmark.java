@@ -0,0 +1,49 @@
+package com.configcat;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cache round-trip of an {@link Entry}: {@link Entry#serialize()} and {@link Entry#fromString(String)}
+ * for the text format, {@link Entry#serializeBinary()} and {@link Entry#fromBinary(byte[])} for the binary format.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class EntryBenchmark {
+    @Param({"SMALL", "MEDIUM", "LARGE", "XLARGE"})
+    public String size;
+
+    private Entry entry;
+    private String serialized;
+    private byte[] serializedBinary;
+
+    @Setup
+    public void setUp() {
+        String json = BenchmarkData.generateConfig(BenchmarkData.Family.MIXED, BenchmarkData.Size.valueOf(size).flagCount);
+        entry = new Entry(Utils.deserializeConfig(json), "\"etag\"", json, System.currentTimeMillis());
+        serialized = entry.serialize();
+        serializedBinary = entry.serializeBinary();
+    }
+
+    @Benchmark
+    public String serialize() {
+        return entry.serialize();
+    }
+
+    @Benchmark
+    public Entry fromString() {
+        return Entry.fromString(serialized);
+    }
+
+    @Benchmark
+    public byte[] serializeBinary() {
+        return entry.serializeBinary();
+    }
+
+    @Benchmark
+    public Entry fromBinary() {
+        return Entry.fromBinary(serializedBinary);
+    }
+}
@@ -0,0 +1,50 @@
+package com.configcat;
+
+import org.openjdk.jmh.annotations.*;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link RolloutEvaluator#evaluate} for each comparator family with users taken from the matrix test resources.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class EvaluationBenchmark {
+    private static final int FLAG_COUNT = 100;
+
+    @Param({"TEXT", "HASHED", "SEMVER", "NUMBER", "DATE", "ARRAY", "SEGMENT", "PREREQUISITE", "PERCENTAGE"})
+    public String family;
+
+    private RolloutEvaluator evaluator;
+    private Map<String, Setting> settings;
+    private Setting[] settingArray;
+    private String[] keys;
+    private User[] users;
+    private int counter;
+
+    @Setup
+    public void setUp() throws IOException {
+        evaluator = new RolloutEvaluator(new ConfigCatLogger(LoggerFactory.getLogger(EvaluationBenchmark.class), LogLevel.WARNING));
+        settings = Utils.deserializeConfig(BenchmarkData.generateConfig(BenchmarkData.Family.valueOf(family), FLAG_COUNT)).getEntries();
+        keys = new String[FLAG_COUNT];
+        settingArray = new Setting[FLAG_COUNT];
+        for (int i = 0; i < FLAG_COUNT; i++) {
+            keys[i] = BenchmarkData.flagKey(i);
+            settingArray[i] = settings.get(keys[i]);
+        }
+        List<User> userList = BenchmarkData.loadUsers();
+        users = userList.toArray(new User[0]);
+    }
+
+    @Benchmark
+    public EvaluationResult evaluate() {
+        int index = counter++;
+        int flag = index % FLAG_COUNT;
+        return evaluator.evaluate(settingArray[flag], keys[flag], users[index % users.length], settings, new EvaluateLogger(LogLevel.WARNING));
+    }
+}
@@ -0,0 +1,40 @@
+package com.configcat;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares a hit of the {@link SaltedHashCache} with computing the salted SHA-256 hash of the same user value,
+ * {@code hit} should stay well below {@code hash} and allocate nothing (run with the gc profiler).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class SaltedHashCacheBenchmark {
+    private static final String CONTEXT_SALT = "flagKey";
+    private static final byte[] CONFIG_SALT_UTF8 = BenchmarkData.CONFIG_SALT.getBytes(StandardCharsets.UTF_8);
+    private static final byte[] CONTEXT_SALT_UTF8 = CONTEXT_SALT.getBytes(StandardCharsets.UTF_8);
+
+    @Param({"john@example.com", "a.very.long.email.address.of.a.user.with.many.parts@subdomain.example.com"})
+    public String userValue;
+
+    private SaltedHashCache cache;
+
+    @Setup
+    public void setUp() {
+        cache = new SaltedHashCache(SaltedHashCache.DEFAULT_MAX_SIZE);
+        cache.hash(userValue, BenchmarkData.CONFIG_SALT, CONFIG_SALT_UTF8, CONTEXT_SALT, CONTEXT_SALT_UTF8);
+    }
+
+    @Benchmark
+    public Sha256Hash hit() {
+        return cache.hash(userValue, BenchmarkData.CONFIG_SALT, CONFIG_SALT_UTF8, CONTEXT_SALT, CONTEXT_SALT_UTF8);
+    }
+
+    @Benchmark
+    public Sha256Hash hash() {
+        return Sha256Hash.ofSaltedValue(userValue, CONFIG_SALT_UTF8, CONTEXT_SALT_UTF8);
+    }
+}
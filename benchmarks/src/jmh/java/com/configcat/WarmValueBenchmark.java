@@ -0,0 +1,62 @@
+package com.configcat;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a warm {@link ConfigCatClient#getValue} of a simple and a targeted boolean flag with the evaluation log
+ * turned off and no onFlagEvaluated subscribers. Run with the gc profiler, gc.alloc.rate.norm should stay close to zero.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class WarmValueBenchmark {
+    private static final String SDK_KEY = "configcat-sdk-1/benchmark-sdk-key-0000/warm-value-config-0000";
+    private static final String CONFIG_JSON = "{\"p\":{\"u\":\"https://cdn-global.configcat.com\",\"r\":0,\"s\":\"" + BenchmarkData.CONFIG_SALT + "\"},"
+            + "\"f\":{"
+            + "\"simpleFlag\":{\"t\":0,\"v\":{\"b\":true},\"i\":\"simple\"},"
+            + "\"targetedFlag\":{\"t\":0,\"r\":[{\"c\":[{\"u\":{\"a\":\"Email\",\"c\":2,\"l\":[\"@example.com\"]}}],\"s\":{\"v\":{\"b\":true},\"i\":\"match\"}}],\"v\":{\"b\":false},\"i\":\"default\"}"
+            + "}}";
+
+    private ConfigCatClient client;
+    private User user;
+
+    @Setup
+    public void setUp() {
+        String cached = new Entry(Utils.deserializeConfig(CONFIG_JSON), "\"etag\"", CONFIG_JSON, System.currentTimeMillis()).serialize();
+        client = ConfigCatClient.get(SDK_KEY, options -> {
+            options.pollingMode(PollingModes.lazyLoad(24 * 60 * 60));
+            options.cache(new ConfigCache() {
+                @Override
+                protected String read(String key) {
+                    return cached;
+                }
+
+                @Override
+                protected void write(String key, String value) {
+                    // the benchmark never fetches, nothing to write
+                }
+            });
+            options.logLevel(LogLevel.WARNING);
+        });
+        user = User.newBuilder().email("john@example.com").build("john");
+        client.getValue(Boolean.class, "simpleFlag", false);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        client.close();
+    }
+
+    @Benchmark
+    public boolean simpleFlag() {
+        return client.getValue(Boolean.class, "simpleFlag", user, false);
+    }
+
+    @Benchmark
+    public boolean targetedFlag() {
+        return client.getValue(Boolean.class, "targetedFlag", user, false);
+    }
+}
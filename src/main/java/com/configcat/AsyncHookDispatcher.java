@@ -0,0 +1,155 @@
+package com.configcat;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Delivers the hook events of a {@link ConfigCatHooks} on a background executor, in the order they were raised.
+ * The events are kept in a bounded queue, the {@link HookOverflowPolicy} decides what happens when it's full.
+ * Only one drain runs at a time, so the callbacks are never invoked concurrently by the dispatcher.
+ * <p>
+ * With {@link HookOverflowPolicy#BLOCK} only the application's threads wait for room. The SDK's own threads (the tasks
+ * of the I/O executor, see {@link #nonBlocking(Executor)}, and the threads holding the config service lock) can't wait,
+ * the drain may be queued behind them or may need the same lock, so their events are dropped and counted instead.
+ */
+final class AsyncHookDispatcher {
+    private static final ThreadLocal<int[]> NON_BLOCKING_DEPTH = new ThreadLocal<int[]>() {
+        @Override
+        protected int[] initialValue() {
+            return new int[1];
+        }
+    };
+
+    private final int capacity;
+    private final HookOverflowPolicy overflowPolicy;
+    private final Executor executor;
+    private final ConfigCatLogger logger;
+    // guards the queue, the counter and the draining flag
+    private final ArrayDeque<Runnable> queue = new ArrayDeque<>();
+    private long droppedCount;
+    private boolean draining;
+    private volatile Thread drainThread;
+
+    AsyncHookDispatcher(int capacity, HookOverflowPolicy overflowPolicy, Executor executor, ConfigCatLogger logger) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be greater than 0.");
+        }
+        if (overflowPolicy == null) {
+            throw new IllegalArgumentException("overflowPolicy cannot be null.");
+        }
+        this.capacity = capacity;
+        this.overflowPolicy = overflowPolicy;
+        this.executor = executor;
+        this.logger = logger;
+    }
+
+    /**
+     * Wraps an executor of the SDK, the events raised by its tasks never wait for room in the queue.
+     */
+    static Executor nonBlocking(final Executor executor) {
+        return command -> executor.execute(() -> {
+            enterNonBlocking();
+            try {
+                command.run();
+            } finally {
+                exitNonBlocking();
+            }
+        });
+    }
+
+    /**
+     * Marks the current thread as one which can't wait for room in the queue, until {@link #exitNonBlocking()}.
+     */
+    static void enterNonBlocking() {
+        NON_BLOCKING_DEPTH.get()[0]++;
+    }
+
+    static void exitNonBlocking() {
+        NON_BLOCKING_DEPTH.get()[0]--;
+    }
+
+    void dispatch(Runnable event) {
+        if (Thread.currentThread() == drainThread) {
+            // raised by a callback, waiting for the queue here would never end
+            event.run();
+            return;
+        }
+        boolean startDrain;
+        boolean interrupted = false;
+        synchronized (queue) {
+            while (queue.size() >= capacity) {
+                if (overflowPolicy == HookOverflowPolicy.DROP_OLDEST) {
+                    queue.poll();
+                    droppedCount++;
+                } else if (overflowPolicy == HookOverflowPolicy.DROP_NEWEST || NON_BLOCKING_DEPTH.get()[0] > 0) {
+                    droppedCount++;
+                    return;
+                } else {
+                    try {
+                        queue.wait();
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                    }
+                }
+            }
+            queue.offer(event);
+            startDrain = !draining;
+            draining = true;
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        if (startDrain) {
+            scheduleDrain();
+        }
+    }
+
+    long droppedCount() {
+        synchronized (queue) {
+            return droppedCount;
+        }
+    }
+
+    int queuedCount() {
+        synchronized (queue) {
+            return queue.size();
+        }
+    }
+
+    private void scheduleDrain() {
+        try {
+            executor.execute(this::drain);
+        } catch (RejectedExecutionException e) {
+            drain();
+        }
+    }
+
+    private void drain() {
+        drainThread = Thread.currentThread();
+        try {
+            while (true) {
+                Runnable event;
+                synchronized (queue) {
+                    event = queue.poll();
+                    if (event == null) {
+                        draining = false;
+                        return;
+                    }
+                    if (overflowPolicy == HookOverflowPolicy.BLOCK) {
+                        queue.notifyAll();
+                    }
+                }
+                try {
+                    event.run();
+                } catch (Exception e) {
+                    // a failing callback must not stop the delivery of the other events.
+                    // Logged as a warning, an error would raise an onError event which could fail again.
+                    logger.warn(3006, ConfigCatLogMessages.getHookCallbackFailed(e));
+                }
+            }
+        } finally {
+            drainThread = null;
+        }
+    }
+}
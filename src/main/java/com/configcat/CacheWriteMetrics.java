@@ -0,0 +1,82 @@
+package com.configcat;
+
+/**
+ * Counters of the cache writes of a {@link ConfigCatClient}. Cache writes happen on a background thread, a new entry
+ * which arrives while the previous one is still waiting to be written replaces it (the replaced entry is counted as coalesced).
+ */
+public final class CacheWriteMetrics {
+    private long writeCount;
+    private long failedWriteCount;
+    private long coalescedWriteCount;
+    private long lastWriteLatencyNanos;
+    private long maxWriteLatencyNanos;
+    private long totalWriteLatencyNanos;
+
+    CacheWriteMetrics() {
+    }
+
+    /**
+     * @return the number of entries written to the cache, including the failed writes.
+     */
+    public synchronized long writeCount() {
+        return writeCount;
+    }
+
+    /**
+     * @return the number of writes which failed with an exception.
+     */
+    public synchronized long failedWriteCount() {
+        return failedWriteCount;
+    }
+
+    /**
+     * @return the number of entries which were not written because a newer entry replaced them.
+     */
+    public synchronized long coalescedWriteCount() {
+        return coalescedWriteCount;
+    }
+
+    /**
+     * @return the duration of the last write in nanoseconds, 0 when nothing was written yet.
+     */
+    public synchronized long lastWriteLatencyNanos() {
+        return lastWriteLatencyNanos;
+    }
+
+    /**
+     * @return the duration of the slowest write in nanoseconds.
+     */
+    public synchronized long maxWriteLatencyNanos() {
+        return maxWriteLatencyNanos;
+    }
+
+    /**
+     * @return the average duration of the writes in nanoseconds, 0 when nothing was written yet.
+     */
+    public synchronized long averageWriteLatencyNanos() {
+        return writeCount == 0 ? 0 : totalWriteLatencyNanos / writeCount;
+    }
+
+    synchronized void onWrite(long latencyNanos, boolean succeeded) {
+        writeCount++;
+        if (!succeeded) {
+            failedWriteCount++;
+        }
+        lastWriteLatencyNanos = latencyNanos;
+        maxWriteLatencyNanos = Math.max(maxWriteLatencyNanos, latencyNanos);
+        totalWriteLatencyNanos += latencyNanos;
+    }
+
+    synchronized void onCoalesced() {
+        coalescedWriteCount++;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "CacheWriteMetrics{writeCount=" + writeCount
+                + ", failedWriteCount=" + failedWriteCount
+                + ", coalescedWriteCount=" + coalescedWriteCount
+                + ", lastWriteLatencyNanos=" + lastWriteLatencyNanos
+                + ", maxWriteLatencyNanos=" + maxWriteLatencyNanos + "}";
+    }
+}
@@ -0,0 +1,509 @@
+package com.configcat;
+
+import de.skuzzle.semantic.Version;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Pre-processed form of a {@link UserCondition}. It's built once when the config JSON is deserialized,
+ * so the comparator lookup and the parsing of the comparison values don't have to be repeated on each evaluation.
+ * <p>
+ * Conditions with an invalid comparator or with missing / malformed comparison values are not compiled,
+ * those are evaluated by the {@link RolloutEvaluator} directly to keep the error reporting unchanged.
+ */
+abstract class CompiledUserCondition {
+    final UserComparator comparator;
+
+    // the salts the condition is evaluated with, encoded once for the hashed comparators
+    private String configSalt;
+    private byte[] configSaltUTF8;
+    private String contextSalt;
+    private byte[] contextSaltUTF8;
+
+    private CompiledUserCondition(UserComparator comparator) {
+        this.comparator = comparator;
+    }
+
+    abstract boolean evaluate(RolloutEvaluator evaluator, UserCondition userCondition, EvaluationContext context, Object userAttributeValue, String configSalt, String contextSalt);
+
+    /**
+     * Compiles the condition for the given salts, the context salt is the key of the setting or the name of the segment
+     * the condition belongs to.
+     */
+    static CompiledUserCondition compile(UserCondition userCondition, String configSalt, byte[] configSaltUTF8, String contextSalt) {
+        CompiledUserCondition compiled = compile(userCondition);
+        if (compiled != null) {
+            compiled.configSalt = configSalt;
+            compiled.configSaltUTF8 = configSaltUTF8;
+            compiled.contextSalt = contextSalt;
+            compiled.contextSaltUTF8 = contextSalt != null ? contextSalt.getBytes(StandardCharsets.UTF_8) : null;
+        }
+        return compiled;
+    }
+
+    Sha256Hash hash(RolloutEvaluator evaluator, String userValue, String configSalt, String contextSalt) {
+        return evaluator.getHashCache().hash(userValue, configSalt, encode(configSalt, this.configSalt, configSaltUTF8),
+                contextSalt, encode(contextSalt, this.contextSalt, contextSaltUTF8));
+    }
+
+    Sha256Hash hashSlice(RolloutEvaluator evaluator, String userValue, byte[] userValueUTF8, int length, boolean startsWith, String configSalt, String contextSalt) {
+        return evaluator.getHashCache().hashSlice(userValue, userValueUTF8, length, startsWith,
+                configSalt, encode(configSalt, this.configSalt, configSaltUTF8),
+                contextSalt, encode(contextSalt, this.contextSalt, contextSaltUTF8));
+    }
+
+    /**
+     * Returns the bytes encoded at compile time, the salts are always the same for a condition of a loaded config.
+     */
+    private static byte[] encode(String salt, String compiledSalt, byte[] compiledSaltUTF8) {
+        return compiledSaltUTF8 != null && salt.equals(compiledSalt) ? compiledSaltUTF8 : salt.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static CompiledUserCondition compile(UserCondition userCondition) {
+        UserComparator comparator = UserComparator.fromId(userCondition.getComparator());
+        if (comparator == null) {
+            return null;
+        }
+        switch (comparator) {
+            case IS_ONE_OF:
+            case IS_NOT_ONE_OF:
+            case SENSITIVE_IS_ONE_OF:
+            case SENSITIVE_IS_NOT_ONE_OF:
+                return IsOneOf.compile(comparator, userCondition);
+            case CONTAINS_ANY_OF:
+            case NOT_CONTAINS_ANY_OF:
+            case TEXT_STARTS_WITH:
+            case TEXT_NOT_STARTS_WITH:
+            case TEXT_ENDS_WITH:
+            case TEXT_NOT_ENDS_WITH:
+                return TextMatch.compile(comparator, userCondition);
+            case TEXT_EQUALS:
+            case TEXT_NOT_EQUALS:
+            case HASHED_EQUALS:
+            case HASHED_NOT_EQUALS:
+                return Equals.compile(comparator, userCondition);
+            case HASHED_STARTS_WITH:
+            case HASHED_NOT_STARTS_WITH:
+            case HASHED_ENDS_WITH:
+            case HASHED_NOT_ENDS_WITH:
+                return HashedStartOrEndsWith.compile(comparator, userCondition);
+            case TEXT_ARRAY_CONTAINS:
+            case TEXT_ARRAY_NOT_CONTAINS:
+            case HASHED_ARRAY_CONTAINS:
+            case HASHED_ARRAY_NOT_CONTAINS:
+                return ArrayContains.compile(comparator, userCondition);
+            case SEMVER_IS_ONE_OF:
+            case SEMVER_IS_NOT_ONE_OF:
+                return SemverIsOneOf.compile(comparator, userCondition);
+            case SEMVER_LESS:
+            case SEMVER_LESS_EQUALS:
+            case SEMVER_GREATER:
+            case SEMVER_GREATER_EQUALS:
+                return SemverCompare.compile(comparator, userCondition);
+            case NUMBER_EQUALS:
+            case NUMBER_NOT_EQUALS:
+            case NUMBER_LESS:
+            case NUMBER_LESS_EQUALS:
+            case NUMBER_GREATER:
+            case NUMBER_GREATER_EQUALS:
+                return NumberCompare.compile(comparator, userCondition);
+            case DATE_BEFORE:
+            case DATE_AFTER:
+                return DateCompare.compile(comparator, userCondition);
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Hashed comparison values are decoded to {@link Sha256Hash} once, so the user side digest is compared without hex encoding.
+     * Values which are not valid digests can never match, those are left out.
+     */
+    private static Set<Object> toValueSet(String[] values, boolean hashed) {
+        Set<Object> result = new HashSet<>();
+        for (String value : values) {
+            if (!hashed) {
+                result.add(value);
+            } else {
+                Sha256Hash hash = Sha256Hash.fromHex(value);
+                if (hash != null) {
+                    result.add(hash);
+                }
+            }
+        }
+        return result;
+    }
+
+    private static boolean containsNull(String[] values) {
+        if (values == null) {
+            return true;
+        }
+        for (String value : values) {
+            if (value == null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static final class IsOneOf extends CompiledUserCondition {
+        private final Set<Object> values;
+        private final boolean negate;
+        private final boolean sensitive;
+
+        private IsOneOf(UserComparator comparator, Set<Object> values) {
+            super(comparator);
+            this.values = values;
+            this.negate = comparator == UserComparator.IS_NOT_ONE_OF || comparator == UserComparator.SENSITIVE_IS_NOT_ONE_OF;
+            this.sensitive = comparator == UserComparator.SENSITIVE_IS_ONE_OF || comparator == UserComparator.SENSITIVE_IS_NOT_ONE_OF;
+        }
+
+        static CompiledUserCondition compile(UserComparator comparator, UserCondition userCondition) {
+            String[] values = userCondition.getStringArrayValue();
+            if (containsNull(values)) {
+                return null;
+            }
+            boolean sensitive = comparator == UserComparator.SENSITIVE_IS_ONE_OF || comparator == UserComparator.SENSITIVE_IS_NOT_ONE_OF;
+            return new IsOneOf(comparator, toValueSet(values, sensitive));
+        }
+
+        @Override
+        boolean evaluate(RolloutEvaluator evaluator, UserCondition userCondition, EvaluationContext context, Object userAttributeValue, String configSalt, String contextSalt) {
+            String userValue = evaluator.getUserAttributeAsString(context, userCondition, userCondition.getComparisonAttribute(), userAttributeValue);
+            if (sensitive) {
+                return negate != values.contains(hash(evaluator, userValue, RolloutEvaluator.ensureConfigSalt(configSalt), contextSalt));
+            }
+            return negate != values.contains(userValue);
+        }
+    }
+
+    private static final class TextMatch extends CompiledUserCondition {
+        private final String[] values;
+        private final boolean negate;
+
+        private TextMatch(UserComparator comparator, String[] values) {
+            super(comparator);
+            this.values = values;
+            this.negate = comparator == UserComparator.NOT_CONTAINS_ANY_OF || comparator == UserComparator.TEXT_NOT_STARTS_WITH || comparator == UserComparator.TEXT_NOT_ENDS_WITH;
+        }
+
+        static CompiledUserCondition compile(UserComparator comparator, UserCondition userCondition) {
+            String[] values = userCondition.getStringArrayValue();
+            if (containsNull(values)) {
+                return null;
+            }
+            return new TextMatch(comparator, values.clone());
+        }
+
+        @Override
+        boolean evaluate(RolloutEvaluator evaluator, UserCondition userCondition, EvaluationContext context, Object userAttributeValue, String configSalt, String contextSalt) {
+            String userValue = evaluator.getUserAttributeAsString(context, userCondition, userCondition.getComparisonAttribute(), userAttributeValue);
+            for (String value : values) {
+                if (matches(userValue, value)) {
+                    return !negate;
+                }
+            }
+            return negate;
+        }
+
+        private boolean matches(String userValue, String value) {
+            switch (comparator) {
+                case CONTAINS_ANY_OF:
+                case NOT_CONTAINS_ANY_OF:
+                    return userValue.contains(value);
+                case TEXT_STARTS_WITH:
+                case TEXT_NOT_STARTS_WITH:
+                    return userValue.startsWith(value);
+                default: // TEXT_ENDS_WITH, TEXT_NOT_ENDS_WITH
+                    return userValue.endsWith(value);
+            }
+        }
+    }
+
+    private static final class Equals extends CompiledUserCondition {
+        // String for the cleartext comparators, Sha256Hash or null (never matches) for the hashed ones
+        private final Object value;
+        private final boolean negate;
+        private final boolean hashed;
+
+        private Equals(UserComparator comparator, Object value) {
+            super(comparator);
+            this.value = value;
+            this.negate = comparator == UserComparator.TEXT_NOT_EQUALS || comparator == UserComparator.HASHED_NOT_EQUALS;
+            this.hashed = comparator == UserComparator.HASHED_EQUALS || comparator == UserComparator.HASHED_NOT_EQUALS;
+        }
+
+        static CompiledUserCondition compile(UserComparator comparator, UserCondition userCondition) {
+            String value = userCondition.getStringValue();
+            if (value == null) {
+                return null;
+            }
+            boolean hashed = comparator == UserComparator.HASHED_EQUALS || comparator == UserComparator.HASHED_NOT_EQUALS;
+            return new Equals(comparator, hashed ? Sha256Hash.fromHex(value) : value);
+        }
+
+        @Override
+        boolean evaluate(RolloutEvaluator evaluator, UserCondition userCondition, EvaluationContext context, Object userAttributeValue, String configSalt, String contextSalt) {
+            String userValue = evaluator.getUserAttributeAsString(context, userCondition, userCondition.getComparisonAttribute(), userAttributeValue);
+            if (hashed) {
+                return negate != hash(evaluator, userValue, RolloutEvaluator.ensureConfigSalt(configSalt), contextSalt).equals(value);
+            }
+            return negate != userValue.equals(value);
+        }
+    }
+
+    private static final class HashedStartOrEndsWith extends CompiledUserCondition {
+        private final int[] lengths;
+        private final Sha256Hash[] hashes;
+        private final boolean startsWith;
+        private final boolean negate;
+
+        private HashedStartOrEndsWith(UserComparator comparator, int[] lengths, Sha256Hash[] hashes) {
+            super(comparator);
+            this.lengths = lengths;
+            this.hashes = hashes;
+            this.startsWith = comparator == UserComparator.HASHED_STARTS_WITH || comparator == UserComparator.HASHED_NOT_STARTS_WITH;
+            this.negate = comparator == UserComparator.HASHED_NOT_STARTS_WITH || comparator == UserComparator.HASHED_NOT_ENDS_WITH;
+        }
+
+        static CompiledUserCondition compile(UserComparator comparator, UserCondition userCondition) {
+            String[] values = userCondition.getStringArrayValue();
+            if (containsNull(values)) {
+                return null;
+            }
+            int[] lengths = new int[values.length];
+            Sha256Hash[] hashes = new Sha256Hash[values.length];
+            for (int i = 0; i < values.length; i++) {
+                String value = values[i];
+                int indexOf = value.indexOf("_");
+                if (indexOf <= 0) {
+                    return null;
+                }
+                try {
+                    lengths[i] = Integer.parseInt(value.substring(0, indexOf).trim());
+                } catch (NumberFormatException e) {
+                    return null;
+                }
+                String hash = value.substring(indexOf + 1);
+                if (lengths[i] < 0 || hash.isEmpty()) {
+                    return null;
+                }
+                // null if it's not a valid digest, such a value never matches
+                hashes[i] = Sha256Hash.fromHex(hash);
+            }
+            return new HashedStartOrEndsWith(comparator, lengths, hashes);
+        }
+
+        @Override
+        boolean evaluate(RolloutEvaluator evaluator, UserCondition userCondition, EvaluationContext context, Object userAttributeValue, String configSalt, String contextSalt) {
+            String userValue = evaluator.getUserAttributeAsString(context, userCondition, userCondition.getComparisonAttribute(), userAttributeValue);
+            String salt = RolloutEvaluator.ensureConfigSalt(configSalt);
+            byte[] userValueUTF8 = userValue.getBytes(StandardCharsets.UTF_8);
+            boolean foundEqual = false;
+            for (int i = 0; i < lengths.length; i++) {
+                int length = lengths[i];
+                if (userValueUTF8.length < length || hashes[i] == null) {
+                    continue;
+                }
+                if (hashSlice(evaluator, userValue, userValueUTF8, length, startsWith, salt, contextSalt).equals(hashes[i])) {
+                    foundEqual = true;
+                    break;
+                }
+            }
+            return negate != foundEqual;
+        }
+    }
+
+    private static final class ArrayContains extends CompiledUserCondition {
+        private final Set<Object> values;
+        private final boolean negate;
+        private final boolean hashed;
+
+        private ArrayContains(UserComparator comparator, Set<Object> values) {
+            super(comparator);
+            this.values = values;
+            this.negate = comparator == UserComparator.TEXT_ARRAY_NOT_CONTAINS || comparator == UserComparator.HASHED_ARRAY_NOT_CONTAINS;
+            this.hashed = comparator == UserComparator.HASHED_ARRAY_CONTAINS || comparator == UserComparator.HASHED_ARRAY_NOT_CONTAINS;
+        }
+
+        static CompiledUserCondition compile(UserComparator comparator, UserCondition userCondition) {
+            String[] values = userCondition.getStringArrayValue();
+            if (containsNull(values)) {
+                return null;
+            }
+            boolean hashed = comparator == UserComparator.HASHED_ARRAY_CONTAINS || comparator == UserComparator.HASHED_ARRAY_NOT_CONTAINS;
+            return new ArrayContains(comparator, toValueSet(values, hashed));
+        }
+
+        @Override
+        boolean evaluate(RolloutEvaluator evaluator, UserCondition userCondition, EvaluationContext context, Object userAttributeValue, String configSalt, String contextSalt) {
+            String[] userValues = evaluator.getUserAttributeAsStringArray(userCondition, context, userCondition.getComparisonAttribute(), userAttributeValue);
+            if (userValues.length == 0) {
+                return false;
+            }
+            String salt = hashed ? RolloutEvaluator.ensureConfigSalt(configSalt) : null;
+            for (String userValue : userValues) {
+                Object converted = hashed ? hash(evaluator, userValue, salt, contextSalt) : userValue;
+                if (values.contains(converted)) {
+                    return !negate;
+                }
+            }
+            return negate;
+        }
+    }
+
+    private static final class SemverIsOneOf extends CompiledUserCondition {
+        private final Version[] versions;
+        private final boolean negate;
+
+        private SemverIsOneOf(UserComparator comparator, Version[] versions) {
+            super(comparator);
+            this.versions = versions;
+            this.negate = comparator == UserComparator.SEMVER_IS_NOT_ONE_OF;
+        }
+
+        static CompiledUserCondition compile(UserComparator comparator, UserCondition userCondition) {
+            String[] values = userCondition.getStringArrayValue();
+            if (containsNull(values)) {
+                return null;
+            }
+            int count = 0;
+            Version[] versions = new Version[values.length];
+            for (String value : values) {
+                // Previous versions of the evaluation algorithm ignore empty comparison values.
+                if (value.isEmpty()) {
+                    continue;
+                }
+                try {
+                    versions[count++] = Version.parseVersion(value.trim(), true);
+                } catch (Version.VersionFormatException exception) {
+                    // Previous versions of the evaluation algorithm ignored invalid comparison values,
+                    // the condition never matches in that case.
+                    versions = null;
+                    break;
+                }
+            }
+            return new SemverIsOneOf(comparator, versions != null ? Arrays.copyOf(versions, count) : null);
+        }
+
+        @Override
+        boolean evaluate(RolloutEvaluator evaluator, UserCondition userCondition, EvaluationContext context, Object userAttributeValue, String configSalt, String contextSalt) {
+            Version userVersion = evaluator.getUserAttributeAsVersion(context, userCondition, userCondition.getComparisonAttribute(), userAttributeValue);
+            if (versions == null) {
+                return false;
+            }
+            boolean matched = false;
+            for (Version version : versions) {
+                if (userVersion.compareTo(version) == 0) {
+                    matched = true;
+                    break;
+                }
+            }
+            return negate != matched;
+        }
+    }
+
+    private static final class SemverCompare extends CompiledUserCondition {
+        private final Version version;
+
+        private SemverCompare(UserComparator comparator, Version version) {
+            super(comparator);
+            this.version = version;
+        }
+
+        static CompiledUserCondition compile(UserComparator comparator, UserCondition userCondition) {
+            String value = userCondition.getStringValue();
+            if (value == null) {
+                return null;
+            }
+            Version version;
+            try {
+                version = Version.parseVersion(value.trim(), true);
+            } catch (Version.VersionFormatException exception) {
+                // Invalid comparison value, the condition never matches.
+                version = null;
+            }
+            return new SemverCompare(comparator, version);
+        }
+
+        @Override
+        boolean evaluate(RolloutEvaluator evaluator, UserCondition userCondition, EvaluationContext context, Object userAttributeValue, String configSalt, String contextSalt) {
+            Version userVersion = evaluator.getUserAttributeAsVersion(context, userCondition, userCondition.getComparisonAttribute(), userAttributeValue);
+            if (version == null) {
+                return false;
+            }
+            switch (comparator) {
+                case SEMVER_LESS:
+                    return userVersion.isLowerThan(version);
+                case SEMVER_LESS_EQUALS:
+                    return userVersion.compareTo(version) <= 0;
+                case SEMVER_GREATER:
+                    return userVersion.isGreaterThan(version);
+                default: // SEMVER_GREATER_EQUALS
+                    return userVersion.compareTo(version) >= 0;
+            }
+        }
+    }
+
+    private static final class NumberCompare extends CompiledUserCondition {
+        private final Double value;
+
+        private NumberCompare(UserComparator comparator, Double value) {
+            super(comparator);
+            this.value = value;
+        }
+
+        static CompiledUserCondition compile(UserComparator comparator, UserCondition userCondition) {
+            Double value = userCondition.getDoubleValue();
+            if (value == null) {
+                return null;
+            }
+            return new NumberCompare(comparator, value);
+        }
+
+        @Override
+        boolean evaluate(RolloutEvaluator evaluator, UserCondition userCondition, EvaluationContext context, Object userAttributeValue, String configSalt, String contextSalt) {
+            Double userValue = evaluator.getUserAttributeAsDouble(context, userCondition, userCondition.getComparisonAttribute(), userAttributeValue);
+            switch (comparator) {
+                case NUMBER_EQUALS:
+                    return userValue.equals(value);
+                case NUMBER_NOT_EQUALS:
+                    return !userValue.equals(value);
+                case NUMBER_LESS:
+                    return userValue < value;
+                case NUMBER_LESS_EQUALS:
+                    return userValue <= value;
+                case NUMBER_GREATER:
+                    return userValue > value;
+                default: // NUMBER_GREATER_EQUALS
+                    return userValue >= value;
+            }
+        }
+    }
+
+    private static final class DateCompare extends CompiledUserCondition {
+        private final double value;
+
+        private DateCompare(UserComparator comparator, double value) {
+            super(comparator);
+            this.value = value;
+        }
+
+        static CompiledUserCondition compile(UserComparator comparator, UserCondition userCondition) {
+            Double value = userCondition.getDoubleValue();
+            if (value == null) {
+                return null;
+            }
+            return new DateCompare(comparator, value);
+        }
+
+        @Override
+        boolean evaluate(RolloutEvaluator evaluator, UserCondition userCondition, EvaluationContext context, Object userAttributeValue, String configSalt, String contextSalt) {
+            double userValue = evaluator.getUserAttributeForDate(userCondition, context, userCondition.getComparisonAttribute(), userAttributeValue);
+            return comparator == UserComparator.DATE_BEFORE ? userValue < value : userValue > value;
+        }
+    }
+}
@@ -1,6 +1,11 @@
 package com.configcat;
 
+import com.google.gson.TypeAdapter;
 import com.google.gson.annotations.SerializedName;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
 
 /**
  * Represents a condition.
@@ -28,4 +33,56 @@ public class Condition implements ConditionAccessor {
     public PrerequisiteFlagCondition getPrerequisiteFlagCondition() {
         return prerequisiteFlagCondition;
     }
+
+    static Condition of(UserCondition userCondition, SegmentCondition segmentCondition, PrerequisiteFlagCondition prerequisiteFlagCondition) {
+        Condition condition = new Condition();
+        condition.userCondition = userCondition;
+        condition.segmentCondition = segmentCondition;
+        condition.prerequisiteFlagCondition = prerequisiteFlagCondition;
+        return condition;
+    }
+
+    static final TypeAdapter<Condition> ADAPTER = new TypeAdapter<Condition>() {
+        @Override
+        public void write(JsonWriter out, Condition value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            out.name("u");
+            UserCondition.ADAPTER.write(out, value.userCondition);
+            out.name("s");
+            SegmentCondition.ADAPTER.write(out, value.segmentCondition);
+            out.name("p");
+            PrerequisiteFlagCondition.ADAPTER.write(out, value.prerequisiteFlagCondition);
+            out.endObject();
+        }
+
+        @Override
+        public Condition read(JsonReader in) throws IOException {
+            if (JsonAdapters.nextNull(in)) {
+                return null;
+            }
+            Condition condition = new Condition();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "u":
+                        condition.userCondition = UserCondition.ADAPTER.read(in);
+                        break;
+                    case "s":
+                        condition.segmentCondition = SegmentCondition.ADAPTER.read(in);
+                        break;
+                    case "p":
+                        condition.prerequisiteFlagCondition = PrerequisiteFlagCondition.ADAPTER.read(in);
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            return condition;
+        }
+    };
 }
@@ -1,8 +1,15 @@
 package com.configcat;
 
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
 import com.google.gson.annotations.SerializedName;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 /**
@@ -17,6 +24,8 @@ public class Config {
     @SerializedName(value = "s")
     private Segment[] segments;
 
+    private transient byte[] saltUTF8;
+
     /**
      * The config preferences.
      */
@@ -40,9 +49,97 @@ public class Config {
         return entries != null ? entries : (entries = new HashMap<>());
     }
 
+    /**
+     * The UTF-8 encoded config salt, encoded once for all the hashed comparisons of the config.
+     */
+    byte[] getSaltUTF8() {
+        String salt = preferences != null ? preferences.getSalt() : null;
+        if (saltUTF8 == null && salt != null) {
+            saltUTF8 = salt.getBytes(StandardCharsets.UTF_8);
+        }
+        return saltUTF8;
+    }
+
     boolean isEmpty() {
         return EMPTY.equals(this);
     }
 
     public static final Config EMPTY = new Config();
-}
\ No newline at end of file
+
+    static Config of(Preferences preferences, Map<String, Setting> entries, Segment[] segments) {
+        Config config = new Config();
+        config.preferences = preferences;
+        config.entries = entries;
+        config.segments = segments;
+        return config;
+    }
+
+    static final TypeAdapter<Config> ADAPTER = new TypeAdapter<Config>() {
+        @Override
+        public void write(JsonWriter out, Config value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            out.name("p");
+            Preferences.ADAPTER.write(out, value.preferences);
+            out.name("f");
+            if (value.entries == null) {
+                out.nullValue();
+            } else {
+                out.beginObject();
+                for (Map.Entry<String, Setting> entry : value.entries.entrySet()) {
+                    out.name(entry.getKey());
+                    Setting.ADAPTER.write(out, entry.getValue());
+                }
+                out.endObject();
+            }
+            out.name("s");
+            JsonAdapters.writeArray(out, Segment.ADAPTER, value.segments);
+            out.endObject();
+        }
+
+        @Override
+        public Config read(JsonReader in) throws IOException {
+            if (JsonAdapters.nextNull(in)) {
+                return null;
+            }
+            Config config = new Config();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "p":
+                        config.preferences = Preferences.ADAPTER.read(in);
+                        break;
+                    case "f":
+                        config.entries = readEntries(in);
+                        break;
+                    case "s":
+                        config.segments = JsonAdapters.readArray(in, Segment.ADAPTER, new Segment[0]);
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            return config;
+        }
+
+        private Map<String, Setting> readEntries(JsonReader in) throws IOException {
+            if (JsonAdapters.nextNull(in)) {
+                return null;
+            }
+            Map<String, Setting> entries = new LinkedHashMap<>();
+            in.beginObject();
+            while (in.hasNext()) {
+                String key = in.nextName();
+                if (entries.put(key, Setting.ADAPTER.read(in)) != null) {
+                    throw new JsonSyntaxException("duplicate key: " + key);
+                }
+            }
+            in.endObject();
+            return entries;
+        }
+    };
+}
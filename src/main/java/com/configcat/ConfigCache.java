@@ -23,5 +23,61 @@ public abstract class ConfigCache {
      * @throws Exception if unable to save the value.
      */
     protected abstract void write(String key, String value) throws Exception;
-}
 
+    /**
+     * Value of {@link #readStamp(String)} meaning the cache can't tell cheaply whether the entry has changed.
+     */
+    protected static final long STAMP_UNKNOWN = Long.MIN_VALUE;
+
+    /**
+     * Child classes can override this method to let the {@link ConfigCatClient} detect cheaply whether the cached entry
+     * has changed since the last read, e.g. from a version counter, a file header or a modification time. The full entry
+     * is read and deserialized only when the stamp differs from the one of the previous read.
+     * The default implementation returns {@link #STAMP_UNKNOWN}, so the entry is read and compared every time.
+     *
+     * @param key the key of the cache entry.
+     * @return a value which changes whenever the cache entry changes, or {@link #STAMP_UNKNOWN}.
+     * @throws Exception if unable to read the cache.
+     */
+    protected long readStamp(String key) throws Exception {
+        return STAMP_UNKNOWN;
+    }
+
+    /**
+     * Child classes can override this method to opt in to the binary cache format, which holds the already parsed config,
+     * so it can be loaded without JSON parsing. When it returns {@code true}, the {@link ConfigCatClient} uses
+     * {@link #readBinary(String)} and {@link #writeBinary(String, byte[])} instead of the text methods, and still reads
+     * the text format with {@link #read(String)} when there's no binary value cached yet.
+     *
+     * @return whether the cache stores the binary format, {@code false} by default.
+     */
+    protected boolean isBinaryFormatSupported() {
+        return false;
+    }
+
+    /**
+     * Child classes supporting the binary format should override this method, the {@link ConfigCatClient}
+     * uses it to get the actual binary value from the cache.
+     * The default implementation returns {@code null}, so the text format is read with {@link #read(String)}.
+     *
+     * @param key the key of the cache entry.
+     * @return the cached configuration in the binary format or {@code null} if there's no binary value cached.
+     * @throws Exception if unable to read the cache.
+     */
+    protected byte[] readBinary(String key) throws Exception {
+        return null;
+    }
+
+    /**
+     * Child classes supporting the binary format should override this method, the {@link ConfigCatClient}
+     * uses it to set the actual cached binary value.
+     * The default implementation converts the value to the text format and saves it with {@link #write(String, String)}.
+     *
+     * @param key   the key of the cache entry.
+     * @param value the new value to cache.
+     * @throws Exception if unable to save the value.
+     */
+    protected void writeBinary(String key, byte[] value) throws Exception {
+        write(key, Entry.fromBinary(value).serialize());
+    }
+}
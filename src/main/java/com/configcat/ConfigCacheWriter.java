@@ -0,0 +1,135 @@
+package com.configcat;
+
+import java.io.Closeable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Writes the cache entries of a {@link ConfigService} in the background, so a slow {@link ConfigCache}
+ * doesn't hold up the fetch processing. At most one write runs at a time, even on a multi-threaded executor.
+ * <p>
+ * Writes are coalesced: when several entries are submitted while a write is pending (e.g. a fetch time bump of a 304
+ * response followed by a new config), only the latest one is written. {@link #close()} waits for the pending entry to be written.
+ */
+final class ConfigCacheWriter implements Closeable {
+    private static final long CLOSE_TIMEOUT_SECONDS = 10;
+
+    interface Target {
+        /**
+         * Writes the entry to the cache.
+         *
+         * @return {@code true} when the write succeeded.
+         */
+        boolean write(Entry entry);
+    }
+
+    private final Target target;
+    private final Executor executor;
+    private final ConfigCatLogger logger;
+    private final CacheWriteMetrics metrics = new CacheWriteMetrics();
+    private final AtomicReference<PendingWrite> pending = new AtomicReference<>();
+    private final AtomicBoolean draining = new AtomicBoolean(false);
+    private final AtomicBoolean closed = new AtomicBoolean(false);
+    private final AtomicLong submitted = new AtomicLong();
+    private final Object completion = new Object();
+    private volatile long completed;
+
+    ConfigCacheWriter(Target target, Executor executor, ConfigCatLogger logger) {
+        this.target = target;
+        this.executor = executor;
+        this.logger = logger;
+    }
+
+    void submit(Entry entry) {
+        PendingWrite write = new PendingWrite(entry, submitted.incrementAndGet());
+        if (pending.getAndSet(write) != null) {
+            // the replaced entry was not written yet, the running or scheduled drain writes this one instead
+            metrics.onCoalesced();
+            return;
+        }
+        if (!draining.compareAndSet(false, true)) {
+            return;
+        }
+        if (closed.get()) {
+            // write on the caller's thread so the entry is not lost
+            drain();
+            return;
+        }
+        try {
+            executor.execute(this::drain);
+        } catch (RejectedExecutionException e) {
+            drain();
+        }
+    }
+
+    /**
+     * @return {@code true} when a submitted entry is not written to the cache yet.
+     */
+    boolean hasPendingWrites() {
+        return completed < submitted.get();
+    }
+
+    CacheWriteMetrics getMetrics() {
+        return metrics;
+    }
+
+    @Override
+    public void close() {
+        closed.set(true);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(CLOSE_TIMEOUT_SECONDS);
+        synchronized (completion) {
+            while (hasPendingWrites()) {
+                long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (remainingMillis <= 0) {
+                    logger.error(2201, ConfigCatLogMessages.CONFIG_SERVICE_CACHE_WRITE_TIMEOUT_ERROR);
+                    return;
+                }
+                try {
+                    completion.wait(remainingMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void drain() {
+        while (true) {
+            PendingWrite write = pending.getAndSet(null);
+            if (write == null) {
+                draining.set(false);
+                // an entry submitted after the last check but before the flag was cleared is written by this drain
+                if (pending.get() == null || !draining.compareAndSet(false, true)) {
+                    return;
+                }
+                continue;
+            }
+            long start = System.nanoTime();
+            boolean succeeded = false;
+            try {
+                succeeded = target.write(write.entry);
+            } finally {
+                metrics.onWrite(System.nanoTime() - start, succeeded);
+                synchronized (completion) {
+                    completed = write.sequence;
+                    completion.notifyAll();
+                }
+            }
+        }
+    }
+
+    private static final class PendingWrite {
+        final Entry entry;
+        final long sequence;
+
+        PendingWrite(Entry entry, long sequence) {
+            this.entry = entry;
+            this.sequence = sequence;
+        }
+    }
+}
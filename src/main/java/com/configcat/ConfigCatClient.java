@@ -7,6 +7,9 @@ import org.slf4j.LoggerFactory;
 import java.io.IOException;
 import java.net.Proxy;
 import java.util.*;
+import java.util.concurrent.Executor;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
@@ -17,6 +20,8 @@ public final class ConfigCatClient implements ConfigurationProvider {
     private static final String BASE_URL_EU = "https://cdn-eu.configcat.com";
     private static final Map<String, ConfigCatClient> INSTANCES = new HashMap<>();
     private final AtomicBoolean isClosed = new AtomicBoolean(false);
+    private final AtomicBoolean observing = new AtomicBoolean(false);
+    private final CopyOnWriteArrayList<ObservedValue<?>> observedValues = new CopyOnWriteArrayList<>();
     private final ConfigCatLogger logger;
     private final LogLevel clientLogLevel;
 
@@ -25,6 +30,7 @@ public final class ConfigCatClient implements ConfigurationProvider {
     private final OverrideBehaviour overrideBehaviour;
     private final String sdkKey;
     private final ConfigCatHooks hooks;
+    private final EvaluationCache evaluationCache;
     private User defaultUser;
 
     private ConfigService configService;
@@ -38,8 +44,19 @@ public final class ConfigCatClient implements ConfigurationProvider {
         this.overrideBehaviour = options.overrideBehaviour;
         this.hooks = options.hooks;
         this.defaultUser = options.defaultUser;
+        this.evaluationCache = options.evaluationCache;
         this.rolloutEvaluator = new RolloutEvaluator(this.logger);
 
+        ScheduledExecutorService scheduler = options.scheduler != null ? options.scheduler : SharedScheduler.get();
+        // the events raised by the SDK's own tasks never wait for the hook queue
+        Executor ioExecutor = AsyncHookDispatcher.nonBlocking(options.scheduler != null ? options.scheduler : SharedScheduler.io());
+        // the blocking HTTP requests don't take the I/O threads of the shared executors
+        Executor httpExecutor = options.scheduler != null ? ioExecutor : AsyncHookDispatcher.nonBlocking(SharedScheduler.http());
+        this.hooks.setExecutors(scheduler, ioExecutor);
+        if (options.hookQueueCapacity > 0) {
+            this.hooks.setDispatcher(new AsyncHookDispatcher(options.hookQueueCapacity, options.hookOverflowPolicy, ioExecutor, this.logger));
+        }
+
         if (this.overrideBehaviour != OverrideBehaviour.LOCAL_ONLY) {
             ConfigFetcher fetcher = null;
             StateMonitor monitor = null;
@@ -53,9 +70,10 @@ public final class ConfigCatClient implements ConfigurationProvider {
                                 : BASE_URL_EU
                                 : options.baseUrl,
                         options.isBaseURLCustom(),
-                        options.pollingMode.getPollingIdentifier());
+                        options.pollingMode.getPollingIdentifier(),
+                        httpExecutor);
                 monitor = options.context != null ? new AppStateMonitor(options.context, logger) : null;
-                this.configService = new ConfigService(sdkKey, monitor, options.pollingMode, options.cache, logger, fetcher, options.hooks, options.offline);
+                this.configService = new ConfigService(sdkKey, monitor, options.pollingMode, options.cache, logger, fetcher, options.hooks, options.offline, scheduler, ioExecutor);
             } catch (Exception e) {
                 if(fetcher != null) fetcher.close();
                 if(monitor != null) monitor.close();
@@ -79,7 +97,8 @@ public final class ConfigCatClient implements ConfigurationProvider {
         validateReturnType(classOfT);
 
         try {
-            return this.getValueAsync(classOfT, key, user, defaultValue).get();
+            // evaluated on the calling thread to avoid the allocations of the async chain
+            return this.getValueFromSettingsMap(classOfT, this.getSettingsAsync().get(), key, user, defaultValue);
         } catch (InterruptedException e) {
             this.logger.error(0, "Thread interrupted.", e);
             Thread.currentThread().interrupt();
@@ -112,6 +131,27 @@ public final class ConfigCatClient implements ConfigurationProvider {
                 .thenApply(settingsResult -> this.getValueFromSettingsMap(classOfT, settingsResult, key, user, defaultValue));
     }
 
+    @Override
+    public <T> ObservedValue<T> observe(Class<T> classOfT, String key, T defaultValue) {
+        return this.observe(classOfT, key, null, defaultValue);
+    }
+
+    @Override
+    public <T> ObservedValue<T> observe(Class<T> classOfT, String key, User user, T defaultValue) {
+        if (key == null || key.isEmpty())
+            throw new IllegalArgumentException("'key' cannot be null or empty.");
+
+        validateReturnType(classOfT);
+
+        if (this.observing.compareAndSet(false, true)) {
+            this.hooks.addOnConfigDiff(this::reevaluateObservedValues);
+        }
+        ObservedValue<T> observedValue = new ObservedValue<>(classOfT, key, user, defaultValue, this.observedValues::remove);
+        this.observedValues.add(observedValue);
+        this.reevaluate(observedValue);
+        return observedValue;
+    }
+
     @Override
     public <T> EvaluationDetails<T> getValueDetails(Class<T> classOfT, String key, T defaultValue) {
         return this.getValueDetails(classOfT, key, null, defaultValue);
@@ -158,7 +198,7 @@ public final class ConfigCatClient implements ConfigurationProvider {
                         return evaluationDetails.asTypeSpecific();
                     }
                     return this.evaluate(classOfT, checkSettingResult.value(),
-                            key, user != null ? user : this.defaultUser, settingsResult.fetchTime(), settingsResult.settings());
+                            key, user != null ? user : this.defaultUser, settingsResult);
                 });
     }
 
@@ -198,11 +238,12 @@ public final class ConfigCatClient implements ConfigurationProvider {
                         Map<String, Setting> settingMap = settingsResult.settings();
                         Collection<String> keys = settingMap.keySet();
                         Map<String, Object> result = new HashMap<>();
+                        EvaluationBatch batch = new EvaluationBatch(userObject, settingMap);
 
                         for (String key : keys) {
                             Setting setting = settingMap.get(key);
                             if (setting == null) continue;
-                            Object value = this.evaluate(classBySettingType(setting.getType()), setting, key, userObject, settingsResult.fetchTime(), settingMap).getValue();
+                            Object value = this.evaluate(classBySettingType(setting.getType()), setting, key, userObject, settingsResult, batch).getValue();
                             result.put(key, value);
                         }
 
@@ -248,12 +289,14 @@ public final class ConfigCatClient implements ConfigurationProvider {
                         }
                         Map<String, Setting> settings = settingResult.settings();
                         List<EvaluationDetails<?>> result = new ArrayList<>();
+                        User userObject = user != null ? user : this.defaultUser;
+                        EvaluationBatch batch = new EvaluationBatch(userObject, settings);
 
                         for (String key : settings.keySet()) {
                             Setting setting = settings.get(key);
 
                             EvaluationDetails<?> evaluationDetails = this.evaluate(this.classBySettingType(Objects.requireNonNull(setting).getType()), setting,
-                                    key, user != null ? user : this.defaultUser, settingResult.fetchTime(), settings);
+                                    key, userObject, settingResult, batch);
                             result.add(evaluationDetails);
                         }
 
@@ -265,6 +308,61 @@ public final class ConfigCatClient implements ConfigurationProvider {
                 });
     }
 
+    @Override
+    public Map<String, EvaluationDetails<?>> evaluateAll(User user, Collection<String> keys) {
+        if (keys == null)
+            throw new IllegalArgumentException("'keys' cannot be null.");
+
+        try {
+            return this.evaluateAllAsync(user, keys).get();
+        } catch (InterruptedException e) {
+            this.logger.error(0, "Thread interrupted.", e);
+            Thread.currentThread().interrupt();
+            return new LinkedHashMap<>();
+        } catch (Exception e) {
+            this.logger.error(1002, ConfigCatLogMessages.getSettingEvaluationErrorWithEmptyValue("evaluateAll", "empty map"), e);
+            return new LinkedHashMap<>();
+        }
+    }
+
+    @Override
+    public CompletableFuture<Map<String, EvaluationDetails<?>>> evaluateAllAsync(User user, Collection<String> keys) {
+        if (keys == null)
+            throw new IllegalArgumentException("'keys' cannot be null.");
+
+        return this.getSettingsAsync()
+                .thenApply(settingsResult -> {
+                    Map<String, EvaluationDetails<?>> result = new LinkedHashMap<>();
+                    if (!checkSettingsAvailable(settingsResult, "empty map")) {
+                        return result;
+                    }
+                    User userObject = user != null ? user : this.defaultUser;
+                    EvaluationBatch batch = new EvaluationBatch(userObject, settingsResult.settings());
+
+                    for (String key : keys) {
+                        Result<Setting> checkSettingResult = checkSettingAvailable(settingsResult, key, null);
+                        if (checkSettingResult.error() != null) {
+                            EvaluationDetails<Object> evaluationDetails = EvaluationDetails.fromError(key, null, checkSettingResult.error(), userObject);
+                            this.hooks.invokeOnFlagEvaluated(evaluationDetails);
+                            result.put(key, evaluationDetails);
+                            continue;
+                        }
+                        Setting setting = checkSettingResult.value();
+                        try {
+                            result.put(key, this.evaluate(classBySettingType(setting.getType()), setting, key, userObject, settingsResult, batch));
+                        } catch (Exception e) {
+                            FormattableLogMessage error = ConfigCatLogMessages.getSettingEvaluationFailedForOtherReason(key, "defaultValue", null);
+                            EvaluationDetails<Object> evaluationDetails = EvaluationDetails.fromError(key, null, error + " " + e.getMessage(), userObject);
+                            this.hooks.invokeOnFlagEvaluated(evaluationDetails);
+                            this.logger.error(2001, error, e);
+                            result.put(key, evaluationDetails);
+                        }
+                    }
+
+                    return result;
+                });
+    }
+
     @Override
     public <T> Map.Entry<String, T> getKeyAndValue(Class<T> classOfT, String variationId) {
         if (variationId == null || variationId.isEmpty())
@@ -386,6 +484,36 @@ public final class ConfigCatClient implements ConfigurationProvider {
         return this.hooks;
     }
 
+    /**
+     * Gets the counters of the config cache writes, e.g. to monitor a slow {@link ConfigCache} implementation.
+     * With local only flag overrides nothing is written and the counters stay 0.
+     *
+     * @return the cache write metrics of the client.
+     */
+    public CacheWriteMetrics getCacheWriteMetrics() {
+        return this.configService != null ? this.configService.getCacheWriteMetrics() : new CacheWriteMetrics();
+    }
+
+    /**
+     * Gets the counters of the config JSON downloads, e.g. the received and the decoded bytes of the compressed responses.
+     * With local only flag overrides nothing is downloaded and the counters stay 0.
+     *
+     * @return the fetch metrics of the client.
+     */
+    public FetchMetrics getFetchMetrics() {
+        return this.configService != null ? this.configService.getFetchMetrics() : new FetchMetrics();
+    }
+
+    /**
+     * Gets the counters of the cache of the salted hashes computed for the confidential comparators (e.g. IS ONE OF (hashed)),
+     * the hit and miss counters show how many hashes the evaluations could reuse.
+     *
+     * @return the hash cache metrics of the client.
+     */
+    public HashCacheMetrics getHashCacheMetrics() {
+        return this.rolloutEvaluator.getHashCache().metrics();
+    }
+
     @Override
     public void close() throws IOException {
         if (!this.isClosed.compareAndSet(false, true)) {
@@ -401,6 +529,7 @@ public final class ConfigCatClient implements ConfigurationProvider {
 
     private void closeResources() throws IOException {
         if (configService != null) configService.close();
+        this.observedValues.clear();
         this.hooks.clear();
     }
 
@@ -436,18 +565,44 @@ public final class ConfigCatClient implements ConfigurationProvider {
                 : configService.getSettings();
     }
 
+    private void reevaluateObservedValues(ConfigChange change) {
+        if (!change.hasChanges()) {
+            return;
+        }
+        // only the observed flags whose setting or prerequisite flags changed are evaluated again
+        for (ObservedValue<?> observedValue : this.observedValues) {
+            if (observedValue.isAffectedBy(change)) {
+                this.reevaluate(observedValue);
+            }
+        }
+    }
+
+    private <T> void reevaluate(ObservedValue<T> observedValue) {
+        // stamped before the evaluation starts, so a slower earlier evaluation can't overwrite the result of a later one
+        long sequence = observedValue.nextSequence();
+        this.getValueAsync(observedValue.classOfT(), observedValue.getKey(), observedValue.user(), observedValue.defaultValue())
+                .thenAccept(value -> observedValue.update(value, sequence));
+    }
+
     private <T> T getValueFromSettingsMap(Class<T> classOfT, SettingResult settingResult, String key, User user, T defaultValue) {
         User userObject = user != null ? user : this.defaultUser;
         try {
             Result<Setting> checkSettingResult = checkSettingAvailable(settingResult, key, defaultValue);
             if (checkSettingResult.error() != null) {
-                this.hooks.invokeOnFlagEvaluated(EvaluationDetails.fromError(key, defaultValue, checkSettingResult.error(), user));
+                if (this.hooks.hasFlagEvaluatedListeners()) {
+                    this.hooks.invokeOnFlagEvaluated(EvaluationDetails.fromError(key, defaultValue, checkSettingResult.error(), user));
+                }
                 return defaultValue;
             }
-            return this.evaluate(classOfT, checkSettingResult.value(), key, userObject, settingResult.fetchTime(), settingResult.settings()).getValue();
+            if (this.hooks.hasFlagEvaluatedListeners()) {
+                return this.evaluate(classOfT, checkSettingResult.value(), key, userObject, settingResult).getValue();
+            }
+            return this.evaluateValue(classOfT, checkSettingResult.value(), key, userObject, settingResult);
         } catch (Exception | NoSuchMethodError e) {
             FormattableLogMessage error = ConfigCatLogMessages.getSettingEvaluationFailedForOtherReason(key, "defaultValue", defaultValue);
-            this.hooks.invokeOnFlagEvaluated(EvaluationDetails.fromError(key, defaultValue, error + " " + e.getMessage(), userObject));
+            if (this.hooks.hasFlagEvaluatedListeners()) {
+                this.hooks.invokeOnFlagEvaluated(EvaluationDetails.fromError(key, defaultValue, error + " " + e.getMessage(), userObject));
+            }
             this.logger.error(2001, error, e);
             return defaultValue;
         }
@@ -501,8 +656,12 @@ public final class ConfigCatClient implements ConfigurationProvider {
         }
     }
 
-    private <T> EvaluationDetails<T> evaluate(Class<T> classOfT, Setting setting, String key, User user, Long fetchTime, Map<String, Setting> settings) {
-        EvaluationResult evaluationResult = this.rolloutEvaluator.evaluate(setting, key, user, settings, new EvaluateLogger(this.clientLogLevel));
+    private <T> EvaluationDetails<T> evaluate(Class<T> classOfT, Setting setting, String key, User user, SettingResult settingResult) {
+        return evaluate(classOfT, setting, key, user, settingResult, null);
+    }
+
+    private <T> EvaluationDetails<T> evaluate(Class<T> classOfT, Setting setting, String key, User user, SettingResult settingResult, EvaluationBatch batch) {
+        EvaluationResult evaluationResult = this.evaluateSetting(setting, key, user, settingResult, batch);
         EvaluationDetails<Object> details = new EvaluationDetails<>(
                 this.parseObject(classOfT, evaluationResult.value, setting.getType()),
                 key,
@@ -510,13 +669,46 @@ public final class ConfigCatClient implements ConfigurationProvider {
                 user,
                 false,
                 null,
-                fetchTime,
+                settingResult.fetchTime(),
                 evaluationResult.targetingRule,
                 evaluationResult.percentageOption);
         this.hooks.invokeOnFlagEvaluated(details);
         return details.asTypeSpecific();
     }
 
+    /**
+     * Evaluates only the value, without building the {@link EvaluationDetails} when nobody subscribed to onFlagEvaluated.
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T evaluateValue(Class<T> classOfT, Setting setting, String key, User user, SettingResult settingResult) {
+        EvaluationResult evaluationResult = this.evaluateSetting(setting, key, user, settingResult, null);
+        return (T) this.parseObject(classOfT, evaluationResult.value, setting.getType());
+    }
+
+    /**
+     * Evaluates the setting, or serves the result from the {@link EvaluationCache} when it's enabled and usable for the config.
+     */
+    private EvaluationResult evaluateSetting(Setting setting, String key, User user, SettingResult settingResult, EvaluationBatch batch) {
+        EvaluateLogger evaluateLogger = EvaluateLogger.forLogLevel(this.clientLogLevel);
+        String eTag = settingResult.eTag();
+        if (this.evaluationCache == null || evaluateLogger.isLoggable() || eTag == null || eTag.isEmpty()) {
+            return this.rolloutEvaluator.evaluate(setting, key, user, settingResult.settings(), evaluateLogger, batch);
+        }
+        String userFingerprint = user != null ? user.fingerprint() : "";
+        EvaluationResult evaluationResult = this.evaluationCache.get(eTag, key, userFingerprint);
+        if (evaluationResult == null) {
+            // the warnings are counted by the batch, a result whose evaluation logged a warning is not cached,
+            // so the warning is logged again by the next evaluation
+            EvaluationBatch warningCounter = batch != null && batch.isFor(user, settingResult.settings()) ? batch : new EvaluationBatch(user, settingResult.settings());
+            int warningCountBefore = warningCounter.warningCount();
+            evaluationResult = this.rolloutEvaluator.evaluate(setting, key, user, settingResult.settings(), evaluateLogger, warningCounter);
+            if (warningCounter.warningCount() == warningCountBefore) {
+                this.evaluationCache.put(eTag, key, userFingerprint, evaluationResult);
+            }
+        }
+        return evaluationResult;
+    }
+
     private Object parseObject(Class<?> classOfT, SettingValue settingValue, SettingType settingType) {
         validateReturnType(classOfT);
 
@@ -682,6 +874,10 @@ public final class ConfigCatClient implements ConfigurationProvider {
         private User defaultUser;
         private boolean offline;
         private LogFilterFunction logFilter;
+        private EvaluationCache evaluationCache;
+        private ScheduledExecutorService scheduler;
+        private int hookQueueCapacity;
+        private HookOverflowPolicy hookOverflowPolicy;
 
         private final HttpOptions httpOptions = new HttpOptions();
         private final ConfigCatHooks hooks = new ConfigCatHooks();
@@ -795,6 +991,50 @@ public final class ConfigCatClient implements ConfigurationProvider {
             this.logFilter = logFilter;
         }
 
+        /**
+         * Enables caching the evaluation results per feature flag key and user attributes, until the config changes.
+         * The same instance can be kept by the caller to read the hit and miss statistics.
+         *
+         * @param evaluationCache the {@link EvaluationCache} instance.
+         */
+        public void evaluationCache(EvaluationCache evaluationCache) {
+            this.evaluationCache = evaluationCache;
+        }
+
+        /**
+         * Sets the scheduler which runs the client's polling, HTTP requests and cache writes. By default process-wide
+         * executors with a fixed number of daemon threads are shared by all clients.
+         * The client doesn't shut down the given scheduler. The default HTTP transport blocks a thread per request,
+         * so a single threaded scheduler delays the polling of other clients while a request is running.
+         *
+         * @param scheduler the {@link ScheduledExecutorService} instance.
+         */
+        public void scheduler(ScheduledExecutorService scheduler) {
+            this.scheduler = scheduler;
+        }
+
+        /**
+         * Delivers the onFlagEvaluated, onConfigChanged and onError events on a background thread instead of the thread
+         * raising them, so slow callbacks don't delay the evaluations and the config updates. The events are delivered
+         * in order, one at a time, through a bounded queue. The onClientReady event is still delivered synchronously.
+         * Exceptions thrown by the callbacks are logged as warnings. The number of dropped events is reported by
+         * {@link ConfigCatHooks#droppedEventCount()}.
+         *
+         * @param queueCapacity  the maximum number of queued events.
+         * @param overflowPolicy what happens with an event when the queue is full.
+         * @throws IllegalArgumentException when queueCapacity is not positive or overflowPolicy is null.
+         */
+        public void asyncHooks(int queueCapacity, HookOverflowPolicy overflowPolicy) {
+            if (queueCapacity <= 0) {
+                throw new IllegalArgumentException("queueCapacity must be greater than 0.");
+            }
+            if (overflowPolicy == null) {
+                throw new IllegalArgumentException("overflowPolicy cannot be null.");
+            }
+            this.hookQueueCapacity = queueCapacity;
+            this.hookOverflowPolicy = overflowPolicy;
+        }
+
         /**
          * Indicates that the SDK should react to application state changes.
          *
@@ -816,6 +1056,7 @@ public final class ConfigCatClient implements ConfigurationProvider {
         private int connectTimeoutMillis = 10000;
         private int readTimeoutMillis = 10000;
         private Proxy proxy;
+        private ConfigFetchTransport transport;
 
         /**
          * Sets HTTP connect timeout in milliseconds.
@@ -847,6 +1088,17 @@ public final class ConfigCatClient implements ConfigurationProvider {
             return this;
         }
 
+        /**
+         * Sets the transport which executes the config JSON requests, by default {@link java.net.HttpURLConnection} is used.
+         * The client doesn't close the transport, it can be shared between clients.
+         *
+         * @param transport the {@link ConfigFetchTransport} implementation.
+         */
+        public HttpOptions transport(ConfigFetchTransport transport) {
+            this.transport = transport;
+            return this;
+        }
+
         int getConnectTimeoutMillis() {
             return connectTimeoutMillis;
         }
@@ -858,5 +1110,9 @@ public final class ConfigCatClient implements ConfigurationProvider {
         Proxy getProxy() {
             return proxy;
         }
+
+        ConfigFetchTransport getTransport() {
+            return transport;
+        }
     }
 }
\ No newline at end of file
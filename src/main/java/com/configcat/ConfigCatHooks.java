@@ -2,19 +2,29 @@ package com.configcat;
 
 import java9.util.function.Consumer;
 
-import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.atomic.AtomicReference;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
 
 public class ConfigCatHooks {
-    private final AtomicReference<ClientCacheState> clientCacheState = new AtomicReference<>(null);
-    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock(true);
-    private final List<Consumer<Map<String, Setting>>> onConfigChanged = new ArrayList<>();
-    private final List<Consumer<ClientCacheState>> onClientReadyWithState = new ArrayList<>();
-    private final List<Runnable> onClientReady = new ArrayList<>();    private final List<Consumer<EvaluationDetails<Object>>> onFlagEvaluated = new ArrayList<>();
-    private final List<Consumer<String>> onError = new ArrayList<>();
+    private static final Object[] EMPTY = new Object[0];
+
+    // the listener arrays are never modified, subscribing swaps in a copy so invocation doesn't need a lock
+    private final Object lock = new Object();
+    private volatile ClientCacheState clientCacheState;
+    private volatile Object[] onConfigChanged = EMPTY;
+    private volatile Object[] onConfigDiff = EMPTY;
+    private volatile Map<String, Object[]> onFlagChanged = new HashMap<>();
+    private volatile Object[] onClientReadyWithState = EMPTY;
+    private volatile Object[] onClientReady = EMPTY;
+    private volatile Object[] onFlagEvaluated = EMPTY;
+    private volatile Object[] onError = EMPTY;
+    private volatile AsyncHookDispatcher dispatcher;
+    private volatile ScheduledExecutorService scheduler;
+    private volatile Executor ioExecutor;
 
     /**
      * Subscribes to the onReady event. This event is fired when the SDK reaches the ready state.
@@ -26,16 +36,15 @@ public class ConfigCatHooks {
      * @param callback the method to call when the event fires.
      */
     public void addOnClientReady(Consumer<ClientCacheState> callback) {
-        lock.writeLock().lock();
-        try {
-            if(clientCacheState.get() != null) {
-                callback.accept(clientCacheState.get());
-            } else {
-                this.onClientReadyWithState.add(callback);
+        ClientCacheState state;
+        synchronized (lock) {
+            state = this.clientCacheState;
+            if (state == null) {
+                this.onClientReadyWithState = append(this.onClientReadyWithState, callback);
+                return;
             }
-        } finally {
-            lock.writeLock().unlock();
         }
+        callback.accept(state);
     }
 
     /**
@@ -49,11 +58,8 @@ public class ConfigCatHooks {
      */
     @Deprecated
     public void addOnClientReady(Runnable callback) {
-        lock.writeLock().lock();
-        try {
-            this.onClientReady.add(callback);
-        } finally {
-            lock.writeLock().unlock();
+        synchronized (lock) {
+            this.onClientReady = append(this.onClientReady, callback);
         }
     }
 
@@ -64,11 +70,39 @@ public class ConfigCatHooks {
      * @param callback the method to call when the event fires.
      */
     public void addOnConfigChanged(Consumer<Map<String, Setting>> callback) {
-        lock.writeLock().lock();
-        try {
-            this.onConfigChanged.add(callback);
-        } finally {
-            lock.writeLock().unlock();
+        synchronized (lock) {
+            this.onConfigChanged = append(this.onConfigChanged, callback);
+        }
+    }
+
+    /**
+     * Subscribes to the onConfigChanged event with the difference between the previous and the new config.json.
+     * The difference is computed once for all subscribers, so they don't have to compare the setting maps themselves.
+     *
+     * @param callback the method to call when the event fires.
+     */
+    public void addOnConfigDiff(Consumer<ConfigChange> callback) {
+        synchronized (lock) {
+            this.onConfigDiff = append(this.onConfigDiff, callback);
+        }
+    }
+
+    /**
+     * Subscribes to the changes of a single feature flag or setting. This event is fired when the loaded config.json
+     * changes and the setting was added, removed or modified, see {@link ConfigChange}.
+     *
+     * @param key      the key of the feature flag or setting.
+     * @param callback the method to call with the new setting, or with {@code null} when the setting was removed.
+     */
+    public void addOnFlagChanged(String key, Consumer<Setting> callback) {
+        if (key == null || key.isEmpty()) {
+            throw new IllegalArgumentException("'key' cannot be null or empty.");
+        }
+        synchronized (lock) {
+            Map<String, Object[]> copy = new HashMap<>(this.onFlagChanged);
+            Object[] listeners = copy.get(key);
+            copy.put(key, append(listeners != null ? listeners : EMPTY, callback));
+            this.onFlagChanged = copy;
         }
     }
 
@@ -78,11 +112,8 @@ public class ConfigCatHooks {
      * @param callback the method to call when the event fires.
      */
     public void addOnError(Consumer<String> callback) {
-        lock.writeLock().lock();
-        try {
-            this.onError.add(callback);
-        } finally {
-            lock.writeLock().unlock();
+        synchronized (lock) {
+            this.onError = append(this.onError, callback);
         }
     }
 
@@ -93,74 +124,206 @@ public class ConfigCatHooks {
      * @param callback the method to call when the event fires.
      */
     public void addOnFlagEvaluated(Consumer<EvaluationDetails<Object>> callback) {
-        lock.writeLock().lock();
-        try {
-            this.onFlagEvaluated.add(callback);
-        } finally {
-            lock.writeLock().unlock();
+        synchronized (lock) {
+            this.onFlagEvaluated = append(this.onFlagEvaluated, callback);
+        }
+    }
+
+    /**
+     * Subscribes to the onFlagEvaluated event in batches. The evaluation details are collected and the callback is called
+     * with a batch when it reaches {@code maxBatchSize} events (on the evaluating thread), or {@code maxDelayMillis} after
+     * the first event of the batch (on a background thread). The pending events are delivered when the client is closed.
+     * The batches are delivered one at a time, in the order they were completed, so the callback is never called concurrently.
+     *
+     * @param maxBatchSize   the maximum number of events in a batch.
+     * @param maxDelayMillis the maximum time in milliseconds an event waits for its batch to be delivered.
+     * @param deduplicate    when {@code true}, the events with the same key, variation ID and user identifier
+     *                       are delivered only once in a batch.
+     * @param callback       the method to call with the batches.
+     */
+    public void addOnFlagEvaluatedBatch(int maxBatchSize, long maxDelayMillis, boolean deduplicate, Consumer<List<EvaluationDetails<Object>>> callback) {
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("'maxBatchSize' must be greater than 0.");
+        }
+        if (maxDelayMillis < 1) {
+            throw new IllegalArgumentException("'maxDelayMillis' must be greater than 0.");
         }
+        if (callback == null) {
+            throw new IllegalArgumentException("'callback' cannot be null.");
+        }
+        addOnFlagEvaluated(new FlagEvaluationBatcher(maxBatchSize, maxDelayMillis, deduplicate, callback, this));
+    }
+
+    /**
+     * @return {@code true} when there's at least one onFlagEvaluated subscriber. Without subscribers the SDK
+     * skips building the evaluation details of the getValue() calls.
+     */
+    public boolean hasFlagEvaluatedListeners() {
+        return this.onFlagEvaluated.length != 0;
+    }
+
+    /**
+     * @return the number of events dropped because the queue of the asynchronous dispatch was full,
+     * see {@link ConfigCatClient.Options#asyncHooks(int, HookOverflowPolicy)}. Always 0 with synchronous dispatch.
+     */
+    public long droppedEventCount() {
+        AsyncHookDispatcher current = this.dispatcher;
+        return current != null ? current.droppedCount() : 0;
+    }
+
+    void setDispatcher(AsyncHookDispatcher dispatcher) {
+        this.dispatcher = dispatcher;
+    }
+
+    void setExecutors(ScheduledExecutorService scheduler, Executor ioExecutor) {
+        this.scheduler = scheduler;
+        this.ioExecutor = ioExecutor;
+    }
+
+    ScheduledExecutorService scheduler() {
+        ScheduledExecutorService current = this.scheduler;
+        return current != null ? current : SharedScheduler.get();
+    }
+
+    Executor ioExecutor() {
+        Executor current = this.ioExecutor;
+        return current != null ? current : SharedScheduler.io();
     }
 
+    @SuppressWarnings("unchecked")
     void invokeOnClientReady(ClientCacheState clientCacheState) {
-        lock.readLock().lock();
-        try {
-            this.clientCacheState.set(clientCacheState);
-            for (Consumer<ClientCacheState> func : this.onClientReadyWithState) {
-                func.accept(clientCacheState);
-            }
-            for (Runnable func : this.onClientReady) {
-                func.run();
-            }
-        } finally {
-            lock.readLock().unlock();
+        Object[] withState;
+        Object[] withoutState;
+        synchronized (lock) {
+            // subscribers added from now on are called in addOnClientReady
+            this.clientCacheState = clientCacheState;
+            withState = this.onClientReadyWithState;
+            withoutState = this.onClientReady;
+        }
+        for (Object func : withState) {
+            ((Consumer<ClientCacheState>) func).accept(clientCacheState);
+        }
+        for (Object func : withoutState) {
+            ((Runnable) func).run();
         }
     }
 
     void invokeOnError(Object error) {
-        lock.readLock().lock();
-        try {
-            if(!this.onError.isEmpty()) {
-                String errorMessage = error.toString();
-                for (Consumer<String> func : this.onError) {
-                    func.accept(errorMessage);
-                }
-            }
-        } finally {
-            lock.readLock().unlock();
+        Object[] listeners = this.onError;
+        if (listeners.length == 0) {
+            return;
+        }
+        AsyncHookDispatcher current = this.dispatcher;
+        if (current != null) {
+            current.dispatch(() -> deliverOnError(listeners, error));
+            return;
+        }
+        deliverOnError(listeners, error);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void deliverOnError(Object[] listeners, Object error) {
+        String errorMessage = error.toString();
+        for (Object func : listeners) {
+            ((Consumer<String>) func).accept(errorMessage);
+        }
+    }
+
+    void invokeOnConfigChanged(Config previous, Config current) {
+        Object[] mapListeners = this.onConfigChanged;
+        Object[] changeListeners = this.onConfigDiff;
+        Map<String, Object[]> flagListeners = this.onFlagChanged;
+        if (mapListeners.length == 0 && changeListeners.length == 0 && flagListeners.isEmpty()) {
+            return;
         }
+        AsyncHookDispatcher dispatcher = this.dispatcher;
+        if (dispatcher != null) {
+            // the diff is computed by the dispatched task, not on the thread which loaded the config
+            dispatcher.dispatch(() -> deliverOnConfigChanged(mapListeners, changeListeners, flagListeners, previous, current));
+            return;
+        }
+        deliverOnConfigChanged(mapListeners, changeListeners, flagListeners, previous, current);
     }
 
-    void invokeOnConfigChanged(Map<String, Setting> settingMap) {
-        lock.readLock().lock();
-        try {
-            for (Consumer<Map<String, Setting>> func : this.onConfigChanged) {
-                func.accept(settingMap);
+    @SuppressWarnings("unchecked")
+    private static void deliverOnConfigChanged(Object[] mapListeners, Object[] changeListeners, Map<String, Object[]> flagListeners,
+                                               Config previous, Config current) {
+        Map<String, Setting> settingMap = current.getEntries();
+        for (Object func : mapListeners) {
+            ((Consumer<Map<String, Setting>>) func).accept(settingMap);
+        }
+        // the diff is only computed when someone is interested in it
+        if (changeListeners.length == 0 && flagListeners.isEmpty()) {
+            return;
+        }
+        ConfigChange change = ConfigChange.between(previous, current);
+        for (Object func : changeListeners) {
+            ((Consumer<ConfigChange>) func).accept(change);
+        }
+        if (flagListeners.isEmpty()) {
+            return;
+        }
+        deliverOnFlagChanged(flagListeners, change.getAddedKeys(), settingMap);
+        deliverOnFlagChanged(flagListeners, change.getModifiedKeys(), settingMap);
+        deliverOnFlagChanged(flagListeners, change.getRemovedKeys(), settingMap);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void deliverOnFlagChanged(Map<String, Object[]> flagListeners, Iterable<String> keys, Map<String, Setting> settingMap) {
+        for (String key : keys) {
+            Object[] listeners = flagListeners.get(key);
+            if (listeners == null) {
+                continue;
+            }
+            Setting setting = settingMap.get(key);
+            for (Object func : listeners) {
+                ((Consumer<Setting>) func).accept(setting);
             }
-        } finally {
-            lock.readLock().unlock();
         }
     }
 
     void invokeOnFlagEvaluated(EvaluationDetails<Object> evaluationDetails) {
-        lock.readLock().lock();
-        try {
-            for (Consumer<EvaluationDetails<Object>> func : this.onFlagEvaluated) {
-                func.accept(evaluationDetails);
-            }
-        } finally {
-            lock.readLock().unlock();
+        Object[] listeners = this.onFlagEvaluated;
+        if (listeners.length == 0) {
+            return;
+        }
+        AsyncHookDispatcher current = this.dispatcher;
+        if (current != null) {
+            current.dispatch(() -> deliverOnFlagEvaluated(listeners, evaluationDetails));
+            return;
+        }
+        deliverOnFlagEvaluated(listeners, evaluationDetails);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void deliverOnFlagEvaluated(Object[] listeners, EvaluationDetails<Object> evaluationDetails) {
+        for (Object func : listeners) {
+            ((Consumer<EvaluationDetails<Object>>) func).accept(evaluationDetails);
         }
     }
 
     void clear() {
-        lock.writeLock().lock();
-        try {
-            this.onConfigChanged.clear();
-            this.onError.clear();
-            this.onFlagEvaluated.clear();
-            this.onClientReady.clear();
-        } finally {
-            lock.writeLock().unlock();
+        Object[] flagEvaluated;
+        synchronized (lock) {
+            flagEvaluated = this.onFlagEvaluated;
+            this.onConfigChanged = EMPTY;
+            this.onConfigDiff = EMPTY;
+            this.onFlagChanged = new HashMap<>();
+            this.onError = EMPTY;
+            this.onFlagEvaluated = EMPTY;
+            this.onClientReady = EMPTY;
+            this.onClientReadyWithState = EMPTY;
         }
+        for (Object func : flagEvaluated) {
+            if (func instanceof FlagEvaluationBatcher) {
+                ((FlagEvaluationBatcher) func).flush();
+            }
+        }
+    }
+
+    private static Object[] append(Object[] listeners, Object callback) {
+        Object[] result = Arrays.copyOf(listeners, listeners.length + 1);
+        result[listeners.length] = callback;
+        return result;
     }
-}
\ No newline at end of file
+}
@@ -18,6 +18,10 @@ final class ConfigCatLogMessages {
      * Log message for Config Service Cache Write error. The log eventId is 2201.
      */
     public static final String CONFIG_SERVICE_CACHE_WRITE_ERROR = "Error occurred while writing the cache";
+    /**
+     * Log message for Config Service Cache Write timed out on close error. The log eventId is 2201.
+     */
+    public static final String CONFIG_SERVICE_CACHE_WRITE_TIMEOUT_ERROR = "The pending cache write did not finish before the client was closed.";
     /**
      * Log message for Config Service Cache Read error. The log eventId is 2200.
      */
@@ -284,6 +288,16 @@ final class ConfigCatLogMessages {
         return new FormattableLogMessageWithUserCondition("Evaluation of condition (%s) for setting '%s' may not produce the expected result (the User.%s attribute is not a string value, thus it was automatically converted to the string value '%s'). Please make sure that using a non-string value was intended.", userCondition, key, attributeName, attributeValue);
     }
 
+    /**
+     * Log message for Hook Callback Failed warning. The log eventId 3006.
+     *
+     * @param exception The exception thrown by the callback.
+     * @return The formattable log message.
+     */
+    public static FormattableLogMessage getHookCallbackFailed(final Exception exception) {
+        return new FormattableLogMessage("A hook callback threw an exception, the event was skipped for the remaining callbacks: '%s'.", exception);
+    }
+
     /**
      * Log message for Config Service Method Has No Effect Due To Closed Client warning. The log eventId 3201.
      *
@@ -0,0 +1,199 @@
+package com.configcat;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * The difference between the previously loaded and the new config.json, see {@link ConfigCatHooks#addOnConfigDiff}.
+ */
+public final class ConfigChange {
+    private final Map<String, Setting> settings;
+    private final Set<String> addedKeys;
+    private final Set<String> removedKeys;
+    private final Set<String> modifiedKeys;
+
+    private ConfigChange(Map<String, Setting> settings, Set<String> addedKeys, Set<String> removedKeys, Set<String> modifiedKeys) {
+        this.settings = settings;
+        this.addedKeys = Collections.unmodifiableSet(addedKeys);
+        this.removedKeys = Collections.unmodifiableSet(removedKeys);
+        this.modifiedKeys = Collections.unmodifiableSet(modifiedKeys);
+    }
+
+    /**
+     * The map of settings of the new config.
+     */
+    public Map<String, Setting> getSettings() {
+        return settings;
+    }
+
+    /**
+     * The keys of the settings which are only in the new config.
+     */
+    public Set<String> getAddedKeys() {
+        return addedKeys;
+    }
+
+    /**
+     * The keys of the settings which are only in the previous config.
+     */
+    public Set<String> getRemovedKeys() {
+        return removedKeys;
+    }
+
+    /**
+     * The keys of the settings which are in both configs, but their value, targeting rules, percentage options
+     * or the segments and the salt used by their targeting rules changed.
+     */
+    public Set<String> getModifiedKeys() {
+        return modifiedKeys;
+    }
+
+    /**
+     * @return {@code true} when the setting was added, removed or modified.
+     */
+    public boolean isChanged(String key) {
+        return addedKeys.contains(key) || removedKeys.contains(key) || modifiedKeys.contains(key);
+    }
+
+    /**
+     * @return {@code true} when any setting was added, removed or modified.
+     */
+    public boolean hasChanges() {
+        return !addedKeys.isEmpty() || !removedKeys.isEmpty() || !modifiedKeys.isEmpty();
+    }
+
+    /**
+     * Compares the settings structurally, field by field. It runs on the thread delivering the hook events.
+     */
+    static ConfigChange between(Config previous, Config current) {
+        Map<String, Setting> previousSettings = previous.getEntries();
+        Map<String, Setting> currentSettings = current.getEntries();
+        // the salt and the segments are shared by the settings, a change affects all settings with targeting rules
+        boolean sharedChanged = !Objects.equals(salt(previous), salt(current))
+                || !arraysEqual(previous.getSegments(), current.getSegments(), ConfigChange::segmentsEqual);
+
+        Set<String> added = new LinkedHashSet<>();
+        Set<String> modified = new LinkedHashSet<>();
+        for (Map.Entry<String, Setting> entry : currentSettings.entrySet()) {
+            Setting previousSetting = previousSettings.get(entry.getKey());
+            if (previousSetting == null) {
+                added.add(entry.getKey());
+            } else if (isModified(previousSetting, entry.getValue(), sharedChanged)) {
+                modified.add(entry.getKey());
+            }
+        }
+        Set<String> removed = new LinkedHashSet<>();
+        for (String key : previousSettings.keySet()) {
+            if (!currentSettings.containsKey(key)) {
+                removed.add(key);
+            }
+        }
+        return new ConfigChange(currentSettings, added, removed, modified);
+    }
+
+    private static boolean isModified(Setting previous, Setting current, boolean sharedChanged) {
+        if (previous == current) {
+            return false;
+        }
+        if (sharedChanged && hasTargetingRules(current)) {
+            return true;
+        }
+        return previous.getType() != current.getType()
+                || !Objects.equals(previous.getPercentageAttribute(), current.getPercentageAttribute())
+                || !Objects.equals(previous.getVariationId(), current.getVariationId())
+                || !valuesEqual(previous.getSettingsValue(), current.getSettingsValue())
+                || !arraysEqual(previous.getPercentageOptions(), current.getPercentageOptions(), ConfigChange::percentageOptionsEqual)
+                || !arraysEqual(previous.getTargetingRules(), current.getTargetingRules(), ConfigChange::targetingRulesEqual);
+    }
+
+    private static boolean targetingRulesEqual(TargetingRule a, TargetingRule b) {
+        return arraysEqual(a.getConditions(), b.getConditions(), ConfigChange::conditionsEqual)
+                && arraysEqual(a.getPercentageOptions(), b.getPercentageOptions(), ConfigChange::percentageOptionsEqual)
+                && simpleValuesEqual(a.getSimpleValue(), b.getSimpleValue());
+    }
+
+    private static boolean conditionsEqual(Condition a, Condition b) {
+        return nullableEqual(a.getUserCondition(), b.getUserCondition(), ConfigChange::userConditionsEqual)
+                && nullableEqual(a.getSegmentCondition(), b.getSegmentCondition(), ConfigChange::segmentConditionsEqual)
+                && nullableEqual(a.getPrerequisiteFlagCondition(), b.getPrerequisiteFlagCondition(), ConfigChange::prerequisiteConditionsEqual);
+    }
+
+    private static boolean userConditionsEqual(UserCondition a, UserCondition b) {
+        return a.getComparator() == b.getComparator()
+                && Objects.equals(a.getComparisonAttribute(), b.getComparisonAttribute())
+                && Objects.equals(a.getStringValue(), b.getStringValue())
+                && Objects.equals(a.getDoubleValue(), b.getDoubleValue())
+                && Arrays.equals(a.getStringArrayValue(), b.getStringArrayValue());
+    }
+
+    private static boolean segmentConditionsEqual(SegmentCondition a, SegmentCondition b) {
+        return a.getSegmentIndex() == b.getSegmentIndex() && a.getSegmentComparator() == b.getSegmentComparator();
+    }
+
+    private static boolean prerequisiteConditionsEqual(PrerequisiteFlagCondition a, PrerequisiteFlagCondition b) {
+        return a.getPrerequisiteComparator() == b.getPrerequisiteComparator()
+                && Objects.equals(a.getPrerequisiteFlagKey(), b.getPrerequisiteFlagKey())
+                && valuesEqual(a.getValue(), b.getValue());
+    }
+
+    private static boolean percentageOptionsEqual(PercentageOption a, PercentageOption b) {
+        return a.getPercentage() == b.getPercentage()
+                && Objects.equals(a.getVariationId(), b.getVariationId())
+                && valuesEqual(a.getValue(), b.getValue());
+    }
+
+    private static boolean simpleValuesEqual(SimpleValue a, SimpleValue b) {
+        return nullableEqual(a, b, (x, y) -> Objects.equals(x.getVariationId(), y.getVariationId()) && valuesEqual(x.getValue(), y.getValue()));
+    }
+
+    private static boolean segmentsEqual(Segment a, Segment b) {
+        return Objects.equals(a.getName(), b.getName())
+                && arraysEqual(a.getSegmentRules(), b.getSegmentRules(), ConfigChange::userConditionsEqual);
+    }
+
+    private static boolean valuesEqual(SettingValue a, SettingValue b) {
+        return nullableEqual(a, b, (x, y) -> Objects.equals(x.getBooleanValue(), y.getBooleanValue())
+                && Objects.equals(x.getStringValue(), y.getStringValue())
+                && Objects.equals(x.getIntegerValue(), y.getIntegerValue())
+                && Objects.equals(x.getDoubleValue(), y.getDoubleValue()));
+    }
+
+    /**
+     * A missing array is the same as an empty one.
+     */
+    private static <T> boolean arraysEqual(T[] a, T[] b, Equality<T> equality) {
+        int length = a != null ? a.length : 0;
+        if (length != (b != null ? b.length : 0)) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (!nullableEqual(a[i], b[i], equality)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static <T> boolean nullableEqual(T a, T b, Equality<T> equality) {
+        if (a == b) {
+            return true;
+        }
+        return a != null && b != null && equality.equal(a, b);
+    }
+
+    private static boolean hasTargetingRules(Setting setting) {
+        return setting.getTargetingRules() != null && setting.getTargetingRules().length > 0;
+    }
+
+    private static String salt(Config config) {
+        return config.getPreferences() != null ? config.getPreferences().getSalt() : null;
+    }
+
+    private interface Equality<T> {
+        boolean equal(T a, T b);
+    }
+}
@@ -0,0 +1,153 @@
+package com.configcat;
+
+import java9.util.concurrent.CompletableFuture;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.Proxy;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Executes the HTTP requests which download the config JSON. By default the SDK uses {@link java.net.HttpURLConnection}
+ * on a thread pool, a custom transport (e.g. built on OkHttp's asynchronous calls) can be set with
+ * {@link ConfigCatClient.HttpOptions#transport(ConfigFetchTransport)}.
+ * <p>
+ * The returned future is completed when the status line and the headers are received, the body is then read from
+ * {@link Response#getBody()} on the thread completing the future. A timeout should complete the future exceptionally with
+ * a {@link java.net.SocketTimeoutException}, other failures with any exception.
+ */
+public interface ConfigFetchTransport {
+
+    /**
+     * Starts the request.
+     *
+     * @param request the request to execute.
+     * @return the future of the response, the SDK closes the response when its body is read.
+     */
+    CompletableFuture<Response> execute(Request request);
+
+    /**
+     * A GET request of the config JSON.
+     */
+    final class Request {
+        private final String url;
+        private final Map<String, String> headers;
+        private final int connectTimeoutMillis;
+        private final int readTimeoutMillis;
+        private final Proxy proxy;
+
+        Request(String url, Map<String, String> headers, int connectTimeoutMillis, int readTimeoutMillis, Proxy proxy) {
+            this.url = url;
+            this.headers = Collections.unmodifiableMap(new LinkedHashMap<>(headers));
+            this.connectTimeoutMillis = connectTimeoutMillis;
+            this.readTimeoutMillis = readTimeoutMillis;
+            this.proxy = proxy;
+        }
+
+        public String getUrl() {
+            return url;
+        }
+
+        /**
+         * @return the request headers, e.g. {@code If-None-Match} and the SDK's user agent header.
+         */
+        public Map<String, String> getHeaders() {
+            return headers;
+        }
+
+        public int getConnectTimeoutMillis() {
+            return connectTimeoutMillis;
+        }
+
+        public int getReadTimeoutMillis() {
+            return readTimeoutMillis;
+        }
+
+        /**
+         * @return the proxy set in {@link ConfigCatClient.HttpOptions#proxy(Proxy)}, or {@code null}.
+         */
+        public Proxy getProxy() {
+            return proxy;
+        }
+    }
+
+    /**
+     * The response of a {@link Request}, redirects must not be followed.
+     */
+    final class Response implements Closeable {
+        private final int statusCode;
+        private final String statusMessage;
+        private final Map<String, List<String>> headers;
+        private final InputStream body;
+        private final long contentLength;
+        private final Closeable onClose;
+
+        /**
+         * @param statusCode    the HTTP status code.
+         * @param statusMessage the HTTP status message, can be {@code null}.
+         * @param headers       the response headers, the names are matched case-insensitively.
+         * @param body          the response body, can be {@code null} when there's no body.
+         * @param contentLength the length of the body, or -1 when it's unknown.
+         * @param onClose       called when the response is closed (after the body is closed), can be {@code null}.
+         */
+        public Response(int statusCode, String statusMessage, Map<String, List<String>> headers, InputStream body, long contentLength, Closeable onClose) {
+            this.statusCode = statusCode;
+            this.statusMessage = statusMessage;
+            this.headers = headers != null ? headers : Collections.<String, List<String>>emptyMap();
+            this.body = body;
+            this.contentLength = contentLength;
+            this.onClose = onClose;
+        }
+
+        public int getStatusCode() {
+            return statusCode;
+        }
+
+        public String getStatusMessage() {
+            return statusMessage;
+        }
+
+        public Map<String, List<String>> getHeaders() {
+            return headers;
+        }
+
+        /**
+         * @return the first value of the header, or {@code null} when the response doesn't have it.
+         */
+        public String getHeader(String name) {
+            for (Map.Entry<String, List<String>> entry : headers.entrySet()) {
+                if (entry.getKey() != null && entry.getKey().equalsIgnoreCase(name)) {
+                    if (entry.getValue() != null && !entry.getValue().isEmpty()) {
+                        return entry.getValue().get(0);
+                    }
+                }
+            }
+            return null;
+        }
+
+        public InputStream getBody() {
+            return body;
+        }
+
+        public long getContentLength() {
+            return contentLength;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                if (body != null) {
+                    body.close();
+                }
+            } finally {
+                if (onClose != null) {
+                    onClose.close();
+                }
+            }
+        }
+    }
+}
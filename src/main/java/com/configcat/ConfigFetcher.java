@@ -3,14 +3,18 @@ package com.configcat;
 import java9.util.concurrent.CompletableFuture;
 
 import java.io.*;
-import java.net.HttpURLConnection;
 import java.net.SocketTimeoutException;
-import java.net.URL;
-import java.util.List;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.Map;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
 
 class FetchResponse {
     public enum Status {
@@ -73,9 +77,16 @@ class FetchResponse {
 }
 
 class ConfigFetcher implements Closeable {
+    private static final String ACCEPT_ENCODING = "gzip, deflate";
+    private static final int DECODE_BUFFER_SIZE = 8192;
+    static final int MAX_INITIAL_BODY_CAPACITY = 1024 * 1024;
+    static final long SHARED_REQUEST_TIMEOUT_MARGIN_MILLIS = 10_000;
     private final ConfigCatClient.HttpOptions httpOptions;
     private final AtomicBoolean closed = new AtomicBoolean(false);
-    private final ExecutorService executorService;
+    private final ConfigFetchTransport transport;
+    private final Executor executor;
+    private final FetchCoordinator coordinator;
+    private final FetchMetrics metrics = new FetchMetrics();
     private final ConfigCatLogger logger;
     private final String mode;
     private final String sdkKey;
@@ -95,13 +106,27 @@ class ConfigFetcher implements Closeable {
                   String url,
                   boolean urlIsCustom,
                   String pollingIdentifier) {
+        this(httpOptions, logger, sdkKey, url, urlIsCustom, pollingIdentifier, SharedScheduler.http());
+    }
+
+    ConfigFetcher(ConfigCatClient.HttpOptions httpOptions,
+                  ConfigCatLogger logger,
+                  String sdkKey,
+                  String url,
+                  boolean urlIsCustom,
+                  String pollingIdentifier,
+                  Executor executor) {
         this.logger = logger;
         this.sdkKey = sdkKey;
         this.urlIsCustom = urlIsCustom;
         this.url = url;
         this.mode = pollingIdentifier;
         this.httpOptions = httpOptions;
-        this.executorService = Executors.newCachedThreadPool();
+        this.executor = executor;
+        this.coordinator = FetchCoordinator.shared();
+        this.transport = httpOptions.getTransport() != null
+                ? httpOptions.getTransport()
+                : new HttpUrlConnectionTransport(executor);
     }
 
     public CompletableFuture<FetchResponse> fetchAsync(String eTag) {
@@ -153,132 +178,360 @@ class ConfigFetcher implements Closeable {
 
             this.logger.error(1104, ConfigCatLogMessages.getFetchFailedDueToRedirectLoop(fetchResponse.cfRayId()));
             return CompletableFuture.completedFuture(fetchResponse);
-        });
+        }, this.executor);
     }
 
     private CompletableFuture<FetchResponse> getResponseAsync(String eTag) {
-        CompletableFuture<FetchResponse> future = new CompletableFuture<>();
-        this.executorService.execute(() -> this.callHTTP(eTag, future));
-        return future;
+        if (this.closed.get()) {
+            return CompletableFuture.completedFuture(FetchResponse.failed(ConfigCatLogMessages.getFetchFailedDueToUnexpectedError(null), false, null));
+        }
+        String requestUrl = this.url + "/configuration-files/" + this.sdkKey + "/" + Constants.CONFIG_JSON_NAME;
+        String userAgent = "ConfigCat-Droid/" + this.mode + "-" + Constants.VERSION;
+        FetchCoordinator.Key key = new FetchCoordinator.Key(requestUrl, eTag, userAgent,
+                httpOptions.getTransport() != null ? httpOptions.getTransport() : HttpUrlConnectionTransport.class,
+                httpOptions.getProxy(), httpOptions.getConnectTimeoutMillis(), httpOptions.getReadTimeoutMillis());
+        FetchCoordinator.Joined joined = this.coordinator.join(key, sharedRequestTimeoutMillis(),
+                () -> this.sendRequest(requestUrl, eTag, userAgent));
+        if (joined.shared) {
+            logger.debug("Joined the in-flight config JSON request of another client.");
+            metrics.onSharedRequest();
+        }
+        // every fetcher sharing the request logs and counts the outcome on its own
+        return joined.response.handle((outcome, error) -> this.report(error != null ? this.requestFailed(unwrap(error), null) : outcome));
     }
 
-    private void callHTTP(String previousETag, CompletableFuture<FetchResponse> result) {
-        String requestUrl = this.url + "/configuration-files/" + this.sdkKey + "/" + Constants.CONFIG_JSON_NAME;
-        HttpURLConnection urlConnection = null;
-        String cfRayId = null;
-        FetchResponse fetchResponse = null;
-        try {
-            URL fetchUrl = new URL(requestUrl);
-            if (httpOptions.getProxy() != null) {
-                urlConnection = (HttpURLConnection) fetchUrl.openConnection(httpOptions.getProxy());
-            } else {
-                urlConnection = (HttpURLConnection) fetchUrl.openConnection();
-            }
-            urlConnection.setConnectTimeout(httpOptions.getConnectTimeoutMillis());
-            urlConnection.setReadTimeout(httpOptions.getReadTimeoutMillis());
-            urlConnection.setUseCaches(false);
-            urlConnection.setInstanceFollowRedirects(false);
-            urlConnection.setRequestProperty("X-ConfigCat-UserAgent", "ConfigCat-Droid/" + this.mode + "-" + Constants.VERSION);
+    /**
+     * The shared request is abandoned after its timeouts and a margin, so a request which never completes doesn't
+     * block the later fetches joining it.
+     */
+    private long sharedRequestTimeoutMillis() {
+        return (long) httpOptions.getConnectTimeoutMillis() + httpOptions.getReadTimeoutMillis() + SHARED_REQUEST_TIMEOUT_MARGIN_MILLIS;
+    }
 
-            if (previousETag != null && !previousETag.isEmpty())
-                urlConnection.setRequestProperty("If-None-Match", previousETag);
+    private CompletableFuture<Outcome> sendRequest(String requestUrl, String eTag, String userAgent) {
+        Map<String, String> headers = new LinkedHashMap<>();
+        headers.put("X-ConfigCat-UserAgent", userAgent);
+        headers.put("Accept-Encoding", ACCEPT_ENCODING);
+        if (eTag != null && !eTag.isEmpty())
+            headers.put("If-None-Match", eTag);
+        ConfigFetchTransport.Request request = new ConfigFetchTransport.Request(
+                requestUrl,
+                headers,
+                httpOptions.getConnectTimeoutMillis(),
+                httpOptions.getReadTimeoutMillis(),
+                httpOptions.getProxy());
+
+        CompletableFuture<ConfigFetchTransport.Response> responseFuture;
+        try {
+            responseFuture = this.transport.execute(request);
+        } catch (Exception e) {
+            responseFuture = CompletableFuture.failedFuture(e);
+        }
+        return responseFuture.handle((response, error) -> error != null
+                ? this.requestFailed(unwrap(error), null)
+                : this.processResponse(response));
+    }
 
-            int responseCode = urlConnection.getResponseCode();
-            Map<String, List<String>> responseHeaders = urlConnection.getHeaderFields();
+    private Outcome processResponse(ConfigFetchTransport.Response response) {
+        String cfRayId = null;
+        try {
+            int responseCode = response.getStatusCode();
 
-            cfRayId = readHeaderValue(responseHeaders, "CF-RAY");
+            cfRayId = response.getHeader("CF-RAY");
             if (responseCode == 200) {
-                String content = readBody(urlConnection.getInputStream());
-                String eTag = readHeaderValue(responseHeaders,"ETag");
-                Result<Config> configResult = deserializeConfig(content, cfRayId);
-                if (configResult.error() != null) {
-                    fetchResponse = FetchResponse.failed(configResult.error(), false, cfRayId);
-                } else {
-                    logger.debug("Fetch was successful: new config fetched.");
-                    fetchResponse =  FetchResponse.fetched(new Entry(configResult.value(), eTag, content, System.currentTimeMillis()), cfRayId);
+                String eTag = response.getHeader("ETag");
+                String contentEncoding = response.getHeader("Content-Encoding");
+                boolean compressed = contentEncoding != null && !contentEncoding.equalsIgnoreCase("identity");
+                BodyBuffer rawBody = new BodyBuffer(initialBodyCapacity(response.getContentLength(), compressed));
+                CountingInputStream wireBody = response.getBody() != null ? new CountingInputStream(response.getBody()) : null;
+                Config config;
+                Exception invalidBody = null;
+                try {
+                    config = readConfig(decode(wireBody, contentEncoding), rawBody);
+                } catch (InvalidConfigException e) {
+                    config = null;
+                    invalidBody = (Exception) e.getCause();
                 }
-            } else if (responseCode == 304) {
-                if(cfRayId != null) {
-                    logger.debug(String.format("Fetch was successful: config not modified. %s", ConfigCatLogMessages.getCFRayIdPostFix(cfRayId)));
-                } else {
-                    logger.debug("Fetch was successful: config not modified.");
+                long receivedBytes = wireBody != null ? wireBody.count : 0;
+                if (invalidBody != null) {
+                    FormattableLogMessage message = ConfigCatLogMessages.getFetchReceived200WithInvalidBodyError(cfRayId);
+                    return Outcome.error(FetchResponse.failed(message, false, cfRayId), 1105, message, invalidBody)
+                            .withBody(compressed, receivedBytes, rawBody.size());
                 }
-                fetchResponse = FetchResponse.notModified(cfRayId);
+                // the raw JSON is kept as UTF-8 bytes, it's only decoded to a string when the text cache needs it
+                return Outcome.debug(FetchResponse.fetched(new Entry(config, eTag, rawBody.bytes(), System.currentTimeMillis()), cfRayId),
+                                "Fetch was successful: new config fetched.")
+                        .withBody(compressed, receivedBytes, rawBody.size());
+            } else if (responseCode == 304) {
+                String debugMessage = cfRayId != null
+                        ? String.format("Fetch was successful: config not modified. %s", ConfigCatLogMessages.getCFRayIdPostFix(cfRayId))
+                        : "Fetch was successful: config not modified.";
+                return Outcome.debug(FetchResponse.notModified(cfRayId), debugMessage);
             } else if (responseCode == 403 || responseCode == 404) {
                 FormattableLogMessage message = ConfigCatLogMessages.getFetchFailedDueToInvalidSDKKey(cfRayId);
-                logger.error(1100, message);
-                fetchResponse = FetchResponse.failed(message, true, cfRayId);
+                return Outcome.error(FetchResponse.failed(message, true, cfRayId), 1100, message, null);
             } else {
-                FormattableLogMessage message = ConfigCatLogMessages.getFetchFailedDueToUnexpectedHttpResponse(responseCode, urlConnection.getResponseMessage(), cfRayId);
-                logger.error(1101, message);
-                fetchResponse = FetchResponse.failed(message, false, cfRayId);
+                FormattableLogMessage message = ConfigCatLogMessages.getFetchFailedDueToUnexpectedHttpResponse(responseCode, response.getStatusMessage(), cfRayId);
+                return Outcome.error(FetchResponse.failed(message, false, cfRayId), 1101, message, null);
             }
-
-        } catch (SocketTimeoutException e) {
-            FormattableLogMessage message = ConfigCatLogMessages.getFetchFailedDueToRequestTimeout(httpOptions.getConnectTimeoutMillis(), httpOptions.getReadTimeoutMillis(), cfRayId);
-            logger.error(1102, message, e);
-            fetchResponse = FetchResponse.failed(message, false, cfRayId);
         } catch (Exception e) {
-            FormattableLogMessage message = ConfigCatLogMessages.getFetchFailedDueToUnexpectedError(cfRayId);
-            logger.error(1103, message, e);
-            fetchResponse = FetchResponse.failed(message + " " + e.getMessage(), false, cfRayId);
+            return requestFailed(e, cfRayId);
         } finally {
-            if(fetchResponse == null) {
-                fetchResponse = FetchResponse.failed(ConfigCatLogMessages.getFetchFailedDueToUnexpectedError(cfRayId), false, cfRayId);
+            try {
+                response.close();
+            } catch (IOException e) {
+                logger.debug("Closing the response failed: " + e.getMessage());
             }
-            result.complete(fetchResponse);
-            if (urlConnection != null) {
-                urlConnection.disconnect();
+        }
+    }
+
+    private Outcome requestFailed(Throwable e, String cfRayId) {
+        if (e instanceof SocketTimeoutException || e instanceof TimeoutException) {
+            FormattableLogMessage message = ConfigCatLogMessages.getFetchFailedDueToRequestTimeout(httpOptions.getConnectTimeoutMillis(), httpOptions.getReadTimeoutMillis(), cfRayId);
+            return Outcome.error(FetchResponse.failed(message, false, cfRayId), 1102, message, e);
+        }
+        FormattableLogMessage message = ConfigCatLogMessages.getFetchFailedDueToUnexpectedError(cfRayId);
+        return Outcome.error(FetchResponse.failed(message + " " + e.getMessage(), false, cfRayId), 1103, message, e);
+    }
+
+    private FetchResponse report(Outcome outcome) {
+        if (outcome.bodyRead) {
+            metrics.onResponse(outcome.compressed, outcome.receivedBytes, outcome.decodedBytes);
+        }
+        if (outcome.debugMessage != null) {
+            logger.debug(outcome.debugMessage);
+        }
+        if (outcome.errorEventId != 0) {
+            if (outcome.exception != null) {
+                logger.error(outcome.errorEventId, outcome.errorMessage, outcome.exception);
+            } else {
+                logger.error(outcome.errorEventId, outcome.errorMessage);
             }
         }
+        return outcome.response;
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
     }
 
     @Override
     public void close() throws IOException {
-        if (!this.closed.compareAndSet(false, true)) {
-            return;
+        // the executor is shared, it's not shut down, only the new requests are rejected
+        this.closed.set(true);
+    }
+
+    /**
+     * Parses the config JSON while it's read from the response stream, the raw bytes are copied to {@code rawBody}
+     * for the cache. Errors of the underlying stream are rethrown, so they are reported as network errors.
+     */
+    private static Config readConfig(InputStream inputStream, ByteArrayOutputStream rawBody) throws IOException, InvalidConfigException {
+        if (inputStream == null) {
+            throw new InvalidConfigException(new IllegalArgumentException("Config JSON content cannot be null or empty."));
         }
-        if (this.executorService != null) {
-            this.executorService.shutdownNow();
+        TeeInputStream teeInputStream = new TeeInputStream(inputStream, rawBody);
+        try (Reader reader = new InputStreamReader(teeInputStream, StandardCharsets.UTF_8)) {
+            Config config;
+            try {
+                config = Utils.deserializeConfig(reader);
+                teeInputStream.drain();
+            } catch (Exception e) {
+                if (teeInputStream.readError != null) {
+                    throw teeInputStream.readError;
+                }
+                throw new InvalidConfigException(e);
+            }
+            return config;
         }
     }
 
-    private String readHeaderValue(Map<String, List<String>> responseHeaders, String headerName) {
-        if (responseHeaders == null || responseHeaders.isEmpty()) {
-            return null;
+    FetchMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Wraps the body into a streaming decoder of the content encoding, the config JSON is parsed while it's decoded.
+     */
+    private static InputStream decode(InputStream body, String contentEncoding) throws IOException {
+        if (body == null || contentEncoding == null || contentEncoding.isEmpty() || contentEncoding.equalsIgnoreCase("identity")) {
+            return body;
         }
-        for (Map.Entry<String, List<String>> entry : responseHeaders.entrySet()) {
-            if (entry.getKey() != null && entry.getKey().equalsIgnoreCase(headerName)) {
-                if (entry.getValue() != null && !entry.getValue().isEmpty()) {
-                    return entry.getValue().get(0);
+        if (contentEncoding.equalsIgnoreCase("gzip")) {
+            return new GZIPInputStream(body, DECODE_BUFFER_SIZE);
+        }
+        if (contentEncoding.equalsIgnoreCase("deflate")) {
+            // the stream doesn't end an inflater it didn't create, release the native memory on close
+            return new InflaterInputStream(body, new Inflater(), DECODE_BUFFER_SIZE) {
+                @Override
+                public void close() throws IOException {
+                    try {
+                        super.close();
+                    } finally {
+                        inf.end();
+                    }
                 }
-            }
+            };
         }
-        return null;
+        throw new IOException("Unsupported Content-Encoding: " + contentEncoding);
     }
 
-    private String readBody(InputStream inputStream) throws IOException {
-        if (inputStream == null) {
-            return null;
+    private static int initialBodyCapacity(long contentLength, boolean compressed) {
+        if (contentLength <= 0) {
+            return 8192;
+        }
+        // JSON usually compresses well, start with a few times the compressed size.
+        // The header is not trusted beyond MAX_INITIAL_BODY_CAPACITY, a larger body grows the buffer while it's read.
+        long capacity = compressed ? contentLength * 4 : contentLength;
+        return (int) Math.min(capacity, MAX_INITIAL_BODY_CAPACITY);
+    }
+
+    /**
+     * The result of a config JSON request with what's logged and counted for it. It's shared by the fetchers which
+     * joined the same request (see {@link FetchCoordinator}), each of them reports it with its own logger and metrics.
+     */
+    static final class Outcome {
+        final FetchResponse response;
+        final String debugMessage;
+        final int errorEventId;
+        final Object errorMessage;
+        final Throwable exception;
+        final boolean bodyRead;
+        final boolean compressed;
+        final long receivedBytes;
+        final long decodedBytes;
+
+        private Outcome(FetchResponse response, String debugMessage, int errorEventId, Object errorMessage, Throwable exception,
+                        boolean bodyRead, boolean compressed, long receivedBytes, long decodedBytes) {
+            this.response = response;
+            this.debugMessage = debugMessage;
+            this.errorEventId = errorEventId;
+            this.errorMessage = errorMessage;
+            this.exception = exception;
+            this.bodyRead = bodyRead;
+            this.compressed = compressed;
+            this.receivedBytes = receivedBytes;
+            this.decodedBytes = decodedBytes;
         }
-        StringBuilder body = new StringBuilder();
-        BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream));
-        String line;
-        while ((line = reader.readLine()) != null) {
-            body.append(line);
+
+        static Outcome debug(FetchResponse response, String debugMessage) {
+            return new Outcome(response, debugMessage, 0, null, null, false, false, 0, 0);
+        }
+
+        static Outcome error(FetchResponse response, int eventId, Object message, Throwable exception) {
+            return new Outcome(response, null, eventId, message, exception, false, false, 0, 0);
+        }
+
+        Outcome withBody(boolean compressed, long receivedBytes, long decodedBytes) {
+            return new Outcome(response, debugMessage, errorEventId, errorMessage, exception, true, compressed, receivedBytes, decodedBytes);
         }
-        reader.close();
-        return body.toString();
     }
 
-    private Result<Config> deserializeConfig(String json, String cfRayId) {
-        try {
-            return Result.success(Utils.deserializeConfig(json));
-        } catch (Exception e) {
-            FormattableLogMessage message = ConfigCatLogMessages.getFetchReceived200WithInvalidBodyError(cfRayId);
-            this.logger.error(1105, message, e);
-            return Result.error(message, null);
+    private static final class InvalidConfigException extends Exception {
+        InvalidConfigException(Exception cause) {
+            super(cause);
         }
     }
-}
 
+    /**
+     * Collects the raw body, its buffer is handed over without copying when the body filled it exactly
+     * (e.g. an uncompressed response with a Content-Length).
+     */
+    private static final class BodyBuffer extends ByteArrayOutputStream {
+        BodyBuffer(int capacity) {
+            super(capacity);
+        }
+
+        synchronized byte[] bytes() {
+            return count == buf.length ? buf : Arrays.copyOf(buf, count);
+        }
+    }
+
+    private static final class CountingInputStream extends FilterInputStream {
+        private long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int value = super.read();
+            if (value != -1) {
+                count++;
+            }
+            return value;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = super.read(b, off, len);
+            if (read > 0) {
+                count += read;
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+    }
+
+    private static final class TeeInputStream extends FilterInputStream {
+        private final OutputStream copy;
+        private IOException readError;
+
+        TeeInputStream(InputStream in, OutputStream copy) {
+            super(in);
+            this.copy = copy;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            return read(single, 0, 1) == -1 ? -1 : single[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int count;
+            try {
+                count = super.read(b, off, len);
+            } catch (IOException e) {
+                readError = e;
+                throw e;
+            }
+            if (count > 0) {
+                copy.write(b, off, count);
+            }
+            return count;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            // skipped bytes must be copied as well
+            byte[] buffer = new byte[(int) Math.min(n, 8192)];
+            int count = read(buffer, 0, buffer.length);
+            return Math.max(count, 0);
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        void drain() throws IOException {
+            byte[] buffer = new byte[1024];
+            while (read(buffer, 0, buffer.length) != -1) {
+                // copy the trailing whitespace too
+            }
+        }
+    }
+}
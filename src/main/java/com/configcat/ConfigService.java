@@ -4,10 +4,12 @@ import java9.util.concurrent.CompletableFuture;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.concurrent.Executors;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.locks.ReentrantLock;
@@ -15,10 +17,16 @@ import java.util.concurrent.locks.ReentrantLock;
 class SettingResult {
     private final Map<String, Setting> settings;
     private final long fetchTime;
+    private final String eTag;
 
     public SettingResult(Map<String, Setting> settings, long fetchTime) {
+        this(settings, fetchTime, null);
+    }
+
+    SettingResult(Map<String, Setting> settings, long fetchTime, String eTag) {
         this.settings = settings;
         this.fetchTime = fetchTime;
+        this.eTag = eTag;
     }
 
     public Map<String, Setting> settings() {
@@ -29,6 +37,13 @@ class SettingResult {
         return fetchTime;
     }
 
+    /**
+     * Returns the ETag of the config.json the settings came from, or {@code null} when it's not known (e.g. flag overrides).
+     */
+    String eTag() {
+        return eTag;
+    }
+
     boolean isEmpty() {
         return EMPTY.equals(this);
     }
@@ -36,12 +51,42 @@ class SettingResult {
     public static final SettingResult EMPTY = new SettingResult(new HashMap<>(), Constants.DISTANT_PAST);
 }
 
+/**
+ * Immutable view of the in-memory config entry, published atomically by {@link ConfigService}.
+ * It allows non-expired reads to skip the service lock and the cache sync.
+ */
+final class SettingsSnapshot {
+    private final Entry entry;
+    private final CompletableFuture<SettingResult> settingResult;
+
+    SettingsSnapshot(Entry entry) {
+        this.entry = entry;
+        this.settingResult = CompletableFuture.completedFuture(!entry.isEmpty()
+                ? new SettingResult(entry.getConfig().getEntries(), entry.getFetchTime(), entry.getETag())
+                : SettingResult.EMPTY);
+    }
+
+    Entry entry() {
+        return entry;
+    }
+
+    CompletableFuture<SettingResult> settingResult() {
+        return settingResult;
+    }
+
+    static final SettingsSnapshot EMPTY = new SettingsSnapshot(Entry.EMPTY);
+}
+
 class ConfigService implements Closeable {
     private static final String CACHE_BASE = "%s_" + Constants.CONFIG_JSON_NAME + "_" + Constants.SERIALIZATION_FORMAT_VERSION;
-    private ScheduledExecutorService initScheduler;
-    private ScheduledExecutorService pollScheduler;
-    private String cachedEntryString = "";
+    private ScheduledFuture<?> initTask;
+    private ScheduledFuture<?> pollTask;
+    // written by the cache writer's thread
+    private volatile String cachedEntryString = "";
+    private volatile byte[] cachedEntryBytes;
+    private long cachedEntryStamp = ConfigCache.STAMP_UNKNOWN;
     private Entry cachedEntry = Entry.EMPTY;
+    private volatile SettingsSnapshot snapshot = SettingsSnapshot.EMPTY;
     private CompletableFuture<Result<Entry>> runningTask;
     private final AtomicBoolean initialized = new AtomicBoolean(false);
     private final AtomicBoolean userIndicatedOffline;
@@ -55,6 +100,9 @@ class ConfigService implements Closeable {
     private final ConfigCatLogger logger;
     private final ConfigFetcher fetcher;
     private final ConfigCatHooks hooks;
+    private final ConfigCacheWriter cacheWriter;
+    private final ScheduledExecutorService scheduler;
+    private final Executor ioExecutor;
     private final ReentrantLock lock = new ReentrantLock(true);
 
     public ConfigService(String sdkKey,
@@ -65,6 +113,19 @@ class ConfigService implements Closeable {
                          ConfigFetcher fetcher,
                          ConfigCatHooks hooks,
                          boolean userIndicatedOffline) {
+        this(sdkKey, stateMonitor, mode, cache, logger, fetcher, hooks, userIndicatedOffline, SharedScheduler.get(), SharedScheduler.io());
+    }
+
+    public ConfigService(String sdkKey,
+                         StateMonitor stateMonitor,
+                         PollingMode mode,
+                         ConfigCache cache,
+                         ConfigCatLogger logger,
+                         ConfigFetcher fetcher,
+                         ConfigCatHooks hooks,
+                         boolean userIndicatedOffline,
+                         ScheduledExecutorService scheduler,
+                         Executor ioExecutor) {
         this.cacheKey = Utils.sha1(String.format(CACHE_BASE, sdkKey));
         this.stateMonitor = stateMonitor;
         this.mode = mode;
@@ -72,6 +133,9 @@ class ConfigService implements Closeable {
         this.logger = logger;
         this.fetcher = fetcher;
         this.hooks = hooks;
+        this.scheduler = scheduler;
+        this.ioExecutor = ioExecutor;
+        this.cacheWriter = new ConfigCacheWriter(this::persist, ioExecutor, logger);
         this.userIndicatedOffline = new AtomicBoolean(userIndicatedOffline);
         this.inForegroundAndHasNetwork = new AtomicBoolean(stateMonitor == null || stateMonitor.isNetworkAvailable());
         this.offline = new AtomicBoolean(isOffline());
@@ -88,45 +152,60 @@ class ConfigService implements Closeable {
 
             startPoll(autoPollingMode);
 
-            initScheduler = Executors.newSingleThreadScheduledExecutor();
-            initScheduler.schedule(() -> {
-                lock.lock();
-                try {
-                    if (initialized.compareAndSet(false, true)) {
-                        hooks.invokeOnClientReady(determineCacheState());
-                        FormattableLogMessage message = ConfigCatLogMessages.getAutoPollMaxInitWaitTimeReached(autoPollingMode.getMaxInitWaitTimeSeconds());
-                        logger.warn(4200, message);
-                        completeRunningTask(Result.error(message, cachedEntry));
+            // The init wait is completed on the scheduler's thread, so busy I/O threads can't delay it.
+            // The scheduler's thread is shared, it doesn't wait for the lock, when it's taken the I/O executor waits for it.
+            initTask = scheduler.schedule(() -> {
+                if (tryAcquireLock()) {
+                    try {
+                        initWaitTimeReached(autoPollingMode);
+                    } finally {
+                        releaseLock();
                     }
-                } finally {
-                    lock.unlock();
+                    return;
                 }
+                ioExecutor.execute(() -> {
+                    acquireLock();
+                    try {
+                        initWaitTimeReached(autoPollingMode);
+                    } finally {
+                        releaseLock();
+                    }
+                });
             }, autoPollingMode.getMaxInitWaitTimeSeconds(), TimeUnit.SECONDS);
         } else {
             // Sync up with cache before reporting ready state
-            cachedEntry = readCache();
+            setCachedEntry(readCache());
             setInitialized();
         }
     }
 
     public CompletableFuture<SettingResult> getSettings() {
+        long threshold;
+        boolean preferCached;
         if (mode instanceof LazyLoadingMode) {
             LazyLoadingMode lazyLoadingMode = (LazyLoadingMode) mode;
-            return fetchIfOlder(System.currentTimeMillis() - (lazyLoadingMode.getCacheRefreshIntervalInSeconds() * 1000L), false)
-                    .thenApply(entryResult -> !entryResult.value().isEmpty()
-                            ? new SettingResult(entryResult.value().getConfig().getEntries(), entryResult.value().getFetchTime())
-                            : SettingResult.EMPTY);
+            threshold = System.currentTimeMillis() - (lazyLoadingMode.getCacheRefreshIntervalInSeconds() * 1000L);
+            preferCached = false;
         } else {
-            long threshold = Constants.DISTANT_PAST;
+            threshold = Constants.DISTANT_PAST;
             if (!initialized.get() && mode instanceof AutoPollingMode) {
                 AutoPollingMode autoPollingMode = (AutoPollingMode) mode;
                 threshold = System.currentTimeMillis() - (autoPollingMode.getAutoPollRateInSeconds() * 1000L);
             }
-            return fetchIfOlder(threshold, initialized.get()) // If we are initialized, we prefer the cached results
-                    .thenApply(entryResult -> !entryResult.value().isEmpty()
-                            ? new SettingResult(entryResult.value().getConfig().getEntries(), entryResult.value().getFetchTime())
-                            : SettingResult.EMPTY);
+            preferCached = initialized.get(); // If we are initialized, we prefer the cached results
+        }
+
+        // The in-memory snapshot isn't expired, serve it without locking and without syncing with the cache.
+        // The cache sync happens when the snapshot expires, in the poll tick, or on refresh.
+        SettingsSnapshot current = snapshot;
+        if (initialized.get() && !current.entry().isExpired(threshold)) {
+            return current.settingResult();
         }
+
+        return fetchIfOlder(threshold, preferCached)
+                .thenApply(entryResult -> !entryResult.value().isEmpty()
+                        ? new SettingResult(entryResult.value().getConfig().getEntries(), entryResult.value().getFetchTime(), entryResult.value().getETag())
+                        : SettingResult.EMPTY);
     }
 
     public CompletableFuture<RefreshResult> refresh() {
@@ -168,13 +247,14 @@ class ConfigService implements Closeable {
     }
 
     private CompletableFuture<Result<Entry>> fetchIfOlder(long threshold, boolean preferCached) {
-        lock.lock();
+        acquireLock();
         try {
             Entry fromCache = readCache();
             // Sync up with the cache and use it when it's not expired.
             if (!fromCache.isEmpty() && !fromCache.getETag().equals(cachedEntry.getETag())) {
-                hooks.invokeOnConfigChanged(fromCache.getConfig().getEntries());
-                cachedEntry = fromCache;
+                Config previous = cachedEntry.getConfig();
+                setCachedEntry(fromCache);
+                hooks.invokeOnConfigChanged(previous, fromCache.getConfig());
             }
             // Cache isn't expired
             if (!cachedEntry.isExpired(threshold)) {
@@ -187,32 +267,36 @@ class ConfigService implements Closeable {
                 return CompletableFuture.completedFuture(Result.success(cachedEntry));
             }
 
-            if (runningTask == null) {
+            CompletableFuture<Result<Entry>> task = runningTask;
+            if (task == null) {
                 // No fetch is running, initiate a new one.
-                runningTask = new CompletableFuture<>();
+                // The fetch can complete on this thread (the lock is reentrant), the task is kept in a local for that case.
+                task = new CompletableFuture<>();
+                runningTask = task;
                 fetcher.fetchAsync(cachedEntry.getETag())
                         .thenAccept(this::processResponse);
             }
 
-            return runningTask;
+            return task;
 
         } finally {
-            lock.unlock();
+            releaseLock();
         }
     }
 
     private void processResponse(FetchResponse response) {
-        lock.lock();
+        acquireLock();
         try {
             if (response.isFetched()) {
                 Entry entry = response.entry();
-                cachedEntry = entry;
+                Config previous = cachedEntry.getConfig();
+                setCachedEntry(entry);
                 writeCache(entry);
                 completeRunningTask(Result.success(entry));
-                hooks.invokeOnConfigChanged(entry.getConfig().getEntries());
+                hooks.invokeOnConfigChanged(previous, entry.getConfig());
             } else {
                 if (response.isFetchTimeUpdatable()) {
-                    cachedEntry = cachedEntry.withFetchTime(System.currentTimeMillis());
+                    setCachedEntry(cachedEntry.withFetchTime(System.currentTimeMillis()));
                     writeCache(cachedEntry);
                 }
                 completeRunningTask(response.isFailed()
@@ -221,15 +305,29 @@ class ConfigService implements Closeable {
             }
             setInitialized();
         } finally {
-            lock.unlock();
+            releaseLock();
         }
     }
 
+    private void setCachedEntry(Entry entry) {
+        cachedEntry = entry;
+        snapshot = new SettingsSnapshot(entry);
+    }
+
     private void completeRunningTask(Result<Entry> result) {
         runningTask.complete(result);
         runningTask = null;
     }
 
+    private void initWaitTimeReached(AutoPollingMode autoPollingMode) {
+        if (initialized.compareAndSet(false, true)) {
+            hooks.invokeOnClientReady(determineCacheState());
+            FormattableLogMessage message = ConfigCatLogMessages.getAutoPollMaxInitWaitTimeReached(autoPollingMode.getMaxInitWaitTimeSeconds());
+            logger.warn(4200, message);
+            completeRunningTask(Result.error(message, cachedEntry));
+        }
+    }
+
     private void setInitialized() {
         if (initialized.compareAndSet(false, true)) {
             hooks.invokeOnClientReady(determineCacheState());
@@ -237,43 +335,94 @@ class ConfigService implements Closeable {
     }
 
     private void startPoll(AutoPollingMode mode) {
-        lock.lock();
+        acquireLock();
         try {
             long ageThreshold = (mode.getAutoPollRateInSeconds() * 1000L) - 500;
-            if (pollScheduler != null) pollScheduler.shutdown();
-            pollScheduler = Executors.newSingleThreadScheduledExecutor();
-            pollScheduler.scheduleWithFixedDelay(() -> this.fetchIfOlder(System.currentTimeMillis() - ageThreshold, false),
+            if (closed.get()) return;
+            if (pollTask != null) pollTask.cancel(false);
+            pollTask = scheduler.scheduleWithFixedDelay(() -> ioExecutor.execute(() -> this.fetchIfOlder(System.currentTimeMillis() - ageThreshold, false)),
                     0, mode.getAutoPollRateInSeconds(), TimeUnit.SECONDS);
         } finally {
-            lock.unlock();
+            releaseLock();
         }
     }
 
     private void writeCache(Entry entry) {
+        cacheWriter.submit(entry);
+    }
+
+    // Called on the cache writer's thread.
+    private boolean persist(Entry entry) {
         try {
+            if (cache.isBinaryFormatSupported()) {
+                byte[] configToCache = entry.serializeBinary();
+                cachedEntryBytes = configToCache;
+                cache.writeBinary(cacheKey, configToCache);
+                return true;
+            }
             String configToCache = entry.serialize();
             cachedEntryString = configToCache;
             cache.write(cacheKey, configToCache);
+            return true;
         } catch (Exception e) {
             logger.error(2201, ConfigCatLogMessages.CONFIG_SERVICE_CACHE_WRITE_ERROR, e);
+            return false;
         }
     }
 
+    CacheWriteMetrics getCacheWriteMetrics() {
+        return cacheWriter.getMetrics();
+    }
+
+    FetchMetrics getFetchMetrics() {
+        return fetcher.getMetrics();
+    }
+
     private Entry readCache() {
+        if (cacheWriter.hasPendingWrites()) {
+            // the cache still holds an older entry than the in-memory one
+            return Entry.EMPTY;
+        }
         try {
-            String cachedConfigJson = cache.read(cacheKey);
-            if (cachedConfigJson != null && cachedConfigJson.equals(cachedEntryString)) {
+            // The stamp is read first, a change during the read is then detected by the next probe.
+            long stamp = cache.readStamp(cacheKey);
+            if (stamp != ConfigCache.STAMP_UNKNOWN && stamp == cachedEntryStamp) {
                 return Entry.EMPTY;
             }
-            cachedEntryString = cachedConfigJson;
-            Entry deserialized = Entry.fromString(cachedConfigJson);
-            return deserialized == null || deserialized.getConfig() == null ? Entry.EMPTY : deserialized;
+            Entry entry = readCacheEntry();
+            cachedEntryStamp = stamp;
+            return entry;
         } catch (Exception e) {
             this.logger.error(2200, ConfigCatLogMessages.CONFIG_SERVICE_CACHE_READ_ERROR, e);
             return Entry.EMPTY;
         }
     }
 
+    private Entry readCacheEntry() throws Exception {
+        if (cache.isBinaryFormatSupported()) {
+            byte[] cachedConfig = cache.readBinary(cacheKey);
+            if (cachedConfig != null) {
+                if (EntryBinaryFormat.isBinary(cachedConfig) && !EntryBinaryFormat.isCurrentVersion(cachedConfig)) {
+                    // written in another binary format version, treated as missing until the next write replaces it
+                    return Entry.EMPTY;
+                }
+                if (Arrays.equals(cachedConfig, cachedEntryBytes)) {
+                    return Entry.EMPTY;
+                }
+                cachedEntryBytes = cachedConfig;
+                return Entry.fromBinary(cachedConfig);
+            }
+            // nothing in the binary format yet, fall back to the text format written by earlier versions
+        }
+        String cachedConfigJson = cache.read(cacheKey);
+        if (cachedConfigJson != null && cachedConfigJson.equals(cachedEntryString)) {
+            return Entry.EMPTY;
+        }
+        cachedEntryString = cachedConfigJson;
+        Entry deserialized = Entry.fromString(cachedConfigJson);
+        return deserialized == null || deserialized.getConfig() == null ? Entry.EMPTY : deserialized;
+    }
+
     private ClientCacheState determineCacheState(){
         if(cachedEntry.isEmpty()) {
             return ClientCacheState.NO_FLAG_DATA;
@@ -297,9 +446,36 @@ class ConfigService implements Closeable {
         if (!this.closed.compareAndSet(false, true)) {
             return;
         }
-        if (pollScheduler != null) pollScheduler.shutdown();
-        if (initScheduler != null) initScheduler.shutdown();
+        acquireLock();
+        try {
+            if (pollTask != null) pollTask.cancel(false);
+            if (initTask != null) initTask.cancel(false);
+        } finally {
+            releaseLock();
+        }
+        cacheWriter.close();
         if (stateMonitor != null) stateMonitor.close();
         fetcher.close();
     }
+
+    /**
+     * The hooks raised while the lock is held never wait for the hook queue, its drain could need the lock.
+     */
+    private void acquireLock() {
+        lock.lock();
+        AsyncHookDispatcher.enterNonBlocking();
+    }
+
+    private boolean tryAcquireLock() {
+        if (!lock.tryLock()) {
+            return false;
+        }
+        AsyncHookDispatcher.enterNonBlocking();
+        return true;
+    }
+
+    private void releaseLock() {
+        AsyncHookDispatcher.exitNonBlocking();
+        lock.unlock();
+    }
 }
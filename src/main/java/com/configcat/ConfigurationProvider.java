@@ -103,6 +103,39 @@ public interface ConfigurationProvider extends Closeable {
      */
     <T> CompletableFuture<EvaluationDetails<T>> getValueDetailsAsync(Class<T> classOfT, String key, User user, T defaultValue);
 
+    /**
+     * Observes the value of a feature flag or setting identified by the given {@code key}. The returned handle holds the
+     * current value and notifies its listeners when the value changes after a new config.json is loaded.
+     *
+     * @param classOfT     the class of T. Only {@link String}, {@link Integer}, {@link Double} or {@link Boolean} types are supported.
+     * @param key          the identifier of the feature flag or setting.
+     * @param defaultValue in case of any failure, this value will be used.
+     * @param <T>          the type of the desired feature flag or setting.
+     * @return the handle of the observed value, close it to stop observing.
+     */
+    default <T> ObservedValue<T> observe(Class<T> classOfT, String key, T defaultValue) {
+        return observe(classOfT, key, null, defaultValue);
+    }
+
+    /**
+     * Observes the value of a feature flag or setting identified by the given {@code key}. The returned handle holds the
+     * current value and notifies its listeners when the value changes after a new config.json is loaded.
+     * <p>
+     * The default implementation throws {@link UnsupportedOperationException}, observing needs the provider to notify
+     * the handles on config changes.
+     *
+     * @param classOfT     the class of T. Only {@link String}, {@link Integer}, {@link Double} or {@link Boolean} types are supported.
+     * @param key          the identifier of the feature flag or setting.
+     * @param user         the user object.
+     * @param defaultValue in case of any failure, this value will be used.
+     * @param <T>          the type of the desired feature flag or setting.
+     * @return the handle of the observed value, close it to stop observing.
+     * @throws UnsupportedOperationException when the provider doesn't support observing values.
+     */
+    default <T> ObservedValue<T> observe(Class<T> classOfT, String key, User user, T defaultValue) {
+        throw new UnsupportedOperationException("Observing values is not supported by this provider.");
+    }
+
     /**
      * Gets the values of all feature flags or settings synchronously.
      *
@@ -163,6 +196,42 @@ public interface ConfigurationProvider extends Closeable {
      */
     CompletableFuture<List<EvaluationDetails<?>>> getAllValueDetailsAsync(User user);
 
+    /**
+     * Evaluates the given feature flags or settings synchronously in one pass.
+     * The results of segments and prerequisite flags are shared between the evaluations, which makes it
+     * cheaper than evaluating the flags one by one when many flags are needed for the same user.
+     * <p>
+     * The default implementation picks the results from {@link #getAllValueDetails(User)}, without sharing anything.
+     *
+     * @param user the user object.
+     * @param keys the identifiers of the feature flags or settings.
+     * @return the evaluation results with details by key, in the order of the given keys.
+     */
+    default Map<String, EvaluationDetails<?>> evaluateAll(User user, Collection<String> keys) {
+        if (keys == null)
+            throw new IllegalArgumentException("'keys' cannot be null.");
+
+        return EvaluationBatch.select(getAllValueDetails(user), keys, user);
+    }
+
+    /**
+     * Evaluates the given feature flags or settings asynchronously in one pass.
+     * The results of segments and prerequisite flags are shared between the evaluations, which makes it
+     * cheaper than evaluating the flags one by one when many flags are needed for the same user.
+     * <p>
+     * The default implementation picks the results from {@link #getAllValueDetailsAsync(User)}, without sharing anything.
+     *
+     * @param user the user object.
+     * @param keys the identifiers of the feature flags or settings.
+     * @return a future which computes the evaluation results with details by key, in the order of the given keys.
+     */
+    default CompletableFuture<Map<String, EvaluationDetails<?>>> evaluateAllAsync(User user, Collection<String> keys) {
+        if (keys == null)
+            throw new IllegalArgumentException("'keys' cannot be null.");
+
+        return getAllValueDetailsAsync(user).thenApply(allDetails -> EvaluationBatch.select(allDetails, keys, user));
+    }
+
     /**
      * Gets the key of a setting and its value identified by the given Variation ID (analytics).
      *
@@ -1,9 +1,14 @@
 package com.configcat;
 
+import java.nio.charset.StandardCharsets;
+
 public class Entry {
     private final Config config;
     private final String eTag;
-    private final String configJson;
+    // null when the entry was fetched or loaded from the binary format
+    private volatile String configJson;
+    // the UTF-8 config JSON of a fetched entry, it's only decoded when the text cache needs it
+    private final byte[] configJsonUTF8;
     private final long fetchTime;
 
     public Config getConfig() {
@@ -19,17 +24,40 @@ public class Entry {
     }
 
     public String getConfigJson() {
-        return configJson;
+        String json = configJson;
+        if (json != null) {
+            return json;
+        }
+        if (configJsonUTF8 != null) {
+            // not kept, the entry keeps the more compact UTF-8 form
+            return new String(configJsonUTF8, StandardCharsets.UTF_8);
+        }
+        // loaded from the binary format, generated from the config on demand
+        json = Utils.gson.toJson(config);
+        configJson = json;
+        return json;
     }
 
     public Entry withFetchTime(long fetchTime) {
-        return new Entry(getConfig(), getETag(), getConfigJson(), fetchTime);
+        return new Entry(getConfig(), getETag(), configJson, configJsonUTF8, fetchTime);
     }
 
     public Entry(Config config, String eTag, String configJson, long fetchTime) {
+        this(config, eTag, configJson, null, fetchTime);
+    }
+
+    /**
+     * Creates a fetched entry with the raw UTF-8 config JSON of the response.
+     */
+    Entry(Config config, String eTag, byte[] configJsonUTF8, long fetchTime) {
+        this(config, eTag, null, configJsonUTF8, fetchTime);
+    }
+
+    private Entry(Config config, String eTag, String configJson, byte[] configJsonUTF8, long fetchTime) {
         this.config = config;
         this.eTag = eTag;
         this.configJson = configJson;
+        this.configJsonUTF8 = configJsonUTF8;
         this.fetchTime = fetchTime;
     }
 
@@ -47,6 +75,25 @@ public class Entry {
         return getFetchTime() + "\n" + getETag() + "\n" + getConfigJson();
     }
 
+    /**
+     * Serializes the entry with the already parsed config into the binary cache format.
+     */
+    public byte[] serializeBinary() {
+        return EntryBinaryFormat.serialize(this);
+    }
+
+    /**
+     * Loads an entry from the binary cache format, without JSON parsing.
+     *
+     * @throws IllegalArgumentException when the data is not a valid binary entry of a supported version.
+     */
+    public static Entry fromBinary(byte[] cacheValue) throws IllegalArgumentException {
+        if (cacheValue == null || cacheValue.length == 0) {
+            return Entry.EMPTY;
+        }
+        return EntryBinaryFormat.deserialize(cacheValue);
+    }
+
     public static Entry fromString(String cacheValue) throws IllegalArgumentException {
         if (cacheValue == null || cacheValue.isEmpty()) {
             return Entry.EMPTY;
@@ -0,0 +1,560 @@
+package com.configcat;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Versioned binary serialization of an {@link Entry} and its already parsed config model, so a cached config can be
+ * loaded without JSON parsing.
+ * <p>
+ * Layout: magic, format version, the fetch time and the eTag (so they can be read without decoding the rest),
+ * the string table (every distinct string once, length-prefixed UTF-8), then the config model where every string
+ * is an index into the table. Integers are varints,
+ * arrays and maps are prefixed with their length, {@code null} values have their own markers.
+ * Strings which occur many times (attribute names, variation IDs, salts) are stored and decoded once, the
+ * decoded model shares the same instances.
+ */
+final class EntryBinaryFormat {
+    private EntryBinaryFormat() { /* prevent from instantiation*/ }
+
+    private static final byte[] MAGIC = {'C', 'C', 'E', 'B'};
+    private static final int HEADER_LENGTH = MAGIC.length + 1;
+    // version 1 had the string table ahead of the fetch time and the eTag
+    static final int FORMAT_VERSION = 2;
+
+    /**
+     * @return {@code true} when the data starts with the header of the binary format, regardless of its version.
+     */
+    static boolean isBinary(byte[] data) {
+        if (data == null || data.length < HEADER_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (data[i] != MAGIC[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static byte[] serialize(Entry entry) {
+        Writer body = new Writer();
+        writeConfig(body, entry.getConfig());
+
+        Writer result = new Writer();
+        result.out.write(MAGIC, 0, MAGIC.length);
+        result.out.write(FORMAT_VERSION);
+        result.writeLong(entry.getFetchTime());
+        result.writeInlineString(entry.getETag());
+        result.writeVarInt(body.strings.size());
+        for (String string : body.strings.keySet()) {
+            byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+            result.writeVarInt(bytes.length);
+            result.out.write(bytes, 0, bytes.length);
+        }
+        result.out.write(body.out.toByteArray(), 0, body.out.size());
+        return result.out.toByteArray();
+    }
+
+    /**
+     * Reads only the fetch time of a binary entry.
+     */
+    static long readFetchTime(byte[] data) throws IllegalArgumentException {
+        checkHeader(data);
+        try {
+            return new Reader(data, HEADER_LENGTH).readLong();
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid binary cache entry.", e);
+        }
+    }
+
+    /**
+     * Reads only the eTag of a binary entry.
+     */
+    static String readETag(byte[] data) throws IllegalArgumentException {
+        checkHeader(data);
+        try {
+            Reader reader = new Reader(data, HEADER_LENGTH);
+            reader.skip(8);
+            return reader.readInlineString();
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid binary cache entry.", e);
+        }
+    }
+
+    private static void checkHeader(byte[] data) {
+        if (!isBinary(data)) {
+            throw new IllegalArgumentException("Missing binary cache entry header.");
+        }
+        int version = data[MAGIC.length] & 0xFF;
+        if (version != FORMAT_VERSION) {
+            throw new IllegalArgumentException("Unsupported binary cache entry version: " + version);
+        }
+    }
+
+    /**
+     * @return {@code true} when the data is a binary entry of the version this SDK reads.
+     */
+    static boolean isCurrentVersion(byte[] data) {
+        return isBinary(data) && (data[MAGIC.length] & 0xFF) == FORMAT_VERSION;
+    }
+
+    static Entry deserialize(byte[] data) throws IllegalArgumentException {
+        checkHeader(data);
+        try {
+            Reader reader = new Reader(data, HEADER_LENGTH);
+            long fetchTime = reader.readLong();
+            String eTag = reader.readInlineString();
+            String[] strings = new String[reader.readCount()];
+            for (int i = 0; i < strings.length; i++) {
+                strings[i] = reader.readUtf8(reader.readVarInt());
+            }
+            reader.strings = strings;
+
+            Config config = readConfig(reader);
+            if (reader.position != data.length) {
+                throw new IllegalArgumentException("Unexpected trailing data.");
+            }
+            return new Entry(Utils.prepareConfig(config), eTag, (String) null, fetchTime);
+        } catch (IllegalArgumentException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid binary cache entry.", e);
+        }
+    }
+
+    private static void writeConfig(Writer out, Config config) {
+        Preferences preferences = config.getPreferences();
+        out.writeBoolean(preferences != null);
+        if (preferences != null) {
+            out.writeString(preferences.getBaseUrl());
+            out.writeInt(preferences.getRedirect());
+            out.writeString(preferences.getSalt());
+        }
+        Segment[] segments = config.getSegments();
+        out.writeLength(segments);
+        if (segments != null) {
+            for (Segment segment : segments) {
+                out.writeBoolean(segment != null);
+                if (segment != null) {
+                    out.writeString(segment.getName());
+                    writeUserConditions(out, segment.getSegmentRules());
+                }
+            }
+        }
+        Map<String, Setting> entries = config.getEntries();
+        out.writeVarInt(entries.size());
+        for (Map.Entry<String, Setting> entry : entries.entrySet()) {
+            out.writeString(entry.getKey());
+            writeSetting(out, entry.getValue());
+        }
+    }
+
+    private static Config readConfig(Reader in) {
+        Preferences preferences = null;
+        if (in.readBoolean()) {
+            preferences = Preferences.of(in.readString(), in.readInt(), in.readString());
+        }
+        Segment[] segments = null;
+        int segmentCount = in.readLength();
+        if (segmentCount >= 0) {
+            segments = new Segment[segmentCount];
+            for (int i = 0; i < segmentCount; i++) {
+                if (in.readBoolean()) {
+                    segments[i] = Segment.of(in.readString(), readUserConditions(in));
+                }
+            }
+        }
+        int entryCount = in.readCount();
+        Map<String, Setting> entries = new LinkedHashMap<>(Math.max(16, (int) (entryCount / 0.75f) + 1));
+        for (int i = 0; i < entryCount; i++) {
+            entries.put(in.readString(), readSetting(in));
+        }
+        return Config.of(preferences, entries, segments);
+    }
+
+    private static void writeSetting(Writer out, Setting setting) {
+        out.writeBoolean(setting != null);
+        if (setting == null) {
+            return;
+        }
+        out.writeByte(setting.getType() != null ? setting.getType().ordinal() : 0xFF);
+        out.writeString(setting.getPercentageAttribute());
+        writePercentageOptions(out, setting.getPercentageOptions());
+        TargetingRule[] targetingRules = setting.getTargetingRules();
+        out.writeLength(targetingRules);
+        if (targetingRules != null) {
+            for (TargetingRule targetingRule : targetingRules) {
+                writeTargetingRule(out, targetingRule);
+            }
+        }
+        writeSettingValue(out, setting.getSettingsValue());
+        out.writeString(setting.getVariationId());
+    }
+
+    private static Setting readSetting(Reader in) {
+        if (!in.readBoolean()) {
+            return null;
+        }
+        int typeOrdinal = in.readByte();
+        SettingType type = typeOrdinal != 0xFF ? SettingType.values()[typeOrdinal] : null;
+        String percentageAttribute = in.readString();
+        PercentageOption[] percentageOptions = readPercentageOptions(in);
+        TargetingRule[] targetingRules = null;
+        int targetingRuleCount = in.readLength();
+        if (targetingRuleCount >= 0) {
+            targetingRules = new TargetingRule[targetingRuleCount];
+            for (int i = 0; i < targetingRuleCount; i++) {
+                targetingRules[i] = readTargetingRule(in);
+            }
+        }
+        return Setting.of(type, percentageAttribute, percentageOptions, targetingRules, readSettingValue(in), in.readString());
+    }
+
+    private static void writeTargetingRule(Writer out, TargetingRule targetingRule) {
+        out.writeBoolean(targetingRule != null);
+        if (targetingRule == null) {
+            return;
+        }
+        // getConditions() never returns null
+        Condition[] conditions = targetingRule.getConditions();
+        out.writeVarInt(conditions.length);
+        for (Condition condition : conditions) {
+            writeCondition(out, condition);
+        }
+        writePercentageOptions(out, targetingRule.getPercentageOptions());
+        SimpleValue simpleValue = targetingRule.getSimpleValue();
+        out.writeBoolean(simpleValue != null);
+        if (simpleValue != null) {
+            writeSettingValue(out, simpleValue.getValue());
+            out.writeString(simpleValue.getVariationId());
+        }
+    }
+
+    private static TargetingRule readTargetingRule(Reader in) {
+        if (!in.readBoolean()) {
+            return null;
+        }
+        Condition[] conditions = new Condition[in.readCount()];
+        for (int i = 0; i < conditions.length; i++) {
+            conditions[i] = readCondition(in);
+        }
+        PercentageOption[] percentageOptions = readPercentageOptions(in);
+        SimpleValue simpleValue = null;
+        if (in.readBoolean()) {
+            simpleValue = SimpleValue.of(readSettingValue(in), in.readString());
+        }
+        return TargetingRule.of(conditions, percentageOptions, simpleValue);
+    }
+
+    private static void writeCondition(Writer out, Condition condition) {
+        out.writeBoolean(condition != null);
+        if (condition == null) {
+            return;
+        }
+        writeUserCondition(out, condition.getUserCondition());
+        SegmentCondition segmentCondition = condition.getSegmentCondition();
+        out.writeBoolean(segmentCondition != null);
+        if (segmentCondition != null) {
+            out.writeInt(segmentCondition.getSegmentIndex());
+            out.writeInt(segmentCondition.getSegmentComparator());
+        }
+        PrerequisiteFlagCondition prerequisiteFlagCondition = condition.getPrerequisiteFlagCondition();
+        out.writeBoolean(prerequisiteFlagCondition != null);
+        if (prerequisiteFlagCondition != null) {
+            out.writeString(prerequisiteFlagCondition.getPrerequisiteFlagKey());
+            out.writeInt(prerequisiteFlagCondition.getPrerequisiteComparator());
+            writeSettingValue(out, prerequisiteFlagCondition.getValue());
+        }
+    }
+
+    private static Condition readCondition(Reader in) {
+        if (!in.readBoolean()) {
+            return null;
+        }
+        UserCondition userCondition = readUserCondition(in);
+        SegmentCondition segmentCondition = null;
+        if (in.readBoolean()) {
+            segmentCondition = SegmentCondition.of(in.readInt(), in.readInt());
+        }
+        PrerequisiteFlagCondition prerequisiteFlagCondition = null;
+        if (in.readBoolean()) {
+            prerequisiteFlagCondition = PrerequisiteFlagCondition.of(in.readString(), in.readInt(), readSettingValue(in));
+        }
+        return Condition.of(userCondition, segmentCondition, prerequisiteFlagCondition);
+    }
+
+    private static void writeUserConditions(Writer out, UserCondition[] userConditions) {
+        out.writeLength(userConditions);
+        if (userConditions != null) {
+            for (UserCondition userCondition : userConditions) {
+                writeUserCondition(out, userCondition);
+            }
+        }
+    }
+
+    private static UserCondition[] readUserConditions(Reader in) {
+        int count = in.readLength();
+        if (count < 0) {
+            return null;
+        }
+        UserCondition[] userConditions = new UserCondition[count];
+        for (int i = 0; i < count; i++) {
+            userConditions[i] = readUserCondition(in);
+        }
+        return userConditions;
+    }
+
+    private static void writeUserCondition(Writer out, UserCondition userCondition) {
+        out.writeBoolean(userCondition != null);
+        if (userCondition == null) {
+            return;
+        }
+        out.writeString(userCondition.getComparisonAttribute());
+        out.writeInt(userCondition.getComparator());
+        out.writeString(userCondition.getStringValue());
+        out.writeDouble(userCondition.getDoubleValue());
+        String[] stringArrayValue = userCondition.getStringArrayValue();
+        out.writeLength(stringArrayValue);
+        if (stringArrayValue != null) {
+            for (String value : stringArrayValue) {
+                out.writeString(value);
+            }
+        }
+    }
+
+    private static UserCondition readUserCondition(Reader in) {
+        if (!in.readBoolean()) {
+            return null;
+        }
+        String comparisonAttribute = in.readString();
+        int comparator = in.readInt();
+        String stringValue = in.readString();
+        Double doubleValue = in.readDouble();
+        String[] stringArrayValue = null;
+        int count = in.readLength();
+        if (count >= 0) {
+            stringArrayValue = new String[count];
+            for (int i = 0; i < count; i++) {
+                stringArrayValue[i] = in.readString();
+            }
+        }
+        return UserCondition.of(comparisonAttribute, comparator, stringValue, doubleValue, stringArrayValue);
+    }
+
+    private static void writePercentageOptions(Writer out, PercentageOption[] percentageOptions) {
+        out.writeLength(percentageOptions);
+        if (percentageOptions != null) {
+            for (PercentageOption percentageOption : percentageOptions) {
+                out.writeBoolean(percentageOption != null);
+                if (percentageOption != null) {
+                    out.writeInt(percentageOption.getPercentage());
+                    writeSettingValue(out, percentageOption.getValue());
+                    out.writeString(percentageOption.getVariationId());
+                }
+            }
+        }
+    }
+
+    private static PercentageOption[] readPercentageOptions(Reader in) {
+        int count = in.readLength();
+        if (count < 0) {
+            return null;
+        }
+        PercentageOption[] percentageOptions = new PercentageOption[count];
+        for (int i = 0; i < count; i++) {
+            if (in.readBoolean()) {
+                percentageOptions[i] = PercentageOption.of(in.readInt(), readSettingValue(in), in.readString());
+            }
+        }
+        return percentageOptions;
+    }
+
+    private static void writeSettingValue(Writer out, SettingValue settingValue) {
+        out.writeBoolean(settingValue != null);
+        if (settingValue == null) {
+            return;
+        }
+        Boolean booleanValue = settingValue.getBooleanValue();
+        out.writeByte(booleanValue == null ? 0 : booleanValue ? 2 : 1);
+        out.writeString(settingValue.getStringValue());
+        Integer integerValue = settingValue.getIntegerValue();
+        out.writeBoolean(integerValue != null);
+        if (integerValue != null) {
+            out.writeInt(integerValue);
+        }
+        out.writeDouble(settingValue.getDoubleValue());
+    }
+
+    private static SettingValue readSettingValue(Reader in) {
+        if (!in.readBoolean()) {
+            return null;
+        }
+        int booleanMarker = in.readByte();
+        Boolean booleanValue = booleanMarker == 0 ? null : booleanMarker == 2;
+        String stringValue = in.readString();
+        Integer integerValue = in.readBoolean() ? in.readInt() : null;
+        return SettingValue.of(booleanValue, stringValue, integerValue, in.readDouble());
+    }
+
+    private static final class Writer {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream(4096);
+        final Map<String, Integer> strings = new LinkedHashMap<>();
+
+        void writeByte(int value) {
+            out.write(value);
+        }
+
+        void writeBoolean(boolean value) {
+            out.write(value ? 1 : 0);
+        }
+
+        void writeVarInt(int value) {
+            while ((value & ~0x7F) != 0) {
+                out.write((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            out.write(value);
+        }
+
+        void writeInt(int value) {
+            // zigzag, so small negative numbers stay short as well
+            writeVarInt((value << 1) ^ (value >> 31));
+        }
+
+        void writeLong(long value) {
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                out.write((int) (value >>> shift));
+            }
+        }
+
+        void writeDouble(Double value) {
+            writeBoolean(value != null);
+            if (value != null) {
+                writeLong(Double.doubleToRawLongBits(value));
+            }
+        }
+
+        void writeLength(Object[] array) {
+            writeVarInt(array == null ? 0 : array.length + 1);
+        }
+
+        void writeInlineString(String value) {
+            if (value == null) {
+                writeVarInt(0);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarInt(bytes.length + 1);
+            out.write(bytes, 0, bytes.length);
+        }
+
+        void writeString(String value) {
+            if (value == null) {
+                writeVarInt(0);
+                return;
+            }
+            Integer index = strings.get(value);
+            if (index == null) {
+                index = strings.size();
+                strings.put(value, index);
+            }
+            writeVarInt(index + 1);
+        }
+    }
+
+    private static final class Reader {
+        private final byte[] data;
+        private int position;
+        private String[] strings;
+
+        Reader(byte[] data, int position) {
+            this.data = data;
+            this.position = position;
+        }
+
+        void skip(int length) {
+            if (length < 0 || position + length > data.length) {
+                throw new IllegalArgumentException("Unexpected end of data.");
+            }
+            position += length;
+        }
+
+        int readByte() {
+            return data[position++] & 0xFF;
+        }
+
+        boolean readBoolean() {
+            return data[position++] != 0;
+        }
+
+        int readVarInt() {
+            int value = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                int b = data[position++];
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Malformed varint.");
+        }
+
+        int readInt() {
+            int value = readVarInt();
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        long readLong() {
+            long value = 0;
+            for (int i = 0; i < 8; i++) {
+                value = (value << 8) | (data[position++] & 0xFF);
+            }
+            return value;
+        }
+
+        Double readDouble() {
+            return readBoolean() ? Double.longBitsToDouble(readLong()) : null;
+        }
+
+        /**
+         * Reads the number of the following items, every item takes at least one byte.
+         */
+        int readCount() {
+            int count = readVarInt();
+            if (count < 0 || count > data.length - position) {
+                throw new IllegalArgumentException("Invalid item count: " + count);
+            }
+            return count;
+        }
+
+        /**
+         * @return the length of a nullable array or -1 for {@code null}.
+         */
+        int readLength() {
+            int length = readVarInt() - 1;
+            if (length < -1 || length > data.length - position) {
+                throw new IllegalArgumentException("Invalid array length: " + length);
+            }
+            return length;
+        }
+
+        String readUtf8(int length) {
+            int start = position;
+            skip(length);
+            return new String(data, start, length, StandardCharsets.UTF_8);
+        }
+
+        String readInlineString() {
+            int length = readVarInt();
+            return length == 0 ? null : readUtf8(length - 1);
+        }
+
+        String readString() {
+            int index = readVarInt();
+            return index == 0 ? null : strings[index - 1];
+        }
+    }
+}
@@ -15,11 +15,22 @@ public class EvaluateLogger {
     public static final String INVALID_REFERENCE = "<invalid reference>";
 
     private static final int MAX_LIST_ELEMENT = 10;
-    private final StringBuilder stringBuilder = new StringBuilder();
+
+    /**
+     * Shared instance for the log levels where the evaluation log is not printed. It holds no state, so it can be used by any thread.
+     */
+    static final EvaluateLogger DISABLED = new EvaluateLogger(LogLevel.WARNING);
+
+    private final StringBuilder stringBuilder;
 
     public EvaluateLogger(LogLevel logLevel) {
         indentLevel = 0;
         isLoggable = logLevel.ordinal() <= LogLevel.INFO.ordinal();
+        stringBuilder = isLoggable ? new StringBuilder() : null;
+    }
+
+    static EvaluateLogger forLogLevel(LogLevel logLevel) {
+        return logLevel.ordinal() <= LogLevel.INFO.ordinal() ? new EvaluateLogger(logLevel) : DISABLED;
     }
 
     private int indentLevel;
@@ -0,0 +1,85 @@
+package com.configcat;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Results shared between the evaluations of a bulk evaluation of many flags for the same user and config.
+ * Segment results and flag results (referenced again as prerequisite flags) are reused instead of evaluating them again
+ * for every flag.
+ * <p>
+ * Only results which were computed without logging a warning are stored, so the same warnings are logged as without sharing.
+ * It's used by a single thread for the duration of the bulk evaluation.
+ */
+final class EvaluationBatch {
+    private final User user;
+    private final Map<String, Setting> settings;
+    private final Map<Segment, Boolean> segmentResults = new IdentityHashMap<>();
+    private final Map<String, EvaluationResult> flagResults = new HashMap<>();
+    private int warningCount;
+
+    EvaluationBatch(User user, Map<String, Setting> settings) {
+        this.user = user;
+        this.settings = settings;
+    }
+
+    /**
+     * The shared results are only valid for the user and the settings the batch was created for.
+     */
+    boolean isFor(User user, Map<String, Setting> settings) {
+        return this.user == user && this.settings == settings;
+    }
+
+    int warningCount() {
+        return warningCount;
+    }
+
+    void onWarning() {
+        warningCount++;
+    }
+
+    Boolean getSegmentResult(Segment segment) {
+        return segmentResults.get(segment);
+    }
+
+    void putSegmentResult(Segment segment, int warningCountBefore, boolean result) {
+        if (warningCountBefore == warningCount) {
+            segmentResults.put(segment, result);
+        }
+    }
+
+    EvaluationResult getFlagResult(String key) {
+        return flagResults.get(key);
+    }
+
+    void putFlagResult(String key, int warningCountBefore, EvaluationResult result) {
+        if (warningCountBefore == warningCount) {
+            flagResults.put(key, result);
+        }
+    }
+
+    /**
+     * Picks the results of the given keys from the results of all flags, in the order of the keys. It's the fallback of
+     * {@link ConfigurationProvider#evaluateAll(User, Collection)} for the providers which don't evaluate in one pass.
+     */
+    static Map<String, EvaluationDetails<?>> select(List<EvaluationDetails<?>> allDetails, Collection<String> keys, User user) {
+        Map<String, EvaluationDetails<?>> detailsByKey = new LinkedHashMap<>();
+        for (EvaluationDetails<?> details : allDetails) {
+            detailsByKey.put(details.getKey(), details);
+        }
+        Map<String, EvaluationDetails<?>> result = new LinkedHashMap<>();
+        for (String key : keys) {
+            EvaluationDetails<?> details = detailsByKey.get(key);
+            if (details == null) {
+                details = EvaluationDetails.fromError(key, null,
+                        ConfigCatLogMessages.getSettingEvaluationFailedDueToMissingKey(key, "defaultValue", null, detailsByKey.keySet()), user);
+            }
+            result.put(key, details);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,117 @@
+package com.configcat;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Opt-in, bounded LRU cache of evaluation results, keyed by the feature flag key and the attributes of the {@link User}.
+ * Repeated evaluations of the same flag for an equivalent user are served from the cache until the config changes.
+ * <p>
+ * The cache is tied to the ETag of the config.json it was filled from, all results are dropped at once when a config with
+ * a different ETag is used for evaluation. It's not used with flag overrides and while the evaluation log is enabled
+ * ({@link LogLevel#INFO}).
+ * <p>
+ * The onFlagEvaluated hook is still invoked for every evaluation. The results whose evaluation logged a warning (e.g. a missing
+ * User Object or user attribute) are not cached, so those evaluations log the same warnings every time.
+ * <p>
+ * The attribute values of the cached users (e.g. arrays, lists and dates) must not be modified after the user was passed to the client.
+ */
+public final class EvaluationCache {
+    private final Map<Key, EvaluationResult> results;
+    private String eTag;
+    private long hitCount;
+    private long missCount;
+
+    /**
+     * Creates a new evaluation cache.
+     *
+     * @param maxSize the maximum number of cached evaluation results.
+     * @throws IllegalArgumentException when maxSize is not positive.
+     */
+    public EvaluationCache(final int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize must be greater than 0.");
+        }
+        this.results = new LinkedHashMap<Key, EvaluationResult>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, EvaluationResult> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * @return the number of evaluations served from the cache.
+     */
+    public synchronized long hitCount() {
+        return hitCount;
+    }
+
+    /**
+     * @return the number of evaluations which were not found in the cache.
+     */
+    public synchronized long missCount() {
+        return missCount;
+    }
+
+    /**
+     * @return the number of cached evaluation results.
+     */
+    public synchronized int size() {
+        return results.size();
+    }
+
+    /**
+     * Drops all cached evaluation results.
+     */
+    public synchronized void clear() {
+        results.clear();
+        eTag = null;
+    }
+
+    synchronized EvaluationResult get(String eTag, String key, String userFingerprint) {
+        if (!eTag.equals(this.eTag)) {
+            // the config changed, the cached results are no longer valid
+            results.clear();
+            this.eTag = eTag;
+        }
+        EvaluationResult result = results.get(new Key(key, userFingerprint));
+        if (result != null) {
+            hitCount++;
+        } else {
+            missCount++;
+        }
+        return result;
+    }
+
+    synchronized void put(String eTag, String key, String userFingerprint, EvaluationResult result) {
+        if (eTag.equals(this.eTag)) {
+            results.put(new Key(key, userFingerprint), result);
+        }
+    }
+
+    private static final class Key {
+        private final String key;
+        private final String userFingerprint;
+        private final int hashCode;
+
+        Key(String key, String userFingerprint) {
+            this.key = key;
+            this.userFingerprint = userFingerprint;
+            this.hashCode = 31 * key.hashCode() + userFingerprint.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key other = (Key) o;
+            return hashCode == other.hashCode && key.equals(other.key) && userFingerprint.equals(other.userFingerprint);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
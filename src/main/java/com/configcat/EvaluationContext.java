@@ -4,20 +4,62 @@ import java.util.List;
 import java.util.Map;
 
 class EvaluationContext {
+    private static final ThreadLocal<EvaluationContext> REUSABLE = new ThreadLocal<EvaluationContext>() {
+        @Override
+        protected EvaluationContext initialValue() {
+            return new EvaluationContext(null, null, null, null, null);
+        }
+    };
+
     public EvaluationContext(String key, User user, List<String> visitedKeys, Map<String, Setting> settings) {
+        this(key, user, visitedKeys, settings, null);
+    }
+
+    EvaluationContext(String key, User user, List<String> visitedKeys, Map<String, Setting> settings, EvaluationBatch batch) {
         this.key = key;
         this.user = user;
         this.visitedKeys = visitedKeys;
         this.settings = settings;
+        this.batch = batch;
     }
 
     private String key;
     private User user;
     private final List<String> visitedKeys;
 
-    private final Map<String, Setting> settings;
+    private Map<String, Setting> settings;
+    private EvaluationBatch batch;
     private boolean isUserMissing = false;
     private boolean isUserAttributeMissing = false;
+    private boolean inUse = false;
+
+    /**
+     * Returns the calling thread's reusable context set up for a top-level evaluation, or a new context
+     * when the thread is already evaluating (e.g. a nested evaluation triggered from a log appender).
+     * Must be paired with {@link #release()}.
+     */
+    static EvaluationContext acquire(String key, User user, Map<String, Setting> settings, EvaluationBatch batch) {
+        EvaluationContext context = REUSABLE.get();
+        if (context.inUse) {
+            return new EvaluationContext(key, user, null, settings, batch);
+        }
+        context.inUse = true;
+        context.key = key;
+        context.user = user;
+        context.settings = settings;
+        context.batch = batch;
+        context.isUserMissing = false;
+        context.isUserAttributeMissing = false;
+        return context;
+    }
+
+    void release() {
+        inUse = false;
+        key = null;
+        user = null;
+        settings = null;
+        batch = null;
+    }
 
     public String getKey() {
         return key;
@@ -58,4 +100,21 @@ class EvaluationContext {
     public Map<String, Setting> getSettings() {
         return settings;
     }
+
+    /**
+     * Returns the results shared with the other evaluations of the same bulk evaluation, or {@code null}.
+     */
+    EvaluationBatch getBatch() {
+        return batch;
+    }
+
+    /**
+     * Called for each warning logged during the evaluation, results which produced warnings are not shared
+     * so the warnings are logged the same way as without sharing.
+     */
+    void onWarning() {
+        if (batch != null) {
+            batch.onWarning();
+        }
+    }
 }
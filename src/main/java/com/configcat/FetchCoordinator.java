@@ -0,0 +1,123 @@
+package com.configcat;
+
+import java9.util.concurrent.CompletableFuture;
+import java9.util.function.Supplier;
+
+import java.net.Proxy;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Shares the in-flight config JSON requests between the {@link ConfigFetcher}s of the process. Concurrent requests of
+ * the same URL (base URL and SDK key) with the same eTag, sent with the same HTTP options (transport, proxy, timeouts)
+ * and user agent, are sent only once. Every caller gets the same outcome and so the same parsed {@link Entry}, the
+ * logging and the metrics of the outcome are left to each caller. A request is shared only while it's in flight,
+ * the next one is sent again.
+ */
+final class FetchCoordinator {
+    private static final FetchCoordinator SHARED = new FetchCoordinator();
+
+    private final ConcurrentMap<Key, CompletableFuture<ConfigFetcher.Outcome>> inFlight = new ConcurrentHashMap<>();
+
+    static FetchCoordinator shared() {
+        return SHARED;
+    }
+
+    /**
+     * Joins the in-flight request of the same key, or starts a new one with {@code request}. The shared future fails
+     * with a {@link java.util.concurrent.TimeoutException} when the request doesn't complete in {@code timeoutMillis},
+     * so a stuck request can't keep the later fetches of the key waiting.
+     *
+     * @return the future of the outcome and whether it's shared with an earlier caller.
+     */
+    Joined join(Key key, long timeoutMillis, Supplier<CompletableFuture<ConfigFetcher.Outcome>> request) {
+        CompletableFuture<ConfigFetcher.Outcome> created = new CompletableFuture<>();
+        CompletableFuture<ConfigFetcher.Outcome> existing = inFlight.putIfAbsent(key, created);
+        if (existing != null) {
+            return new Joined(existing, true);
+        }
+        created.orTimeout(timeoutMillis, TimeUnit.MILLISECONDS)
+                .whenComplete((outcome, error) -> inFlight.remove(key, created));
+        CompletableFuture<ConfigFetcher.Outcome> response;
+        try {
+            response = request.get();
+        } catch (RuntimeException e) {
+            response = CompletableFuture.failedFuture(e);
+        }
+        response.whenComplete((outcome, error) -> {
+            // removed first, so a caller which sees the completed outcome doesn't join it again
+            inFlight.remove(key, created);
+            if (error != null) {
+                created.completeExceptionally(error);
+            } else {
+                created.complete(outcome);
+            }
+        });
+        return new Joined(created, false);
+    }
+
+    int inFlightCount() {
+        return inFlight.size();
+    }
+
+    static final class Joined {
+        final CompletableFuture<ConfigFetcher.Outcome> response;
+        final boolean shared;
+
+        Joined(CompletableFuture<ConfigFetcher.Outcome> response, boolean shared) {
+            this.response = response;
+            this.shared = shared;
+        }
+    }
+
+    /**
+     * Identifies the requests which can be shared. The transport is compared by identity, the default transports
+     * are represented by their class, they send the same request.
+     */
+    static final class Key {
+        private final String url;
+        private final String eTag;
+        private final String userAgent;
+        private final Object transport;
+        private final Proxy proxy;
+        private final int connectTimeoutMillis;
+        private final int readTimeoutMillis;
+
+        Key(String url, String eTag, String userAgent, Object transport, Proxy proxy, int connectTimeoutMillis, int readTimeoutMillis) {
+            this.url = url;
+            this.eTag = eTag != null ? eTag : "";
+            this.userAgent = userAgent;
+            this.transport = transport;
+            this.proxy = proxy;
+            this.connectTimeoutMillis = connectTimeoutMillis;
+            this.readTimeoutMillis = readTimeoutMillis;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key other = (Key) o;
+            return url.equals(other.url)
+                    && eTag.equals(other.eTag)
+                    && userAgent.equals(other.userAgent)
+                    && transport == other.transport
+                    && (proxy == null ? other.proxy == null : proxy.equals(other.proxy))
+                    && connectTimeoutMillis == other.connectTimeoutMillis
+                    && readTimeoutMillis == other.readTimeoutMillis;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = url.hashCode();
+            result = 31 * result + eTag.hashCode();
+            result = 31 * result + userAgent.hashCode();
+            result = 31 * result + System.identityHashCode(transport);
+            result = 31 * result + (proxy != null ? proxy.hashCode() : 0);
+            result = 31 * result + connectTimeoutMillis;
+            result = 31 * result + readTimeoutMillis;
+            return result;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.configcat;
+
+/**
+ * Counters of the config JSON downloads of a {@link ConfigCatClient}. The SDK asks for a compressed response
+ * ({@code Accept-Encoding: gzip, deflate}), the counters show how many bytes were transferred and how many
+ * were decoded from them.
+ */
+public final class FetchMetrics {
+    private long responseCount;
+    private long compressedResponseCount;
+    private long receivedBytes;
+    private long decodedBytes;
+    private long sharedRequestCount;
+
+    FetchMetrics() {
+    }
+
+    /**
+     * @return the number of config JSON responses read, a 304 (not modified) response is not counted.
+     */
+    public synchronized long responseCount() {
+        return responseCount;
+    }
+
+    /**
+     * @return the number of config JSON responses which were received compressed.
+     */
+    public synchronized long compressedResponseCount() {
+        return compressedResponseCount;
+    }
+
+    /**
+     * @return the number of body bytes received over the network, before decoding.
+     */
+    public synchronized long receivedBytes() {
+        return receivedBytes;
+    }
+
+    /**
+     * @return the number of config JSON bytes decoded from the received bytes.
+     */
+    public synchronized long decodedBytes() {
+        return decodedBytes;
+    }
+
+    /**
+     * @return the number of fetches which didn't send a request, because they joined the same in-flight request of another client.
+     */
+    public synchronized long sharedRequestCount() {
+        return sharedRequestCount;
+    }
+
+    synchronized void onResponse(boolean compressed, long receivedBytes, long decodedBytes) {
+        responseCount++;
+        if (compressed) {
+            compressedResponseCount++;
+        }
+        this.receivedBytes += receivedBytes;
+        this.decodedBytes += decodedBytes;
+    }
+
+    synchronized void onSharedRequest() {
+        sharedRequestCount++;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "FetchMetrics{responseCount=" + responseCount
+                + ", compressedResponseCount=" + compressedResponseCount
+                + ", receivedBytes=" + receivedBytes
+                + ", decodedBytes=" + decodedBytes
+                + ", sharedRequestCount=" + sharedRequestCount + "}";
+    }
+}
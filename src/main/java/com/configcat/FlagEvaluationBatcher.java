@@ -0,0 +1,162 @@
+package com.configcat;
+
+import java9.util.function.Consumer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Collects the onFlagEvaluated events of a {@link ConfigCatHooks#addOnFlagEvaluatedBatch} subscription and hands them
+ * over in batches. A batch is completed when it reaches the maximum size (on the evaluating thread), or when the maximum
+ * delay elapsed since its first event (on the I/O executor).
+ * <p>
+ * The completed batches are queued in order and delivered by a single drain, like the writes of {@link ConfigCacheWriter}:
+ * the thread completing a batch delivers it unless another thread is already delivering, which then delivers it too.
+ * So the callback is never called concurrently and it gets the batches in the order they were completed.
+ */
+final class FlagEvaluationBatcher implements Consumer<EvaluationDetails<Object>> {
+    private final int maxBatchSize;
+    private final long maxDelayMillis;
+    private final boolean deduplicate;
+    private final Consumer<List<EvaluationDetails<Object>>> callback;
+    private final ConfigCatHooks hooks;
+    private final Object lock = new Object();
+    private final Queue<List<EvaluationDetails<Object>>> completed = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean draining = new AtomicBoolean(false);
+    private List<EvaluationDetails<Object>> buffer = new ArrayList<>();
+    private Set<BatchKey> seen = new HashSet<>();
+    private ScheduledFuture<?> flushTask;
+
+    FlagEvaluationBatcher(int maxBatchSize, long maxDelayMillis, boolean deduplicate,
+                          Consumer<List<EvaluationDetails<Object>>> callback, ConfigCatHooks hooks) {
+        this.maxBatchSize = maxBatchSize;
+        this.maxDelayMillis = maxDelayMillis;
+        this.deduplicate = deduplicate;
+        this.callback = callback;
+        this.hooks = hooks;
+    }
+
+    @Override
+    public void accept(EvaluationDetails<Object> details) {
+        boolean full = false;
+        synchronized (lock) {
+            if (deduplicate && !seen.add(new BatchKey(details))) {
+                return;
+            }
+            buffer.add(details);
+            if (buffer.size() >= maxBatchSize) {
+                full = true;
+                completeBuffer();
+            } else if (buffer.size() == 1) {
+                scheduleFlush();
+            }
+        }
+        if (full) {
+            drain();
+        }
+    }
+
+    /**
+     * Delivers the pending events on the caller's thread, or on the thread which is delivering the earlier batches.
+     */
+    void flush() {
+        synchronized (lock) {
+            if (buffer.isEmpty()) {
+                return;
+            }
+            completeBuffer();
+        }
+        drain();
+    }
+
+    private void scheduleFlush() {
+        Executor ioExecutor = hooks.ioExecutor();
+        try {
+            flushTask = hooks.scheduler().schedule(() -> {
+                try {
+                    ioExecutor.execute(this::flush);
+                } catch (RejectedExecutionException e) {
+                    flush();
+                }
+            }, maxDelayMillis, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // the scheduler is shut down, the batch is delivered when it's full or the hooks are cleared
+            flushTask = null;
+        }
+    }
+
+    /**
+     * Queues the buffer for delivery, called under the lock so the batches are queued in the order they were completed.
+     */
+    private void completeBuffer() {
+        completed.offer(Collections.unmodifiableList(buffer));
+        buffer = new ArrayList<>();
+        if (deduplicate) {
+            seen = new HashSet<>();
+        }
+        if (flushTask != null) {
+            flushTask.cancel(false);
+            flushTask = null;
+        }
+    }
+
+    private void drain() {
+        while (draining.compareAndSet(false, true)) {
+            try {
+                List<EvaluationDetails<Object>> batch;
+                while ((batch = completed.poll()) != null) {
+                    callback.accept(batch);
+                }
+            } finally {
+                draining.set(false);
+            }
+            // a batch queued after the last poll but before the flag was cleared is delivered by this drain
+            if (completed.isEmpty()) {
+                return;
+            }
+        }
+    }
+
+    private static final class BatchKey {
+        private final String key;
+        private final String variationId;
+        private final String userIdentifier;
+
+        BatchKey(EvaluationDetails<Object> details) {
+            this.key = details.getKey();
+            this.variationId = details.getVariationId();
+            this.userIdentifier = details.getUser() != null ? details.getUser().getIdentifier() : null;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof BatchKey)) return false;
+            BatchKey other = (BatchKey) o;
+            return equal(key, other.key) && equal(variationId, other.variationId) && equal(userIdentifier, other.userIdentifier);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = key != null ? key.hashCode() : 0;
+            result = 31 * result + (variationId != null ? variationId.hashCode() : 0);
+            result = 31 * result + (userIdentifier != null ? userIdentifier.hashCode() : 0);
+            return result;
+        }
+
+        private static boolean equal(Object a, Object b) {
+            return a == null ? b == null : a.equals(b);
+        }
+    }
+}
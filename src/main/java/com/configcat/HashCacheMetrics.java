@@ -0,0 +1,55 @@
+package com.configcat;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters of the cache of the salted hashes computed by a {@link ConfigCatClient} for the confidential comparators
+ * (e.g. IS ONE OF (hashed)). The hit count shows how many hashes the evaluations could reuse.
+ */
+public final class HashCacheMetrics {
+    // updated by concurrent evaluations on every lookup, so they are not guarded by a common lock
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicInteger size = new AtomicInteger();
+
+    HashCacheMetrics() {
+    }
+
+    /**
+     * @return the number of hashes served from the cache.
+     */
+    public long hitCount() {
+        return hitCount.get();
+    }
+
+    /**
+     * @return the number of hashes which were not found in the cache and had to be computed.
+     */
+    public long missCount() {
+        return missCount.get();
+    }
+
+    /**
+     * @return the number of cached hashes.
+     */
+    public int size() {
+        return size.get();
+    }
+
+    void onHit() {
+        hitCount.incrementAndGet();
+    }
+
+    void onMiss() {
+        missCount.incrementAndGet();
+    }
+
+    void onAdded() {
+        size.incrementAndGet();
+    }
+
+    void onRemoved() {
+        size.decrementAndGet();
+    }
+}
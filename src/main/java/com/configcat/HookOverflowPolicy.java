@@ -0,0 +1,20 @@
+package com.configcat;
+
+/**
+ * Describes what happens with a hook event when the queue of the asynchronous hook dispatch is full.
+ */
+public enum HookOverflowPolicy {
+    /**
+     * The oldest queued event is dropped to make room for the new one.
+     */
+    DROP_OLDEST,
+    /**
+     * The new event is dropped.
+     */
+    DROP_NEWEST,
+    /**
+     * The thread raising the event (e.g. the one evaluating a feature flag) waits until there's room in the queue.
+     * The SDK's own threads (the HTTP requests, the config updates) never wait, their events are dropped instead.
+     */
+    BLOCK,
+}
@@ -0,0 +1,61 @@
+package com.configcat;
+
+import java9.util.concurrent.CompletableFuture;
+
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/**
+ * The default {@link ConfigFetchTransport}, it executes the blocking {@link HttpURLConnection} requests on the given executor.
+ * The connection is released (and can be reused by the platform's keep-alive pool) when the response is closed.
+ */
+class HttpUrlConnectionTransport implements ConfigFetchTransport {
+    private final Executor executor;
+
+    HttpUrlConnectionTransport(Executor executor) {
+        this.executor = executor;
+    }
+
+    @Override
+    public CompletableFuture<Response> execute(Request request) {
+        CompletableFuture<Response> future = new CompletableFuture<>();
+        this.executor.execute(() -> this.call(request, future));
+        return future;
+    }
+
+    private void call(Request request, CompletableFuture<Response> result) {
+        HttpURLConnection urlConnection = null;
+        try {
+            URL fetchUrl = new URL(request.getUrl());
+            if (request.getProxy() != null) {
+                urlConnection = (HttpURLConnection) fetchUrl.openConnection(request.getProxy());
+            } else {
+                urlConnection = (HttpURLConnection) fetchUrl.openConnection();
+            }
+            urlConnection.setConnectTimeout(request.getConnectTimeoutMillis());
+            urlConnection.setReadTimeout(request.getReadTimeoutMillis());
+            urlConnection.setUseCaches(false);
+            urlConnection.setInstanceFollowRedirects(false);
+            for (Map.Entry<String, String> header : request.getHeaders().entrySet()) {
+                urlConnection.setRequestProperty(header.getKey(), header.getValue());
+            }
+
+            int responseCode = urlConnection.getResponseCode();
+            InputStream body = responseCode >= 400 ? urlConnection.getErrorStream() : urlConnection.getInputStream();
+            result.complete(new Response(responseCode,
+                    urlConnection.getResponseMessage(),
+                    urlConnection.getHeaderFields(),
+                    body,
+                    urlConnection.getContentLength(),
+                    null));
+        } catch (Exception e) {
+            if (urlConnection != null) {
+                urlConnection.disconnect();
+            }
+            result.completeExceptionally(e);
+        }
+    }
+}
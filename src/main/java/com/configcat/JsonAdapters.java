@@ -0,0 +1,149 @@
+package com.configcat;
+
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Registration of the hand-written type adapters of the config model and the helpers they share.
+ * The adapters bind the config JSON without reflection, the helpers read the values leniently the same way
+ * as Gson's built-in adapters do (e.g. a number is accepted for a string and a missing primitive keeps its default).
+ */
+final class JsonAdapters {
+    private JsonAdapters() { /* prevent from instantiation*/ }
+
+    static GsonBuilder registerConfigModel(GsonBuilder builder) {
+        return builder
+                .registerTypeAdapter(Config.class, Config.ADAPTER)
+                .registerTypeAdapter(Preferences.class, Preferences.ADAPTER)
+                .registerTypeAdapter(Segment.class, Segment.ADAPTER)
+                .registerTypeAdapter(Setting.class, Setting.ADAPTER)
+                .registerTypeAdapter(SettingType.class, SettingType.ADAPTER)
+                .registerTypeAdapter(SettingValue.class, SettingValue.ADAPTER)
+                .registerTypeAdapter(TargetingRule.class, TargetingRule.ADAPTER)
+                .registerTypeAdapter(SimpleValue.class, SimpleValue.ADAPTER)
+                .registerTypeAdapter(Condition.class, Condition.ADAPTER)
+                .registerTypeAdapter(UserCondition.class, UserCondition.ADAPTER)
+                .registerTypeAdapter(SegmentCondition.class, SegmentCondition.ADAPTER)
+                .registerTypeAdapter(PrerequisiteFlagCondition.class, PrerequisiteFlagCondition.ADAPTER)
+                .registerTypeAdapter(PercentageOption.class, PercentageOption.ADAPTER);
+    }
+
+    /**
+     * @return {@code true} and consumes the token when the next value is {@code null}.
+     */
+    static boolean nextNull(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return true;
+        }
+        return false;
+    }
+
+    static String readString(JsonReader in) throws IOException {
+        JsonToken token = in.peek();
+        if (token == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        if (token == JsonToken.BOOLEAN) {
+            return Boolean.toString(in.nextBoolean());
+        }
+        return in.nextString();
+    }
+
+    static Boolean readBoolean(JsonReader in) throws IOException {
+        JsonToken token = in.peek();
+        if (token == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        if (token == JsonToken.STRING) {
+            return Boolean.parseBoolean(in.nextString());
+        }
+        return in.nextBoolean();
+    }
+
+    static Integer readInteger(JsonReader in) throws IOException {
+        if (nextNull(in)) {
+            return null;
+        }
+        try {
+            return in.nextInt();
+        } catch (NumberFormatException e) {
+            throw new JsonSyntaxException(e);
+        }
+    }
+
+    /**
+     * Reads a primitive int, a {@code null} leaves the current value unchanged.
+     */
+    static int readInt(JsonReader in, int currentValue) throws IOException {
+        Integer value = readInteger(in);
+        return value != null ? value : currentValue;
+    }
+
+    static Double readDouble(JsonReader in) throws IOException {
+        if (nextNull(in)) {
+            return null;
+        }
+        return in.nextDouble();
+    }
+
+    static String[] readStringArray(JsonReader in) throws IOException {
+        if (nextNull(in)) {
+            return null;
+        }
+        List<String> values = new ArrayList<>();
+        in.beginArray();
+        while (in.hasNext()) {
+            values.add(readString(in));
+        }
+        in.endArray();
+        return values.toArray(new String[0]);
+    }
+
+    static <T> T[] readArray(JsonReader in, TypeAdapter<T> elementAdapter, T[] empty) throws IOException {
+        if (nextNull(in)) {
+            return null;
+        }
+        List<T> values = new ArrayList<>();
+        in.beginArray();
+        while (in.hasNext()) {
+            values.add(elementAdapter.read(in));
+        }
+        in.endArray();
+        return values.toArray(empty);
+    }
+
+    static void writeStringArray(JsonWriter out, String[] values) throws IOException {
+        if (values == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginArray();
+        for (String value : values) {
+            out.value(value);
+        }
+        out.endArray();
+    }
+
+    static <T> void writeArray(JsonWriter out, TypeAdapter<T> elementAdapter, T[] values) throws IOException {
+        if (values == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginArray();
+        for (T value : values) {
+            elementAdapter.write(out, value);
+        }
+        out.endArray();
+    }
+}
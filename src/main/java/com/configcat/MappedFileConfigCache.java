@@ -0,0 +1,273 @@
+package com.configcat;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+/**
+ * {@link ConfigCache} implementation that stores each cache entry in its own file and reads it through a memory mapping.
+ * <p>
+ * Every file starts with a small header holding the fetch time, the eTag, the length and the CRC32 checksum of the content.
+ * A read first compares the header with the one of the previous read and returns the previously read value when they match,
+ * so an unchanged entry is neither copied nor decoded again, and {@link #readStamp(String)} is served from the header alone.
+ * Writes go to a temporary file which is then renamed over the entry's file, so readers (even in other processes) see
+ * either the old or the new entry, never a partially written one.
+ * <p>
+ * The binary cache format is supported (see {@link ConfigCache#isBinaryFormatSupported()}). It works on any JVM, on Android
+ * a directory like {@code context.getCacheDir()} or {@code context.getFilesDir()} can be used.
+ */
+public class MappedFileConfigCache extends ConfigCache {
+    private static final byte[] MAGIC = {'C', 'C', 'M', 'F'};
+    private static final int FILE_FORMAT_VERSION = 1;
+    private static final byte CONTENT_TEXT = 0;
+    private static final byte CONTENT_BINARY = 1;
+    // magic, version, content type, fetch time, content length, checksum, eTag length
+    private static final int FIXED_HEADER_LENGTH = MAGIC.length + 1 + 1 + 8 + 4 + 8 + 2;
+    private static final int MAX_ETAG_LENGTH = 0xFFFF;
+
+    private final File directory;
+    private Header lastHeader;
+    private String lastKey;
+    private Object lastValue;
+
+    /**
+     * Creates a new cache which keeps its files in the given directory, the directory is created when it doesn't exist.
+     *
+     * @param directory the directory of the cache files.
+     */
+    public MappedFileConfigCache(File directory) {
+        if (directory == null) {
+            throw new IllegalArgumentException("directory cannot be null.");
+        }
+        this.directory = directory;
+    }
+
+    @Override
+    protected synchronized String read(String key) throws Exception {
+        Object value = readValue(key, CONTENT_TEXT);
+        return value instanceof String ? (String) value : null;
+    }
+
+    @Override
+    protected synchronized void write(String key, String value) throws Exception {
+        String fetchTime = "0";
+        String eTag = "";
+        int fetchTimeIndex = value.indexOf('\n');
+        int eTagIndex = fetchTimeIndex < 0 ? -1 : value.indexOf('\n', fetchTimeIndex + 1);
+        if (eTagIndex >= 0) {
+            fetchTime = value.substring(0, fetchTimeIndex);
+            eTag = value.substring(fetchTimeIndex + 1, eTagIndex);
+        }
+        long fetchTimeMillis = DateTimeUtils.isValidDate(fetchTime) ? Long.parseLong(fetchTime) : 0;
+        writeValue(key, CONTENT_TEXT, fetchTimeMillis, eTag, value.getBytes(StandardCharsets.UTF_8), value);
+    }
+
+    @Override
+    protected boolean isBinaryFormatSupported() {
+        return true;
+    }
+
+    @Override
+    protected synchronized byte[] readBinary(String key) throws Exception {
+        Object value = readValue(key, CONTENT_BINARY);
+        return value instanceof byte[] ? (byte[]) value : null;
+    }
+
+    @Override
+    protected synchronized void writeBinary(String key, byte[] value) throws Exception {
+        writeValue(key, CONTENT_BINARY, EntryBinaryFormat.readFetchTime(value), EntryBinaryFormat.readETag(value), value, value);
+    }
+
+    /**
+     * Reads only the header of the entry's file, the stamp is derived from the content checksum and the other header fields.
+     */
+    @Override
+    protected synchronized long readStamp(String key) throws Exception {
+        File file = fileOf(key);
+        if (!file.exists()) {
+            return 0;
+        }
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r")) {
+            return readHeader(randomAccessFile.getChannel()).stamp();
+        }
+    }
+
+    File fileOf(String key) {
+        return new File(directory, key + ".cache");
+    }
+
+    /**
+     * @return the content as a {@link String} or {@code byte[]} depending on its type, or {@code null} when the file
+     * doesn't exist or holds the other type of content.
+     */
+    private Object readValue(String key, byte contentType) throws IOException {
+        File file = fileOf(key);
+        if (!file.exists()) {
+            return null;
+        }
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r")) {
+            FileChannel channel = randomAccessFile.getChannel();
+            Header header = readHeader(channel);
+            if (header.contentType != contentType) {
+                return null;
+            }
+            if (key.equals(lastKey) && header.equals(lastHeader)) {
+                return lastValue;
+            }
+            long contentOffset = header.length();
+            if (contentOffset + header.contentLength > channel.size()) {
+                throw new IOException("The cache file is truncated.");
+            }
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, contentOffset, header.contentLength);
+            byte[] content = new byte[header.contentLength];
+            mapped.get(content);
+            if (checksum(content) != header.checksum) {
+                throw new IOException("The checksum of the cache file doesn't match its content.");
+            }
+            Object value = contentType == CONTENT_TEXT ? new String(content, StandardCharsets.UTF_8) : content;
+            lastKey = key;
+            lastHeader = header;
+            lastValue = value;
+            return value;
+        }
+    }
+
+    private void writeValue(String key, byte contentType, long fetchTime, String eTag, byte[] content, Object value) throws IOException {
+        byte[] eTagBytes = eTag != null ? eTag.getBytes(StandardCharsets.UTF_8) : new byte[0];
+        if (eTagBytes.length > MAX_ETAG_LENGTH) {
+            throw new IOException("The eTag is too long.");
+        }
+        Header header = new Header(contentType, fetchTime, content.length, checksum(content), eTagBytes);
+
+        if (!directory.exists() && !directory.mkdirs() && !directory.exists()) {
+            throw new IOException("Cannot create the cache directory: " + directory);
+        }
+        File file = fileOf(key);
+        File temp = File.createTempFile("." + key + "-", ".tmp", directory);
+        try {
+            try (FileOutputStream outputStream = new FileOutputStream(temp)) {
+                outputStream.write(header.toBytes());
+                outputStream.write(content);
+                outputStream.getFD().sync();
+            }
+            if (!temp.renameTo(file)) {
+                // some platforms don't replace an existing file on rename
+                if (!file.delete() || !temp.renameTo(file)) {
+                    throw new IOException("Cannot replace the cache file: " + file);
+                }
+            }
+        } finally {
+            if (temp.exists() && !temp.delete()) {
+                temp.deleteOnExit();
+            }
+        }
+        lastKey = key;
+        lastHeader = header;
+        lastValue = value;
+    }
+
+    private static Header readHeader(FileChannel channel) throws IOException {
+        ByteBuffer fixed = ByteBuffer.allocate(FIXED_HEADER_LENGTH);
+        readFully(channel, fixed, 0);
+        fixed.flip();
+        for (byte magicByte : MAGIC) {
+            if (fixed.get() != magicByte) {
+                throw new IOException("Not a cache file.");
+            }
+        }
+        int version = fixed.get() & 0xFF;
+        if (version != FILE_FORMAT_VERSION) {
+            throw new IOException("Unsupported cache file version: " + version);
+        }
+        byte contentType = fixed.get();
+        long fetchTime = fixed.getLong();
+        int contentLength = fixed.getInt();
+        long checksum = fixed.getLong();
+        int eTagLength = fixed.getShort() & 0xFFFF;
+        if (contentLength < 0) {
+            throw new IOException("Invalid content length: " + contentLength);
+        }
+        ByteBuffer eTag = ByteBuffer.allocate(eTagLength);
+        readFully(channel, eTag, FIXED_HEADER_LENGTH);
+        return new Header(contentType, fetchTime, contentLength, checksum, eTag.array());
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) {
+                throw new IOException("The cache file is truncated.");
+            }
+        }
+    }
+
+    private static long checksum(byte[] content) {
+        CRC32 crc32 = new CRC32();
+        crc32.update(content, 0, content.length);
+        return crc32.getValue();
+    }
+
+    private static final class Header {
+        final byte contentType;
+        final long fetchTime;
+        final int contentLength;
+        final long checksum;
+        final byte[] eTag;
+
+        Header(byte contentType, long fetchTime, int contentLength, long checksum, byte[] eTag) {
+            this.contentType = contentType;
+            this.fetchTime = fetchTime;
+            this.contentLength = contentLength;
+            this.checksum = checksum;
+            this.eTag = eTag;
+        }
+
+        int length() {
+            return FIXED_HEADER_LENGTH + eTag.length;
+        }
+
+        long stamp() {
+            CRC32 crc32 = new CRC32();
+            byte[] bytes = toBytes();
+            crc32.update(bytes, 0, bytes.length);
+            return (checksum << 32) | crc32.getValue();
+        }
+
+        byte[] toBytes() {
+            ByteBuffer buffer = ByteBuffer.allocate(length());
+            buffer.put(MAGIC);
+            buffer.put((byte) FILE_FORMAT_VERSION);
+            buffer.put(contentType);
+            buffer.putLong(fetchTime);
+            buffer.putInt(contentLength);
+            buffer.putLong(checksum);
+            buffer.putShort((short) eTag.length);
+            buffer.put(eTag);
+            return buffer.array();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Header)) return false;
+            Header other = (Header) o;
+            return contentType == other.contentType
+                    && fetchTime == other.fetchTime
+                    && contentLength == other.contentLength
+                    && checksum == other.checksum
+                    && Arrays.equals(eTag, other.eTag);
+        }
+
+        @Override
+        public int hashCode() {
+            return (int) (checksum ^ fetchTime);
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package com.configcat;
+
+import java9.util.function.Consumer;
+
+import java.io.Closeable;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The value of a feature flag or setting which follows the changes of the config.json, see
+ * {@link ConfigCatClient#observe(Class, String, User, Object)}. The flag is re-evaluated only when its setting,
+ * or a prerequisite flag of it, changes. The listeners are called only when the re-evaluation produces a different value.
+ *
+ * @param <T> the type of the feature flag or setting.
+ */
+public final class ObservedValue<T> implements Closeable {
+    private final Class<T> classOfT;
+    private final String key;
+    private final User user;
+    private final T defaultValue;
+    private final Consumer<ObservedValue<?>> onClose;
+    private final CopyOnWriteArrayList<Consumer<T>> listeners = new CopyOnWriteArrayList<>();
+    private final AtomicBoolean closed = new AtomicBoolean(false);
+    private final AtomicLong sequence = new AtomicLong();
+    // guards the applied sequence, the pending notifications and the notifying flag
+    private final Object lock = new Object();
+    private final LinkedList<T> pendingNotifications = new LinkedList<>();
+    private long appliedSequence;
+    private boolean notifying;
+    private volatile T value;
+
+    ObservedValue(Class<T> classOfT, String key, User user, T defaultValue, Consumer<ObservedValue<?>> onClose) {
+        this.classOfT = classOfT;
+        this.key = key;
+        this.user = user;
+        this.defaultValue = defaultValue;
+        this.onClose = onClose;
+        this.value = defaultValue;
+    }
+
+    /**
+     * The key of the observed feature flag or setting.
+     */
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * The last evaluated value, or the default value until the first evaluation completes.
+     */
+    public T getValue() {
+        return value;
+    }
+
+    /**
+     * Subscribes to the value changes. The callbacks are called one at a time, in the order of the changes.
+     * <p>
+     * The callback is called on the thread which processed the new config.json. Unless the hooks are dispatched
+     * asynchronously (see {@link ConfigCatClient.Options#asyncHooks(int, HookOverflowPolicy)}), that's the thread of the
+     * HTTP request, while the client's config lock is held: the callback should return quickly and it shouldn't wait
+     * for other threads using the client.
+     *
+     * @param callback the method to call with the new value.
+     */
+    public void addListener(Consumer<T> callback) {
+        listeners.add(callback);
+    }
+
+    /**
+     * Unsubscribes the callback added with {@link #addListener(Consumer)}.
+     *
+     * @param callback the callback to remove.
+     */
+    public void removeListener(Consumer<T> callback) {
+        listeners.remove(callback);
+    }
+
+    /**
+     * Stops observing the feature flag or setting.
+     */
+    @Override
+    public void close() {
+        if (closed.compareAndSet(false, true)) {
+            listeners.clear();
+            onClose.accept(this);
+        }
+    }
+
+    Class<T> classOfT() {
+        return classOfT;
+    }
+
+    User user() {
+        return user;
+    }
+
+    T defaultValue() {
+        return defaultValue;
+    }
+
+    /**
+     * @return the stamp of a new evaluation, taken before the evaluation starts.
+     */
+    long nextSequence() {
+        return sequence.incrementAndGet();
+    }
+
+    /**
+     * Applies the result of the evaluation stamped with {@code sequence}. The evaluations complete asynchronously,
+     * a result which arrives after the result of a later evaluation is stale and it's dropped.
+     */
+    void update(T newValue, long sequence) {
+        synchronized (lock) {
+            if (closed.get() || sequence < appliedSequence) {
+                return;
+            }
+            appliedSequence = sequence;
+            if (equal(value, newValue)) {
+                return;
+            }
+            value = newValue;
+            pendingNotifications.add(newValue);
+            if (notifying) {
+                // the thread notifying the listeners delivers this change too
+                return;
+            }
+            notifying = true;
+        }
+        // the listeners are called without holding the lock, they may trigger a new evaluation
+        while (true) {
+            T next;
+            synchronized (lock) {
+                if (pendingNotifications.isEmpty()) {
+                    notifying = false;
+                    return;
+                }
+                next = pendingNotifications.poll();
+            }
+            try {
+                for (Consumer<T> listener : listeners) {
+                    listener.accept(next);
+                }
+            } catch (RuntimeException e) {
+                synchronized (lock) {
+                    notifying = false;
+                }
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * @return {@code true} when the change affects the evaluation of the observed setting, i.e. the setting or one of its
+     * prerequisite flags was added, removed or modified.
+     */
+    boolean isAffectedBy(ConfigChange change) {
+        return isAffectedBy(key, change, new HashSet<String>());
+    }
+
+    private static boolean isAffectedBy(String key, ConfigChange change, Set<String> visited) {
+        if (change.isChanged(key)) {
+            return true;
+        }
+        if (!visited.add(key)) {
+            return false;
+        }
+        Map<String, Setting> settings = change.getSettings();
+        Setting setting = settings.get(key);
+        if (setting == null || setting.getTargetingRules() == null) {
+            return false;
+        }
+        for (TargetingRule rule : setting.getTargetingRules()) {
+            if (rule.getConditions() == null) {
+                continue;
+            }
+            for (Condition condition : rule.getConditions()) {
+                PrerequisiteFlagCondition prerequisite = condition.getPrerequisiteFlagCondition();
+                if (prerequisite != null && isAffectedBy(prerequisite.getPrerequisiteFlagKey(), change, visited)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean equal(Object a, Object b) {
+        return a == null ? b == null : a.equals(b);
+    }
+}
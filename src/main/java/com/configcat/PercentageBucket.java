@@ -0,0 +1,99 @@
+package com.configcat;
+
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Computes the 0-99 percentage option bucket of a user, which is the first 7 hex digits of
+ * {@code sha1(settingKey + attributeValue)} modulo 100. The 28 bits are read directly from the raw digest,
+ * the UTF-8 bytes and the digest are written into per-thread buffers.
+ */
+final class PercentageBucket {
+    private static final int SCALE = 100;
+    private static final int DIGEST_LENGTH = 20;
+    private static final int INITIAL_BUFFER_SIZE = 128;
+
+    private static final ThreadLocal<DigestState> DIGEST = new ThreadLocal<DigestState>() {
+        @Override
+        protected DigestState initialValue() {
+            return new DigestState();
+        }
+    };
+
+    private PercentageBucket() { /* prevent from instantiation*/ }
+
+    static int of(String settingKey, String attributeValue) {
+        DigestState state = DIGEST.get();
+        int length = state.encode(settingKey, attributeValue);
+        MessageDigest digest = state.digest;
+        digest.update(state.input, 0, length);
+        try {
+            digest.digest(state.output, 0, DIGEST_LENGTH);
+        } catch (DigestException e) {
+            throw new IllegalStateException(e);
+        }
+        byte[] hash = state.output;
+        int top28Bits = (hash[0] & 0xFF) << 20 | (hash[1] & 0xFF) << 12 | (hash[2] & 0xFF) << 4 | (hash[3] & 0xFF) >>> 4;
+        return top28Bits % SCALE;
+    }
+
+    private static final class DigestState {
+        final MessageDigest digest;
+        final byte[] output = new byte[DIGEST_LENGTH];
+        byte[] input = new byte[INITIAL_BUFFER_SIZE];
+
+        DigestState() {
+            try {
+                digest = MessageDigest.getInstance("SHA-1");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        /**
+         * Encodes {@code first + second} into {@link #input} the same way as {@code String#getBytes(UTF_8)} would,
+         * including a surrogate pair split between the two strings and the '?' replacement of unpaired surrogates.
+         * Returns the number of bytes written.
+         */
+        int encode(String first, String second) {
+            int firstLength = first.length();
+            int charCount = firstLength + second.length();
+            // at most 3 bytes per char, a surrogate pair takes 4 bytes for 2 chars
+            if (input.length < charCount * 3) {
+                input = new byte[Math.max(charCount * 3, input.length * 2)];
+            }
+            byte[] bytes = input;
+            int position = 0;
+            for (int i = 0; i < charCount; i++) {
+                char c = i < firstLength ? first.charAt(i) : second.charAt(i - firstLength);
+                if (c < 0x80) {
+                    bytes[position++] = (byte) c;
+                } else if (c < 0x800) {
+                    bytes[position++] = (byte) (0xC0 | c >> 6);
+                    bytes[position++] = (byte) (0x80 | c & 0x3F);
+                } else if (Character.isSurrogate(c)) {
+                    char next = 0;
+                    if (i + 1 < charCount) {
+                        next = i + 1 < firstLength ? first.charAt(i + 1) : second.charAt(i + 1 - firstLength);
+                    }
+                    if (Character.isHighSurrogate(c) && Character.isLowSurrogate(next)) {
+                        int codePoint = Character.toCodePoint(c, next);
+                        bytes[position++] = (byte) (0xF0 | codePoint >> 18);
+                        bytes[position++] = (byte) (0x80 | codePoint >> 12 & 0x3F);
+                        bytes[position++] = (byte) (0x80 | codePoint >> 6 & 0x3F);
+                        bytes[position++] = (byte) (0x80 | codePoint & 0x3F);
+                        i++;
+                    } else {
+                        bytes[position++] = '?';
+                    }
+                } else {
+                    bytes[position++] = (byte) (0xE0 | c >> 12);
+                    bytes[position++] = (byte) (0x80 | c >> 6 & 0x3F);
+                    bytes[position++] = (byte) (0x80 | c & 0x3F);
+                }
+            }
+            return position;
+        }
+    }
+}
@@ -1,6 +1,11 @@
 package com.configcat;
 
+import com.google.gson.TypeAdapter;
 import com.google.gson.annotations.SerializedName;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
 
 /**
  * Represents a percentage option.
@@ -14,6 +19,8 @@ public class PercentageOption {
     @SerializedName(value = "i")
     private String variationId;
 
+    private transient EvaluationResult result;
+
     /**
      * A number between 0 and 100 that represents a randomly allocated fraction of the users.
      */
@@ -35,4 +42,69 @@ public class PercentageOption {
     public String getVariationId() {
         return variationId;
     }
+
+    /**
+     * A percentage option belongs to either the setting or exactly one targeting rule,
+     * so the result can be cached along with its parent rule.
+     */
+    EvaluationResult getEvaluationResult(TargetingRule parentTargetingRule) {
+        EvaluationResult evaluationResult = result;
+        if (evaluationResult == null) {
+            evaluationResult = new EvaluationResult(value, variationId, parentTargetingRule, this);
+            result = evaluationResult;
+        }
+        return evaluationResult;
+    }
+
+    static PercentageOption of(int percentage, SettingValue value, String variationId) {
+        PercentageOption percentageOption = new PercentageOption();
+        percentageOption.percentage = percentage;
+        percentageOption.value = value;
+        percentageOption.variationId = variationId;
+        return percentageOption;
+    }
+
+    static final TypeAdapter<PercentageOption> ADAPTER = new TypeAdapter<PercentageOption>() {
+        @Override
+        public void write(JsonWriter out, PercentageOption value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            out.name("p");
+            out.value(value.percentage);
+            out.name("v");
+            SettingValue.ADAPTER.write(out, value.value);
+            out.name("i");
+            out.value(value.variationId);
+            out.endObject();
+        }
+
+        @Override
+        public PercentageOption read(JsonReader in) throws IOException {
+            if (JsonAdapters.nextNull(in)) {
+                return null;
+            }
+            PercentageOption percentageOption = new PercentageOption();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "p":
+                        percentageOption.percentage = JsonAdapters.readInt(in, percentageOption.percentage);
+                        break;
+                    case "v":
+                        percentageOption.value = SettingValue.ADAPTER.read(in);
+                        break;
+                    case "i":
+                        percentageOption.variationId = JsonAdapters.readString(in);
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            return percentageOption;
+        }
+    };
 }
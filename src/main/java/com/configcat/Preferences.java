@@ -1,6 +1,11 @@
 package com.configcat;
 
+import com.google.gson.TypeAdapter;
 import com.google.gson.annotations.SerializedName;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
 
 class Preferences {
     @SerializedName(value = "u")
@@ -21,4 +26,56 @@ class Preferences {
     public String getSalt() {
         return salt;
     }
+
+    static Preferences of(String baseUrl, int redirect, String salt) {
+        Preferences preferences = new Preferences();
+        preferences.baseUrl = baseUrl;
+        preferences.redirect = redirect;
+        preferences.salt = salt;
+        return preferences;
+    }
+
+    static final TypeAdapter<Preferences> ADAPTER = new TypeAdapter<Preferences>() {
+        @Override
+        public void write(JsonWriter out, Preferences value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            out.name("u");
+            out.value(value.baseUrl);
+            out.name("r");
+            out.value(value.redirect);
+            out.name("s");
+            out.value(value.salt);
+            out.endObject();
+        }
+
+        @Override
+        public Preferences read(JsonReader in) throws IOException {
+            if (JsonAdapters.nextNull(in)) {
+                return null;
+            }
+            Preferences preferences = new Preferences();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "u":
+                        preferences.baseUrl = JsonAdapters.readString(in);
+                        break;
+                    case "r":
+                        preferences.redirect = JsonAdapters.readInt(in, preferences.redirect);
+                        break;
+                    case "s":
+                        preferences.salt = JsonAdapters.readString(in);
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            return preferences;
+        }
+    };
 }
\ No newline at end of file
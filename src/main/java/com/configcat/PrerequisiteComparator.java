@@ -25,8 +25,10 @@ public enum PrerequisiteComparator {
         return name;
     }
 
+    private static final PrerequisiteComparator[] VALUES = values();
+
     public static PrerequisiteComparator fromId(int id) {
-        for (PrerequisiteComparator comparator : PrerequisiteComparator.values()) {
+        for (PrerequisiteComparator comparator : VALUES) {
             if (comparator.id == id) {
                 return comparator;
             }
@@ -1,6 +1,11 @@
 package com.configcat;
 
+import com.google.gson.TypeAdapter;
 import com.google.gson.annotations.SerializedName;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
 
 /**
  * Describes a condition that is based on a prerequisite flag.
@@ -35,4 +40,56 @@ public class PrerequisiteFlagCondition {
     public SettingValue getValue() {
         return value;
     }
+
+    static PrerequisiteFlagCondition of(String prerequisiteFlagKey, int prerequisiteComparator, SettingValue value) {
+        PrerequisiteFlagCondition prerequisiteFlagCondition = new PrerequisiteFlagCondition();
+        prerequisiteFlagCondition.prerequisiteFlagKey = prerequisiteFlagKey;
+        prerequisiteFlagCondition.prerequisiteComparator = prerequisiteComparator;
+        prerequisiteFlagCondition.value = value;
+        return prerequisiteFlagCondition;
+    }
+
+    static final TypeAdapter<PrerequisiteFlagCondition> ADAPTER = new TypeAdapter<PrerequisiteFlagCondition>() {
+        @Override
+        public void write(JsonWriter out, PrerequisiteFlagCondition value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            out.name("f");
+            out.value(value.prerequisiteFlagKey);
+            out.name("c");
+            out.value(value.prerequisiteComparator);
+            out.name("v");
+            SettingValue.ADAPTER.write(out, value.value);
+            out.endObject();
+        }
+
+        @Override
+        public PrerequisiteFlagCondition read(JsonReader in) throws IOException {
+            if (JsonAdapters.nextNull(in)) {
+                return null;
+            }
+            PrerequisiteFlagCondition prerequisiteFlagCondition = new PrerequisiteFlagCondition();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "f":
+                        prerequisiteFlagCondition.prerequisiteFlagKey = JsonAdapters.readString(in);
+                        break;
+                    case "c":
+                        prerequisiteFlagCondition.prerequisiteComparator = JsonAdapters.readInt(in, prerequisiteFlagCondition.prerequisiteComparator);
+                        break;
+                    case "v":
+                        prerequisiteFlagCondition.value = SettingValue.ADAPTER.read(in);
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            return prerequisiteFlagCondition;
+        }
+    };
 }
\ No newline at end of file
@@ -29,12 +29,38 @@ class RolloutEvaluator {
     public static final String COMPARISON_VALUE_IS_MISSING_OR_INVALID = "Comparison value is missing or invalid.";
 
     private final ConfigCatLogger logger;
+    private final boolean useCompiledConditions;
+    private final SaltedHashCache hashCache = new SaltedHashCache(SaltedHashCache.DEFAULT_MAX_SIZE);
 
     public RolloutEvaluator(ConfigCatLogger logger) {
+        this(logger, true);
+    }
+
+    RolloutEvaluator(ConfigCatLogger logger, boolean useCompiledConditions) {
         this.logger = logger;
+        this.useCompiledConditions = useCompiledConditions;
     }
 
     public EvaluationResult evaluate(Setting setting, String key, User user, Map<String, Setting> settings, EvaluateLogger evaluateLogger) {
+        return evaluate(setting, key, user, settings, evaluateLogger, null);
+    }
+
+    /**
+     * Evaluates the setting sharing the segment and prerequisite flag results with the other evaluations of the batch.
+     * The batch is not used when the evaluation log is enabled, as the log contains the complete evaluation of each flag.
+     */
+    EvaluationResult evaluate(Setting setting, String key, User user, Map<String, Setting> settings, EvaluateLogger evaluateLogger, EvaluationBatch batch) {
+        if (batch != null && (evaluateLogger.isLoggable() || !batch.isFor(user, settings))) {
+            batch = null;
+        }
+        if (batch != null) {
+            EvaluationResult sharedResult = batch.getFlagResult(key);
+            if (sharedResult != null) {
+                return sharedResult;
+            }
+        }
+        EvaluationContext context = EvaluationContext.acquire(key, user, settings, batch);
+        int warningCountBefore = batch != null ? batch.warningCount() : 0;
         try {
             evaluateLogger.logEvaluation(key);
             if (user != null) {
@@ -42,14 +68,18 @@ class RolloutEvaluator {
             }
             evaluateLogger.increaseIndentLevel();
 
-            EvaluationContext context = new EvaluationContext(key, user, null, settings);
-
             EvaluationResult evaluationResult = evaluateSetting(setting, evaluateLogger, context);
+            if (batch != null) {
+                batch.putFlagResult(key, warningCountBefore, evaluationResult);
+            }
 
-            evaluateLogger.logReturnValue(evaluationResult.value.toString());
+            if (evaluateLogger.isLoggable()) {
+                evaluateLogger.logReturnValue(evaluationResult.value.toString());
+            }
             evaluateLogger.decreaseIndentLevel();
             return evaluationResult;
         } finally {
+            context.release();
             if (evaluateLogger.isLoggable()) {
                 this.logger.info(5000, evaluateLogger.toPrint());
             }
@@ -65,7 +95,7 @@ class RolloutEvaluator {
             evaluationResult = evaluatePercentageOptions(setting.getPercentageOptions(), setting.getPercentageAttribute(), context, null, evaluateLogger);
         }
         if (evaluationResult == null) {
-            evaluationResult = new EvaluationResult(setting.getSettingsValue(), setting.getVariationId(), null, null);
+            evaluationResult = setting.getDefaultResult();
         }
         return evaluationResult;
     }
@@ -89,7 +119,7 @@ class RolloutEvaluator {
                 continue;
             }
             if (rule.getSimpleValue() != null) {
-                return new EvaluationResult(rule.getSimpleValue().getValue(), rule.getSimpleValue().getVariationId(), rule, null);
+                return rule.getSimpleValueResult();
             }
 
             if (rule.getPercentageOptions() == null || rule.getPercentageOptions().length == 0) {
@@ -110,6 +140,11 @@ class RolloutEvaluator {
         return null;
     }
 
+    private void warn(EvaluationContext context, int eventId, FormattableLogMessage message) {
+        context.onWarning();
+        this.logger.warn(eventId, message);
+    }
+
     private boolean evaluateConditions(ConditionAccessor[] conditions, TargetingRule targetingRule, EvaluationContext context, String configSalt, String contextSalt, Segment[] segments, EvaluateLogger evaluateLogger) {
         boolean firstConditionFlag = true;
         boolean conditionsEvaluationResult = true;
@@ -171,27 +206,38 @@ class RolloutEvaluator {
     }
 
     private boolean evaluateUserCondition(UserCondition userCondition, EvaluationContext context, String configSalt, String contextSalt, EvaluateLogger evaluateLogger) {
-        evaluateLogger.append(EvaluateLogger.formatUserCondition(userCondition));
+        if (evaluateLogger.isLoggable()) {
+            evaluateLogger.append(EvaluateLogger.formatUserCondition(userCondition));
+        } else if (userCondition.getCompiled() == null && UserComparator.fromId(userCondition.getComparator()) == null) {
+            // keep failing at the same point as the formatting does when the evaluation log is enabled
+            throw new IllegalArgumentException(COMPARISON_OPERATOR_IS_INVALID);
+        }
 
         if (context.getUser() == null) {
             if (!context.isUserMissing()) {
                 context.setUserMissing(true);
-                this.logger.warn(3001, ConfigCatLogMessages.getUserObjectMissing(context.getKey()));
+                warn(context, 3001, ConfigCatLogMessages.getUserObjectMissing(context.getKey()));
             }
             throw new RolloutEvaluatorException(USER_OBJECT_IS_MISSING);
 
         }
 
         String comparisonAttribute = userCondition.getComparisonAttribute();
-        UserComparator comparator = UserComparator.fromId(userCondition.getComparator());
         Object userAttributeValue = context.getUser().getAttribute(comparisonAttribute);
 
         if (userAttributeValue == null || (userAttributeValue instanceof String && ((String) userAttributeValue).isEmpty())) {
-            logger.warn(3003, ConfigCatLogMessages.getUserAttributeMissing(context.getKey(), userCondition, comparisonAttribute));
+            warn(context, 3003, ConfigCatLogMessages.getUserAttributeMissing(context.getKey(), userCondition, comparisonAttribute));
             throw new RolloutEvaluatorException(CANNOT_EVALUATE_THE_USER_PREFIX + comparisonAttribute + CANNOT_EVALUATE_THE_USER_MISSING);
 
         }
 
+        CompiledUserCondition compiled = useCompiledConditions ? userCondition.getCompiled() : null;
+        if (compiled != null) {
+            return compiled.evaluate(this, userCondition, context, userAttributeValue, configSalt, contextSalt);
+        }
+
+        UserComparator comparator = UserComparator.fromId(userCondition.getComparator());
+
         if (comparator == null) {
             throw new IllegalArgumentException(COMPARISON_OPERATOR_IS_INVALID);
         }
@@ -199,18 +245,18 @@ class RolloutEvaluator {
             case CONTAINS_ANY_OF:
             case NOT_CONTAINS_ANY_OF:
                 boolean negateContainsAnyOf = UserComparator.NOT_CONTAINS_ANY_OF.equals(comparator);
-                String userAttributeForContains = getUserAttributeAsString(context.getKey(), userCondition, comparisonAttribute, userAttributeValue);
+                String userAttributeForContains = getUserAttributeAsString(context, userCondition, comparisonAttribute, userAttributeValue);
                 return evaluateContainsAnyOf(userCondition, userAttributeForContains, negateContainsAnyOf);
             case SEMVER_IS_ONE_OF:
             case SEMVER_IS_NOT_ONE_OF:
                 boolean negateSemverIsOneOf = UserComparator.SEMVER_IS_NOT_ONE_OF.equals(comparator);
-                Version userAttributeValueForSemverIsOneOf = getUserAttributeAsVersion(context.getKey(), userCondition, comparisonAttribute, userAttributeValue);
+                Version userAttributeValueForSemverIsOneOf = getUserAttributeAsVersion(context, userCondition, comparisonAttribute, userAttributeValue);
                 return evaluateSemverIsOneOf(userCondition, userAttributeValueForSemverIsOneOf, negateSemverIsOneOf);
             case SEMVER_LESS:
             case SEMVER_LESS_EQUALS:
             case SEMVER_GREATER:
             case SEMVER_GREATER_EQUALS:
-                Version userAttributeValueForSemverOperators = getUserAttributeAsVersion(context.getKey(), userCondition, comparisonAttribute, userAttributeValue);
+                Version userAttributeValueForSemverOperators = getUserAttributeAsVersion(context, userCondition, comparisonAttribute, userAttributeValue);
                 return evaluateSemver(userCondition, comparator, userAttributeValueForSemverOperators);
             case NUMBER_EQUALS:
             case NUMBER_NOT_EQUALS:
@@ -218,7 +264,7 @@ class RolloutEvaluator {
             case NUMBER_LESS_EQUALS:
             case NUMBER_GREATER:
             case NUMBER_GREATER_EQUALS:
-                Double userAttributeAsDouble = getUserAttributeAsDouble(context.getKey(), userCondition, comparisonAttribute, userAttributeValue);
+                Double userAttributeAsDouble = getUserAttributeAsDouble(context, userCondition, comparisonAttribute, userAttributeValue);
                 return evaluateNumbers(userCondition, comparator, userAttributeAsDouble);
             case IS_ONE_OF:
             case IS_NOT_ONE_OF:
@@ -226,7 +272,7 @@ class RolloutEvaluator {
             case SENSITIVE_IS_NOT_ONE_OF:
                 boolean negateIsOneOf = UserComparator.SENSITIVE_IS_NOT_ONE_OF.equals(comparator) || UserComparator.IS_NOT_ONE_OF.equals(comparator);
                 boolean sensitiveIsOneOf = UserComparator.SENSITIVE_IS_ONE_OF.equals(comparator) || UserComparator.SENSITIVE_IS_NOT_ONE_OF.equals(comparator);
-                String userAttributeForIsOneOf = getUserAttributeAsString(context.getKey(), userCondition, comparisonAttribute, userAttributeValue);
+                String userAttributeForIsOneOf = getUserAttributeAsString(context, userCondition, comparisonAttribute, userAttributeValue);
                 return evaluateIsOneOf(userCondition, configSalt, contextSalt, userAttributeForIsOneOf, negateIsOneOf, sensitiveIsOneOf);
             case DATE_BEFORE:
             case DATE_AFTER:
@@ -238,23 +284,23 @@ class RolloutEvaluator {
             case HASHED_NOT_EQUALS:
                 boolean negateEquals = UserComparator.HASHED_NOT_EQUALS.equals(comparator) || UserComparator.TEXT_NOT_EQUALS.equals(comparator);
                 boolean hashedEquals = UserComparator.HASHED_EQUALS.equals(comparator) || UserComparator.HASHED_NOT_EQUALS.equals(comparator);
-                String userAttributeForEquals = getUserAttributeAsString(context.getKey(), userCondition, comparisonAttribute, userAttributeValue);
+                String userAttributeForEquals = getUserAttributeAsString(context, userCondition, comparisonAttribute, userAttributeValue);
                 return evaluateEquals(userCondition, configSalt, contextSalt, userAttributeForEquals, negateEquals, hashedEquals);
             case HASHED_STARTS_WITH:
             case HASHED_ENDS_WITH:
             case HASHED_NOT_STARTS_WITH:
             case HASHED_NOT_ENDS_WITH:
-                String userAttributeForHashedStartEnd = getUserAttributeAsString(context.getKey(), userCondition, comparisonAttribute, userAttributeValue);
+                String userAttributeForHashedStartEnd = getUserAttributeAsString(context, userCondition, comparisonAttribute, userAttributeValue);
                 return evaluateHashedStartOrEndsWith(userCondition, ensureConfigSalt(configSalt), contextSalt, comparator, userAttributeForHashedStartEnd);
             case TEXT_STARTS_WITH:
             case TEXT_NOT_STARTS_WITH:
                 boolean negateTextStartWith = UserComparator.TEXT_NOT_STARTS_WITH.equals(comparator);
-                String userAttributeForTextStart = getUserAttributeAsString(context.getKey(), userCondition, comparisonAttribute, userAttributeValue);
+                String userAttributeForTextStart = getUserAttributeAsString(context, userCondition, comparisonAttribute, userAttributeValue);
                 return evaluateTextStartsWith(userCondition, userAttributeForTextStart, negateTextStartWith);
             case TEXT_ENDS_WITH:
             case TEXT_NOT_ENDS_WITH:
                 boolean negateTextEndsWith = UserComparator.TEXT_NOT_ENDS_WITH.equals(comparator);
-                String userAttributeForTextEnd = getUserAttributeAsString(context.getKey(), userCondition, comparisonAttribute, userAttributeValue);
+                String userAttributeForTextEnd = getUserAttributeAsString(context, userCondition, comparisonAttribute, userAttributeValue);
                 return evaluateTextEndsWith(userCondition, userAttributeForTextEnd, negateTextEndsWith);
             case TEXT_ARRAY_CONTAINS:
             case TEXT_ARRAY_NOT_CONTAINS:
@@ -269,87 +315,53 @@ class RolloutEvaluator {
         }
     }
 
-    @SuppressWarnings("unchecked")
-    private String[] getUserAttributeAsStringArray(UserCondition userCondition, EvaluationContext context, String comparisonAttribute, Object userAttributeValue) {
-        String[] result = null;
-        try {
-            if (userAttributeValue instanceof String[]) {
-                result = (String[]) userAttributeValue;
-            } else if (userAttributeValue instanceof List) {
-                List<String> list = (List<String>) userAttributeValue;
-                String[] userValueArray = new String[list.size()];
-                list.toArray(userValueArray);
-                result = userValueArray;
-            } else if (userAttributeValue instanceof String) {
-                result = Utils.gson.fromJson((String) userAttributeValue, String[].class);
-            }
-            if (result != null) {
-                boolean containsNull = false;
-                for (String element : result) {
-                    if (element == null) {
-                        containsNull = true;
-                        break;
-                    }
-                }
-                if (!containsNull) {
-                    return result;
-                }
-            }
-        } catch (Exception exception) {
-            // String array parse failed continue with the RolloutEvaluatorException
+    String[] getUserAttributeAsStringArray(UserCondition userCondition, EvaluationContext context, String comparisonAttribute, Object userAttributeValue) {
+        String[] result = context.getUser().attribute(comparisonAttribute).asStringArray();
+        if (result != null) {
+            return result;
         }
         String reason = "'" + userAttributeValue + "' is not a valid JSON string array";
-        this.logger.warn(3004, ConfigCatLogMessages.getUserAttributeInvalid(context.getKey(), userCondition, reason, comparisonAttribute));
+        warn(context, 3004, ConfigCatLogMessages.getUserAttributeInvalid(context.getKey(), userCondition, reason, comparisonAttribute));
         throw new RolloutEvaluatorException(CANNOT_EVALUATE_THE_USER_PREFIX + comparisonAttribute + CANNOT_EVALUATE_THE_USER_INVALID + reason + ")");
     }
 
-    private double getUserAttributeForDate(UserCondition userCondition, EvaluationContext context, String comparisonAttribute, Object userAttributeValue) {
-        try {
-            if (userAttributeValue instanceof Date) {
-                return DateTimeUtils.getUnixSeconds((Date) userAttributeValue);
-            }
-            return UserAttributeConverter.userAttributeToDouble(userAttributeValue);
-        } catch (Exception e) {
-            String reason = "'" + userAttributeValue + "' is not a valid Unix timestamp (number of seconds elapsed since Unix epoch)";
-            this.logger.warn(3004, ConfigCatLogMessages.getUserAttributeInvalid(context.getKey(), userCondition, reason, comparisonAttribute));
-            throw new RolloutEvaluatorException(CANNOT_EVALUATE_THE_USER_PREFIX + comparisonAttribute + CANNOT_EVALUATE_THE_USER_INVALID + reason + ")");
+    double getUserAttributeForDate(UserCondition userCondition, EvaluationContext context, String comparisonAttribute, Object userAttributeValue) {
+        Double result = context.getUser().attribute(comparisonAttribute).asUnixSeconds();
+        if (result != null) {
+            return result;
         }
+        String reason = "'" + userAttributeValue + "' is not a valid Unix timestamp (number of seconds elapsed since Unix epoch)";
+        warn(context, 3004, ConfigCatLogMessages.getUserAttributeInvalid(context.getKey(), userCondition, reason, comparisonAttribute));
+        throw new RolloutEvaluatorException(CANNOT_EVALUATE_THE_USER_PREFIX + comparisonAttribute + CANNOT_EVALUATE_THE_USER_INVALID + reason + ")");
     }
 
-    private String getUserAttributeAsString(String key, UserCondition userCondition, String userAttributeName, Object userAttributeValue) {
+    String getUserAttributeAsString(EvaluationContext context, UserCondition userCondition, String userAttributeName, Object userAttributeValue) {
         if (userAttributeValue instanceof String) {
             return (String) userAttributeValue;
         }
-        String convertedUserAttribute = UserAttributeConverter.userAttributeToString(userAttributeValue);
-        this.logger.warn(3005, ConfigCatLogMessages.getUserObjectAttributeIsAutoConverted(key, userCondition, userAttributeName, convertedUserAttribute));
+        String convertedUserAttribute = context.getUser().attribute(userAttributeName).asString();
+        warn(context, 3005, ConfigCatLogMessages.getUserObjectAttributeIsAutoConverted(context.getKey(), userCondition, userAttributeName, convertedUserAttribute));
         return convertedUserAttribute;
     }
 
-    private Version getUserAttributeAsVersion(String key, UserCondition userCondition, String comparisonAttribute, Object userValue) {
-        if (userValue instanceof String) {
-            try {
-                return Version.parseVersion(((String) userValue).trim(), true);
-            } catch (Version.VersionFormatException e) {
-                // Version parse failed continue with the RolloutEvaluatorException
-            }
+    Version getUserAttributeAsVersion(EvaluationContext context, UserCondition userCondition, String comparisonAttribute, Object userValue) {
+        Version result = context.getUser().attribute(comparisonAttribute).asVersion();
+        if (result != null) {
+            return result;
         }
         String reason = "'" + userValue + "' is not a valid semantic version";
-        this.logger.warn(3004, ConfigCatLogMessages.getUserAttributeInvalid(key, userCondition, reason, comparisonAttribute));
+        warn(context, 3004, ConfigCatLogMessages.getUserAttributeInvalid(context.getKey(), userCondition, reason, comparisonAttribute));
         throw new RolloutEvaluatorException(CANNOT_EVALUATE_THE_USER_PREFIX + comparisonAttribute + CANNOT_EVALUATE_THE_USER_INVALID + reason + ")");
     }
 
-    private Double getUserAttributeAsDouble(String key, UserCondition userCondition, String comparisonAttribute, Object userAttributeValue) {
-        try {
-            if (userAttributeValue instanceof Double) {
-                return (Double) userAttributeValue;
-            }
-            return UserAttributeConverter.userAttributeToDouble(userAttributeValue);
-        } catch (NumberFormatException e) {
-            //If it cannot convert to double, continue with the error
-            String reason = "'" + userAttributeValue + "' is not a valid decimal number";
-            this.logger.warn(3004, ConfigCatLogMessages.getUserAttributeInvalid(key, userCondition, reason, comparisonAttribute));
-            throw new RolloutEvaluatorException(CANNOT_EVALUATE_THE_USER_PREFIX + comparisonAttribute + CANNOT_EVALUATE_THE_USER_INVALID + reason + ")");
+    Double getUserAttributeAsDouble(EvaluationContext context, UserCondition userCondition, String comparisonAttribute, Object userAttributeValue) {
+        Double result = context.getUser().attribute(comparisonAttribute).asDouble();
+        if (result != null) {
+            return result;
         }
+        String reason = "'" + userAttributeValue + "' is not a valid decimal number";
+        warn(context, 3004, ConfigCatLogMessages.getUserAttributeInvalid(context.getKey(), userCondition, reason, comparisonAttribute));
+        throw new RolloutEvaluatorException(CANNOT_EVALUATE_THE_USER_PREFIX + comparisonAttribute + CANNOT_EVALUATE_THE_USER_INVALID + reason + ")");
     }
 
     private boolean evaluateArrayContains(UserCondition userCondition, String configSalt, String contextSalt, String[] userContainsValues, boolean negateArrayContains, boolean hashedArrayContains) {
@@ -359,9 +371,10 @@ class RolloutEvaluator {
             return false;
         }
         for (String userContainsValue : userContainsValues) {
-            String userContainsValueConverted = hashedArrayContains ? getSaltedUserValue(userContainsValue, ensureConfigSalt(configSalt), contextSalt) : userContainsValue;
+            Sha256Hash userContainsValueHash = hashedArrayContains ? hash(userCondition, userContainsValue, ensureConfigSalt(configSalt), contextSalt) : null;
             for (String inValuesElement : comparisonValues) {
-                if (ensureComparisonValue(inValuesElement).equals(userContainsValueConverted)) {
+                String comparisonValue = ensureComparisonValue(inValuesElement);
+                if (hashedArrayContains ? userContainsValueHash.equalsHex(comparisonValue) : comparisonValue.equals(userContainsValue)) {
                     return !negateArrayContains;
                 }
             }
@@ -415,15 +428,10 @@ class RolloutEvaluator {
             if (comparisonHashValue.isEmpty()) {
                 throw new IllegalArgumentException(COMPARISON_VALUE_IS_MISSING_OR_INVALID);
             }
-            byte[] userValueSubStringByteArray;
-            if (UserComparator.HASHED_STARTS_WITH.equals(comparator) || UserComparator.HASHED_NOT_STARTS_WITH.equals(comparator)) {
-                userValueSubStringByteArray = Arrays.copyOfRange(userAttributeValueUTF8, 0, comparedTextLengthInt);
-            } else { //HASHED_ENDS_WITH
-                userValueSubStringByteArray = Arrays.copyOfRange(userAttributeValueUTF8, userAttributeValueUTF8.length - comparedTextLengthInt, userAttributeValueUTF8.length);
-            }
-            String hashUserValueSub = getSaltedUserValueSlice(userValueSubStringByteArray, configSalt, contextSalt);
+            boolean startsWith = UserComparator.HASHED_STARTS_WITH.equals(comparator) || UserComparator.HASHED_NOT_STARTS_WITH.equals(comparator);
+            Sha256Hash hashUserValueSub = hashSlice(userCondition, userAttributeValue, userAttributeValueUTF8, comparedTextLengthInt, startsWith, configSalt, contextSalt);
 
-            if (hashUserValueSub.equals(comparisonHashValue)) {
+            if (hashUserValueSub.equalsHex(comparisonHashValue)) {
                 foundEqual = true;
                 break;
             }
@@ -437,8 +445,10 @@ class RolloutEvaluator {
     private boolean evaluateEquals(UserCondition userCondition, String configSalt, String contextSalt, String userValue, boolean negateEquals, boolean hashedEquals) {
         String comparisonValue = ensureComparisonValue(userCondition.getStringValue());
 
-        String valueEquals = hashedEquals ? getSaltedUserValue(userValue, ensureConfigSalt(configSalt), contextSalt) : userValue;
-        return negateEquals != valueEquals.equals(comparisonValue);
+        if (hashedEquals) {
+            return negateEquals != hash(userCondition, userValue, ensureConfigSalt(configSalt), contextSalt).equalsHex(comparisonValue);
+        }
+        return negateEquals != userValue.equals(comparisonValue);
     }
 
     private boolean evaluateDate(UserCondition userCondition, UserComparator comparator, double userDoubleValue) {
@@ -450,16 +460,37 @@ class RolloutEvaluator {
     private boolean evaluateIsOneOf(UserCondition userCondition, String configSalt, String contextSalt, String userValue, boolean negateIsOneOf, boolean sensitiveIsOneOf) {
         String[] comparisonValues = ensureComparisonValue(userCondition.getStringArrayValue());
 
-        String userIsOneOfValue = sensitiveIsOneOf ? getSaltedUserValue(userValue, ensureConfigSalt(configSalt), contextSalt) : userValue;
+        Sha256Hash userIsOneOfHash = sensitiveIsOneOf ? hash(userCondition, userValue, ensureConfigSalt(configSalt), contextSalt) : null;
 
         for (String inValuesElement : comparisonValues) {
-            if (ensureComparisonValue(inValuesElement).equals(userIsOneOfValue)) {
+            String comparisonValue = ensureComparisonValue(inValuesElement);
+            if (sensitiveIsOneOf ? userIsOneOfHash.equalsHex(comparisonValue) : comparisonValue.equals(userValue)) {
                 return !negateIsOneOf;
             }
         }
         return negateIsOneOf;
     }
 
+    /**
+     * The salts are taken encoded from the compiled form of the condition when it has one, see {@link CompiledUserCondition#hash}.
+     */
+    private Sha256Hash hash(UserCondition userCondition, String userValue, String configSalt, String contextSalt) {
+        CompiledUserCondition compiled = userCondition.getCompiled();
+        if (compiled != null) {
+            return compiled.hash(this, userValue, configSalt, contextSalt);
+        }
+        return hashCache.hash(userValue, configSalt, configSalt.getBytes(StandardCharsets.UTF_8), contextSalt, contextSalt.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Sha256Hash hashSlice(UserCondition userCondition, String userValue, byte[] userValueUTF8, int length, boolean startsWith, String configSalt, String contextSalt) {
+        CompiledUserCondition compiled = userCondition.getCompiled();
+        if (compiled != null) {
+            return compiled.hashSlice(this, userValue, userValueUTF8, length, startsWith, configSalt, contextSalt);
+        }
+        return hashCache.hashSlice(userValue, userValueUTF8, length, startsWith,
+                configSalt, configSalt.getBytes(StandardCharsets.UTF_8), contextSalt, contextSalt.getBytes(StandardCharsets.UTF_8));
+    }
+
     private boolean evaluateNumbers(UserCondition userCondition, UserComparator comparator, Double userValue) {
         Double comparisonDoubleValue = ensureComparisonValue(userCondition.getDoubleValue());
         return (UserComparator.NUMBER_EQUALS.equals(comparator) && userValue.equals(comparisonDoubleValue)) ||
@@ -518,11 +549,15 @@ class RolloutEvaluator {
     }
 
 
-    private static String getSaltedUserValue(String userValue, String configJsonSalt, String contextSalt) {
+    SaltedHashCache getHashCache() {
+        return hashCache;
+    }
+
+    static String getSaltedUserValue(String userValue, String configJsonSalt, String contextSalt) {
         return Utils.sha256(userValue + configJsonSalt + contextSalt);
     }
 
-    private static String getSaltedUserValueSlice(byte[] userValueSliceUTF8, String configJsonSalt, String contextSalt) {
+    static String getSaltedUserValueSlice(byte[] userValueSliceUTF8, String configJsonSalt, String contextSalt) {
         byte[] configSaltByteArray = configJsonSalt.getBytes(StandardCharsets.UTF_8);
         byte[] contextSaltByteArray = contextSalt.getBytes(StandardCharsets.UTF_8);
         byte[] concatByteArrays = new byte[userValueSliceUTF8.length + configSaltByteArray.length + contextSaltByteArray.length];
@@ -539,12 +574,16 @@ class RolloutEvaluator {
         if (segmentIndex < segments.length) {
             segment = segments[segmentIndex];
         }
-        evaluateLogger.append(EvaluateLogger.formatSegmentFlagCondition(segmentCondition, segment));
+        if (evaluateLogger.isLoggable()) {
+            evaluateLogger.append(EvaluateLogger.formatSegmentFlagCondition(segmentCondition, segment));
+        } else if (SegmentComparator.fromId(segmentCondition.getSegmentComparator()) == null) {
+            throw new IllegalArgumentException("Segment comparison operator is invalid.");
+        }
 
         if (context.getUser() == null) {
             if (!context.isUserMissing()) {
                 context.setUserMissing(true);
-                logger.warn(3001, ConfigCatLogMessages.getUserObjectMissing(context.getKey()));
+                warn(context, 3001, ConfigCatLogMessages.getUserObjectMissing(context.getKey()));
             }
             throw new RolloutEvaluatorException(USER_OBJECT_IS_MISSING);
         }
@@ -560,7 +599,18 @@ class RolloutEvaluator {
         evaluateLogger.logSegmentEvaluationStart(segmentName);
         boolean result;
         try {
-            boolean segmentRulesResult = evaluateConditions(segment.getSegmentRules(), null, context, configSalt, segmentName, segments, evaluateLogger);
+            boolean segmentRulesResult;
+            EvaluationBatch batch = context.getBatch();
+            Boolean sharedResult = batch != null ? batch.getSegmentResult(segment) : null;
+            if (sharedResult != null) {
+                segmentRulesResult = sharedResult;
+            } else {
+                int warningCountBefore = batch != null ? batch.warningCount() : 0;
+                segmentRulesResult = evaluateConditions(segment.getSegmentRules(), null, context, configSalt, segmentName, segments, evaluateLogger);
+                if (batch != null) {
+                    batch.putSegmentResult(segment, warningCountBefore, segmentRulesResult);
+                }
+            }
 
             SegmentComparator segmentComparator = SegmentComparator.fromId(segmentCondition.getSegmentComparator());
             if (segmentComparator == null) {
@@ -588,7 +638,11 @@ class RolloutEvaluator {
 
 
     private boolean evaluatePrerequisiteFlagCondition(PrerequisiteFlagCondition prerequisiteFlagCondition, EvaluationContext context, EvaluateLogger evaluateLogger) {
-        evaluateLogger.append(EvaluateLogger.formatPrerequisiteFlagCondition(prerequisiteFlagCondition));
+        if (evaluateLogger.isLoggable()) {
+            evaluateLogger.append(EvaluateLogger.formatPrerequisiteFlagCondition(prerequisiteFlagCondition));
+        } else if (PrerequisiteComparator.fromId(prerequisiteFlagCondition.getPrerequisiteComparator()) == null) {
+            throw new IllegalArgumentException("Prerequisite Flag comparison operator is invalid.");
+        }
 
         String prerequisiteFlagKey = prerequisiteFlagCondition.getPrerequisiteFlagKey();
         Setting prerequisiteFlagSetting = context.getSettings().get(prerequisiteFlagKey);
@@ -616,9 +670,16 @@ class RolloutEvaluator {
 
         evaluateLogger.logPrerequisiteFlagEvaluationStart(prerequisiteFlagKey);
 
-        EvaluationContext prerequisiteFlagContext = new EvaluationContext(prerequisiteFlagKey, context.getUser(), visitedKeys, context.getSettings());
-
-        EvaluationResult evaluateResult = evaluateSetting(prerequisiteFlagSetting , evaluateLogger, prerequisiteFlagContext);
+        EvaluationBatch batch = context.getBatch();
+        EvaluationResult evaluateResult = batch != null ? batch.getFlagResult(prerequisiteFlagKey) : null;
+        if (evaluateResult == null) {
+            EvaluationContext prerequisiteFlagContext = new EvaluationContext(prerequisiteFlagKey, context.getUser(), visitedKeys, context.getSettings(), batch);
+            int warningCountBefore = batch != null ? batch.warningCount() : 0;
+            evaluateResult = evaluateSetting(prerequisiteFlagSetting, evaluateLogger, prerequisiteFlagContext);
+            if (batch != null) {
+                batch.putFlagResult(prerequisiteFlagKey, warningCountBefore, evaluateResult);
+            }
+        }
 
         visitedKeys.remove(context.getKey());
 
@@ -656,7 +717,7 @@ class RolloutEvaluator {
             evaluateLogger.logPercentageOptionUserMissing();
             if (!context.isUserMissing()) {
                 context.setUserMissing(true);
-                this.logger.warn(3001, ConfigCatLogMessages.getUserObjectMissing(context.getKey()));
+                warn(context, 3001, ConfigCatLogMessages.getUserObjectMissing(context.getKey()));
             }
             return null;
         }
@@ -666,23 +727,20 @@ class RolloutEvaluator {
             percentageOptionAttributeName = "Identifier";
             percentageOptionAttributeValue = context.getUser().getIdentifier();
         } else {
-            percentageOptionAttributeValue = UserAttributeConverter.userAttributeToString(context.getUser().getAttribute(percentageOptionAttributeName));
+            UserAttribute percentageOptionUserAttribute = context.getUser().attribute(percentageOptionAttributeName);
+            percentageOptionAttributeValue = percentageOptionUserAttribute != null ? percentageOptionUserAttribute.asString() : null;
             if (percentageOptionAttributeValue == null) {
                 evaluateLogger.logPercentageOptionUserAttributeMissing(percentageOptionAttributeName);
                 if (!context.isUserAttributeMissing()) {
                     context.setUserAttributeMissing(true);
-                    this.logger.warn(3003, ConfigCatLogMessages.getUserAttributeMissing(context.getKey(), percentageOptionAttributeName));
+                    warn(context, 3003, ConfigCatLogMessages.getUserAttributeMissing(context.getKey(), percentageOptionAttributeName));
                 }
                 return null;
             }
         }
 
         evaluateLogger.logPercentageOptionEvaluation(percentageOptionAttributeName);
-        String hashCandidate = context.getKey() + percentageOptionAttributeValue;
-        int scale = 100;
-        String hexHash = Utils.sha1(hashCandidate.getBytes(StandardCharsets.UTF_8)).substring(0, 7);
-        int longHash = Integer.parseInt(hexHash, 16);
-        int scaled = longHash % scale;
+        int scaled = PercentageBucket.of(context.getKey(), percentageOptionAttributeValue);
         evaluateLogger.logPercentageOptionEvaluationHash(percentageOptionAttributeName, scaled);
 
         int bucket = 0;
@@ -691,7 +749,7 @@ class RolloutEvaluator {
             bucket += rule.getPercentage();
             if (scaled < bucket) {
                 evaluateLogger.logPercentageEvaluationReturnValue(scaled, i, rule.getPercentage(), rule.getValue());
-                return new EvaluationResult(rule.getValue(), rule.getVariationId(), parentTargetingRule, rule);
+                return rule.getEvaluationResult(parentTargetingRule);
             }
         }
 
@@ -705,7 +763,7 @@ class RolloutEvaluator {
         return value;
     }
 
-    private static String ensureConfigSalt(String configSalt){
+    static String ensureConfigSalt(String configSalt){
         if(configSalt == null){
             throw new IllegalArgumentException("Config JSON salt is missing.");
         }
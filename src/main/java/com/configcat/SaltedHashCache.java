@@ -0,0 +1,159 @@
+package com.configcat;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded cache of the salted SHA-256 hashes computed for the sensitive comparators.
+ * The same user value is usually hashed against many flags and segments sharing the same context salt,
+ * so the hashes are kept per client and dropped when the config salt changes.
+ * <p>
+ * The cache is a table of two-entry sets: the set of an entry is chosen by a 64-bit hash mixed from the (cached)
+ * {@link String#hashCode()} of the user value and the context salt, a lookup doesn't allocate and doesn't take a lock.
+ * A new entry takes the first place of its set and moves the previous one to the second place, evicting the older one.
+ * The entries keep the user value and it's compared on every hit, so colliding values only evict each other, they can't
+ * get each other's hash.
+ */
+final class SaltedHashCache {
+    static final int DEFAULT_MAX_SIZE = 512;
+
+    private static final int FULL = 0;
+    private static final int PREFIX = 1;
+    private static final int SUFFIX = 2;
+
+    private final AtomicReferenceArray<Cached> slots;
+    private final int mask;
+    private final HashCacheMetrics metrics = new HashCacheMetrics();
+    private final Object saltLock = new Object();
+    private volatile String configSalt;
+
+    SaltedHashCache(int maxSize) {
+        // the sets are pairs of slots, so at least one set is needed
+        int capacity = Integer.highestOneBit(Math.max(2, maxSize));
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * Returns the hash of the whole user value, see {@link RolloutEvaluator#getSaltedUserValue(String, String, String)}.
+     * The salts are compared as strings, their UTF-8 encoded forms are only used when the hash is computed.
+     */
+    Sha256Hash hash(String userValue, String configSalt, byte[] configSaltUTF8, String contextSalt, byte[] contextSaltUTF8) {
+        long key = keyOf(userValue, contextSalt, FULL, 0);
+        Sha256Hash hash = get(key, userValue, configSalt, contextSalt, FULL, 0);
+        if (hash != null) {
+            return hash;
+        }
+        hash = Sha256Hash.ofSaltedValue(userValue, configSaltUTF8, contextSaltUTF8);
+        put(new Cached(key, userValue, configSalt, contextSalt, FULL, 0, hash));
+        return hash;
+    }
+
+    /**
+     * Returns the hash of the first or last {@code length} UTF-8 bytes of the user value,
+     * see {@link RolloutEvaluator#getSaltedUserValueSlice(byte[], String, String)}.
+     * The caller must ensure that {@code userValueUTF8} has at least {@code length} bytes.
+     */
+    Sha256Hash hashSlice(String userValue, byte[] userValueUTF8, int length, boolean startsWith,
+                         String configSalt, byte[] configSaltUTF8, String contextSalt, byte[] contextSaltUTF8) {
+        int kind = startsWith ? PREFIX : SUFFIX;
+        long key = keyOf(userValue, contextSalt, kind, length);
+        Sha256Hash hash = get(key, userValue, configSalt, contextSalt, kind, length);
+        if (hash != null) {
+            return hash;
+        }
+        int offset = startsWith ? 0 : userValueUTF8.length - length;
+        hash = Sha256Hash.ofSaltedSlice(userValueUTF8, offset, length, configSaltUTF8, contextSaltUTF8);
+        put(new Cached(key, userValue, configSalt, contextSalt, kind, length, hash));
+        return hash;
+    }
+
+    HashCacheMetrics metrics() {
+        return metrics;
+    }
+
+    void clear() {
+        synchronized (saltLock) {
+            configSalt = null;
+            clearSlots();
+        }
+    }
+
+    private Sha256Hash get(long key, String userValue, String configSalt, String contextSalt, int kind, int length) {
+        if (!configSalt.equals(this.configSalt)) {
+            synchronized (saltLock) {
+                if (!configSalt.equals(this.configSalt)) {
+                    // a new config with a different salt arrived, the cached hashes are no longer valid
+                    this.configSalt = configSalt;
+                    clearSlots();
+                }
+            }
+        }
+        int index = (int) key & mask;
+        Cached cached = slots.get(index);
+        if (!matches(cached, key, userValue, configSalt, contextSalt, kind, length)) {
+            cached = slots.get(index ^ 1);
+            if (!matches(cached, key, userValue, configSalt, contextSalt, kind, length)) {
+                metrics.onMiss();
+                return null;
+            }
+        }
+        metrics.onHit();
+        return cached.hash;
+    }
+
+    private static boolean matches(Cached cached, long key, String userValue, String configSalt, String contextSalt, int kind, int length) {
+        // an entry of another salt can be seen while two configs are evaluated concurrently
+        return cached != null && cached.key == key && cached.kind == kind && cached.length == length
+                && cached.userValue.equals(userValue)
+                && cached.contextSalt.equals(contextSalt)
+                && cached.configSalt.equals(configSalt);
+    }
+
+    private void put(Cached cached) {
+        int index = (int) cached.key & mask;
+        Cached previous = slots.getAndSet(index, cached);
+        if (previous == null || slots.getAndSet(index ^ 1, previous) == null) {
+            metrics.onAdded();
+        }
+    }
+
+    private void clearSlots() {
+        for (int i = 0; i < slots.length(); i++) {
+            if (slots.getAndSet(i, null) != null) {
+                metrics.onRemoved();
+            }
+        }
+    }
+
+    private static long keyOf(String userValue, String contextSalt, int kind, int length) {
+        long h = mix((userValue.hashCode() & 0xffffffffL) | ((long) userValue.length() << 32));
+        return mix(h ^ ((contextSalt.hashCode() & 0xffffffffL) | ((long) (length << 2 | kind) << 32)));
+    }
+
+    // the finalizer of SplitMix64, spreads the bits of the string hashes over the slot index
+    private static long mix(long h) {
+        h = (h ^ (h >>> 30)) * 0xbf58476d1ce4e5b9L;
+        h = (h ^ (h >>> 27)) * 0x94d049bb133111ebL;
+        return h ^ (h >>> 31);
+    }
+
+    private static final class Cached {
+        final long key;
+        final String userValue;
+        final String configSalt;
+        final String contextSalt;
+        final int kind;
+        final int length;
+        final Sha256Hash hash;
+
+        Cached(long key, String userValue, String configSalt, String contextSalt, int kind, int length, Sha256Hash hash) {
+            this.key = key;
+            this.userValue = userValue;
+            this.configSalt = configSalt;
+            this.contextSalt = contextSalt;
+            this.kind = kind;
+            this.length = length;
+            this.hash = hash;
+        }
+    }
+}
@@ -1,6 +1,11 @@
 package com.configcat;
 
+import com.google.gson.TypeAdapter;
 import com.google.gson.annotations.SerializedName;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
 
 /**
  * ConfigCat segment.
@@ -25,4 +30,50 @@ public class Segment {
     public UserCondition[] getSegmentRules() {
         return segmentRules;
     }
+
+    static Segment of(String name, UserCondition[] segmentRules) {
+        Segment segment = new Segment();
+        segment.name = name;
+        segment.segmentRules = segmentRules;
+        return segment;
+    }
+
+    static final TypeAdapter<Segment> ADAPTER = new TypeAdapter<Segment>() {
+        @Override
+        public void write(JsonWriter out, Segment value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            out.name("n");
+            out.value(value.name);
+            out.name("r");
+            JsonAdapters.writeArray(out, UserCondition.ADAPTER, value.segmentRules);
+            out.endObject();
+        }
+
+        @Override
+        public Segment read(JsonReader in) throws IOException {
+            if (JsonAdapters.nextNull(in)) {
+                return null;
+            }
+            Segment segment = new Segment();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "n":
+                        segment.name = JsonAdapters.readString(in);
+                        break;
+                    case "r":
+                        segment.segmentRules = JsonAdapters.readArray(in, UserCondition.ADAPTER, new UserCondition[0]);
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            return segment;
+        }
+    };
 }
\ No newline at end of file
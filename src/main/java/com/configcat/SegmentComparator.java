@@ -26,8 +26,10 @@ public enum SegmentComparator {
         return name;
     }
 
+    private static final SegmentComparator[] VALUES = values();
+
     public static SegmentComparator fromId(int id) {
-        for (SegmentComparator comparator : SegmentComparator.values()) {
+        for (SegmentComparator comparator : VALUES) {
             if (comparator.id == id) {
                 return comparator;
             }
@@ -1,6 +1,11 @@
 package com.configcat;
 
+import com.google.gson.TypeAdapter;
 import com.google.gson.annotations.SerializedName;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
 
 /**
  * Describes a condition that is based on a segment.
@@ -25,4 +30,50 @@ public class SegmentCondition {
     public int getSegmentComparator() {
         return segmentComparator;
     }
+
+    static SegmentCondition of(int segmentIndex, int segmentComparator) {
+        SegmentCondition segmentCondition = new SegmentCondition();
+        segmentCondition.segmentIndex = segmentIndex;
+        segmentCondition.segmentComparator = segmentComparator;
+        return segmentCondition;
+    }
+
+    static final TypeAdapter<SegmentCondition> ADAPTER = new TypeAdapter<SegmentCondition>() {
+        @Override
+        public void write(JsonWriter out, SegmentCondition value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            out.name("s");
+            out.value(value.segmentIndex);
+            out.name("c");
+            out.value(value.segmentComparator);
+            out.endObject();
+        }
+
+        @Override
+        public SegmentCondition read(JsonReader in) throws IOException {
+            if (JsonAdapters.nextNull(in)) {
+                return null;
+            }
+            SegmentCondition segmentCondition = new SegmentCondition();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "s":
+                        segmentCondition.segmentIndex = JsonAdapters.readInt(in, segmentCondition.segmentIndex);
+                        break;
+                    case "c":
+                        segmentCondition.segmentComparator = JsonAdapters.readInt(in, segmentCondition.segmentComparator);
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            return segmentCondition;
+        }
+    };
 }
\ No newline at end of file
@@ -1,6 +1,11 @@
 package com.configcat;
 
+import com.google.gson.TypeAdapter;
 import com.google.gson.annotations.SerializedName;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
 
 /**
  * Feature flag or setting.
@@ -23,8 +28,11 @@ public class Setting {
     private String configSalt;
     private Segment[] segments;
 
+    private transient EvaluationResult defaultResult;
+
     public void setSettingsValue(SettingValue settingValue) {
         this.settingValue = settingValue;
+        this.defaultResult = null;
     }
 
     public void setType(SettingType type) {
@@ -89,4 +97,83 @@ public class Setting {
     public Segment[] getSegments() {
         return segments;
     }
+
+    EvaluationResult getDefaultResult() {
+        EvaluationResult result = defaultResult;
+        if (result == null) {
+            result = new EvaluationResult(settingValue, variationId, null, null);
+            defaultResult = result;
+        }
+        return result;
+    }
+
+    static Setting of(SettingType type, String percentageAttribute, PercentageOption[] percentageOptions, TargetingRule[] targetingRules, SettingValue settingValue, String variationId) {
+        Setting setting = new Setting();
+        setting.type = type;
+        setting.percentageAttribute = percentageAttribute;
+        setting.percentageOptions = percentageOptions;
+        setting.targetingRules = targetingRules;
+        setting.settingValue = settingValue;
+        setting.variationId = variationId;
+        return setting;
+    }
+
+    static final TypeAdapter<Setting> ADAPTER = new TypeAdapter<Setting>() {
+        @Override
+        public void write(JsonWriter out, Setting value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            out.name("t");
+            SettingType.ADAPTER.write(out, value.type);
+            out.name("a");
+            out.value(value.percentageAttribute);
+            out.name("p");
+            JsonAdapters.writeArray(out, PercentageOption.ADAPTER, value.percentageOptions);
+            out.name("r");
+            JsonAdapters.writeArray(out, TargetingRule.ADAPTER, value.targetingRules);
+            out.name("v");
+            SettingValue.ADAPTER.write(out, value.settingValue);
+            out.name("i");
+            out.value(value.variationId);
+            out.endObject();
+        }
+
+        @Override
+        public Setting read(JsonReader in) throws IOException {
+            if (JsonAdapters.nextNull(in)) {
+                return null;
+            }
+            Setting setting = new Setting();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "t":
+                        setting.type = SettingType.ADAPTER.read(in);
+                        break;
+                    case "a":
+                        setting.percentageAttribute = JsonAdapters.readString(in);
+                        break;
+                    case "p":
+                        setting.percentageOptions = JsonAdapters.readArray(in, PercentageOption.ADAPTER, new PercentageOption[0]);
+                        break;
+                    case "r":
+                        setting.targetingRules = JsonAdapters.readArray(in, TargetingRule.ADAPTER, new TargetingRule[0]);
+                        break;
+                    case "v":
+                        setting.settingValue = SettingValue.ADAPTER.read(in);
+                        break;
+                    case "i":
+                        setting.variationId = JsonAdapters.readString(in);
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            return setting;
+        }
+    };
 }
\ No newline at end of file
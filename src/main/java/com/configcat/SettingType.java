@@ -1,6 +1,11 @@
 package com.configcat;
 
+import com.google.gson.TypeAdapter;
 import com.google.gson.annotations.SerializedName;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
 
 /**
  * Setting type.
@@ -28,5 +33,33 @@ public enum SettingType {
      * Decimal number type.
      */
     @SerializedName("3")
-    DOUBLE,
+    DOUBLE;
+
+    static final TypeAdapter<SettingType> ADAPTER = new TypeAdapter<SettingType>() {
+        @Override
+        public void write(JsonWriter out, SettingType value) throws IOException {
+            out.value(value == null ? null : Integer.toString(value.ordinal()));
+        }
+
+        @Override
+        public SettingType read(JsonReader in) throws IOException {
+            String value = JsonAdapters.readString(in);
+            if (value == null) {
+                return null;
+            }
+            switch (value) {
+                case "0":
+                    return BOOLEAN;
+                case "1":
+                    return STRING;
+                case "2":
+                    return INT;
+                case "3":
+                    return DOUBLE;
+                default:
+                    // unknown setting type, the same as the reflective binding does
+                    return null;
+            }
+        }
+    };
 }
@@ -1,7 +1,11 @@
 package com.configcat;
 
+import com.google.gson.TypeAdapter;
 import com.google.gson.annotations.SerializedName;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
 
+import java.io.IOException;
 import java.util.Objects;
 
 /**
@@ -82,4 +86,62 @@ public class SettingValue {
             return stringValue;
         }
     }
+
+    static SettingValue of(Boolean booleanValue, String stringValue, Integer integerValue, Double doubleValue) {
+        SettingValue settingValue = new SettingValue();
+        settingValue.booleanValue = booleanValue;
+        settingValue.stringValue = stringValue;
+        settingValue.integerValue = integerValue;
+        settingValue.doubleValue = doubleValue;
+        return settingValue;
+    }
+
+    static final TypeAdapter<SettingValue> ADAPTER = new TypeAdapter<SettingValue>() {
+        @Override
+        public void write(JsonWriter out, SettingValue value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            out.name("b");
+            out.value(value.booleanValue);
+            out.name("s");
+            out.value(value.stringValue);
+            out.name("i");
+            out.value(value.integerValue);
+            out.name("d");
+            out.value(value.doubleValue);
+            out.endObject();
+        }
+
+        @Override
+        public SettingValue read(JsonReader in) throws IOException {
+            if (JsonAdapters.nextNull(in)) {
+                return null;
+            }
+            SettingValue settingValue = new SettingValue();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "b":
+                        settingValue.booleanValue = JsonAdapters.readBoolean(in);
+                        break;
+                    case "s":
+                        settingValue.stringValue = JsonAdapters.readString(in);
+                        break;
+                    case "i":
+                        settingValue.integerValue = JsonAdapters.readInteger(in);
+                        break;
+                    case "d":
+                        settingValue.doubleValue = JsonAdapters.readDouble(in);
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            return settingValue;
+        }
+    };
 }
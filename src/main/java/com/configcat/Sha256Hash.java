@@ -0,0 +1,178 @@
+package com.configcat;
+
+import java.nio.charset.StandardCharsets;
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * A SHA-256 digest stored as four longs, so hashed comparison values can be decoded once when the config is loaded
+ * and compared against the user side digests without hex encoding.
+ */
+final class Sha256Hash {
+    private static final int LENGTH = 32;
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private static final ThreadLocal<DigestState> DIGEST = new ThreadLocal<DigestState>() {
+        @Override
+        protected DigestState initialValue() {
+            return new DigestState();
+        }
+    };
+
+    private final long word0;
+    private final long word1;
+    private final long word2;
+    private final long word3;
+
+    private Sha256Hash(long word0, long word1, long word2, long word3) {
+        this.word0 = word0;
+        this.word1 = word1;
+        this.word2 = word2;
+        this.word3 = word3;
+    }
+
+    /**
+     * Same as {@link RolloutEvaluator#getSaltedUserValue(String, String, String)}, without the hex encoding.
+     * The salts are passed UTF-8 encoded, they are encoded once when the config is loaded.
+     */
+    static Sha256Hash ofSaltedValue(String userValue, byte[] configSaltUTF8, byte[] contextSaltUTF8) {
+        byte[] userValueUTF8 = userValue.getBytes(StandardCharsets.UTF_8);
+        return ofSaltedSlice(userValueUTF8, 0, userValueUTF8.length, configSaltUTF8, contextSaltUTF8);
+    }
+
+    /**
+     * Same as {@link RolloutEvaluator#getSaltedUserValueSlice(byte[], String, String)} of the given range, without copying the slice.
+     */
+    static Sha256Hash ofSaltedSlice(byte[] userValueUTF8, int offset, int length, byte[] configSaltUTF8, byte[] contextSaltUTF8) {
+        DigestState state = DIGEST.get();
+        MessageDigest digest = state.digest;
+        digest.update(userValueUTF8, offset, length);
+        digest.update(configSaltUTF8);
+        digest.update(contextSaltUTF8);
+        try {
+            digest.digest(state.buffer, 0, LENGTH);
+        } catch (DigestException e) {
+            throw new IllegalStateException(e);
+        }
+        return of(state.buffer);
+    }
+
+    /**
+     * Decodes a lowercase hex encoded digest as produced by {@link Utils#sha256(String)}.
+     * Returns {@code null} for any other value, those can never be equal to a computed digest.
+     */
+    static Sha256Hash fromHex(String hex) {
+        if (hex == null || hex.length() != LENGTH * 2) {
+            return null;
+        }
+        long[] words = new long[4];
+        for (int i = 0; i < hex.length(); i++) {
+            int nibble = nibble(hex.charAt(i));
+            if (nibble < 0) {
+                return null;
+            }
+            words[i / 16] = (words[i / 16] << 4) | nibble;
+        }
+        return new Sha256Hash(words[0], words[1], words[2], words[3]);
+    }
+
+    /**
+     * Same as {@code equals(fromHex(hex))}, the hex value is decoded word by word without allocating.
+     */
+    boolean equalsHex(String hex) {
+        if (hex == null || hex.length() != LENGTH * 2) {
+            return false;
+        }
+        long word = 0;
+        for (int i = 0; i < hex.length(); i++) {
+            int nibble = nibble(hex.charAt(i));
+            if (nibble < 0) {
+                return false;
+            }
+            word = (word << 4) | nibble;
+            if (i % 16 == 15) {
+                if (word != word(i / 16)) {
+                    return false;
+                }
+                word = 0;
+            }
+        }
+        return true;
+    }
+
+    private static int nibble(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        } else if (c >= 'a' && c <= 'f') {
+            return c - 'a' + 10;
+        }
+        return -1;
+    }
+
+    private long word(int index) {
+        switch (index) {
+            case 0:
+                return word0;
+            case 1:
+                return word1;
+            case 2:
+                return word2;
+            default:
+                return word3;
+        }
+    }
+
+    private static Sha256Hash of(byte[] bytes) {
+        return new Sha256Hash(readLong(bytes, 0), readLong(bytes, 8), readLong(bytes, 16), readLong(bytes, 24));
+    }
+
+    private static long readLong(byte[] bytes, int offset) {
+        long result = 0;
+        for (int i = offset; i < offset + 8; i++) {
+            result = (result << 8) | (bytes[i] & 0xFF);
+        }
+        return result;
+    }
+
+    String toHex() {
+        char[] chars = new char[LENGTH * 2];
+        long[] words = {word0, word1, word2, word3};
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = HEX_DIGITS[(int) (words[i / 16] >>> (60 - (i % 16) * 4)) & 0xF];
+        }
+        return new String(chars);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Sha256Hash)) return false;
+        Sha256Hash other = (Sha256Hash) o;
+        return word0 == other.word0 && word1 == other.word1 && word2 == other.word2 && word3 == other.word3;
+    }
+
+    @Override
+    public int hashCode() {
+        // the digest is uniformly distributed already
+        return (int) word0;
+    }
+
+    @Override
+    public String toString() {
+        return toHex();
+    }
+
+    private static final class DigestState {
+        final MessageDigest digest;
+        final byte[] buffer = new byte[LENGTH];
+
+        DigestState() {
+            try {
+                digest = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
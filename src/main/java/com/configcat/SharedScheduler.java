@@ -0,0 +1,80 @@
+package com.configcat;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The process-wide executors shared by all {@link ConfigCatClient} instances which don't have their own scheduler
+ * (see {@link ConfigCatClient.Options#scheduler(ScheduledExecutorService)}). The scheduler runs the polling and the init
+ * timeouts, the cache writes and the config processing run on the I/O executor. Both have a fixed maximum number of
+ * daemon threads, so the thread count doesn't grow with the number of clients.
+ * <p>
+ * The blocking HTTP requests run on a separate HTTP executor which starts a thread per in-flight request, so slow or
+ * hanging requests can't occupy the I/O threads and delay the timers and the polls of other clients. Its threads only
+ * live while requests are in flight (the concurrent requests of the same config are shared, see {@link FetchCoordinator}).
+ * Idle threads are stopped, the executors themselves are never shut down.
+ */
+final class SharedScheduler {
+    static final int SCHEDULER_THREAD_COUNT = 1;
+    static final int IO_THREAD_COUNT = 4;
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    private SharedScheduler() { /* prevent from instantiation*/ }
+
+    static ScheduledExecutorService get() {
+        return Holder.SCHEDULER;
+    }
+
+    static ExecutorService io() {
+        return Holder.IO;
+    }
+
+    static ExecutorService http() {
+        return Holder.HTTP;
+    }
+
+    private static final class Holder {
+        static final ScheduledExecutorService SCHEDULER = createScheduler();
+        static final ExecutorService IO = createIo();
+        static final ExecutorService HTTP = createHttp();
+    }
+
+    private static ScheduledExecutorService createScheduler() {
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(SCHEDULER_THREAD_COUNT, threadFactory("configcat-scheduler-"));
+        executor.setRemoveOnCancelPolicy(true);
+        executor.setKeepAliveTime(KEEP_ALIVE_SECONDS, TimeUnit.SECONDS);
+        executor.allowCoreThreadTimeOut(true);
+        // hides the configuration of the pool from the code it is passed to
+        return Executors.unconfigurableScheduledExecutorService(executor);
+    }
+
+    private static ExecutorService createIo() {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(IO_THREAD_COUNT, IO_THREAD_COUNT,
+                KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), threadFactory("configcat-io-"));
+        executor.allowCoreThreadTimeOut(true);
+        return Executors.unconfigurableExecutorService(executor);
+    }
+
+    private static ExecutorService createHttp() {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(0, Integer.MAX_VALUE,
+                KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new SynchronousQueue<Runnable>(), threadFactory("configcat-http-"));
+        return Executors.unconfigurableExecutorService(executor);
+    }
+
+    private static ThreadFactory threadFactory(String namePrefix) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, namePrefix + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -1,6 +1,11 @@
 package com.configcat;
 
+import com.google.gson.TypeAdapter;
 import com.google.gson.annotations.SerializedName;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
 
 /**
  * Describes a targeting rule.
@@ -14,6 +19,8 @@ public class TargetingRule {
     @SerializedName(value = "s")
     private SimpleValue simpleValue;
 
+    private transient EvaluationResult simpleValueResult;
+
     /**
      * The list of conditions that are combined with the AND logical operator.
      * Items can be one of the following types: {@link UserCondition}, {@link SegmentCondition} or {@link PrerequisiteFlagCondition}.
@@ -35,6 +42,67 @@ public class TargetingRule {
     public SimpleValue getSimpleValue() {
         return simpleValue;
     }
+
+    EvaluationResult getSimpleValueResult() {
+        EvaluationResult result = simpleValueResult;
+        if (result == null) {
+            result = new EvaluationResult(simpleValue.getValue(), simpleValue.getVariationId(), this, null);
+            simpleValueResult = result;
+        }
+        return result;
+    }
+
+    static TargetingRule of(Condition[] conditions, PercentageOption[] percentageOptions, SimpleValue simpleValue) {
+        TargetingRule targetingRule = new TargetingRule();
+        targetingRule.conditions = conditions;
+        targetingRule.percentageOptions = percentageOptions;
+        targetingRule.simpleValue = simpleValue;
+        return targetingRule;
+    }
+
+    static final TypeAdapter<TargetingRule> ADAPTER = new TypeAdapter<TargetingRule>() {
+        @Override
+        public void write(JsonWriter out, TargetingRule value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            out.name("c");
+            JsonAdapters.writeArray(out, Condition.ADAPTER, value.conditions);
+            out.name("p");
+            JsonAdapters.writeArray(out, PercentageOption.ADAPTER, value.percentageOptions);
+            out.name("s");
+            SimpleValue.ADAPTER.write(out, value.simpleValue);
+            out.endObject();
+        }
+
+        @Override
+        public TargetingRule read(JsonReader in) throws IOException {
+            if (JsonAdapters.nextNull(in)) {
+                return null;
+            }
+            TargetingRule targetingRule = new TargetingRule();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "c":
+                        targetingRule.conditions = JsonAdapters.readArray(in, Condition.ADAPTER, new Condition[0]);
+                        break;
+                    case "p":
+                        targetingRule.percentageOptions = JsonAdapters.readArray(in, PercentageOption.ADAPTER, new PercentageOption[0]);
+                        break;
+                    case "s":
+                        targetingRule.simpleValue = SimpleValue.ADAPTER.read(in);
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            return targetingRule;
+        }
+    };
 }
 
 class SimpleValue {
@@ -50,4 +118,50 @@ class SimpleValue {
     public String getVariationId() {
         return variationId;
     }
+
+    static SimpleValue of(SettingValue value, String variationId) {
+        SimpleValue simpleValue = new SimpleValue();
+        simpleValue.value = value;
+        simpleValue.variationId = variationId;
+        return simpleValue;
+    }
+
+    static final TypeAdapter<SimpleValue> ADAPTER = new TypeAdapter<SimpleValue>() {
+        @Override
+        public void write(JsonWriter out, SimpleValue value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            out.name("v");
+            SettingValue.ADAPTER.write(out, value.value);
+            out.name("i");
+            out.value(value.variationId);
+            out.endObject();
+        }
+
+        @Override
+        public SimpleValue read(JsonReader in) throws IOException {
+            if (JsonAdapters.nextNull(in)) {
+                return null;
+            }
+            SimpleValue simpleValue = new SimpleValue();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "v":
+                        simpleValue.value = SettingValue.ADAPTER.read(in);
+                        break;
+                    case "i":
+                        simpleValue.variationId = JsonAdapters.readString(in);
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            return simpleValue;
+        }
+    };
 }
\ No newline at end of file
@@ -1,6 +1,9 @@
 package com.configcat;
 
+import java.util.Date;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
 
@@ -16,28 +19,40 @@ public class User {
     private static final String EMAIL = "Email";
     private static final String COUNTRY = "Country";
     private final String identifier;
-    private final Map<String, Object> attributes;
+    // sorted by name, for the deterministic iteration order
+    private final UserAttribute[] attributes;
+    private final Map<String, UserAttribute> attributeIndex;
+    private String fingerprint;
 
     private User(String identifier, String email, String country, Map<String, Object> custom) {
         this.identifier = identifier == null ? "" : identifier;
-        this.attributes = new TreeMap<>();
-        this.attributes.put(IDENTIFIER_KEY, identifier);
+        Map<String, Object> sortedAttributes = new TreeMap<>();
+        sortedAttributes.put(IDENTIFIER_KEY, identifier);
 
         if (country != null && !country.isEmpty()) {
-            this.attributes.put(COUNTRY, country);
+            sortedAttributes.put(COUNTRY, country);
         }
 
         if (email != null && !email.isEmpty()) {
-            this.attributes.put(EMAIL, email);
+            sortedAttributes.put(EMAIL, email);
         }
 
         if (custom != null) {
             for (Map.Entry<String, Object> entry : custom.entrySet()) {
                 if (!entry.getKey().equals(IDENTIFIER_KEY) && !entry.getKey().equals(COUNTRY) && !entry.getKey().equals(EMAIL)) {
-                    this.attributes.put(entry.getKey(), entry.getValue());
+                    sortedAttributes.put(entry.getKey(), entry.getValue());
                 }
             }
         }
+
+        this.attributes = new UserAttribute[sortedAttributes.size()];
+        this.attributeIndex = new HashMap<>(sortedAttributes.size() * 2);
+        int i = 0;
+        for (Map.Entry<String, Object> entry : sortedAttributes.entrySet()) {
+            UserAttribute attribute = new UserAttribute(entry.getKey(), entry.getValue());
+            this.attributes[i++] = attribute;
+            this.attributeIndex.put(entry.getKey(), attribute);
+        }
     }
 
     public String getIdentifier() {
@@ -57,24 +72,66 @@ public class User {
         if (key == null)
             throw new IllegalArgumentException("key is null or empty");
 
-        return this.attributes.get(key);
+        UserAttribute attribute = this.attributeIndex.get(key);
+        return attribute != null ? attribute.value() : null;
+    }
+
+    /**
+     * Returns the attribute with its cached conversions, or {@code null} when the user doesn't have the attribute.
+     */
+    UserAttribute attribute(String key) {
+        return this.attributeIndex.get(key);
+    }
+
+    /**
+     * Returns a string which is equal for users having the same attributes with the same types and values,
+     * used as the user part of the {@link EvaluationCache} key.
+     */
+    String fingerprint() {
+        String result = fingerprint;
+        if (result == null) {
+            StringBuilder builder = new StringBuilder();
+            for (UserAttribute attribute : attributes) {
+                appendLengthPrefixed(builder, attribute.name());
+                Object value = attribute.value();
+                if (value == null) {
+                    builder.append('-');
+                    continue;
+                }
+                appendLengthPrefixed(builder, value.getClass().getName());
+                if (value instanceof String[] || value instanceof List) {
+                    appendLengthPrefixed(builder, Utils.gson.toJson(value));
+                } else if (value instanceof Date) {
+                    appendLengthPrefixed(builder, String.valueOf(((Date) value).getTime()));
+                } else {
+                    appendLengthPrefixed(builder, value.toString());
+                }
+            }
+            result = builder.toString();
+            fingerprint = result;
+        }
+        return result;
+    }
+
+    private static void appendLengthPrefixed(StringBuilder builder, String value) {
+        builder.append(value.length()).append(':').append(value);
     }
 
     @Override
     public String toString() {
         LinkedHashMap<String, Object> tmp = new LinkedHashMap<>();
-        if (attributes.containsKey(IDENTIFIER_KEY)) {
-            tmp.put(IDENTIFIER_KEY, attributes.get(IDENTIFIER_KEY));
+        if (attributeIndex.containsKey(IDENTIFIER_KEY)) {
+            tmp.put(IDENTIFIER_KEY, getAttribute(IDENTIFIER_KEY));
         }
-        if (attributes.containsKey(EMAIL)) {
-            tmp.put(EMAIL, attributes.get(EMAIL));
+        if (attributeIndex.containsKey(EMAIL)) {
+            tmp.put(EMAIL, getAttribute(EMAIL));
         }
-        if (attributes.containsKey(COUNTRY)) {
-            tmp.put(COUNTRY, attributes.get(COUNTRY));
+        if (attributeIndex.containsKey(COUNTRY)) {
+            tmp.put(COUNTRY, getAttribute(COUNTRY));
         }
-        for (Map.Entry<String, Object> entry : attributes.entrySet()) {
-            if (!entry.getKey().equals(IDENTIFIER_KEY) && !entry.getKey().equals(COUNTRY) && !entry.getKey().equals(EMAIL)) {
-                tmp.put(entry.getKey(), entry.getValue());
+        for (UserAttribute attribute : attributes) {
+            if (!attribute.name().equals(IDENTIFIER_KEY) && !attribute.name().equals(COUNTRY) && !attribute.name().equals(EMAIL)) {
+                tmp.put(attribute.name(), attribute.value());
             }
         }
         return Utils.gson.toJson(tmp);
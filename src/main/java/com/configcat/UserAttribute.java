@@ -0,0 +1,150 @@
+package com.configcat;
+
+import de.skuzzle.semantic.Version;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * An attribute of a {@link User} with the conversions needed by the comparators cached on first use,
+ * so an attribute is converted at most once no matter how many conditions reference it.
+ * The cached forms are immutable results of the same conversions the evaluator used to do on each condition,
+ * a failed conversion is cached as well.
+ */
+final class UserAttribute {
+    private static final Object INVALID = new Object();
+
+    private final String name;
+    private final Object value;
+    private volatile String stringValue;
+    private volatile Object doubleValue;
+    private volatile Object unixSecondsValue;
+    private volatile Object versionValue;
+    private volatile Object stringArrayValue;
+
+    UserAttribute(String name, Object value) {
+        this.name = name;
+        this.value = value;
+    }
+
+    String name() {
+        return name;
+    }
+
+    Object value() {
+        return value;
+    }
+
+    /**
+     * @return the value converted with {@link UserAttributeConverter#userAttributeToString(Object)}.
+     */
+    String asString() {
+        if (value instanceof String) {
+            return (String) value;
+        }
+        String result = stringValue;
+        if (result == null && value != null) {
+            result = UserAttributeConverter.userAttributeToString(value);
+            stringValue = result;
+        }
+        return result;
+    }
+
+    /**
+     * @return the value as a decimal number, or {@code null} when it's not a valid number.
+     */
+    Double asDouble() {
+        if (value instanceof Double) {
+            return (Double) value;
+        }
+        Object result = doubleValue;
+        if (result == null) {
+            try {
+                result = UserAttributeConverter.userAttributeToDouble(value);
+            } catch (NumberFormatException e) {
+                result = INVALID;
+            }
+            doubleValue = result;
+        }
+        return result != INVALID ? (Double) result : null;
+    }
+
+    /**
+     * @return the value as seconds elapsed since Unix epoch, or {@code null} when it's not a valid timestamp.
+     */
+    Double asUnixSeconds() {
+        Object result = unixSecondsValue;
+        if (result == null) {
+            try {
+                if (value instanceof Date) {
+                    result = DateTimeUtils.getUnixSeconds((Date) value);
+                } else {
+                    result = UserAttributeConverter.userAttributeToDouble(value);
+                }
+            } catch (Exception e) {
+                result = INVALID;
+            }
+            if (result == null) {
+                result = INVALID;
+            }
+            unixSecondsValue = result;
+        }
+        return result != INVALID ? (Double) result : null;
+    }
+
+    /**
+     * @return the value as a semantic version, or {@code null} when it's not a string containing a valid version.
+     */
+    Version asVersion() {
+        Object result = versionValue;
+        if (result == null) {
+            result = INVALID;
+            if (value instanceof String) {
+                try {
+                    result = Version.parseVersion(((String) value).trim(), true);
+                } catch (Version.VersionFormatException e) {
+                    // Version parse failed, the attribute is invalid
+                }
+            }
+            versionValue = result;
+        }
+        return result != INVALID ? (Version) result : null;
+    }
+
+    /**
+     * @return the value as a string array, or {@code null} when it's not a string array, a list of strings
+     * or a JSON string array, or it contains {@code null}.
+     */
+    @SuppressWarnings("unchecked")
+    String[] asStringArray() {
+        Object result = stringArrayValue;
+        if (result == null) {
+            String[] array = null;
+            try {
+                if (value instanceof String[]) {
+                    array = (String[]) value;
+                } else if (value instanceof List) {
+                    List<String> list = (List<String>) value;
+                    array = list.toArray(new String[0]);
+                } else if (value instanceof String) {
+                    array = Utils.gson.fromJson((String) value, String[].class);
+                }
+            } catch (Exception exception) {
+                // String array parse failed, the attribute is invalid
+                array = null;
+            }
+            result = array != null && !containsNull(array) ? array : INVALID;
+            stringArrayValue = result;
+        }
+        return result != INVALID ? (String[]) result : null;
+    }
+
+    private static boolean containsNull(String[] array) {
+        for (String element : array) {
+            if (element == null) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -162,8 +162,10 @@ public enum UserComparator {
         return name;
     }
 
+    private static final UserComparator[] VALUES = values();
+
     public static UserComparator fromId(int id) {
-        for (UserComparator comparator : UserComparator.values()) {
+        for (UserComparator comparator : VALUES) {
             if (comparator.id == id) {
                 return comparator;
             }
@@ -1,6 +1,11 @@
 package com.configcat;
 
+import com.google.gson.TypeAdapter;
 import com.google.gson.annotations.SerializedName;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
 
 /**
  * Describes a condition that is based on a User Object attribute.
@@ -18,6 +23,8 @@ public class UserCondition implements ConditionAccessor {
     @SerializedName("l")
     private String[] stringArrayValue;
 
+    private transient CompiledUserCondition compiled;
+
     /**
      * The User Object attribute that the condition is based on. Can be "Identifier", "Email", "Country" or any custom attribute.
      */
@@ -53,6 +60,14 @@ public class UserCondition implements ConditionAccessor {
         return stringArrayValue;
     }
 
+    CompiledUserCondition getCompiled() {
+        return compiled;
+    }
+
+    void compile(String configSalt, byte[] configSaltUTF8, String contextSalt) {
+        this.compiled = CompiledUserCondition.compile(this, configSalt, configSaltUTF8, contextSalt);
+    }
+
     @Override
     public UserCondition getUserCondition() {
         return this;
@@ -67,4 +82,68 @@ public class UserCondition implements ConditionAccessor {
     public PrerequisiteFlagCondition getPrerequisiteFlagCondition() {
         return null;
     }
+
+    static UserCondition of(String comparisonAttribute, int comparator, String stringValue, Double doubleValue, String[] stringArrayValue) {
+        UserCondition userCondition = new UserCondition();
+        userCondition.comparisonAttribute = comparisonAttribute;
+        userCondition.comparator = comparator;
+        userCondition.stringValue = stringValue;
+        userCondition.doubleValue = doubleValue;
+        userCondition.stringArrayValue = stringArrayValue;
+        return userCondition;
+    }
+
+    static final TypeAdapter<UserCondition> ADAPTER = new TypeAdapter<UserCondition>() {
+        @Override
+        public void write(JsonWriter out, UserCondition value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            out.name("a");
+            out.value(value.comparisonAttribute);
+            out.name("c");
+            out.value(value.comparator);
+            out.name("s");
+            out.value(value.stringValue);
+            out.name("d");
+            out.value(value.doubleValue);
+            out.name("l");
+            JsonAdapters.writeStringArray(out, value.stringArrayValue);
+            out.endObject();
+        }
+
+        @Override
+        public UserCondition read(JsonReader in) throws IOException {
+            if (JsonAdapters.nextNull(in)) {
+                return null;
+            }
+            UserCondition userCondition = new UserCondition();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "a":
+                        userCondition.comparisonAttribute = JsonAdapters.readString(in);
+                        break;
+                    case "c":
+                        userCondition.comparator = JsonAdapters.readInt(in, userCondition.comparator);
+                        break;
+                    case "s":
+                        userCondition.stringValue = JsonAdapters.readString(in);
+                        break;
+                    case "d":
+                        userCondition.doubleValue = JsonAdapters.readDouble(in);
+                        break;
+                    case "l":
+                        userCondition.stringArrayValue = JsonAdapters.readStringArray(in);
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            return userCondition;
+        }
+    };
 }
@@ -5,10 +5,13 @@ import com.google.gson.GsonBuilder;
 import org.apache.commons.codec.binary.Hex;
 import org.apache.commons.codec.digest.DigestUtils;
 
+import java.io.Reader;
+import java.util.Map;
+
 final class Utils {
     private Utils() { /* prevent from instantiation*/ }
 
-    static final Gson gson = new GsonBuilder().disableHtmlEscaping().create();
+    static final Gson gson = JsonAdapters.registerConfigModel(new GsonBuilder().disableHtmlEscaping()).create();
 
     public static Config deserializeConfig(String json) {
         if (json == null || json.isEmpty()) {
@@ -19,19 +22,72 @@ final class Utils {
         if (config == null) {
             throw new IllegalArgumentException("Invalid config JSON content: " + json);
         }
+        return prepareConfig(config);
+    }
+
+    /**
+     * Deserializes the config JSON directly from a stream, without materializing it as a {@link String} first.
+     */
+    static Config deserializeConfig(Reader reader) {
+        Config config = Utils.gson.fromJson(reader, Config.class);
+
+        if (config == null) {
+            throw new IllegalArgumentException("Invalid config JSON content.");
+        }
+        return prepareConfig(config);
+    }
 
+    /**
+     * Sets the config level values on the settings and compiles their conditions.
+     */
+    static Config prepareConfig(Config config) {
         String salt = config.getPreferences() != null ? config.getPreferences().getSalt() : null;
         Segment[] segments = config.getSegments();
         if (segments == null) {
             segments = new Segment[]{};
         }
-        for (Setting setting : config.getEntries().values()) {
+        byte[] saltUTF8 = config.getSaltUTF8();
+        for (Map.Entry<String, Setting> entry : config.getEntries().entrySet()) {
+            Setting setting = entry.getValue();
             setting.setConfigSalt(salt);
             setting.setSegments(segments);
+            compileConditions(setting, salt, saltUTF8, entry.getKey());
+        }
+        for (Segment segment : segments) {
+            if (segment != null && segment.getSegmentRules() != null) {
+                compileUserConditions(segment.getSegmentRules(), salt, saltUTF8, segment.getName());
+            }
         }
         return config;
     }
 
+    /**
+     * The conditions of a setting are evaluated with the setting key as context salt, the ones of a segment with the segment name.
+     */
+    private static void compileConditions(Setting setting, String configSalt, byte[] configSaltUTF8, String contextSalt) {
+        if (setting == null || setting.getTargetingRules() == null) {
+            return;
+        }
+        for (TargetingRule rule : setting.getTargetingRules()) {
+            if (rule == null) {
+                continue;
+            }
+            for (Condition condition : rule.getConditions()) {
+                if (condition != null && condition.getUserCondition() != null) {
+                    condition.getUserCondition().compile(configSalt, configSaltUTF8, contextSalt);
+                }
+            }
+        }
+    }
+
+    private static void compileUserConditions(UserCondition[] userConditions, String configSalt, byte[] configSaltUTF8, String contextSalt) {
+        for (UserCondition userCondition : userConditions) {
+            if (userCondition != null) {
+                userCondition.compile(configSalt, configSaltUTF8, contextSalt);
+            }
+        }
+    }
+
     public static String sha256(byte[] byteArray) {
         return new String(Hex.encodeHex(DigestUtils.sha256(byteArray)));
     }
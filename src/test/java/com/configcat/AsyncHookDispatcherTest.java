@@ -0,0 +1,200 @@
+package com.configcat;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class AsyncHookDispatcherTest {
+    private final ConfigCatLogger logger = new ConfigCatLogger(LoggerFactory.getLogger(AsyncHookDispatcherTest.class));
+
+    @AfterEach
+    void tearDown() throws IOException {
+        ConfigCatClient.closeAll();
+    }
+
+    @Test
+    void dropNewest() {
+        ManualExecutor executor = new ManualExecutor();
+        AsyncHookDispatcher dispatcher = new AsyncHookDispatcher(2, HookOverflowPolicy.DROP_NEWEST, executor, logger);
+        List<Integer> delivered = new ArrayList<>();
+
+        for (int i = 0; i < 5; i++) {
+            int event = i;
+            dispatcher.dispatch(() -> delivered.add(event));
+        }
+        assertEquals(3, dispatcher.droppedCount());
+        assertEquals(2, dispatcher.queuedCount());
+
+        executor.runAll();
+        assertEquals(Arrays.asList(0, 1), delivered);
+        assertEquals(0, dispatcher.queuedCount());
+    }
+
+    @Test
+    void dropOldest() {
+        ManualExecutor executor = new ManualExecutor();
+        AsyncHookDispatcher dispatcher = new AsyncHookDispatcher(2, HookOverflowPolicy.DROP_OLDEST, executor, logger);
+        List<Integer> delivered = new ArrayList<>();
+
+        for (int i = 0; i < 5; i++) {
+            int event = i;
+            dispatcher.dispatch(() -> delivered.add(event));
+        }
+        assertEquals(3, dispatcher.droppedCount());
+
+        executor.runAll();
+        assertEquals(Arrays.asList(3, 4), delivered);
+    }
+
+    @Test
+    void blockWaitsForRoom() throws Exception {
+        ManualExecutor executor = new ManualExecutor();
+        AsyncHookDispatcher dispatcher = new AsyncHookDispatcher(1, HookOverflowPolicy.BLOCK, executor, logger);
+        List<Integer> delivered = Collections.synchronizedList(new ArrayList<>());
+        dispatcher.dispatch(() -> delivered.add(0));
+
+        CountDownLatch dispatched = new CountDownLatch(1);
+        Thread producer = new Thread(() -> {
+            dispatcher.dispatch(() -> delivered.add(1));
+            dispatched.countDown();
+        });
+        producer.start();
+        assertFalse(dispatched.await(200, TimeUnit.MILLISECONDS));
+
+        executor.runAll();
+        assertTrue(dispatched.await(2, TimeUnit.SECONDS));
+        executor.runAll();
+        assertEquals(Arrays.asList(0, 1), delivered);
+        assertEquals(0, dispatcher.droppedCount());
+    }
+
+    @Test
+    void blockDropsOnNonBlockingThread() {
+        ManualExecutor executor = new ManualExecutor();
+        AsyncHookDispatcher dispatcher = new AsyncHookDispatcher(1, HookOverflowPolicy.BLOCK, executor, logger);
+        List<Integer> delivered = new ArrayList<>();
+        dispatcher.dispatch(() -> delivered.add(0));
+
+        // e.g. an event raised under the config service lock, the drain may need the same lock
+        AsyncHookDispatcher.enterNonBlocking();
+        try {
+            dispatcher.dispatch(() -> delivered.add(1));
+        } finally {
+            AsyncHookDispatcher.exitNonBlocking();
+        }
+        assertEquals(1, dispatcher.droppedCount());
+
+        // the tasks of the SDK's executor don't wait either
+        AsyncHookDispatcher.nonBlocking(Runnable::run).execute(() -> dispatcher.dispatch(() -> delivered.add(2)));
+        assertEquals(2, dispatcher.droppedCount());
+
+        executor.runAll();
+        assertEquals(Collections.singletonList(0), delivered);
+    }
+
+    @Test
+    void dropOldestKeepsTheNewestEventsUnderContention() throws Exception {
+        ManualExecutor executor = new ManualExecutor();
+        AsyncHookDispatcher dispatcher = new AsyncHookDispatcher(10, HookOverflowPolicy.DROP_OLDEST, executor, logger);
+        int threadCount = 4;
+        int perThread = 1000;
+        CountDownLatch done = new CountDownLatch(threadCount);
+        for (int t = 0; t < threadCount; t++) {
+            new Thread(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    dispatcher.dispatch(() -> {
+                    });
+                }
+                done.countDown();
+            }).start();
+        }
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+
+        assertEquals(10, dispatcher.queuedCount());
+        assertEquals(threadCount * perThread - 10, dispatcher.droppedCount());
+    }
+
+    @Test
+    void failingCallbackIsLogged() {
+        ManualExecutor executor = new ManualExecutor();
+        Logger mockLogger = mock(Logger.class);
+        AsyncHookDispatcher dispatcher = new AsyncHookDispatcher(10, HookOverflowPolicy.DROP_NEWEST, executor, new ConfigCatLogger(mockLogger));
+        List<Integer> delivered = new ArrayList<>();
+
+        dispatcher.dispatch(() -> {
+            throw new IllegalStateException("callback failed");
+        });
+        dispatcher.dispatch(() -> delivered.add(1));
+        executor.runAll();
+
+        assertEquals(Collections.singletonList(1), delivered);
+        verify(mockLogger).warn(eq("[{}] {}"), eq(3006), argThat((Object message) -> message.toString().contains("callback failed")));
+    }
+
+    @Test
+    void slowCallbackDoesNotBlockEvaluation() throws Exception {
+        Map<String, Object> map = new HashMap<>();
+        map.put("enabledFeature", true);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch delivered = new CountDownLatch(2);
+
+        ConfigCatClient client = ConfigCatClient.get(Helpers.SDK_KEY, options -> {
+            options.flagOverrides(OverrideDataSource.map(map), OverrideBehaviour.LOCAL_ONLY);
+            options.asyncHooks(10, HookOverflowPolicy.DROP_NEWEST);
+            options.hooks().addOnFlagEvaluated(details -> {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                delivered.countDown();
+            });
+        });
+
+        assertTrue(client.getValue(Boolean.class, "enabledFeature", false));
+        assertTrue(client.getValue(Boolean.class, "enabledFeature", false));
+        assertEquals(2, delivered.getCount());
+
+        release.countDown();
+        assertTrue(delivered.await(2, TimeUnit.SECONDS));
+        assertEquals(0, client.getHooks().droppedEventCount());
+    }
+
+    @Test
+    void invalidOptions() {
+        ConfigCatClient.Options options = new ConfigCatClient.Options();
+        assertThrows(IllegalArgumentException.class, () -> options.asyncHooks(0, HookOverflowPolicy.BLOCK));
+        assertThrows(IllegalArgumentException.class, () -> options.asyncHooks(1, null));
+    }
+
+    private static final class ManualExecutor implements Executor {
+        private final List<Runnable> tasks = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public void execute(Runnable command) {
+            tasks.add(command);
+        }
+
+        void runAll() {
+            while (!tasks.isEmpty()) {
+                tasks.remove(0).run();
+            }
+        }
+    }
+}
@@ -0,0 +1,262 @@
+package com.configcat;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the evaluation and matrix test suites against both the compiled conditions and the interpreter,
+ * and checks that they produce the same values, variation IDs and log output.
+ */
+class CompiledEvaluationParityTest {
+    private static final String BASE_URL_GLOBAL = "https://cdn-global.configcat.com";
+    private static final Gson GSON = new Gson();
+
+    private final Logger compiledLogger = (Logger) LoggerFactory.getLogger("CompiledEvaluationParityTest.compiled");
+    private final Logger interpretedLogger = (Logger) LoggerFactory.getLogger("CompiledEvaluationParityTest.interpreted");
+    private final ListAppender<ILoggingEvent> compiledAppender = new ListAppender<>();
+    private final ListAppender<ILoggingEvent> interpretedAppender = new ListAppender<>();
+    private RolloutEvaluator compiledEvaluator;
+    private RolloutEvaluator interpretedEvaluator;
+
+    @BeforeEach
+    public void setUp() {
+        compiledLogger.setLevel(Level.INFO);
+        interpretedLogger.setLevel(Level.INFO);
+        compiledAppender.start();
+        interpretedAppender.start();
+        compiledLogger.addAppender(compiledAppender);
+        interpretedLogger.addAppender(interpretedAppender);
+        compiledEvaluator = new RolloutEvaluator(new ConfigCatLogger(compiledLogger, LogLevel.INFO), true);
+        interpretedEvaluator = new RolloutEvaluator(new ConfigCatLogger(interpretedLogger, LogLevel.INFO), false);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        compiledLogger.detachAppender(compiledAppender);
+        interpretedLogger.detachAppender(interpretedAppender);
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "simple_value",
+            "1_targeting_rule",
+            "2_targeting_rules",
+            "and_rules",
+            "semver_validation",
+            "epoch_date_validation",
+            "number_validation",
+            "comparators",
+            "prerequisite_flag",
+            "segment",
+            "options_after_targeting_rule",
+            "options_based_on_user_id",
+            "options_based_on_custom_attr",
+            "options_within_targeting_rule",
+            "list_truncation",
+    })
+    void evaluationSuiteParity(String testDescriptorName) throws Exception {
+        String testDescriptorContent = Helpers.readFileFromClassPath("evaluation/" + testDescriptorName + ".json");
+        TestSet testSet = GSON.fromJson(testDescriptorContent, TestSet.class);
+
+        Config config;
+        if (testSet.getJsonOverride() != null && !testSet.getJsonOverride().isEmpty()) {
+            config = Utils.deserializeConfig(Helpers.readFileFromClassPath("evaluation/" + testDescriptorName + "/" + testSet.getJsonOverride()));
+        } else {
+            config = fetchConfig(testSet.getSdkKey(), testSet.getBaseUrl());
+        }
+
+        List<String> errors = new ArrayList<>();
+        for (TestCase test : testSet.getTests()) {
+            assertParity(config, test.getKey(), convertJsonObjectToUser(test.getUser()), errors);
+        }
+        assertEquals(0, errors.size(), String.join("\n", errors));
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "testmatrix.csv, PKDVCLf-Hq-h-kCzMp-L7Q/psuH7BGHoUmdONrzzUOY7A,",
+            "testmatrix_semantic.csv, PKDVCLf-Hq-h-kCzMp-L7Q/BAr3KgLTP0ObzKnBTo5nhA,",
+            "testmatrix_number.csv, PKDVCLf-Hq-h-kCzMp-L7Q/uGyK3q9_ckmdxRyI7vjwCw,",
+            "testmatrix_semantic_2.csv, PKDVCLf-Hq-h-kCzMp-L7Q/q6jMCFIp-EmuAfnmZhPY7w,",
+            "testmatrix_sensitive.csv, PKDVCLf-Hq-h-kCzMp-L7Q/qX3TP2dTj06ZpCCT1h_SPA,",
+            "testmatrix_variationId.csv, PKDVCLf-Hq-h-kCzMp-L7Q/nQ5qkhRAUEa6beEyyrVLBA,",
+            "testmatrix_segments_old.csv, PKDVCLf-Hq-h-kCzMp-L7Q/LcYz135LE0qbcacz2mgXnA,",
+            "testmatrix.csv, configcat-sdk-1/PKDVCLf-Hq-h-kCzMp-L7Q/AG6C1ngVb0CvM07un6JisQ,",
+            "testmatrix_semantic.csv, configcat-sdk-1/PKDVCLf-Hq-h-kCzMp-L7Q/iV8vH2MBakKxkFZylxHmTg,",
+            "testmatrix_number.csv, configcat-sdk-1/PKDVCLf-Hq-h-kCzMp-L7Q/FCWN-k1dV0iBf8QZrDgjdw,",
+            "testmatrix_semantic_2.csv, configcat-sdk-1/PKDVCLf-Hq-h-kCzMp-L7Q/U8nt3zEhDEO5S2ulubCopA,",
+            "testmatrix_sensitive.csv, configcat-sdk-1/PKDVCLf-Hq-h-kCzMp-L7Q/-0YmVOUNgEGKkgRF-rU65g,",
+            "testmatrix_variationId.csv, configcat-sdk-1/PKDVCLf-Hq-h-kCzMp-L7Q/spQnkRTIPEWVivZkWM84lQ,",
+            "testmatrix_and_or.csv, configcat-sdk-1/JcPbCGl_1E-K9M-fJOyKyQ/ByMO9yZNn02kXcm72lnY1A,",
+            "testmatrix_comparators_v6.csv, configcat-sdk-1/JcPbCGl_1E-K9M-fJOyKyQ/OfQqcTjfFUGBwMKqtyEOrQ,",
+            "testmatrix_prerequisite_flag.csv, configcat-sdk-1/JcPbCGl_1E-K9M-fJOyKyQ/JoGwdqJZQ0K2xDy7LnbyOg,",
+            "testmatrix_segment.csv, configcat-sdk-1/JcPbCGl_1E-K9M-fJOyKyQ/h99HYXWWNE2bH8eWyLAVMA,",
+            "testmatrix_segments_old.csv, configcat-sdk-1/PKDVCLf-Hq-h-kCzMp-L7Q/y_ZB7o-Xb0Swxth-ZlMSeA,",
+            "testmatrix_unicode.csv, configcat-sdk-1/JcPbCGl_1E-K9M-fJOyKyQ/Da6w8dBbmUeMUBhh0iEeQQ,",
+    })
+    void matrixParity(String file, String sdkKey, String baseUrl) throws Exception {
+        Config config = fetchConfig(sdkKey, baseUrl);
+
+        Scanner csvScanner = new Scanner(new File("src/test/resources/matrix/" + file), "UTF-8");
+        String[] header = csvScanner.nextLine().split(";");
+        String customKey = header[3];
+        String[] settingKeys = Arrays.stream(header).skip(4).toArray(String[]::new);
+
+        List<String> errors = new ArrayList<>();
+        while (csvScanner.hasNext()) {
+            String[] testObject = csvScanner.nextLine().split(";");
+
+            User user = null;
+            if (!testObject[0].equals("##null##")) {
+                Map<String, Object> customAttributes = new HashMap<>();
+                if (!testObject[3].isEmpty() && !testObject[3].equals("##null##"))
+                    customAttributes.put(customKey, testObject[3]);
+
+                user = User.newBuilder()
+                        .email(!testObject[1].isEmpty() && !testObject[1].equals("##null##") ? testObject[1] : "")
+                        .country(!testObject[2].isEmpty() && !testObject[2].equals("##null##") ? testObject[2] : "")
+                        .custom(customAttributes)
+                        .build(testObject[0]);
+            }
+            for (String settingKey : settingKeys) {
+                assertParity(config, settingKey, user, errors);
+            }
+        }
+        assertEquals(0, errors.size(), String.join("\n", errors));
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "comparison_attribute_conversion.json",
+            "trim_comparator_values.json",
+            "trim_user_values.json",
+            "test_circulardependency.json",
+            "evaluation/list_truncation/test_list_truncation.json",
+    })
+    void localConfigParity(String fileName) throws IOException {
+        Config config = Utils.deserializeConfig(Helpers.readFileFromClassPath(fileName));
+
+        List<String> errors = new ArrayList<>();
+        for (User user : usersFor(config)) {
+            for (String key : config.getEntries().keySet()) {
+                assertParity(config, key, user, errors);
+            }
+        }
+        assertEquals(0, errors.size(), String.join("\n", errors));
+    }
+
+    private void assertParity(Config config, String key, User user, List<String> errors) {
+        Setting setting = config.getEntries().get(key);
+        assertTrue(setting != null, "Missing setting: " + key);
+
+        String compiled = evaluate(compiledEvaluator, compiledAppender, setting, key, user, config.getEntries());
+        String interpreted = evaluate(interpretedEvaluator, interpretedAppender, setting, key, user, config.getEntries());
+        if (!compiled.equals(interpreted)) {
+            errors.add(String.format("Mismatch for key: %s User: %s\nCompiled:\n%s\nInterpreted:\n%s", key, user, compiled, interpreted));
+        }
+    }
+
+    private static String evaluate(RolloutEvaluator evaluator, ListAppender<ILoggingEvent> appender, Setting setting, String key, User user, Map<String, Setting> settings) {
+        appender.list.clear();
+        StringBuilder result = new StringBuilder();
+        try {
+            EvaluationResult evaluationResult = evaluator.evaluate(setting, key, user, settings, new EvaluateLogger(LogLevel.INFO));
+            result.append(evaluationResult.value).append(" | ").append(evaluationResult.variationId);
+        } catch (Exception e) {
+            result.append(e.getClass().getName()).append(": ").append(e.getMessage());
+        }
+        for (ILoggingEvent logEvent : appender.list) {
+            result.append("\n").append(logEvent.getLevel()).append(" ").append(logEvent.getFormattedMessage());
+        }
+        return result.toString();
+    }
+
+    private static Config fetchConfig(String sdkKey, String baseUrl) throws Exception {
+        boolean isCustomUrl = baseUrl != null && !baseUrl.isEmpty();
+        ConfigFetcher fetcher = new ConfigFetcher(new ConfigCatClient.HttpOptions(),
+                new ConfigCatLogger(LoggerFactory.getLogger(CompiledEvaluationParityTest.class)),
+                sdkKey,
+                isCustomUrl ? baseUrl : BASE_URL_GLOBAL,
+                isCustomUrl,
+                PollingModes.manualPoll().getPollingIdentifier());
+        try {
+            FetchResponse response = fetcher.fetchAsync(null).get();
+            assertTrue(response.isFetched(), "Config fetch failed: " + response.error());
+            return response.entry().getConfig();
+        } finally {
+            fetcher.close();
+        }
+    }
+
+    private static List<User> usersFor(Config config) {
+        Set<String> attributes = new TreeSet<>();
+        for (Setting setting : config.getEntries().values()) {
+            if (setting.getPercentageAttribute() != null) {
+                attributes.add(setting.getPercentageAttribute());
+            }
+            if (setting.getTargetingRules() == null) {
+                continue;
+            }
+            for (TargetingRule rule : setting.getTargetingRules()) {
+                for (Condition condition : rule.getConditions()) {
+                    if (condition.getUserCondition() != null) {
+                        attributes.add(condition.getUserCondition().getComparisonAttribute());
+                    }
+                }
+            }
+        }
+        Object[] values = {"", "USA", " USA ", "1.0.0", " 1.0.0 ", "0.12345", "12", "-1", 0.12345, 12, 1.5f, 3L,
+                new Date(1680307200000L), new String[]{"USA", "x"}, Arrays.asList("a", "USA"), "[\"USA\"]", "not-an-array",
+                "john@example.com", "1680307200"};
+
+        List<User> users = new ArrayList<>();
+        users.add(null);
+        int id = 0;
+        for (Object value : values) {
+            Map<String, Object> custom = new HashMap<>();
+            for (String attribute : attributes) {
+                custom.put(attribute, value);
+            }
+            users.add(User.newBuilder()
+                    .email(value instanceof String ? (String) value : null)
+                    .country(value instanceof String ? (String) value : null)
+                    .custom(custom)
+                    .build(value instanceof String ? (String) value : String.valueOf(id)));
+            id++;
+        }
+        return users;
+    }
+
+    private static User convertJsonObjectToUser(JsonObject jsonObject) {
+        if (jsonObject == null) {
+            return null;
+        }
+        Map<String, Object> customAttributes = new HashMap<>();
+        for (String key : jsonObject.keySet()) {
+            if (!key.equals("Identifier") && !key.equals("Email") && !key.equals("Country")) {
+                customAttributes.put(key, jsonObject.get(key).getAsString());
+            }
+        }
+        return User.newBuilder()
+                .email(jsonObject.has("Email") ? jsonObject.get("Email").getAsString() : "")
+                .country(jsonObject.has("Country") ? jsonObject.get("Country").getAsString() : "")
+                .custom(customAttributes)
+                .build(jsonObject.get("Identifier").getAsString());
+    }
+}
@@ -0,0 +1,95 @@
+package com.configcat;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConfigCacheWriterTest {
+    private static final String TEST_JSON = "{ p: { s: 'test-salt'}, f: { fakeKey: { v: { s: %s }, p: [], r: [] } } }";
+    private final ConfigCatLogger logger = new ConfigCatLogger(LoggerFactory.getLogger(ConfigCacheWriterTest.class));
+    private MockWebServer server;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        this.server = new MockWebServer();
+        this.server.start();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        this.server.shutdown();
+    }
+
+    @Test
+    void slowCacheDoesNotBlockRefreshAndWritesAreCoalesced() throws Exception {
+        this.server.enqueue(new MockResponse().setResponseCode(200).setBody(String.format(TEST_JSON, "test")).setHeader("ETag", "etag1"));
+        this.server.enqueue(new MockResponse().setResponseCode(304));
+        this.server.enqueue(new MockResponse().setResponseCode(200).setBody(String.format(TEST_JSON, "test2")).setHeader("ETag", "etag2"));
+
+        BlockingCache cache = new BlockingCache();
+        ConfigService service = createService(cache);
+
+        service.refresh().get(2, TimeUnit.SECONDS);
+        assertTrue(cache.writeStarted.await(2, TimeUnit.SECONDS));
+
+        // the first write is blocked, the following entries are queued and the 304's entry is replaced by the last one
+        service.refresh().get(2, TimeUnit.SECONDS);
+        service.refresh().get(2, TimeUnit.SECONDS);
+        assertEquals("test2", service.getSettings().get().settings().get("fakeKey").getSettingsValue().getStringValue());
+        assertNull(cache.value);
+
+        cache.releaseWrites.countDown();
+        service.close();
+
+        Entry cached = Entry.fromString(cache.value);
+        assertEquals("etag2", cached.getETag());
+        CacheWriteMetrics metrics = service.getCacheWriteMetrics();
+        assertEquals(2, metrics.writeCount());
+        assertEquals(1, metrics.coalescedWriteCount());
+        assertEquals(0, metrics.failedWriteCount());
+        assertTrue(metrics.maxWriteLatencyNanos() >= metrics.lastWriteLatencyNanos());
+    }
+
+    @Test
+    void pendingWriteIsFlushedOnClose() throws Exception {
+        this.server.enqueue(new MockResponse().setResponseCode(200).setBody(String.format(TEST_JSON, "test")).setHeader("ETag", "etag1"));
+
+        InMemoryCache cache = new InMemoryCache();
+        ConfigService service = createService(cache);
+
+        service.refresh().get(2, TimeUnit.SECONDS);
+        service.close();
+
+        assertEquals(1, cache.getMap().size());
+        assertEquals("etag1", Entry.fromString(cache.getMap().values().iterator().next()).getETag());
+        assertEquals(1, service.getCacheWriteMetrics().writeCount());
+    }
+
+    @Test
+    void failedWritesAreCounted() throws Exception {
+        this.server.enqueue(new MockResponse().setResponseCode(200).setBody(String.format(TEST_JSON, "test")));
+
+        ConfigService service = createService(new FailingCache());
+
+        service.refresh().get(2, TimeUnit.SECONDS);
+        assertEquals("test", service.getSettings().get().settings().get("fakeKey").getSettingsValue().getStringValue());
+        service.close();
+
+        assertEquals(1, service.getCacheWriteMetrics().writeCount());
+        assertEquals(1, service.getCacheWriteMetrics().failedWriteCount());
+    }
+
+    private ConfigService createService(ConfigCache cache) {
+        PollingMode mode = PollingModes.manualPoll();
+        ConfigFetcher fetcher = new ConfigFetcher(new ConfigCatClient.HttpOptions(), logger, "", this.server.url("/").toString(), false, mode.getPollingIdentifier());
+        return new ConfigService("", null, mode, cache, logger, fetcher, new ConfigCatHooks(), false);
+    }
+}
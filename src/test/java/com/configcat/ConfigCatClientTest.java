@@ -15,7 +15,9 @@ import java.io.File;
 import java.io.IOException;
 import java.lang.reflect.Field;
 import java.util.*;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
@@ -1103,5 +1105,117 @@ class ConfigCatClientTest {
         result = assertDoesNotThrow(() -> cl.getValue(String.class, "key", "fallback"));
         assertEquals("def", result);
     }
-    
-}
\ No newline at end of file
+
+    @Test
+    void observeNotifiesOnlyWhenTheValueChanges() throws Exception {
+        MockWebServer server = new MockWebServer();
+        server.start();
+
+        ConfigCatClient cl = ConfigCatClient.get(Helpers.SDK_KEY, options -> {
+            options.pollingMode(PollingModes.manualPoll());
+            options.baseUrl(server.url("/").toString());
+        });
+
+        server.enqueue(new MockResponse().setResponseCode(200).setBody(TEST_JSON_MULTIPLE));
+        cl.forceRefresh();
+
+        ObservedValue<Boolean> observed = cl.observe(Boolean.class, "key1", false);
+        BlockingQueue<Boolean> changes = new LinkedBlockingQueue<>();
+        observed.addListener(changes::add);
+        assertTrue(observed.getValue());
+
+        // only key2 changes, then key1
+        server.enqueue(new MockResponse().setResponseCode(200).setBody(TEST_JSON_MULTIPLE.replace("{b: false}", "{b: true}")));
+        cl.forceRefresh();
+        server.enqueue(new MockResponse().setResponseCode(200).setBody(TEST_JSON_MULTIPLE.replace("{b: true}", "{b: false}")));
+        cl.forceRefresh();
+
+        assertEquals(false, changes.poll(5, TimeUnit.SECONDS));
+        assertFalse(observed.getValue());
+
+        observed.close();
+        server.enqueue(new MockResponse().setResponseCode(200).setBody(TEST_JSON_MULTIPLE));
+        cl.forceRefresh();
+        assertNull(changes.poll(200, TimeUnit.MILLISECONDS));
+        assertFalse(observed.getValue());
+
+        server.close();
+        cl.close();
+    }
+
+    @Test
+    void observeFollowsPrerequisiteFlags() throws Exception {
+        MockWebServer server = new MockWebServer();
+        server.start();
+        String json = "{ p: { s: 'test-salt' }, f: { " +
+                "main: { t: 0, v: {b: %s}, i: 'id1' }, " +
+                "dependent: { t: 1, r: [ { c: [ { p: { f: 'main', c: 0, v: {b: true} } } ], s: { v: {s: 'on'}, i: 'id2' } } ], v: {s: 'off'}, i: 'id3' } } }";
+
+        ConfigCatClient cl = ConfigCatClient.get(Helpers.SDK_KEY, options -> {
+            options.pollingMode(PollingModes.manualPoll());
+            options.baseUrl(server.url("/").toString());
+        });
+
+        server.enqueue(new MockResponse().setResponseCode(200).setBody(String.format(json, "true")));
+        cl.forceRefresh();
+
+        ObservedValue<String> observed = cl.observe(String.class, "dependent", "default");
+        BlockingQueue<String> changes = new LinkedBlockingQueue<>();
+        observed.addListener(changes::add);
+        assertEquals("on", observed.getValue());
+
+        // the dependent setting doesn't change, only its prerequisite
+        server.enqueue(new MockResponse().setResponseCode(200).setBody(String.format(json, "false")));
+        cl.forceRefresh();
+        assertEquals("off", changes.poll(5, TimeUnit.SECONDS));
+        assertEquals("off", observed.getValue());
+
+        server.close();
+        cl.close();
+    }
+
+    @Test
+    void observeDropsStaleEvaluations() {
+        ObservedValue<String> observed = new ObservedValue<>(String.class, "key", null, "default", value -> {
+        });
+        List<String> changes = new ArrayList<>();
+        observed.addListener(changes::add);
+        long initial = observed.nextSequence();
+        long afterConfigChange = observed.nextSequence();
+
+        // the evaluation of the new config completes before the initial one
+        observed.update("new", afterConfigChange);
+        observed.update("old", initial);
+
+        assertEquals("new", observed.getValue());
+        assertEquals(Collections.singletonList("new"), changes);
+    }
+
+    @Test
+    void observeNotifiesChangesRaisedByAListenerInOrder() {
+        ObservedValue<String> observed = new ObservedValue<>(String.class, "key", null, "default", value -> {
+        });
+        List<String> changes = new ArrayList<>();
+        observed.addListener(value -> {
+            changes.add(value);
+            if (value.equals("first")) {
+                // the listener triggers a new evaluation, it's delivered after the running notification
+                observed.update("second", observed.nextSequence());
+                changes.add("returned");
+            }
+        });
+
+        observed.update("first", observed.nextSequence());
+
+        assertEquals(Arrays.asList("first", "returned", "second"), changes);
+        assertEquals("second", observed.getValue());
+    }
+
+    @Test
+    void observeIsNotSupportedByDefault() {
+        ConfigurationProvider provider = mock(ConfigurationProvider.class, CALLS_REAL_METHODS);
+
+        assertThrows(UnsupportedOperationException.class, () -> provider.observe(Boolean.class, "key", false));
+        verify(provider).observe(Boolean.class, "key", null, false);
+    }
+}
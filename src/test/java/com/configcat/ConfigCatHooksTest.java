@@ -0,0 +1,247 @@
+package com.configcat;
+
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConfigCatHooksTest {
+
+    @Test
+    void hasFlagEvaluatedListeners() {
+        ConfigCatHooks hooks = new ConfigCatHooks();
+        assertFalse(hooks.hasFlagEvaluatedListeners());
+
+        hooks.addOnFlagEvaluated(details -> {
+        });
+        assertTrue(hooks.hasFlagEvaluatedListeners());
+
+        hooks.clear();
+        assertFalse(hooks.hasFlagEvaluatedListeners());
+    }
+
+    @Test
+    void subscribeDuringInvocation() {
+        ConfigCatHooks hooks = new ConfigCatHooks();
+        List<String> calls = new ArrayList<>();
+        AtomicInteger lateCalls = new AtomicInteger();
+        hooks.addOnError(message -> {
+            calls.add("first " + message);
+            // added to a new array, the running invocation keeps iterating the old one
+            hooks.addOnError(m -> lateCalls.incrementAndGet());
+        });
+        hooks.addOnError(message -> calls.add("second " + message));
+
+        hooks.invokeOnError("error");
+        assertEquals(Arrays.asList("first error", "second error"), calls);
+        assertEquals(0, lateCalls.get());
+
+        hooks.invokeOnError("error");
+        assertEquals(1, lateCalls.get());
+    }
+
+    @Test
+    void clientReadyAfterInvocation() {
+        ConfigCatHooks hooks = new ConfigCatHooks();
+        List<ClientCacheState> states = new ArrayList<>();
+        hooks.addOnClientReady(states::add);
+
+        hooks.invokeOnClientReady(ClientCacheState.HAS_UP_TO_DATE_FLAG_DATA);
+        hooks.addOnClientReady(states::add);
+
+        assertEquals(Arrays.asList(ClientCacheState.HAS_UP_TO_DATE_FLAG_DATA, ClientCacheState.HAS_UP_TO_DATE_FLAG_DATA), states);
+    }
+
+    @Test
+    void flagEvaluatedBatchBySize() {
+        ConfigCatHooks hooks = new ConfigCatHooks();
+        List<List<EvaluationDetails<Object>>> batches = new ArrayList<>();
+        hooks.addOnFlagEvaluatedBatch(3, 60_000, false, batches::add);
+
+        for (int i = 0; i < 7; i++) {
+            hooks.invokeOnFlagEvaluated(details("key" + i, "v1", "user"));
+        }
+        assertEquals(2, batches.size());
+        assertEquals(3, batches.get(0).size());
+        assertEquals("key3", batches.get(1).get(0).getKey());
+
+        // the pending event is delivered on clear
+        hooks.clear();
+        assertEquals(3, batches.size());
+        assertEquals("key6", batches.get(2).get(0).getKey());
+    }
+
+    @Test
+    void flagEvaluatedBatchByDelay() throws InterruptedException {
+        ConfigCatHooks hooks = new ConfigCatHooks();
+        List<List<EvaluationDetails<Object>>> batches = new CopyOnWriteArrayList<>();
+        CountDownLatch delivered = new CountDownLatch(1);
+        hooks.addOnFlagEvaluatedBatch(100, 50, false, batch -> {
+            batches.add(batch);
+            delivered.countDown();
+        });
+
+        hooks.invokeOnFlagEvaluated(details("key1", "v1", "user"));
+        hooks.invokeOnFlagEvaluated(details("key2", "v1", "user"));
+
+        assertTrue(delivered.await(5, TimeUnit.SECONDS));
+        assertEquals(1, batches.size());
+        assertEquals(2, batches.get(0).size());
+    }
+
+    @Test
+    void flagEvaluatedBatchDeliveredInOrderOneAtATime() throws InterruptedException {
+        ConfigCatHooks hooks = new ConfigCatHooks();
+        List<String> keys = new CopyOnWriteArrayList<>();
+        AtomicInteger active = new AtomicInteger();
+        AtomicInteger overlaps = new AtomicInteger();
+        int eventCount = 2000;
+        CountDownLatch delivered = new CountDownLatch(eventCount);
+        // the timed flushes on the I/O executor race the full batches of the evaluating thread
+        hooks.addOnFlagEvaluatedBatch(7, 1, false, batch -> {
+            if (active.incrementAndGet() > 1) {
+                overlaps.incrementAndGet();
+            }
+            for (EvaluationDetails<Object> details : batch) {
+                keys.add(details.getKey());
+                delivered.countDown();
+            }
+            active.decrementAndGet();
+        });
+
+        for (int i = 0; i < eventCount; i++) {
+            hooks.invokeOnFlagEvaluated(details("key" + i, "v1", "user"));
+        }
+
+        assertTrue(delivered.await(5, TimeUnit.SECONDS));
+        assertEquals(0, overlaps.get());
+        for (int i = 0; i < eventCount; i++) {
+            assertEquals("key" + i, keys.get(i));
+        }
+    }
+
+    @Test
+    void flagEvaluatedBatchDeduplicate() {
+        ConfigCatHooks hooks = new ConfigCatHooks();
+        List<List<EvaluationDetails<Object>>> batches = new ArrayList<>();
+        hooks.addOnFlagEvaluatedBatch(2, 60_000, true, batches::add);
+
+        hooks.invokeOnFlagEvaluated(details("key1", "v1", "user1"));
+        hooks.invokeOnFlagEvaluated(details("key1", "v1", "user1"));
+        hooks.invokeOnFlagEvaluated(details("key1", "v2", "user1"));
+        // a new batch starts a new window
+        hooks.invokeOnFlagEvaluated(details("key1", "v1", "user1"));
+        hooks.invokeOnFlagEvaluated(details("key1", "v1", "user2"));
+
+        assertEquals(2, batches.size());
+        assertEquals("v2", batches.get(0).get(1).getVariationId());
+        assertEquals("user2", batches.get(1).get(1).getUser().getIdentifier());
+    }
+
+    @Test
+    void flagEvaluatedBatchInvalidArguments() {
+        ConfigCatHooks hooks = new ConfigCatHooks();
+        assertThrows(IllegalArgumentException.class, () -> hooks.addOnFlagEvaluatedBatch(0, 100, false, batch -> {
+        }));
+        assertThrows(IllegalArgumentException.class, () -> hooks.addOnFlagEvaluatedBatch(10, 0, false, batch -> {
+        }));
+        assertThrows(IllegalArgumentException.class, () -> hooks.addOnFlagEvaluatedBatch(10, 100, false, null));
+    }
+
+    private static EvaluationDetails<Object> details(String key, String variationId, String userId) {
+        return new EvaluationDetails<Object>(true, key, variationId, User.newBuilder().build(userId), false, null, 0L, null, null);
+    }
+
+    @Test
+    void configChange() {
+        Config previous = Utils.deserializeConfig("{\"f\":{\"same\":{\"t\":1,\"v\":{\"s\":\"a\"}},\"modified\":{\"t\":1,\"v\":{\"s\":\"a\"}},\"removed\":{\"t\":0,\"v\":{\"b\":true}}}}");
+        Config current = Utils.deserializeConfig("{\"f\":{\"same\":{\"t\":1,\"v\":{\"s\":\"a\"}},\"modified\":{\"t\":1,\"v\":{\"s\":\"b\"}},\"added\":{\"t\":0,\"v\":{\"b\":false}}}}");
+
+        ConfigCatHooks hooks = new ConfigCatHooks();
+        List<ConfigChange> changes = new ArrayList<>();
+        List<Object> modified = new ArrayList<>();
+        List<Setting> removed = new ArrayList<>();
+        AtomicInteger sameCalls = new AtomicInteger();
+        hooks.addOnConfigDiff(changes::add);
+        hooks.addOnFlagChanged("modified", setting -> modified.add(setting.getSettingsValue().getStringValue()));
+        hooks.addOnFlagChanged("removed", removed::add);
+        hooks.addOnFlagChanged("same", setting -> sameCalls.incrementAndGet());
+
+        hooks.invokeOnConfigChanged(previous, current);
+
+        assertEquals(1, changes.size());
+        ConfigChange change = changes.get(0);
+        assertEquals(Collections.singleton("added"), change.getAddedKeys());
+        assertEquals(Collections.singleton("removed"), change.getRemovedKeys());
+        assertEquals(Collections.singleton("modified"), change.getModifiedKeys());
+        assertTrue(change.isChanged("added"));
+        assertFalse(change.isChanged("same"));
+        assertSame(current.getEntries(), change.getSettings());
+
+        assertEquals(Collections.singletonList("b"), modified);
+        assertEquals(Collections.singletonList(null), removed);
+        assertEquals(0, sameCalls.get());
+    }
+
+    @Test
+    void configChangeFromEmpty() {
+        Config current = Utils.deserializeConfig("{\"f\":{\"a\":{\"t\":1,\"v\":{\"s\":\"a\"}},\"b\":{\"t\":1,\"v\":{\"s\":\"b\"}}}}");
+
+        ConfigChange change = ConfigChange.between(Config.EMPTY, current);
+
+        assertEquals(new HashSet<>(Arrays.asList("a", "b")), change.getAddedKeys());
+        assertTrue(change.getRemovedKeys().isEmpty());
+        assertTrue(change.getModifiedKeys().isEmpty());
+        assertFalse(ConfigChange.between(current, current).hasChanges());
+    }
+
+    @Test
+    void configChangeSaltModifiesTargetedSettings() {
+        String settings = "\"f\":{\"plain\":{\"t\":1,\"v\":{\"s\":\"a\"}},\"targeted\":{\"t\":1,\"r\":[{\"c\":[{\"u\":{\"a\":\"Email\",\"c\":2,\"l\":[\"a\"]}}],\"s\":{\"v\":{\"s\":\"x\"}}}],\"v\":{\"s\":\"a\"}}}";
+        Config previous = Utils.deserializeConfig("{\"p\":{\"s\":\"salt1\"}," + settings + "}");
+        Config current = Utils.deserializeConfig("{\"p\":{\"s\":\"salt2\"}," + settings + "}");
+
+        assertEquals(Collections.singleton("targeted"), ConfigChange.between(previous, current).getModifiedKeys());
+    }
+
+    @Test
+    void configChangeComparesTheTargetingStructurally() {
+        String segments = "\"s\":[{\"n\":\"Beta\",\"r\":[{\"a\":\"Email\",\"c\":2,\"l\":[\"%s\"]}]}]";
+        String settings = "\"f\":{\"rule\":{\"t\":1,\"r\":[{\"c\":[{\"u\":{\"a\":\"Email\",\"c\":2,\"l\":[\"%s\"]}}],\"s\":{\"v\":{\"s\":\"x\"}}}],\"v\":{\"s\":\"a\"}},"
+                + "\"segment\":{\"t\":1,\"r\":[{\"c\":[{\"s\":{\"s\":0,\"c\":0}}],\"s\":{\"v\":{\"s\":\"x\"}}}],\"v\":{\"s\":\"a\"}}}";
+        Config base = Utils.deserializeConfig("{" + String.format(segments, "a") + "," + String.format(settings, "a") + "}");
+        Config sameContent = Utils.deserializeConfig("{" + String.format(segments, "a") + "," + String.format(settings, "a") + "}");
+        Config ruleChanged = Utils.deserializeConfig("{" + String.format(segments, "a") + "," + String.format(settings, "b") + "}");
+        Config segmentChanged = Utils.deserializeConfig("{" + String.format(segments, "b") + "," + String.format(settings, "a") + "}");
+
+        assertFalse(ConfigChange.between(base, sameContent).hasChanges());
+        assertEquals(Collections.singleton("rule"), ConfigChange.between(base, ruleChanged).getModifiedKeys());
+        assertEquals(new HashSet<>(Arrays.asList("rule", "segment")), ConfigChange.between(base, segmentChanged).getModifiedKeys());
+    }
+
+    @Test
+    void configDiffIsComputedByTheDispatchedTask() {
+        List<Runnable> tasks = new ArrayList<>();
+        ConfigCatHooks hooks = new ConfigCatHooks();
+        hooks.setDispatcher(new AsyncHookDispatcher(10, HookOverflowPolicy.DROP_NEWEST, tasks::add, new ConfigCatLogger(LoggerFactory.getLogger(ConfigCatHooksTest.class))));
+        List<ConfigChange> changes = new ArrayList<>();
+        hooks.addOnConfigDiff(changes::add);
+        Config current = Utils.deserializeConfig("{\"f\":{\"a\":{\"t\":1,\"v\":{\"s\":\"a\"}}}}");
+
+        hooks.invokeOnConfigChanged(Config.EMPTY, current);
+        assertTrue(changes.isEmpty());
+
+        tasks.remove(0).run();
+        assertEquals(Collections.singleton("a"), changes.get(0).getAddedKeys());
+    }
+}
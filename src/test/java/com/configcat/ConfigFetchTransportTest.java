@@ -0,0 +1,143 @@
+package com.configcat;
+
+import java9.util.concurrent.CompletableFuture;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.Headers;
+import okhttp3.OkHttpClient;
+import okhttp3.ResponseBody;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConfigFetchTransportTest {
+    private static final String TEST_JSON = "{ p: { s: 'test-salt' }, f: { fakeKey: { v: {s: 'fakeValue'}, s: 0, p: [] ,r: [] } } }";
+    private final ConfigCatLogger logger = new ConfigCatLogger(LoggerFactory.getLogger(ConfigFetchTransportTest.class), LogLevel.WARNING, new ConfigCatHooks());
+    private MockWebServer server;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        this.server = new MockWebServer();
+        this.server.start();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        this.server.shutdown();
+    }
+
+    @Test
+    void nonBlockingTransportFetchesConfig() throws Exception {
+        this.server.enqueue(new MockResponse().setResponseCode(200).setBody(TEST_JSON).setHeader("ETag", "fakeETag").setHeader("CF-RAY", "12345"));
+        this.server.enqueue(new MockResponse().setResponseCode(304));
+
+        ConfigFetcher fetcher = createFetcher(new ConfigCatClient.HttpOptions().transport(new OkHttpTransport(new OkHttpClient())));
+
+        FetchResponse fetched = fetcher.fetchAsync(null).get(5, TimeUnit.SECONDS);
+        assertTrue(fetched.isFetched());
+        assertEquals("fakeETag", fetched.entry().getETag());
+        assertEquals("12345", fetched.cfRayId());
+        assertEquals("fakeValue", fetched.entry().getConfig().getEntries().get("fakeKey").getSettingsValue().getStringValue());
+
+        FetchResponse notModified = fetcher.fetchAsync("fakeETag").get(5, TimeUnit.SECONDS);
+        assertTrue(notModified.isNotModified());
+
+        this.server.takeRequest();
+        RecordedRequest request = this.server.takeRequest();
+        assertEquals("fakeETag", request.getHeader("If-None-Match"));
+        assertTrue(request.getHeader("X-ConfigCat-UserAgent").startsWith("ConfigCat-Droid/m-"));
+        fetcher.close();
+    }
+
+    @Test
+    void nonBlockingTransportTimeout() throws Exception {
+        this.server.enqueue(new MockResponse().setResponseCode(200).setBody(TEST_JSON).setBodyDelay(2, TimeUnit.SECONDS));
+
+        OkHttpClient client = new OkHttpClient.Builder().readTimeout(500, TimeUnit.MILLISECONDS).build();
+        ConfigFetcher fetcher = createFetcher(new ConfigCatClient.HttpOptions().transport(new OkHttpTransport(client)));
+
+        FetchResponse response = fetcher.fetchAsync(null).get(5, TimeUnit.SECONDS);
+        assertTrue(response.isFailed());
+        assertTrue(response.error().toString().startsWith("Request timed out"));
+        fetcher.close();
+    }
+
+    @Test
+    void failedTransportFuture() throws Exception {
+        ConfigFetchTransport transport = request -> CompletableFuture.failedFuture(new IOException("no route"));
+        ConfigFetcher fetcher = createFetcher(new ConfigCatClient.HttpOptions().transport(transport));
+
+        FetchResponse response = fetcher.fetchAsync(null).get(5, TimeUnit.SECONDS);
+        assertTrue(response.isFailed());
+        assertTrue(response.error().toString().endsWith("no route"));
+        assertFalse(response.isFetchTimeUpdatable());
+        fetcher.close();
+    }
+
+    @Test
+    void defaultTransportReusesConnection() throws Exception {
+        this.server.enqueue(new MockResponse().setResponseCode(200).setBody(TEST_JSON).setHeader("ETag", "fakeETag"));
+        this.server.enqueue(new MockResponse().setResponseCode(304));
+
+        ConfigFetcher fetcher = createFetcher(new ConfigCatClient.HttpOptions());
+        assertTrue(fetcher.fetchAsync(null).get(5, TimeUnit.SECONDS).isFetched());
+        assertTrue(fetcher.fetchAsync("fakeETag").get(5, TimeUnit.SECONDS).isNotModified());
+
+        // the sequence number counts the requests on the same connection
+        assertEquals(0, this.server.takeRequest().getSequenceNumber());
+        assertEquals(1, this.server.takeRequest().getSequenceNumber());
+        fetcher.close();
+    }
+
+    private ConfigFetcher createFetcher(ConfigCatClient.HttpOptions httpOptions) {
+        return new ConfigFetcher(httpOptions, logger, "", this.server.url("/").toString(), false, PollingModes.manualPoll().getPollingIdentifier());
+    }
+
+    /**
+     * Adapter on OkHttp's asynchronous calls, no thread is parked while the request is in flight.
+     */
+    private static final class OkHttpTransport implements ConfigFetchTransport {
+        private final OkHttpClient client;
+
+        OkHttpTransport(OkHttpClient client) {
+            this.client = client;
+        }
+
+        @Override
+        public CompletableFuture<ConfigFetchTransport.Response> execute(Request request) {
+            okhttp3.Request.Builder builder = new okhttp3.Request.Builder().url(request.getUrl());
+            for (Map.Entry<String, String> header : request.getHeaders().entrySet()) {
+                builder.header(header.getKey(), header.getValue());
+            }
+            CompletableFuture<ConfigFetchTransport.Response> future = new CompletableFuture<>();
+            client.newBuilder().followRedirects(false).build().newCall(builder.build()).enqueue(new Callback() {
+                @Override
+                public void onFailure(Call call, IOException e) {
+                    future.completeExceptionally(e);
+                }
+
+                @Override
+                public void onResponse(Call call, okhttp3.Response response) {
+                    ResponseBody body = response.body();
+                    Headers headers = response.headers();
+                    Map<String, List<String>> headerMap = headers.toMultimap();
+                    future.complete(new ConfigFetchTransport.Response(response.code(), response.message(), headerMap,
+                            body != null ? body.byteStream() : null, body != null ? body.contentLength() : -1, response));
+                }
+            });
+            return future;
+        }
+    }
+}
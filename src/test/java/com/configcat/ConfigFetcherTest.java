@@ -2,9 +2,13 @@ package com.configcat;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import java9.util.concurrent.CompletableFuture;
+import okhttp3.mockwebserver.Dispatcher;
 import okhttp3.mockwebserver.MockResponse;
 import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
 import okhttp3.mockwebserver.SocketPolicy;
+import okio.Buffer;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -14,10 +18,18 @@ import org.junit.jupiter.params.provider.MethodSource;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.stream.Stream;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -140,6 +152,236 @@ class ConfigFetcherTest {
         fetcher.close();
     }
 
+    @Test
+    void fetchKeepsRawBody() throws Exception {
+        String body = "{\n  \"p\": { \"s\": \"test-salt\" },\r\n  \"f\": { \"fakeKey\": { \"v\": { \"s\": \"\u00e1rv\u00edzt\u0171r\u0151 \ud83d\ude00\" }, \"t\": 1 } }\n}\n";
+        this.server.enqueue(new MockResponse().setResponseCode(200).setBody(body));
+
+        ConfigFetcher fetcher = new ConfigFetcher(new ConfigCatClient.HttpOptions(), logger,
+                "", this.server.url("/").toString(), false, PollingModes.manualPoll().getPollingIdentifier());
+
+        FetchResponse response = fetcher.fetchAsync(null).get();
+        assertTrue(response.isFetched());
+        assertEquals("\u00e1rv\u00edzt\u0171r\u0151 \ud83d\ude00", response.entry().getConfig().getEntries().get("fakeKey").getSettingsValue().getStringValue());
+        assertEquals(body, response.entry().getConfigJson());
+        assertEquals("test-salt", Entry.fromString(response.entry().serialize()).getConfig().getPreferences().getSalt());
+
+        fetcher.close();
+    }
+
+    @Test
+    void fetchGzipBody() throws Exception {
+        byte[] compressed = compress(true, TEST_JSON);
+        this.server.enqueue(new MockResponse().setResponseCode(200).setBody(new Buffer().write(compressed)).setHeader("Content-Encoding", "gzip"));
+
+        ConfigFetcher fetcher = new ConfigFetcher(new ConfigCatClient.HttpOptions(), logger,
+                "", this.server.url("/").toString(), false, PollingModes.manualPoll().getPollingIdentifier());
+
+        FetchResponse response = fetcher.fetchAsync(null).get();
+        assertTrue(response.isFetched());
+        assertEquals("fakeValue", response.entry().getConfig().getEntries().get("fakeKey").getSettingsValue().getStringValue());
+        assertEquals(TEST_JSON, response.entry().getConfigJson());
+        assertEquals("gzip, deflate", this.server.takeRequest().getHeader("Accept-Encoding"));
+
+        FetchMetrics metrics = fetcher.getMetrics();
+        assertEquals(1, metrics.responseCount());
+        assertEquals(1, metrics.compressedResponseCount());
+        assertEquals(compressed.length, metrics.receivedBytes());
+        assertEquals(TEST_JSON.getBytes(StandardCharsets.UTF_8).length, metrics.decodedBytes());
+
+        fetcher.close();
+    }
+
+    @Test
+    void fetchDeflateAndPlainBody() throws Exception {
+        byte[] compressed = compress(false, TEST_JSON);
+        this.server.enqueue(new MockResponse().setResponseCode(200).setBody(new Buffer().write(compressed)).setHeader("Content-Encoding", "deflate"));
+        this.server.enqueue(new MockResponse().setResponseCode(200).setBody(TEST_JSON));
+
+        ConfigFetcher fetcher = new ConfigFetcher(new ConfigCatClient.HttpOptions(), logger,
+                "", this.server.url("/").toString(), false, PollingModes.manualPoll().getPollingIdentifier());
+
+        assertEquals(TEST_JSON, fetcher.fetchAsync(null).get().entry().getConfigJson());
+        assertEquals(TEST_JSON, fetcher.fetchAsync(null).get().entry().getConfigJson());
+
+        FetchMetrics metrics = fetcher.getMetrics();
+        assertEquals(2, metrics.responseCount());
+        assertEquals(1, metrics.compressedResponseCount());
+        assertEquals(compressed.length + TEST_JSON.length(), metrics.receivedBytes());
+        assertEquals(2L * TEST_JSON.length(), metrics.decodedBytes());
+
+        fetcher.close();
+    }
+
+    @Test
+    void fetchWithUntrustedContentLength() throws Exception {
+        byte[] compressed = compress(true, TEST_JSON);
+        ConfigCatClient.HttpOptions options = new ConfigCatClient.HttpOptions();
+        // a bogus header must not be used to preallocate the body buffer
+        options.transport(request -> CompletableFuture.completedFuture(new ConfigFetchTransport.Response(200, "OK",
+                Collections.singletonMap("Content-Encoding", Collections.singletonList("gzip")),
+                new ByteArrayInputStream(compressed), 1L << 40, null)));
+
+        ConfigFetcher fetcher = new ConfigFetcher(options, logger,
+                "", "http://localhost", false, PollingModes.manualPoll().getPollingIdentifier());
+
+        FetchResponse response = fetcher.fetchAsync(null).get();
+        assertTrue(response.isFetched());
+        assertEquals(TEST_JSON, response.entry().getConfigJson());
+
+        fetcher.close();
+    }
+
+    @Test
+    void fetchCorruptedOrUnsupportedEncodingFails() throws Exception {
+        this.server.enqueue(new MockResponse().setResponseCode(200).setBody(TEST_JSON).setHeader("Content-Encoding", "gzip"));
+        this.server.enqueue(new MockResponse().setResponseCode(200).setBody(TEST_JSON).setHeader("Content-Encoding", "br"));
+
+        ConfigFetcher fetcher = new ConfigFetcher(new ConfigCatClient.HttpOptions(), logger,
+                "", this.server.url("/").toString(), false, PollingModes.manualPoll().getPollingIdentifier());
+
+        assertTrue(fetcher.fetchAsync(null).get().isFailed());
+        FetchResponse response = fetcher.fetchAsync(null).get();
+        assertTrue(response.isFailed());
+        assertTrue(response.error().toString().endsWith("Unsupported Content-Encoding: br"));
+
+        fetcher.close();
+    }
+
+    @Test
+    void concurrentFetchesShareRequest() throws Exception {
+        this.server.enqueue(new MockResponse().setResponseCode(200).setBody(TEST_JSON).setHeader("ETag", "fakeETag").setHeadersDelay(500, TimeUnit.MILLISECONDS));
+
+        ConfigFetcher fetcher1 = new ConfigFetcher(new ConfigCatClient.HttpOptions(), logger,
+                "", this.server.url("/").toString(), false, PollingModes.manualPoll().getPollingIdentifier());
+        ConfigFetcher fetcher2 = new ConfigFetcher(new ConfigCatClient.HttpOptions(), logger,
+                "", this.server.url("/").toString(), false, PollingModes.manualPoll().getPollingIdentifier());
+
+        CompletableFuture<FetchResponse> response1 = fetcher1.fetchAsync(null);
+        CompletableFuture<FetchResponse> response2 = fetcher2.fetchAsync(null);
+
+        assertTrue(response1.get().isFetched());
+        assertSame(response1.get().entry(), response2.get().entry());
+        assertEquals(1, this.server.getRequestCount());
+        assertEquals(1, fetcher2.getMetrics().sharedRequestCount());
+        assertEquals(0, fetcher1.getMetrics().sharedRequestCount());
+        // both fetchers count the response they got
+        assertEquals(1, fetcher1.getMetrics().responseCount());
+        assertEquals(1, fetcher2.getMetrics().responseCount());
+
+        fetcher1.close();
+        fetcher2.close();
+    }
+
+    @Test
+    void fetchesWithDifferentETagsAreNotShared() throws Exception {
+        // the response is picked by the eTag, the server may dispatch the two requests in any order
+        this.server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                return "fakeETag".equals(request.getHeader("If-None-Match"))
+                        ? new MockResponse().setResponseCode(304).setHeadersDelay(500, TimeUnit.MILLISECONDS)
+                        : new MockResponse().setResponseCode(200).setBody(TEST_JSON).setHeader("ETag", "fakeETag");
+            }
+        });
+
+        ConfigFetcher fetcher1 = new ConfigFetcher(new ConfigCatClient.HttpOptions(), logger,
+                "", this.server.url("/").toString(), false, PollingModes.manualPoll().getPollingIdentifier());
+        ConfigFetcher fetcher2 = new ConfigFetcher(new ConfigCatClient.HttpOptions(), logger,
+                "", this.server.url("/").toString(), false, PollingModes.manualPoll().getPollingIdentifier());
+
+        CompletableFuture<FetchResponse> response1 = fetcher1.fetchAsync("fakeETag");
+        this.server.takeRequest();
+        CompletableFuture<FetchResponse> response2 = fetcher2.fetchAsync("oldETag");
+
+        assertTrue(response1.get().isNotModified());
+        assertTrue(response2.get().isFetched());
+        assertEquals(2, this.server.getRequestCount());
+        assertEquals(0, FetchCoordinator.shared().inFlightCount());
+
+        fetcher1.close();
+        fetcher2.close();
+    }
+
+    @Test
+    void joinedFetchReportsErrorsOnItsOwnLogger() throws Exception {
+        this.server.enqueue(new MockResponse().setResponseCode(404).setHeadersDelay(500, TimeUnit.MILLISECONDS));
+
+        ConfigCatHooks hooks1 = new ConfigCatHooks();
+        ConfigCatHooks hooks2 = new ConfigCatHooks();
+        CopyOnWriteArrayList<String> errors1 = new CopyOnWriteArrayList<>();
+        CopyOnWriteArrayList<String> errors2 = new CopyOnWriteArrayList<>();
+        hooks1.addOnError(errors1::add);
+        hooks2.addOnError(errors2::add);
+        ConfigFetcher fetcher1 = new ConfigFetcher(new ConfigCatClient.HttpOptions(),
+                new ConfigCatLogger(LoggerFactory.getLogger(ConfigFetcherTest.class), LogLevel.WARNING, hooks1),
+                "", this.server.url("/").toString(), false, PollingModes.manualPoll().getPollingIdentifier());
+        ConfigFetcher fetcher2 = new ConfigFetcher(new ConfigCatClient.HttpOptions(),
+                new ConfigCatLogger(LoggerFactory.getLogger(ConfigFetcherTest.class), LogLevel.WARNING, hooks2),
+                "", this.server.url("/").toString(), false, PollingModes.manualPoll().getPollingIdentifier());
+
+        CompletableFuture<FetchResponse> response1 = fetcher1.fetchAsync(null);
+        CompletableFuture<FetchResponse> response2 = fetcher2.fetchAsync(null);
+
+        assertTrue(response1.get().isFailed());
+        assertTrue(response2.get().isFailed());
+        assertEquals(1, this.server.getRequestCount());
+        assertEquals(1, fetcher2.getMetrics().sharedRequestCount());
+        assertEquals(1, errors1.size());
+        assertEquals(errors1, errors2);
+
+        fetcher1.close();
+        fetcher2.close();
+    }
+
+    @Test
+    void fetchesWithDifferentHttpOptionsAreNotShared() throws Exception {
+        this.server.enqueue(new MockResponse().setResponseCode(200).setBody(TEST_JSON).setHeader("ETag", "fakeETag").setHeadersDelay(500, TimeUnit.MILLISECONDS));
+        this.server.enqueue(new MockResponse().setResponseCode(200).setBody(TEST_JSON).setHeader("ETag", "fakeETag"));
+
+        ConfigFetcher fetcher1 = new ConfigFetcher(new ConfigCatClient.HttpOptions(), logger,
+                "", this.server.url("/").toString(), false, PollingModes.manualPoll().getPollingIdentifier());
+        ConfigFetcher fetcher2 = new ConfigFetcher(new ConfigCatClient.HttpOptions().readTimeoutMillis(5000), logger,
+                "", this.server.url("/").toString(), false, PollingModes.manualPoll().getPollingIdentifier());
+
+        CompletableFuture<FetchResponse> response1 = fetcher1.fetchAsync(null);
+        this.server.takeRequest();
+        CompletableFuture<FetchResponse> response2 = fetcher2.fetchAsync(null);
+
+        assertTrue(response1.get().isFetched());
+        assertTrue(response2.get().isFetched());
+        assertEquals(2, this.server.getRequestCount());
+        assertEquals(0, fetcher2.getMetrics().sharedRequestCount());
+
+        fetcher1.close();
+        fetcher2.close();
+    }
+
+    @Test
+    void stuckSharedRequestTimesOut() throws Exception {
+        FetchCoordinator coordinator = new FetchCoordinator();
+        FetchCoordinator.Key key = new FetchCoordinator.Key("url", null, "agent", null, null, 10, 10);
+        CompletableFuture<ConfigFetcher.Outcome> never = new CompletableFuture<>();
+
+        FetchCoordinator.Joined first = coordinator.join(key, 100, () -> never);
+        FetchCoordinator.Joined second = coordinator.join(key, 100, () -> never);
+        assertTrue(second.shared);
+
+        ExecutionException exception = assertThrows(ExecutionException.class, () -> first.response.get(5, TimeUnit.SECONDS));
+        assertTrue(exception.getCause() instanceof TimeoutException);
+        assertTrue(second.response.isCompletedExceptionally());
+        assertEquals(0, coordinator.inFlightCount());
+        assertFalse(coordinator.join(key, 100, () -> never).shared);
+    }
+
+    private static byte[] compress(boolean gzip, String content) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DeflaterOutputStream outputStream = gzip ? new GZIPOutputStream(bytes) : new DeflaterOutputStream(bytes)) {
+            outputStream.write(content.getBytes(StandardCharsets.UTF_8));
+        }
+        return bytes.toByteArray();
+    }
+
     private static Stream<Arguments> emptyFetchTestData() {
         return Stream.of(
                 Arguments.of(""),
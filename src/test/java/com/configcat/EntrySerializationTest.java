@@ -2,6 +2,10 @@ package com.configcat;
 
 import org.junit.jupiter.api.Test;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 public class EntrySerializationTest {
@@ -22,6 +26,17 @@ public class EntrySerializationTest {
         assertEquals(String.format(SERIALIZED_DATA, fetchTime, "fakeTag", json), serializedString);
     }
 
+    @Test
+    void serializeFetchedUTF8Json() {
+        String json = String.format(TEST_JSON, "'árvíztűrő'", "1");
+        Config config = Utils.gson.fromJson(json, Config.class);
+        Entry entry = new Entry(config, "fakeTag", json.getBytes(StandardCharsets.UTF_8), 1686756435844L);
+
+        assertEquals(json, entry.getConfigJson());
+        assertEquals(String.format(SERIALIZED_DATA, 1686756435844L, "fakeTag", json), entry.serialize());
+        assertEquals(String.format(SERIALIZED_DATA, 1686756435845L, "fakeTag", json), entry.withFetchTime(1686756435845L).serialize());
+    }
+
     @Test
     void payloadSerializationPlatformIndependent() {
         String payloadTestConfigJson = "{\"p\":{\"u\":\"https://cdn-global.configcat.com\",\"r\":0,\"s\": \"test-salt\"},\"f\":{\"testKey\":{\"v\":{\"s\":\"testValue\"},\"t\":1,\"p\":[],\"r\":[]}}}";
@@ -92,4 +107,67 @@ public class EntrySerializationTest {
 
     }
 
-}
\ No newline at end of file
+    @Test
+    void binaryRoundTrip() throws IOException {
+        String json = Helpers.readFileFromClassPath("shared_segments_and_prerequisites.json");
+        Entry entry = new Entry(Utils.deserializeConfig(json), "fakeTag", json, 1686756435844L);
+
+        byte[] serialized = entry.serializeBinary();
+        Entry deserialized = Entry.fromBinary(serialized);
+
+        assertEquals("fakeTag", EntryBinaryFormat.readETag(serialized));
+        assertEquals(1686756435844L, EntryBinaryFormat.readFetchTime(serialized));
+        assertEquals("fakeTag", deserialized.getETag());
+        assertEquals(1686756435844L, deserialized.getFetchTime());
+        assertEquals(Utils.gson.toJson(entry.getConfig()), Utils.gson.toJson(deserialized.getConfig()));
+        // the config JSON is generated from the model on demand
+        assertEquals(Utils.gson.toJson(entry.getConfig()), deserialized.getConfigJson());
+
+        Setting setting = deserialized.getConfig().getEntries().values().iterator().next();
+        assertSame(deserialized.getConfig().getSegments(), setting.getSegments());
+        assertEquals(entry.getConfig().getPreferences().getSalt(), setting.getConfigSalt());
+        for (Segment segment : deserialized.getConfig().getSegments()) {
+            for (UserCondition userCondition : segment.getSegmentRules()) {
+                assertNotNull(userCondition.getCompiled());
+            }
+        }
+    }
+
+    @Test
+    void binaryStringsAreShared() {
+        String json = "{ p: { s: 'test-salt'}, f: { a: { t: 1, v: { s: 'same' }, i: 'id' }, b: { t: 1, v: { s: 'same' }, i: 'id' } } }";
+        Entry entry = new Entry(Utils.deserializeConfig(json), "fakeTag", json, 1686756435844L);
+
+        byte[] serialized = entry.serializeBinary();
+        Entry deserialized = Entry.fromBinary(serialized);
+
+        Setting a = deserialized.getConfig().getEntries().get("a");
+        Setting b = deserialized.getConfig().getEntries().get("b");
+        assertEquals("same", b.getSettingsValue().getStringValue());
+        assertSame(a.getSettingsValue().getStringValue(), b.getSettingsValue().getStringValue());
+        assertSame(a.getVariationId(), b.getVariationId());
+        // stored once in the string table
+        String raw = new String(serialized, StandardCharsets.ISO_8859_1);
+        assertEquals(raw.indexOf("same"), raw.lastIndexOf("same"));
+    }
+
+    @Test
+    void binaryInvalidData() {
+        String json = String.format(TEST_JSON, "test", "1");
+        byte[] serialized = new Entry(Utils.deserializeConfig(json), "fakeTag", json, 1686756435844L).serializeBinary();
+
+        assertTrue(Entry.fromBinary(null).isEmpty());
+        assertTrue(Entry.fromBinary(new byte[0]).isEmpty());
+
+        Exception exception = assertThrows(IllegalArgumentException.class, () -> Entry.fromBinary(json.getBytes()));
+        assertEquals("Missing binary cache entry header.", exception.getMessage());
+
+        byte[] newerVersion = serialized.clone();
+        newerVersion[4] = 3;
+        exception = assertThrows(IllegalArgumentException.class, () -> Entry.fromBinary(newerVersion));
+        assertEquals("Unsupported binary cache entry version: 3", exception.getMessage());
+
+        assertThrows(IllegalArgumentException.class, () -> Entry.fromBinary(Arrays.copyOf(serialized, serialized.length - 3)));
+        assertThrows(IllegalArgumentException.class, () -> Entry.fromBinary(Arrays.copyOf(serialized, serialized.length + 1)));
+    }
+}
@@ -0,0 +1,204 @@
+package com.configcat;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import java9.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class EvaluationBatchTest {
+    private static final String CONFIG_FILE = "shared_segments_and_prerequisites.json";
+
+    private final Logger logger = (Logger) LoggerFactory.getLogger("EvaluationBatchTest");
+    private final ListAppender<ILoggingEvent> appender = new ListAppender<>();
+
+    @BeforeEach
+    public void setUp() {
+        logger.setLevel(Level.INFO);
+        appender.start();
+        logger.addAppender(appender);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        logger.detachAppender(appender);
+    }
+
+    @Test
+    void batchedEvaluationMatchesSeparateEvaluations() throws IOException {
+        Config config = Utils.deserializeConfig(Helpers.readFileFromClassPath(CONFIG_FILE));
+        Map<String, Setting> settings = config.getEntries();
+        RolloutEvaluator evaluator = new RolloutEvaluator(new ConfigCatLogger(logger, LogLevel.WARNING));
+
+        List<String> keys = new ArrayList<>(settings.keySet());
+        List<String> reversedKeys = new ArrayList<>(keys);
+        Collections.reverse(reversedKeys);
+
+        for (User user : users()) {
+            for (List<String> order : Arrays.asList(keys, reversedKeys)) {
+                List<String> separate = new ArrayList<>();
+                for (String key : order) {
+                    separate.add(evaluate(evaluator, settings, key, user, null));
+                }
+                separate.add(logs());
+
+                List<String> batched = new ArrayList<>();
+                EvaluationBatch batch = new EvaluationBatch(user, settings);
+                for (String key : order) {
+                    batched.add(evaluate(evaluator, settings, key, user, batch));
+                }
+                batched.add(logs());
+
+                assertEquals(separate, batched, "User: " + user);
+            }
+        }
+    }
+
+    @Test
+    void batchSharesSegmentAndPrerequisiteResults() throws IOException {
+        Config config = Utils.deserializeConfig(Helpers.readFileFromClassPath(CONFIG_FILE));
+        Map<String, Setting> settings = config.getEntries();
+        RolloutEvaluator evaluator = new RolloutEvaluator(new ConfigCatLogger(logger, LogLevel.WARNING));
+        User user = User.newBuilder().email("john@example.com").custom(Collections.singletonMap("Version", "3.0.0")).build("id");
+
+        EvaluationBatch batch = new EvaluationBatch(user, settings);
+        evaluator.evaluate(settings.get("dependsOnBoth"), "dependsOnBoth", user, settings, EvaluateLogger.DISABLED, batch);
+
+        assertEquals(Boolean.TRUE, batch.getSegmentResult(config.getSegments()[0]));
+        assertEquals(Boolean.FALSE, batch.getSegmentResult(config.getSegments()[1]));
+        assertEquals("b1", batch.getFlagResult("betaFeature").variationId);
+        assertEquals("n1", batch.getFlagResult("newUi").variationId);
+        assertEquals("d2", batch.getFlagResult("dependsOnBoth").variationId);
+    }
+
+    @Test
+    void resultsWithWarningsAreNotShared() throws IOException {
+        Config config = Utils.deserializeConfig(Helpers.readFileFromClassPath(CONFIG_FILE));
+        Map<String, Setting> settings = config.getEntries();
+        RolloutEvaluator evaluator = new RolloutEvaluator(new ConfigCatLogger(logger, LogLevel.WARNING));
+        User user = User.newBuilder().custom(Collections.singletonMap("Age", 18)).build("id");
+
+        EvaluationBatch batch = new EvaluationBatch(user, settings);
+        evaluator.evaluate(settings.get("autoConverted"), "autoConverted", user, settings, EvaluateLogger.DISABLED, batch);
+        evaluator.evaluate(settings.get("autoConverted"), "autoConverted", user, settings, EvaluateLogger.DISABLED, batch);
+
+        assertNull(batch.getFlagResult("autoConverted"));
+        assertEquals(2, appender.list.size());
+    }
+
+    @Test
+    void evaluateAll() throws IOException {
+        OverrideDataSource overrideDataSource = new ClassPathResourceOverrideDataSource(CONFIG_FILE);
+        ConfigCatClient client = ConfigCatClient.get(Helpers.SDK_KEY, options -> options.flagOverrides(overrideDataSource, OverrideBehaviour.LOCAL_ONLY));
+        User user = User.newBuilder().email("john@example.com").country("USA").custom(Collections.singletonMap("Version", "3.0.0")).build("id");
+
+        List<String> keys = Arrays.asList("segmentViaPrerequisite", "newUi", "missing", "percentageByCountry", "betaFeature");
+        Map<String, EvaluationDetails<?>> results = client.evaluateAll(user, keys);
+        Map<String, EvaluationDetails<?>> asyncResults = client.evaluateAllAsync(user, keys).join();
+
+        Map<String, EvaluationDetails<?>> expected = new HashMap<>();
+        for (EvaluationDetails<?> details : client.getAllValueDetails(user)) {
+            expected.put(details.getKey(), details);
+        }
+
+        assertEquals(keys, new ArrayList<>(results.keySet()));
+        for (String key : keys) {
+            EvaluationDetails<?> details = results.get(key);
+            assertEquals(key, details.getKey());
+            assertEquals(asyncResults.get(key).getValue(), details.getValue());
+            if (expected.containsKey(key)) {
+                assertEquals(expected.get(key).getValue(), details.getValue());
+                assertEquals(expected.get(key).getVariationId(), details.getVariationId());
+                assertFalse(details.isDefaultValue());
+            } else {
+                assertTrue(details.isDefaultValue());
+                assertNull(details.getValue());
+                assertNotNull(details.getError());
+            }
+        }
+        assertEquals(true, results.get("newUi").getValue());
+        assertEquals("s2", results.get("segmentViaPrerequisite").getVariationId());
+
+        client.close();
+    }
+
+    @Test
+    void evaluateAllDefaultPicksFromAllValueDetails() throws IOException {
+        OverrideDataSource overrideDataSource = new ClassPathResourceOverrideDataSource(CONFIG_FILE);
+        ConfigCatClient client = ConfigCatClient.get(Helpers.SDK_KEY, options -> options.flagOverrides(overrideDataSource, OverrideBehaviour.LOCAL_ONLY));
+        User user = User.newBuilder().email("john@example.com").country("USA").build("id");
+        List<EvaluationDetails<?>> allDetails = client.getAllValueDetails(user);
+
+        ConfigurationProvider provider = mock(ConfigurationProvider.class, CALLS_REAL_METHODS);
+        doReturn(allDetails).when(provider).getAllValueDetails(user);
+        doReturn(CompletableFuture.completedFuture(allDetails)).when(provider).getAllValueDetailsAsync(user);
+
+        List<String> keys = Arrays.asList("newUi", "missing", "betaFeature");
+        Map<String, EvaluationDetails<?>> results = provider.evaluateAll(user, keys);
+        Map<String, EvaluationDetails<?>> asyncResults = provider.evaluateAllAsync(user, keys).join();
+
+        assertEquals(keys, new ArrayList<>(results.keySet()));
+        assertEquals(keys, new ArrayList<>(asyncResults.keySet()));
+        assertEquals(client.getValueDetails(Boolean.class, "newUi", user, false).getValue(), results.get("newUi").getValue());
+        assertEquals("missing", results.get("missing").getKey());
+        assertTrue(results.get("missing").isDefaultValue());
+        assertNotNull(results.get("missing").getError());
+        assertThrows(IllegalArgumentException.class, () -> provider.evaluateAll(user, null));
+
+        client.close();
+    }
+
+    private String evaluate(RolloutEvaluator evaluator, Map<String, Setting> settings, String key, User user, EvaluationBatch batch) {
+        try {
+            EvaluationResult result = evaluator.evaluate(settings.get(key), key, user, settings, EvaluateLogger.DISABLED, batch);
+            return key + ": " + result.value + " | " + result.variationId;
+        } catch (Exception e) {
+            return key + ": " + e.getClass().getName() + ": " + e.getMessage();
+        }
+    }
+
+    private String logs() {
+        StringBuilder result = new StringBuilder();
+        for (ILoggingEvent event : appender.list) {
+            result.append(event.getLevel()).append(' ').append(event.getFormattedMessage()).append('\n');
+        }
+        appender.list.clear();
+        return result.toString();
+    }
+
+    private static List<User> users() {
+        List<User> users = new ArrayList<>();
+        users.add(null);
+        users.add(User.newBuilder().build("no-attributes"));
+        users.add(User.newBuilder().email("john@example.com").build("beta"));
+        users.add(User.newBuilder().email("jane@other.com").country("USA").build("other"));
+
+        Object[] versions = {"1.0.0", "3.0.0", "not-a-version", 2};
+        Object[] ages = {18, "18", "17", 16.5, "not-a-number"};
+        int id = 0;
+        for (Object version : versions) {
+            for (Object age : ages) {
+                Map<String, Object> custom = new HashMap<>();
+                custom.put("Version", version);
+                custom.put("Age", age);
+                users.add(User.newBuilder()
+                        .email(id % 2 == 0 ? "user" + id + "@example.com" : null)
+                        .country(id % 3 == 0 ? "Hungary" : null)
+                        .custom(custom)
+                        .build("user" + id));
+                id++;
+            }
+        }
+        return users;
+    }
+}
@@ -0,0 +1,167 @@
+package com.configcat;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EvaluationCacheTest {
+    private static final String RULES_JSON_UPDATED = Helpers.RULES_JSON.replace("'fake1'", "'fake1-updated'");
+
+    private MockWebServer server;
+    private EvaluationCache evaluationCache;
+    private ConfigCatClient client;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        server = new MockWebServer();
+        server.start();
+        evaluationCache = new EvaluationCache(2);
+        client = ConfigCatClient.get(Helpers.SDK_KEY, options -> {
+            options.pollingMode(PollingModes.manualPoll());
+            options.baseUrl(server.url("/").toString());
+            options.evaluationCache(evaluationCache);
+        });
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        client.close();
+        server.shutdown();
+    }
+
+    @Test
+    void repeatedEvaluationIsServedFromCache() {
+        server.enqueue(new MockResponse().setResponseCode(200).setBody(Helpers.RULES_JSON).setHeader("ETag", "etag1"));
+        client.forceRefresh();
+
+        List<EvaluationDetails<Object>> evaluated = new ArrayList<>();
+        client.getHooks().addOnFlagEvaluated(evaluated::add);
+
+        User user = User.newBuilder().build("test@test1.com");
+        User equivalentUser = User.newBuilder().build("test@test1.com");
+
+        assertEquals("fake1", client.getValue(String.class, "key", user, ""));
+        assertEquals("fake1", client.getValue(String.class, "key", user, ""));
+        EvaluationDetails<String> details = client.getValueDetails(String.class, "key", equivalentUser, "");
+
+        assertEquals("fake1", details.getValue());
+        assertEquals("id1", details.getVariationId());
+        assertSame(equivalentUser, details.getUser());
+        assertEquals(1, evaluationCache.missCount());
+        assertEquals(2, evaluationCache.hitCount());
+
+        // the hook is invoked for the cached evaluations too
+        assertEquals(3, evaluated.size());
+        assertSame(user, evaluated.get(0).getUser());
+        assertSame(equivalentUser, evaluated.get(2).getUser());
+    }
+
+    @Test
+    void differentUsersAreCachedSeparately() {
+        server.enqueue(new MockResponse().setResponseCode(200).setBody(Helpers.RULES_JSON).setHeader("ETag", "etag1"));
+        client.forceRefresh();
+
+        assertEquals("fake1", client.getValue(String.class, "key", User.newBuilder().build("test@test1.com"), ""));
+        assertEquals("fake2", client.getValue(String.class, "key", User.newBuilder().build("test@test2.com"), ""));
+        assertEquals("def", client.getValue(String.class, "key", null, ""));
+        assertEquals("fake2", client.getValue(String.class, "key", User.newBuilder().build("test@test2.com"), ""));
+
+        assertEquals(3, evaluationCache.missCount());
+        assertEquals(1, evaluationCache.hitCount());
+        assertEquals(2, evaluationCache.size());
+    }
+
+    @Test
+    void newConfigInvalidatesCache() {
+        server.enqueue(new MockResponse().setResponseCode(200).setBody(Helpers.RULES_JSON).setHeader("ETag", "etag1"));
+        server.enqueue(new MockResponse().setResponseCode(200).setBody(RULES_JSON_UPDATED).setHeader("ETag", "etag2"));
+        User user = User.newBuilder().build("test@test1.com");
+
+        client.forceRefresh();
+        assertEquals("fake1", client.getValue(String.class, "key", user, ""));
+
+        client.forceRefresh();
+        assertEquals("fake1-updated", client.getValue(String.class, "key", user, ""));
+        assertEquals(2, evaluationCache.missCount());
+        assertEquals(0, evaluationCache.hitCount());
+        assertEquals(1, evaluationCache.size());
+    }
+
+    @Test
+    void resultsWithWarningsAreNotCached() {
+        server.enqueue(new MockResponse().setResponseCode(200).setBody(Helpers.RULES_JSON).setHeader("ETag", "etag1"));
+        client.forceRefresh();
+
+        Logger clientLogger = (Logger) LoggerFactory.getLogger(ConfigCatClient.class);
+        clientLogger.setLevel(Level.WARN);
+        ListAppender<ILoggingEvent> appender = new ListAppender<>();
+        appender.start();
+        clientLogger.addAppender(appender);
+        try {
+            // the rules need a User Object, each evaluation without one logs the warning
+            assertEquals("def", client.getValue(String.class, "key", null, ""));
+            assertEquals("def", client.getValue(String.class, "key", null, ""));
+        } finally {
+            clientLogger.detachAppender(appender);
+        }
+
+        long warningCount = appender.list.stream().filter(event -> event.getFormattedMessage().startsWith("[3001]")).count();
+        assertEquals(2, warningCount);
+        assertEquals(2, evaluationCache.missCount());
+        assertEquals(0, evaluationCache.hitCount());
+        assertEquals(0, evaluationCache.size());
+    }
+
+    @Test
+    void configWithoutETagIsNotCached() {
+        server.enqueue(new MockResponse().setResponseCode(200).setBody(Helpers.RULES_JSON));
+        client.forceRefresh();
+
+        User user = User.newBuilder().build("test@test1.com");
+        assertEquals("fake1", client.getValue(String.class, "key", user, ""));
+        assertEquals("fake1", client.getValue(String.class, "key", user, ""));
+
+        assertEquals(0, evaluationCache.missCount());
+        assertEquals(0, evaluationCache.hitCount());
+    }
+
+    @Test
+    void userFingerprint() {
+        Map<String, Object> intAge = new HashMap<>();
+        intAge.put("Age", 18);
+        Map<String, Object> stringAge = new HashMap<>();
+        stringAge.put("Age", "18");
+
+        assertEquals(User.newBuilder().email("a@b.com").custom(intAge).build("id").fingerprint(),
+                User.newBuilder().custom(intAge).email("a@b.com").build("id").fingerprint());
+        assertNotEquals(User.newBuilder().custom(intAge).build("id").fingerprint(),
+                User.newBuilder().custom(stringAge).build("id").fingerprint());
+        assertNotEquals(User.newBuilder().build("id").fingerprint(),
+                User.newBuilder().custom(Collections.singletonMap("Age", null)).build("id").fingerprint());
+        assertNotEquals(User.newBuilder().custom(Collections.singletonMap("a", "b:1:c")).build("id").fingerprint(),
+                User.newBuilder().custom(Collections.singletonMap("a:1:b", "c")).build("id").fingerprint());
+        assertNotEquals(User.newBuilder().custom(Collections.singletonMap("Score", 0.1 + 0.2)).build("id").fingerprint(),
+                User.newBuilder().custom(Collections.singletonMap("Score", 0.3)).build("id").fingerprint());
+    }
+
+    @Test
+    void invalidMaxSize() {
+        assertThrows(IllegalArgumentException.class, () -> new EvaluationCache(0));
+    }
+}
@@ -10,7 +10,7 @@ import org.slf4j.LoggerFactory;
 import java.io.IOException;
 import java.util.List;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.*;
 
 // Test cases based on EvaluationTest 1_rule_no_user test case.
 class EvaluationLoggerTurnOffTest {
@@ -73,4 +73,28 @@ class EvaluationLoggerTurnOffTest {
         client.close();
     }
 
-}
\ No newline at end of file
+    @Test
+    void testDisabledEvaluationLoggerIsShared() {
+        assertSame(EvaluateLogger.DISABLED, EvaluateLogger.forLogLevel(LogLevel.WARNING));
+        assertSame(EvaluateLogger.DISABLED, EvaluateLogger.forLogLevel(LogLevel.NO_LOG));
+        assertNotSame(EvaluateLogger.forLogLevel(LogLevel.INFO), EvaluateLogger.forLogLevel(LogLevel.INFO));
+
+        EvaluateLogger.DISABLED.logEvaluation("key");
+        EvaluateLogger.DISABLED.newLine();
+        assertEquals("", EvaluateLogger.DISABLED.toPrint());
+    }
+
+    @Test
+    void testInvalidComparatorFailsTheSameWithDisabledEvaluationLog() {
+        String json = "{\"p\":{\"u\":\"https://cdn-global.configcat.com\",\"r\":0,\"s\":\"salt\"},\"f\":{\"flag\":{\"t\":0,\"r\":[{\"c\":[{\"u\":{\"a\":\"Email\",\"c\":99,\"s\":\"x\"}}],\"s\":{\"v\":{\"b\":true},\"i\":\"1\"}}],\"v\":{\"b\":false},\"i\":\"0\"}}}";
+        Config config = Utils.deserializeConfig(json);
+        Setting setting = config.getEntries().get("flag");
+        RolloutEvaluator evaluator = new RolloutEvaluator(new ConfigCatLogger(LoggerFactory.getLogger(EvaluationLoggerTurnOffTest.class)));
+
+        IllegalArgumentException enabled = assertThrows(IllegalArgumentException.class,
+                () -> evaluator.evaluate(setting, "flag", null, config.getEntries(), new EvaluateLogger(LogLevel.INFO)));
+        IllegalArgumentException disabled = assertThrows(IllegalArgumentException.class,
+                () -> evaluator.evaluate(setting, "flag", null, config.getEntries(), EvaluateLogger.DISABLED));
+        assertEquals(enabled.getMessage(), disabled.getMessage());
+    }
+}
@@ -0,0 +1,76 @@
+package com.configcat;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JsonAdaptersTest {
+    // binds the config model through @SerializedName, the way it was done before the type adapters
+    private static final Gson REFLECTIVE_GSON = new GsonBuilder().disableHtmlEscaping().create();
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "comparison_attribute_conversion.json",
+            "shared_segments_and_prerequisites.json",
+            "test_circulardependency.json",
+            "trim_comparator_values.json",
+            "trim_user_values.json"
+    })
+    void configFilesAreBoundIdentically(String fileName) throws IOException {
+        assertBoundIdentically(Helpers.readFileFromClassPath(fileName));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            Helpers.RULES_JSON,
+            "{}",
+            "{ f: null, s: null, p: null }",
+            "{ f: { a: null, b: { t: null, v: null } } }",
+            "{ f: { a: { t: '4', v: { b: 'true' } }, b: { t: 3, v: { d: '1.5' } } } }",
+            "{ f: { a: { t: 2, v: { i: '42', s: 7 } }, b: { t: 1, v: { s: true } } } }",
+            "{ p: { u: 'https://example.com', r: '1', s: 'salt', x: [1, { y: 2 }] }, unknown: { f: 1 } }",
+            "{ f: { a: { r: [ { c: [ { u: { a: 'Email', c: null, l: ['a', 1, null] } }, null ], s: { v: { s: 'x' }, i: 'v1' } } ] } } }",
+            "{ f: { a: { r: [ { c: [ { s: { s: 0, c: 1 } }, { p: { f: 'b', c: 0, v: { b: false } } } ] } ] } } }",
+            "{ s: [ { n: 'seg', r: [ { a: 'Age', c: 10, d: 18 } ] }, null ], f: { a: { p: [ { p: 50, v: { b: true }, i: 'p1' }, null ], a: 'Email' } } }",
+            "{ f: { a: { t: 0, v: { b: true } }, b: { t: 0, v: { b: false } } }, f: { c: { t: 1, v: { s: 'last' } } } }"
+    })
+    void jsonIsBoundIdentically(String json) {
+        assertBoundIdentically(json);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "{ f: { a: { t: 2, v: { i: 'x' } } } }",
+            "{ f: { a: { t: 2, v: { i: 1.5 } } } }",
+            "{ f: { a: 1, a: 2 } }",
+            "{ p: 'salt' }",
+            "[]"
+    })
+    void invalidJsonIsRejectedByBoth(String json) {
+        assertThrows(Exception.class, () -> REFLECTIVE_GSON.fromJson(json, Config.class));
+        assertThrows(Exception.class, () -> Utils.gson.fromJson(json, Config.class));
+    }
+
+    @Test
+    void writtenJsonIsReadBack() throws IOException {
+        Config config = Utils.gson.fromJson(Helpers.readFileFromClassPath("shared_segments_and_prerequisites.json"), Config.class);
+
+        String json = Utils.gson.toJson(config);
+
+        assertEquals(REFLECTIVE_GSON.toJson(config), REFLECTIVE_GSON.toJson(Utils.gson.fromJson(json, Config.class)));
+        assertEquals(REFLECTIVE_GSON.toJson(config), json);
+    }
+
+    private static void assertBoundIdentically(String json) {
+        Config expected = REFLECTIVE_GSON.fromJson(json, Config.class);
+        Config actual = Utils.gson.fromJson(json, Config.class);
+
+        assertEquals(REFLECTIVE_GSON.toJson(expected), REFLECTIVE_GSON.toJson(actual));
+    }
+}
@@ -12,6 +12,8 @@ import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
 
 class LazyLoadingTest {
     private ConfigService policy;
@@ -111,6 +113,53 @@ class LazyLoadingTest {
         assertEquals(1, this.server.getRequestCount());
     }
 
+    @Test
+    void testNonExpiredEntryServedWithoutCacheRead() throws Exception {
+        ConfigCache cache = spy(new SingleValueCache(Helpers.cacheValueFromConfigJson(String.format(TEST_JSON, "test"))));
+
+        PollingMode mode = PollingModes
+                .lazyLoad(60);
+        ConfigFetcher fetcher = new ConfigFetcher(new ConfigCatClient.HttpOptions(), logger, "", this.server.url("/").toString(), false, mode.getPollingIdentifier());
+        ConfigService service = new ConfigService("", null, mode, cache, logger, fetcher, new ConfigCatHooks(), false);
+
+        // initial cache sync
+        verify(cache, times(1)).read(anyString());
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals("test", service.getSettings().get().settings().get("fakeKey").getSettingsValue().getStringValue());
+        }
+
+        verify(cache, times(1)).read(anyString());
+        assertEquals(0, this.server.getRequestCount());
+
+        service.close();
+    }
+
+    @Test
+    void testUnchangedStampSkipsCacheRead() throws Exception {
+        StampedInMemoryCache cache = new StampedInMemoryCache(Helpers.cacheValueFromConfigJsonAndTime(String.format(TEST_JSON, "test"), Constants.DISTANT_PAST));
+
+        PollingMode mode = PollingModes
+                .lazyLoad(1);
+        ConfigFetcher fetcher = new ConfigFetcher(new ConfigCatClient.HttpOptions(), logger, "", this.server.url("/").toString(), false, mode.getPollingIdentifier());
+        ConfigService service = new ConfigService("", null, mode, cache, logger, fetcher, new ConfigCatHooks(), true);
+
+        // the expired entry is synced with the cache on every read, but only the stamp is probed while it's unchanged
+        for (int i = 0; i < 10; i++) {
+            assertEquals("test", service.getSettings().get().settings().get("fakeKey").getSettingsValue().getStringValue());
+        }
+        assertEquals(1, cache.readCount);
+
+        cache.value = Helpers.cacheValueFromConfigJsonAndTime(String.format(TEST_JSON, "test2"), Constants.DISTANT_PAST).replace("fakeTag", "fakeTag2");
+        cache.stamp++;
+
+        assertEquals("test2", service.getSettings().get().settings().get("fakeKey").getSettingsValue().getStringValue());
+        assertEquals(2, cache.readCount);
+        assertEquals(0, this.server.getRequestCount());
+
+        service.close();
+    }
+
     @Test
     void testCacheExpirationRespectedInTTLCalc304() throws InterruptedException, ExecutionException {
         this.server.enqueue(new MockResponse().setResponseCode(304).setBody(""));
@@ -99,9 +99,72 @@ class ManualPollingTest {
         service.refresh().get();
         assertEquals("test2", service.getSettings().get().settings().get("fakeKey").getSettingsValue().getStringValue());
 
+        service.close();
+
         assertEquals(1, cache.getMap().size());
+    }
+
+    @Test
+    void testBinaryCacheFallsBackToTextFormat() throws InterruptedException, ExecutionException, IOException {
+        this.server.enqueue(new MockResponse().setResponseCode(200).setBody(String.format(TEST_JSON, "test2")));
 
+        String textValue = Helpers.cacheValueFromConfigJson(String.format(TEST_JSON, "test"));
+        BinaryInMemoryCache cache = new BinaryInMemoryCache(textValue);
+        PollingMode mode = PollingModes.manualPoll();
+        ConfigFetcher fetcher = new ConfigFetcher(new ConfigCatClient.HttpOptions(), logger, "", this.server.url("/").toString(), false, mode.getPollingIdentifier());
+        ConfigService service = new ConfigService("", null, mode, cache, logger, fetcher, new ConfigCatHooks(), false);
+
+        // the text format written by earlier versions is still read
+        assertEquals("test", service.getSettings().get().settings().get("fakeKey").getSettingsValue().getStringValue());
+
+        service.refresh().get();
+        assertEquals("test2", service.getSettings().get().settings().get("fakeKey").getSettingsValue().getStringValue());
+        // closing writes the pending cache entry
+        service.close();
+        assertEquals(textValue, cache.textValue);
+        assertNotNull(cache.binaryValue);
+
+        ConfigFetcher fetcher2 = new ConfigFetcher(new ConfigCatClient.HttpOptions(), logger, "", this.server.url("/").toString(), false, mode.getPollingIdentifier());
+        ConfigService service2 = new ConfigService("", null, mode, cache, logger, fetcher2, new ConfigCatHooks(), false);
+        assertEquals("test2", service2.getSettings().get().settings().get("fakeKey").getSettingsValue().getStringValue());
+        assertEquals(1, this.server.getRequestCount());
+        service2.close();
+    }
+
+    @Test
+    void testBinaryCacheWithoutBinaryMethodsUsesTextFormat() throws InterruptedException, ExecutionException, IOException {
+        this.server.enqueue(new MockResponse().setResponseCode(200).setBody(String.format(TEST_JSON, "test2")));
+
+        TextOnlyBinaryCache cache = new TextOnlyBinaryCache(Helpers.cacheValueFromConfigJson(String.format(TEST_JSON, "test")));
+        PollingMode mode = PollingModes.manualPoll();
+        ConfigFetcher fetcher = new ConfigFetcher(new ConfigCatClient.HttpOptions(), logger, "", this.server.url("/").toString(), false, mode.getPollingIdentifier());
+        ConfigService service = new ConfigService("", null, mode, cache, logger, fetcher, new ConfigCatHooks(), false);
+
+        assertEquals("test", service.getSettings().get().settings().get("fakeKey").getSettingsValue().getStringValue());
+
+        service.refresh().get();
+        service.close();
+        assertEquals("test2", Entry.fromString(cache.textValue).getConfig().getEntries().get("fakeKey").getSettingsValue().getStringValue());
+    }
+
+    @Test
+    void testBinaryCacheEntryOfOtherVersionIsIgnored() throws InterruptedException, ExecutionException, IOException {
+        this.server.enqueue(new MockResponse().setResponseCode(200).setBody(String.format(TEST_JSON, "test2")));
+
+        String json = String.format(TEST_JSON, "test");
+        byte[] otherVersion = new Entry(Utils.deserializeConfig(json), "etag", json, System.currentTimeMillis()).serializeBinary();
+        otherVersion[4] = (byte) (EntryBinaryFormat.FORMAT_VERSION - 1);
+        BinaryInMemoryCache cache = new BinaryInMemoryCache(null);
+        cache.binaryValue = otherVersion;
+        PollingMode mode = PollingModes.manualPoll();
+        ConfigFetcher fetcher = new ConfigFetcher(new ConfigCatClient.HttpOptions(), logger, "", this.server.url("/").toString(), false, mode.getPollingIdentifier());
+        ConfigService service = new ConfigService("", null, mode, cache, logger, fetcher, new ConfigCatHooks(), false);
+
+        assertTrue(service.getSettings().get().settings().isEmpty());
+
+        service.refresh().get();
         service.close();
+        assertTrue(EntryBinaryFormat.isCurrentVersion(cache.binaryValue));
     }
 
     @Test
@@ -0,0 +1,135 @@
+package com.configcat;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedFileConfigCacheTest {
+    private static final String TEST_JSON = "{ p: { s: 'test-salt'}, f: { fakeKey: { v: { s: %s }, t: 1, p: [], r: [] } } }";
+
+    @TempDir
+    File directory;
+
+    @Test
+    void textRoundTrip() throws Exception {
+        MappedFileConfigCache cache = new MappedFileConfigCache(directory);
+        String value = Helpers.cacheValueFromConfigJson(String.format(TEST_JSON, "test"));
+
+        assertNull(cache.read("key"));
+        cache.write("key", value);
+
+        assertEquals(value, new MappedFileConfigCache(directory).read("key"));
+        assertNull(new MappedFileConfigCache(directory).readBinary("key"));
+    }
+
+    @Test
+    void binaryRoundTrip() throws Exception {
+        MappedFileConfigCache cache = new MappedFileConfigCache(directory);
+        String json = String.format(TEST_JSON, "test");
+        byte[] value = new Entry(Utils.deserializeConfig(json), "fakeTag", json, 1686756435844L).serializeBinary();
+
+        cache.writeBinary("key", value);
+
+        MappedFileConfigCache other = new MappedFileConfigCache(directory);
+        assertArrayEquals(value, other.readBinary("key"));
+        assertNull(other.read("key"));
+        assertEquals("test", Entry.fromBinary(other.readBinary("key")).getConfig().getEntries().get("fakeKey").getSettingsValue().getStringValue());
+    }
+
+    @Test
+    void unchangedEntryIsNotReadAgain() throws Exception {
+        MappedFileConfigCache writer = new MappedFileConfigCache(directory);
+        MappedFileConfigCache reader = new MappedFileConfigCache(directory);
+        writer.write("key", Helpers.cacheValueFromConfigJson(String.format(TEST_JSON, "test")));
+
+        String first = reader.read("key");
+        assertSame(first, reader.read("key"));
+
+        String updated = Helpers.cacheValueFromConfigJson(String.format(TEST_JSON, "test2"));
+        writer.write("key", updated);
+        String second = reader.read("key");
+        assertNotSame(first, second);
+        assertEquals(updated, second);
+    }
+
+    @Test
+    void stampChangesWithContent() throws Exception {
+        MappedFileConfigCache writer = new MappedFileConfigCache(directory);
+        MappedFileConfigCache reader = new MappedFileConfigCache(directory);
+        long missing = reader.readStamp("key");
+
+        writer.write("key", Helpers.cacheValueFromConfigJsonAndTime(String.format(TEST_JSON, "test"), 1686756435844L));
+        long first = reader.readStamp("key");
+        assertNotEquals(missing, first);
+        assertEquals(first, reader.readStamp("key"));
+
+        writer.write("key", Helpers.cacheValueFromConfigJsonAndTime(String.format(TEST_JSON, "test"), 1686756435845L));
+        assertNotEquals(first, reader.readStamp("key"));
+    }
+
+    @Test
+    void writeReplacesFileWithoutLeftovers() throws Exception {
+        MappedFileConfigCache cache = new MappedFileConfigCache(new File(directory, "sub"));
+
+        cache.write("key", Helpers.cacheValueFromConfigJson(String.format(TEST_JSON, "test")));
+        cache.write("key", Helpers.cacheValueFromConfigJson(String.format(TEST_JSON, "test2")));
+
+        String[] files = new File(directory, "sub").list();
+        assertNotNull(files);
+        assertArrayEquals(new String[]{"key.cache"}, files);
+    }
+
+    @Test
+    void corruptedContentIsRejected() throws Exception {
+        MappedFileConfigCache cache = new MappedFileConfigCache(directory);
+        String value = Helpers.cacheValueFromConfigJson(String.format(TEST_JSON, "test"));
+        cache.write("key", value);
+
+        try (RandomAccessFile file = new RandomAccessFile(cache.fileOf("key"), "rw")) {
+            file.seek(file.length() - 3);
+            file.write('X');
+        }
+        assertThrows(IOException.class, () -> new MappedFileConfigCache(directory).read("key"));
+
+        try (RandomAccessFile file = new RandomAccessFile(cache.fileOf("key"), "rw")) {
+            file.setLength(file.length() - 10);
+        }
+        assertThrows(IOException.class, () -> new MappedFileConfigCache(directory).read("key"));
+    }
+
+    @Test
+    void clientUsesBinaryFormat() throws IOException {
+        MockWebServer server = new MockWebServer();
+        server.start();
+        server.enqueue(new MockResponse().setResponseCode(200).setBody(String.format(TEST_JSON, "test")).setHeader("ETag", "etag1"));
+
+        ConfigCatClient client = ConfigCatClient.get(Helpers.SDK_KEY, options -> {
+            options.pollingMode(PollingModes.manualPoll());
+            options.baseUrl(server.url("/").toString());
+            options.cache(new MappedFileConfigCache(directory));
+        });
+        client.forceRefresh();
+        assertEquals("test", client.getValue(String.class, "fakeKey", ""));
+        client.close();
+
+        // a new client loads the config from the file, without a request
+        ConfigCatClient offlineClient = ConfigCatClient.get(Helpers.SDK_KEY, options -> {
+            options.pollingMode(PollingModes.manualPoll());
+            options.baseUrl(server.url("/").toString());
+            options.cache(new MappedFileConfigCache(directory));
+            options.offline(true);
+        });
+        assertEquals("test", offlineClient.getValue(String.class, "fakeKey", ""));
+        offlineClient.close();
+
+        assertEquals(1, server.getRequestCount());
+        server.shutdown();
+    }
+}
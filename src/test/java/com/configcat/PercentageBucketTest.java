@@ -0,0 +1,73 @@
+package com.configcat;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PercentageBucketTest {
+    private static final int ITERATIONS = 2_000_000;
+
+    // the algorithm used before the raw digest based bucketing
+    private static int hexBucket(String settingKey, String attributeValue) {
+        String hashCandidate = settingKey + attributeValue;
+        String hexHash = Utils.sha1(hashCandidate.getBytes(StandardCharsets.UTF_8)).substring(0, 7);
+        return Integer.parseInt(hexHash, 16) % 100;
+    }
+
+    @Test
+    void matchesHexBucketForRandomIdentifiers() {
+        Random random = new Random(20240101L);
+        String[] settingKeys = {"", "stringContainsDogDefaultCat", "isPOCFeatureEnabled", "ŝettingKéy", "key\uD83D"};
+        for (int i = 0; i < ITERATIONS; i++) {
+            String settingKey = settingKeys[i % settingKeys.length];
+            String identifier = randomString(random, i % 4);
+            assertEquals(hexBucket(settingKey, identifier), PercentageBucket.of(settingKey, identifier), () -> settingKey + identifier);
+        }
+    }
+
+    @Test
+    void matchesHexBucketForEdgeCases() {
+        String[][] cases = {
+                {"", ""},
+                {"key", ""},
+                {"", "id"},
+                {"key\uD83D", "\uDE00id"}, // surrogate pair split between the key and the identifier
+                {"key", "\uDE00\uD83D"}, // unpaired surrogates
+                {"key", "id\uD83D"},
+                {"key", "߿ࠀ￿\u0080\u007F"},
+                {"key", new String(new char[1000]).replace('\0', '€')}, // longer than the initial buffer
+        };
+        for (String[] c : cases) {
+            assertEquals(hexBucket(c[0], c[1]), PercentageBucket.of(c[0], c[1]));
+        }
+    }
+
+    private static String randomString(Random random, int kind) {
+        int length = random.nextInt(40);
+        StringBuilder builder = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            switch (kind) {
+                case 0:
+                    // ascii identifiers and emails
+                    builder.append((char) (0x20 + random.nextInt(0x5F)));
+                    break;
+                case 1:
+                    // numeric ids
+                    builder.append((char) ('0' + random.nextInt(10)));
+                    break;
+                case 2:
+                    // any code point, including supplementary ones
+                    builder.appendCodePoint(random.nextInt(Character.MAX_CODE_POINT + 1));
+                    break;
+                default:
+                    // any char, including unpaired surrogates
+                    builder.append((char) random.nextInt(Character.MAX_VALUE + 1));
+                    break;
+            }
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,137 @@
+package com.configcat;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SaltedHashCacheTest {
+    private static final String CONFIG_SALT = "configSalt";
+    private static final String CONTEXT_SALT = "flagKey";
+
+    @Test
+    void hashMatchesUncachedValue() {
+        SaltedHashCache cache = new SaltedHashCache(10);
+
+        assertEquals(RolloutEvaluator.getSaltedUserValue("john@example.com", CONFIG_SALT, CONTEXT_SALT), hash(cache, "john@example.com", CONFIG_SALT, CONTEXT_SALT).toHex());
+        assertEquals(RolloutEvaluator.getSaltedUserValue("john@example.com", CONFIG_SALT, CONTEXT_SALT), hash(cache, "john@example.com", CONFIG_SALT, CONTEXT_SALT).toHex());
+        assertEquals(1, cache.metrics().missCount());
+        assertEquals(1, cache.metrics().hitCount());
+    }
+
+    @Test
+    void hashSliceMatchesUncachedValue() {
+        SaltedHashCache cache = new SaltedHashCache(10);
+        String userValue = "Ŝ_john@example.com";
+        byte[] userValueUTF8 = userValue.getBytes(StandardCharsets.UTF_8);
+
+        String prefix = RolloutEvaluator.getSaltedUserValueSlice(Arrays.copyOfRange(userValueUTF8, 0, 5), CONFIG_SALT, CONTEXT_SALT);
+        String suffix = RolloutEvaluator.getSaltedUserValueSlice(Arrays.copyOfRange(userValueUTF8, userValueUTF8.length - 5, userValueUTF8.length), CONFIG_SALT, CONTEXT_SALT);
+
+        assertEquals(prefix, cache.hashSlice(userValue, userValueUTF8, 5, true, CONFIG_SALT, utf8(CONFIG_SALT), CONTEXT_SALT, utf8(CONTEXT_SALT)).toHex());
+        assertEquals(suffix, cache.hashSlice(userValue, userValueUTF8, 5, false, CONFIG_SALT, utf8(CONFIG_SALT), CONTEXT_SALT, utf8(CONTEXT_SALT)).toHex());
+        assertEquals(prefix, cache.hashSlice(userValue, userValueUTF8, 5, true, CONFIG_SALT, utf8(CONFIG_SALT), CONTEXT_SALT, utf8(CONTEXT_SALT)).toHex());
+        assertEquals(2, cache.metrics().missCount());
+        assertEquals(1, cache.metrics().hitCount());
+    }
+
+    @Test
+    void contextSaltIsPartOfTheKey() {
+        SaltedHashCache cache = new SaltedHashCache(10);
+
+        hash(cache, "john@example.com", CONFIG_SALT, "flag1");
+        assertEquals(RolloutEvaluator.getSaltedUserValue("john@example.com", CONFIG_SALT, "flag2"), hash(cache, "john@example.com", CONFIG_SALT, "flag2").toHex());
+        assertEquals(2, cache.metrics().missCount());
+        assertEquals(0, cache.metrics().hitCount());
+    }
+
+    @Test
+    void collidingValuesEvictEachOther() {
+        // a single set of two entries
+        SaltedHashCache cache = new SaltedHashCache(2);
+
+        hash(cache, "a", CONFIG_SALT, CONTEXT_SALT);
+        hash(cache, "b", CONFIG_SALT, CONTEXT_SALT);
+        hash(cache, "c", CONFIG_SALT, CONTEXT_SALT);
+        assertEquals(2, cache.metrics().size());
+
+        hash(cache, "c", CONFIG_SALT, CONTEXT_SALT);
+        assertEquals(1, cache.metrics().hitCount());
+        for (String userValue : Arrays.asList("a", "b", "c")) {
+            assertEquals(RolloutEvaluator.getSaltedUserValue(userValue, CONFIG_SALT, CONTEXT_SALT), hash(cache, userValue, CONFIG_SALT, CONTEXT_SALT).toHex());
+        }
+        assertEquals(2, cache.metrics().size());
+    }
+
+    @Test
+    void equalValuesOfDifferentInstancesHit() {
+        SaltedHashCache cache = new SaltedHashCache(10);
+
+        hash(cache, new String("john@example.com"), CONFIG_SALT, CONTEXT_SALT);
+        hash(cache, new String("john@example.com"), CONFIG_SALT, new String(CONTEXT_SALT));
+        assertEquals(1, cache.metrics().hitCount());
+    }
+
+    @Test
+    void configSaltChangeInvalidates() {
+        SaltedHashCache cache = new SaltedHashCache(10);
+
+        hash(cache, "a", CONFIG_SALT, CONTEXT_SALT);
+        hash(cache, "b", CONFIG_SALT, CONTEXT_SALT);
+        assertEquals(RolloutEvaluator.getSaltedUserValue("a", "newSalt", CONTEXT_SALT), hash(cache, "a", "newSalt", CONTEXT_SALT).toHex());
+        assertEquals(1, cache.metrics().size());
+        assertEquals(3, cache.metrics().missCount());
+    }
+
+    @Test
+    void keepsTheMaxSize() {
+        SaltedHashCache cache = new SaltedHashCache(64);
+
+        for (int i = 0; i < 1000; i++) {
+            hash(cache, "user" + i, CONFIG_SALT, CONTEXT_SALT);
+        }
+        assertTrue(cache.metrics().size() <= 64);
+        assertEquals(1000, cache.metrics().missCount());
+    }
+
+    @Test
+    void concurrentHashesMatchUncachedValues() throws Exception {
+        SaltedHashCache cache = new SaltedHashCache(SaltedHashCache.DEFAULT_MAX_SIZE);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 500; i++) {
+                        String userValue = "user" + (i % 50);
+                        assertEquals(RolloutEvaluator.getSaltedUserValue(userValue, CONFIG_SALT, CONTEXT_SALT),
+                                hash(cache, userValue, CONFIG_SALT, CONTEXT_SALT).toHex());
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(2000, cache.metrics().hitCount() + cache.metrics().missCount());
+        assertTrue(cache.metrics().hitCount() >= 2000 - 4 * 50);
+    }
+
+    private static Sha256Hash hash(SaltedHashCache cache, String userValue, String configSalt, String contextSalt) {
+        return cache.hash(userValue, configSalt, utf8(configSalt), contextSalt, utf8(contextSalt));
+    }
+
+    private static byte[] utf8(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,61 @@
+package com.configcat;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class Sha256HashTest {
+    @Test
+    void saltedValueMatchesHexDigest() {
+        String[] values = {"", "john@example.com", "Ŝ_😀_ünicode", "12345"};
+        for (String value : values) {
+            String expected = Utils.sha256(value + "configSalt" + "flagKey");
+            Sha256Hash hash = Sha256Hash.ofSaltedValue(value, utf8("configSalt"), utf8("flagKey"));
+
+            assertEquals(expected, hash.toHex());
+            assertEquals(Sha256Hash.fromHex(expected), hash);
+            assertEquals(Sha256Hash.fromHex(expected).hashCode(), hash.hashCode());
+        }
+    }
+
+    @Test
+    void saltedSliceMatchesHexDigest() {
+        byte[] userValueUTF8 = "prefix_john@example.com".getBytes(StandardCharsets.UTF_8);
+
+        assertEquals(Utils.sha256("prefix_configSaltflagKey"), Sha256Hash.ofSaltedSlice(userValueUTF8, 0, 7, utf8("configSalt"), utf8("flagKey")).toHex());
+        assertEquals(Utils.sha256("example.comconfigSaltflagKey"), Sha256Hash.ofSaltedSlice(userValueUTF8, 12, 11, utf8("configSalt"), utf8("flagKey")).toHex());
+    }
+
+    @Test
+    void onlyLowercaseDigestsAreDecoded() {
+        String hex = Utils.sha256("value");
+
+        assertEquals(hex, Sha256Hash.fromHex(hex).toHex());
+        assertNull(Sha256Hash.fromHex(hex.toUpperCase()));
+        assertNull(Sha256Hash.fromHex(hex.substring(1)));
+        assertNull(Sha256Hash.fromHex(hex + "0"));
+        assertNull(Sha256Hash.fromHex(hex.substring(1) + "g"));
+        assertNull(Sha256Hash.fromHex(hex.substring(1) + "٣"));
+        assertNull(Sha256Hash.fromHex(null));
+    }
+
+    @Test
+    void equalsHexMatchesDecodedDigest() {
+        String hex = Utils.sha256("value");
+        Sha256Hash hash = Sha256Hash.fromHex(hex);
+
+        assertTrue(hash.equalsHex(hex));
+        assertFalse(hash.equalsHex(Utils.sha256("other")));
+        assertFalse(hash.equalsHex(hex.substring(0, 63) + (hex.charAt(63) == '0' ? '1' : '0')));
+        assertFalse(hash.equalsHex(hex.toUpperCase()));
+        assertFalse(hash.equalsHex(hex.substring(1)));
+        assertFalse(hash.equalsHex(hex + "0"));
+        assertFalse(hash.equalsHex(null));
+    }
+
+    private static byte[] utf8(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
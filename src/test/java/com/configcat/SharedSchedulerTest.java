@@ -0,0 +1,110 @@
+package com.configcat;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SharedSchedulerTest {
+    private static final String TEST_JSON = "{ p: { s: 'test-salt'}, f: { fakeKey: { v: { s: %s }, t: 1, p: [], r: [] } } }";
+    private MockWebServer server;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        this.server = new MockWebServer();
+        this.server.start();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        ConfigCatClient.closeAll();
+        this.server.shutdown();
+    }
+
+    @Test
+    void threadCountDoesNotGrowWithClients() throws Exception {
+        List<ConfigCatClient> clients = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            this.server.enqueue(new MockResponse().setResponseCode(200).setBody(String.format(TEST_JSON, "test")));
+            clients.add(ConfigCatClient.get(String.format("configcat-sdk-1/TEST_KEY-0123456789012/12345678901234567890%02d", i), options -> {
+                options.pollingMode(PollingModes.autoPoll(60));
+                options.baseUrl(this.server.url("/").toString());
+            }));
+        }
+        for (ConfigCatClient client : clients) {
+            assertEquals("test", client.getValue(String.class, "fakeKey", ""));
+        }
+
+        // the HTTP threads only live while the requests are in flight
+        assertTrue(countThreads("configcat-scheduler-") + countThreads("configcat-io-") <= SharedScheduler.SCHEDULER_THREAD_COUNT + SharedScheduler.IO_THREAD_COUNT);
+    }
+
+    @Test
+    void initWaitTimeoutFiresWhileTheIoExecutorIsBusy() throws Exception {
+        this.server.enqueue(new MockResponse().setResponseCode(200).setBody(String.format(TEST_JSON, "test")).setBodyDelay(3, TimeUnit.SECONDS));
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch busy = new CountDownLatch(SharedScheduler.IO_THREAD_COUNT);
+        for (int i = 0; i < SharedScheduler.IO_THREAD_COUNT; i++) {
+            SharedScheduler.io().execute(() -> {
+                busy.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        try {
+            assertTrue(busy.await(5, TimeUnit.SECONDS));
+            ConfigCatClient client = ConfigCatClient.get(Helpers.SDK_KEY, options -> {
+                options.pollingMode(PollingModes.autoPoll(60, 1));
+                options.baseUrl(this.server.url("/").toString());
+            });
+
+            long start = System.currentTimeMillis();
+            assertEquals("", client.getValue(String.class, "fakeKey", ""));
+            assertTrue(System.currentTimeMillis() - start < 2000);
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    void customScheduler() throws Exception {
+        this.server.enqueue(new MockResponse().setResponseCode(200).setBody(String.format(TEST_JSON, "test")));
+        ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1);
+
+        ConfigCatClient client = ConfigCatClient.get(Helpers.SDK_KEY, options -> {
+            options.pollingMode(PollingModes.autoPoll(60));
+            options.baseUrl(this.server.url("/").toString());
+            options.scheduler(scheduler);
+        });
+        assertEquals("test", client.getValue(String.class, "fakeKey", ""));
+        assertTrue(scheduler.getCompletedTaskCount() > 0);
+        client.close();
+
+        // the client doesn't shut down the given scheduler
+        assertFalse(scheduler.isShutdown());
+        scheduler.shutdown();
+    }
+
+    private static int countThreads(String namePrefix) {
+        int count = 0;
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.getName().startsWith(namePrefix)) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -1,6 +1,7 @@
 package com.configcat;
 
 import java.util.HashMap;
+import java.util.concurrent.CountDownLatch;
 
 class FailingCache extends ConfigCache {
 
@@ -50,3 +51,105 @@ class InMemoryCache extends ConfigCache {
         return map;
     }
 }
+
+class BinaryInMemoryCache extends ConfigCache {
+    String textValue;
+    byte[] binaryValue;
+
+    BinaryInMemoryCache(String textValue) {
+        this.textValue = textValue;
+    }
+
+    @Override
+    protected String read(String key) {
+        return textValue;
+    }
+
+    @Override
+    protected void write(String key, String value) {
+        this.textValue = value;
+    }
+
+    @Override
+    protected boolean isBinaryFormatSupported() {
+        return true;
+    }
+
+    @Override
+    protected byte[] readBinary(String key) {
+        return binaryValue;
+    }
+
+    @Override
+    protected void writeBinary(String key, byte[] value) {
+        this.binaryValue = value;
+    }
+}
+
+class StampedInMemoryCache extends ConfigCache {
+    String value;
+    long stamp;
+    int readCount;
+
+    StampedInMemoryCache(String value) {
+        this.value = value;
+    }
+
+    @Override
+    protected String read(String key) {
+        readCount++;
+        return value;
+    }
+
+    @Override
+    protected void write(String key, String value) {
+        this.value = value;
+        stamp++;
+    }
+
+    @Override
+    protected long readStamp(String key) {
+        return stamp;
+    }
+}
+
+class BlockingCache extends ConfigCache {
+    final CountDownLatch writeStarted = new CountDownLatch(1);
+    final CountDownLatch releaseWrites = new CountDownLatch(1);
+    volatile String value;
+
+    @Override
+    protected String read(String key) {
+        return value;
+    }
+
+    @Override
+    protected void write(String key, String value) throws Exception {
+        writeStarted.countDown();
+        releaseWrites.await();
+        this.value = value;
+    }
+}
+
+class TextOnlyBinaryCache extends ConfigCache {
+    String textValue;
+
+    TextOnlyBinaryCache(String textValue) {
+        this.textValue = textValue;
+    }
+
+    @Override
+    protected String read(String key) {
+        return textValue;
+    }
+
+    @Override
+    protected void write(String key, String value) {
+        this.textValue = value;
+    }
+
+    @Override
+    protected boolean isBinaryFormatSupported() {
+        return true;
+    }
+}
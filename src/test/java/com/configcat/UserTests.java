@@ -1,7 +1,13 @@
 package com.configcat;
 
+import de.skuzzle.semantic.Version;
 import org.junit.jupiter.api.Test;
 
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class UserTests {
@@ -34,4 +40,56 @@ class UserTests {
         assertNotEquals(country, user.getAttribute("COUNTRY"));
         assertNotEquals(country, user.getAttribute("country"));
     }
+
+    @Test
+    void attributeConversionsAreCached() {
+        Map<String, Object> custom = new HashMap<>();
+        custom.put("Version", " 1.2.3 ");
+        custom.put("Number", "1,5");
+        custom.put("Date", new Date(1680307200500L));
+        custom.put("Array", "[\"a\",\"b\"]");
+        custom.put("List", Arrays.asList("a", "b"));
+        custom.put("Int", 12);
+        User user = User.newBuilder().custom(custom).build("id");
+
+        Version version = user.attribute("Version").asVersion();
+        assertEquals(Version.parseVersion("1.2.3", true), version);
+        assertSame(version, user.attribute("Version").asVersion());
+        assertEquals(1.5, user.attribute("Number").asDouble());
+        assertEquals(1680307200.5, user.attribute("Date").asUnixSeconds());
+        String[] array = user.attribute("Array").asStringArray();
+        assertArrayEquals(new String[]{"a", "b"}, array);
+        assertSame(array, user.attribute("Array").asStringArray());
+        assertArrayEquals(new String[]{"a", "b"}, user.attribute("List").asStringArray());
+        assertEquals("12", user.attribute("Int").asString());
+        assertEquals(12.0, user.attribute("Int").asDouble());
+        assertNull(user.attribute("Missing"));
+    }
+
+    @Test
+    void invalidAttributeConversions() {
+        Map<String, Object> custom = new HashMap<>();
+        custom.put("Text", "not-a-value");
+        custom.put("Int", 12);
+        custom.put("NullElement", Arrays.asList("a", null));
+        User user = User.newBuilder().custom(custom).build("id");
+
+        assertNull(user.attribute("Text").asVersion());
+        assertNull(user.attribute("Text").asDouble());
+        assertNull(user.attribute("Text").asUnixSeconds());
+        assertNull(user.attribute("Text").asStringArray());
+        assertNull(user.attribute("Int").asVersion());
+        assertNull(user.attribute("Int").asStringArray());
+        assertNull(user.attribute("NullElement").asStringArray());
+    }
+
+    @Test
+    void toStringKeepsAttributeOrder() {
+        Map<String, Object> custom = new HashMap<>();
+        custom.put("b", "2");
+        custom.put("a", "1");
+        User user = User.newBuilder().email("e@e.com").country("c").custom(custom).build("id");
+
+        assertEquals("{\"Identifier\":\"id\",\"Email\":\"e@e.com\",\"Country\":\"c\",\"a\":\"1\",\"b\":\"2\"}", user.toString());
+    }
 }